@@ -0,0 +1,192 @@
+package geometries;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import primitives.Point;
+import primitives.Ray;
+import primitives.RayPacket;
+import primitives.Vector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the intersection of a ray with the geometric entities
+ * and of scanning a composite of many geometries.<br/>
+ * Every call uses the next ray of a fixed set of random rays towards the geometries,
+ * so both hits and misses are measured
+ *
+ * @author Sarah Daatyah Furmanski and Efrat Kartman
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntersectionBenchmark {
+    /**
+     * amount of the rays (power of 2)
+     */
+    private static final int RAYS = 1024;
+    /**
+     * amount of the packets of coherent rays (power of 2)
+     */
+    private static final int PACKETS = 64;
+    /**
+     * amount of the rays of a packet - a beam of 8x8 rays
+     */
+    private static final int PACKET_SIZE = 64;
+    /**
+     * amount of the geometries in the composite
+     */
+    @Param({"1000"})
+    public int amount;
+
+    private Ray[] rays;
+    private int next = 0;
+    private RayPacket[] packets;
+    private int nextPacket = 0;
+
+    private Sphere sphere;
+    private Triangle triangle;
+    private Polygon polygon;
+    private Tube tube;
+    private Cylinder cylinder;
+    private Geometries geometries;
+    private BVH bvh;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+        rays = new Ray[RAYS];
+        // rays from the camera position towards the square [-2,2]x[-2,2] around the geometries
+        for (int i = 0; i < RAYS; ++i)
+            rays[i] = new Ray(new Point(0, 0, 10),
+                    new Vector(random.nextDouble() * 4 - 2, random.nextDouble() * 4 - 2, -10));
+
+        // beams of 8x8 rays from the camera position, each beam through a small square
+        packets = new RayPacket[PACKETS];
+        for (int i = 0; i < PACKETS; ++i) {
+            double x = random.nextDouble() * 4 - 2;
+            double y = random.nextDouble() * 4 - 2;
+            List<Ray> beam = new ArrayList<>(PACKET_SIZE);
+            for (int j = 0; j < PACKET_SIZE; ++j)
+                beam.add(new Ray(new Point(0, 0, 10), new Vector(x + j % 8 * 0.01, y + j / 8 * 0.01, -10)));
+            packets[i] = new RayPacket(beam);
+        }
+
+        sphere = new Sphere(1, Point.ZERO);
+        triangle = new Triangle(new Point(-1, -1, 0), new Point(1, -1, 0), new Point(0, 1, 0));
+        polygon = new Polygon(new Point(-1, -1, 0), new Point(1, -1, 0), new Point(1, 1, 0), new Point(-1, 1, 0));
+        tube = new Tube(1, new Ray(Point.ZERO, new Vector(0, 1, 0)));
+        cylinder = new Cylinder(1, new Ray(new Point(0, -1, 0), new Vector(0, 1, 0)), 2);
+
+        // small spheres and triangles scattered in the box [-2,2]x[-2,2]x[-2,2]
+        geometries = new Geometries();
+        for (int i = 0; i < amount; ++i) {
+            Point p = new Point(random.nextDouble() * 4 - 2, random.nextDouble() * 4 - 2, random.nextDouble() * 4 - 2);
+            if (i % 3 == 0)
+                geometries.add(new Sphere(random.nextDouble() * 0.05 + 0.01, p));
+            else
+                geometries.add(new Triangle(p,
+                        p.add(new Vector(random.nextDouble() * 0.1 + 0.02, 0, random.nextDouble() * 0.02)),
+                        p.add(new Vector(0, random.nextDouble() * 0.1 + 0.02, random.nextDouble() * 0.02))));
+        }
+        bvh = new BVH(geometries);
+    }
+
+    /**
+     * @return the next ray of the rays set
+     */
+    private Ray nextRay() {
+        return rays[next++ & (RAYS - 1)];
+    }
+
+    /**
+     * @return the next packet of the packets set
+     */
+    private RayPacket nextPacket() {
+        return packets[nextPacket++ & (PACKETS - 1)];
+    }
+
+    @Benchmark
+    public Object sphere() {
+        return sphere.findGeoIntersections(nextRay());
+    }
+
+    @Benchmark
+    public Object sphereClosest() {
+        return sphere.findClosestIntersection(nextRay());
+    }
+
+    @Benchmark
+    public Object triangle() {
+        return triangle.findGeoIntersections(nextRay());
+    }
+
+    @Benchmark
+    public Object triangleClosest() {
+        return triangle.findClosestIntersection(nextRay());
+    }
+
+    @Benchmark
+    public Object polygon() {
+        return polygon.findGeoIntersections(nextRay());
+    }
+
+    @Benchmark
+    public Object tube() {
+        return tube.findGeoIntersections(nextRay());
+    }
+
+    @Benchmark
+    public Object cylinder() {
+        return cylinder.findGeoIntersections(nextRay());
+    }
+
+    @Benchmark
+    public Object geometriesScan() {
+        return geometries.findGeoIntersections(nextRay());
+    }
+
+    @Benchmark
+    public Object geometriesClosest() {
+        return geometries.findClosestIntersection(nextRay());
+    }
+
+    @Benchmark
+    public Object bvhClosest() {
+        return bvh.findClosestIntersection(nextRay());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PACKET_SIZE)
+    public void bvhBeam(Blackhole blackhole) {
+        RayPacket packet = nextPacket();
+        for (int lane = 0; lane < PACKET_SIZE; ++lane)
+            blackhole.consume(bvh.findClosestIntersection(packet.getRay(lane)));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PACKET_SIZE)
+    public Object bvhPacket() {
+        return bvh.findClosestIntersections(nextPacket());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PACKET_SIZE)
+    public void sphereBeam(Blackhole blackhole) {
+        RayPacket packet = nextPacket();
+        for (int lane = 0; lane < PACKET_SIZE; ++lane)
+            blackhole.consume(sphere.findClosestIntersection(packet.getRay(lane)));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PACKET_SIZE)
+    public Object spherePacket() {
+        return sphere.findClosestIntersections(nextPacket());
+    }
+}
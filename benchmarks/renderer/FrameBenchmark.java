@@ -0,0 +1,71 @@
+package renderer;
+
+import org.openjdk.jmh.annotations.*;
+import primitives.Point;
+import primitives.Vector;
+import scene.Scene;
+import special.TeapotTest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end frame time benchmarks - rendering the whole image of the scenes of
+ * {@link TeapotTest} and {@link FinalImageTest} with their cameras.<br/>
+ * The images are rendered without the anti-aliasing of the tests (the time of one frame only)
+ * and are not written to files
+ *
+ * @author Sarah Daatyah Furmanski and Efrat Kartman
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class FrameBenchmark {
+    /**
+     * the rendered scene - "teapot", "teapotMesh" (the teapot as a single mesh) or "wisCup"
+     */
+    @Param({"teapot", "teapotMesh", "wisCup"})
+    public String scene;
+    /**
+     * the ray tracer - "basic" or "bvh"
+     */
+    @Param({"bvh", "basic"})
+    public String tracer;
+    /**
+     * the image resolution (in both axes)
+     */
+    @Param({"400"})
+    public int resolution;
+    /**
+     * amount of rendering threads, 0 for rendering in the benchmark thread
+     */
+    @Param({"0"})
+    public int threads;
+
+    private Camera camera;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Scene scene;
+        if (this.scene.startsWith("teapot")) {
+            scene = this.scene.equals("teapot") ? TeapotTest.teapotScene() : TeapotTest.teapotMeshScene();
+            camera = new Camera(new Point(0, 0, -1000), new Vector(0, 0, 1), new Vector(0, 1, 0))
+                    .setViewPlaneDistance(1000).setViewPlaneSize(200, 200);
+        } else {
+            scene = new FinalImageTest().wisCupScene();
+            camera = new Camera(new Point(-3.6, -14.39, 0), new Vector(0, 0, -1), new Vector(0, 1, 0))
+                    .moveCamera(new Point(80, 20, 300), new Point(0, -40, -40))
+                    .setViewPlaneSize(700, 700).setViewPlaneDistance(700);
+        }
+        camera.setImageWriter(new ImageWriter(this.scene + " benchmark", resolution, resolution))
+                .setRayTracer(tracer.equals("bvh") ? new RayTracerBVH(scene) : new RayTracerBasic(scene));
+        if (threads > 0) camera.setMultithreading(threads, 16);
+    }
+
+    @Benchmark
+    public Camera renderFrame() {
+        return camera.renderImage();
+    }
+}
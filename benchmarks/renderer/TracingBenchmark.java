@@ -0,0 +1,110 @@
+package renderer;
+
+import geometries.Sphere;
+import geometries.Triangle;
+import lighting.DirectionalLight;
+import lighting.PointLight;
+import org.openjdk.jmh.annotations.*;
+import primitives.*;
+import scene.Scene;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the per pixel work of the renderer - constructing the camera rays,
+ * the regular grid traversal and tracing a whole pixel color.<br/>
+ * The scene is a box of random small spheres and triangles, every call uses the next pixel of the view plane
+ *
+ * @author Sarah Daatyah Furmanski and Efrat Kartman
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TracingBenchmark {
+    /**
+     * the view plane resolution (in both axes)
+     */
+    private static final int RESOLUTION = 128;
+    /**
+     * amount of the geometries in the scene
+     */
+    @Param({"2000"})
+    public int amount;
+
+    private Camera camera;
+    private Ray[] rays;
+    private RayTracerRegular regular;
+    private RayTracerBasic basic;
+    private RayTracerBVH bvh;
+    private int next = 0;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(3);
+        Scene scene = new Scene("Benchmark scene");
+        Material material = new Material().setKd(0.5).setKs(0.3).setShininess(20);
+        for (int i = 0; i < amount; ++i) {
+            Point p = new Point(random.nextDouble() * 100 - 50, random.nextDouble() * 100 - 50, random.nextDouble() * 100 - 50);
+            if (i % 5 == 0)
+                scene.geometries.add(new Sphere(random.nextDouble() * 3 + 0.5, p)
+                        .setEmission(new Color(30, 10, 60)).setMaterial(material));
+            else
+                scene.geometries.add(new Triangle(p,
+                        p.add(new Vector(random.nextDouble() * 4 + 1, 0, random.nextDouble())),
+                        p.add(new Vector(0, random.nextDouble() * 4 + 1, random.nextDouble())))
+                        .setEmission(new Color(60, 30, 10)).setMaterial(material));
+        }
+        scene.lights.add(new PointLight(new Color(500, 400, 300), new Point(0, 100, 150)).setKq(0.00001));
+        scene.lights.add(new DirectionalLight(new Color(100, 100, 100), new Vector(1, -1, -1)));
+
+        camera = new Camera(new Point(0, 0, 300), new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setViewPlaneSize(150, 150).setViewPlaneDistance(300);
+        rays = new Ray[RESOLUTION * RESOLUTION];
+        for (int i = 0; i < RESOLUTION; ++i)
+            for (int j = 0; j < RESOLUTION; ++j)
+                rays[i * RESOLUTION + j] = camera.constructRay(RESOLUTION, RESOLUTION, j, i);
+
+        basic = new RayTracerBasic(scene);
+        bvh = new RayTracerBVH(scene);
+        regular = new RayTracerRegular(scene);
+    }
+
+    /**
+     * @return the index of the next pixel
+     */
+    private int nextPixel() {
+        int pixel = next;
+        next = (next + 1) % (RESOLUTION * RESOLUTION);
+        return pixel;
+    }
+
+    @Benchmark
+    public Ray constructRay() {
+        int pixel = nextPixel();
+        return camera.constructRay(RESOLUTION, RESOLUTION, pixel % RESOLUTION, pixel / RESOLUTION);
+    }
+
+    @Benchmark
+    public Object regularTraversal() {
+        return regular.traversalAlgorithm(rays[nextPixel()]);
+    }
+
+    @Benchmark
+    public Color regularTraceRay() {
+        return regular.traceRay(rays[nextPixel()]);
+    }
+
+    @Benchmark
+    public Color bvhTraceRay() {
+        return bvh.traceRay(rays[nextPixel()]);
+    }
+
+    @Benchmark
+    public Color basicTraceRay() {
+        return basic.traceRay(rays[nextPixel()]);
+    }
+}
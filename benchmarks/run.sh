@@ -0,0 +1,28 @@
+#!/bin/sh
+# Compiles the project with the JMH benchmarks and runs them, all the arguments are passed to JMH, e.g.:
+#   benchmarks/run.sh IntersectionBenchmark
+#   benchmarks/run.sh FrameBenchmark -p scene=teapot -p resolution=800
+#   benchmarks/run.sh -rf json -rff benchmarks.json
+# The JMH jars are downloaded from Maven Central into lib/jmh on the first run
+set -e
+cd "$(dirname "$0")/.."
+
+JMH_VERSION=1.37
+DEPENDENCIES=lib/jmh
+mkdir -p "$DEPENDENCIES"
+for artifact in \
+    org/openjdk/jmh/jmh-core/$JMH_VERSION/jmh-core-$JMH_VERSION.jar \
+    org/openjdk/jmh/jmh-generator-annprocess/$JMH_VERSION/jmh-generator-annprocess-$JMH_VERSION.jar \
+    net/sf/jopt-simple/jopt-simple/5.0.4/jopt-simple-5.0.4.jar \
+    org/apache/commons/commons-math3/3.6.1/commons-math3-3.6.1.jar; do
+  jar="$DEPENDENCIES/$(basename "$artifact")"
+  [ -f "$jar" ] || curl -sSfL -o "$jar" "https://repo1.maven.org/maven2/$artifact"
+done
+
+CLASSPATH=$(ls lib/*.jar "$DEPENDENCIES"/*.jar | tr '\n' ':')
+OUTPUT=out/benchmarks
+rm -rf "$OUTPUT"
+mkdir -p "$OUTPUT"
+# the benchmarks use scenes of the tests, therefore the tests are compiled as well
+javac -encoding UTF-8 -nowarn -d "$OUTPUT" -cp "$CLASSPATH" $(find src unittests benchmarks -name '*.java')
+java -cp "$OUTPUT:$CLASSPATH" org.openjdk.jmh.Main "$@"
@@ -0,0 +1,783 @@
+package geometries;
+
+import primitives.Double3;
+import primitives.AABB;
+import primitives.Point;
+import primitives.Ray;
+import primitives.RayPacket;
+import primitives.Vector;
+
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Bounding volume hierarchy (BVH) - an acceleration structure over a group of geometric entities.<br/>
+ * The hierarchy is a binary tree of axis aligned boxes, built top-down by choosing on every node
+ * the split with the lowest surface area heuristic (SAH) cost. A ray visits only the nodes whose
+ * box it intersects, so a query costs about log(n) intersection tests instead of n.<br/>
+ * Infinite geometric entities (with no boundary) can't be bounded by a box,
+ * therefore they are kept aside and tested separately on every query.
+ *
+ * @author Sarah Daatyah Furmanski and Efrat Kartman
+ */
+public class BVH extends Intersectable {
+    /**
+     * number of bins (split candidates) on each axis for evaluating the SAH
+     */
+    private static final int BINS = 16;
+    /**
+     * the amount of geometries in a node that is always left as a leaf
+     */
+    private static final int MIN_LEAF_SIZE = 2;
+    /**
+     * the amount of geometries in a node that is always split, even when the SAH finds no profitable split
+     */
+    private static final int MAX_LEAF_SIZE = 8;
+    /**
+     * the cost of traversing a node relative to the cost of an intersection test with a geometry
+     */
+    private static final double TRAVERSAL_COST = 0.125;
+
+    /**
+     * Node of the hierarchy - either an inner node with two children or a leaf with a range of geometries
+     */
+    private static class Node {
+        /**
+         * minimum coordinates of the node box
+         */
+        final double[] min = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY};
+        /**
+         * maximum coordinates of the node box
+         */
+        final double[] max = {Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        /**
+         * children of an inner node (null in a leaf)
+         */
+        Node left, right;
+        /**
+         * first index and amount of the geometries of a leaf
+         */
+        int first, count;
+
+        boolean isLeaf() {
+            return left == null;
+        }
+    }
+
+    /**
+     * bounded geometries, ordered such that every leaf holds a continuous range
+     */
+    private final Intersectable[] bounded;
+    /**
+     * minimum coordinates of the boxes of the bounded geometries, indexed [axis][geometry]
+     */
+    private final double[][] mins;
+    /**
+     * maximum coordinates of the boxes of the bounded geometries, indexed [axis][geometry]
+     */
+    private final double[][] maxs;
+    /**
+     * geometries with no boundary, tested on every query
+     */
+    private final Intersectable[] unbounded;
+    /**
+     * root of the hierarchy, null if there are no bounded geometries
+     */
+    private final Node root;
+    /**
+     * the amount of levels of the hierarchy
+     */
+    private final int depth;
+
+    /**
+     * Constructor - builds the hierarchy over the geometric entities.
+     * Composite entities (Geometries) are flattened, so the hierarchy is built over the single geometries.
+     *
+     * @param geometries the geometric entities
+     */
+    public BVH(Intersectable... geometries) {
+        List<Intersectable> boundedList = new LinkedList<>();
+        List<Intersectable> unboundedList = new LinkedList<>();
+        for (Intersectable geometry : geometries)
+            flatten(geometry, boundedList, unboundedList);
+
+        bounded = boundedList.toArray(new Intersectable[0]);
+        unbounded = unboundedList.toArray(new Intersectable[0]);
+        mins = new double[3][bounded.length];
+        maxs = new double[3][bounded.length];
+        for (int i = 0; i < bounded.length; ++i) {
+            AABB boundary = bounded[i].getBoundary();
+            for (int axis = 0; axis < 3; ++axis) {
+                mins[axis][i] = boundary.getMin(axis);
+                maxs[axis][i] = boundary.getMax(axis);
+            }
+        }
+        root = bounded.length == 0 ? null : build(0, bounded.length);
+        depth = depth(root);
+    }
+
+    /**
+     * @param node root of a sub-tree (may be null)
+     * @return the amount of levels of the sub-tree
+     */
+    private static int depth(Node node) {
+        return node == null ? 0 : node.isLeaf() ? 1 : 1 + Math.max(depth(node.left), depth(node.right));
+    }
+
+    /**
+     * adds the geometry (or the geometries it is composed of) to the appropriate list
+     *
+     * @param geometry      the geometric entity
+     * @param boundedList   list of geometries with a finite boundary
+     * @param unboundedList list of infinite geometries
+     */
+    private static void flatten(Intersectable geometry, List<Intersectable> boundedList, List<Intersectable> unboundedList) {
+        if (geometry instanceof Geometries composite) {
+            for (Intersectable item : composite.getGeometries())
+                flatten(item, boundedList, unboundedList);
+        } else if (geometry.getBoundary() == null)
+            unboundedList.add(geometry);
+        else
+            boundedList.add(geometry);
+    }
+
+    //region build
+
+    /**
+     * builds a sub-tree of the hierarchy over a range of the bounded geometries
+     *
+     * @param first index of the first geometry in the range
+     * @param count amount of geometries in the range
+     * @return the root of the sub-tree
+     */
+    private Node build(int first, int count) {
+        Node node = new Node();
+        node.first = first;
+        node.count = count;
+        double[] centroidMin = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY};
+        double[] centroidMax = {Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        for (int i = first; i < first + count; ++i)
+            for (int axis = 0; axis < 3; ++axis) {
+                node.min[axis] = Math.min(node.min[axis], mins[axis][i]);
+                node.max[axis] = Math.max(node.max[axis], maxs[axis][i]);
+                double centroid = centroid(axis, i);
+                centroidMin[axis] = Math.min(centroidMin[axis], centroid);
+                centroidMax[axis] = Math.max(centroidMax[axis], centroid);
+            }
+        if (count <= MIN_LEAF_SIZE)
+            return node;
+
+        //find the split with the lowest cost: the cost of a leaf is the amount of its geometries
+        int bestAxis = -1;
+        int bestBin = 0;
+        double bestCost = Double.POSITIVE_INFINITY;
+        double nodeArea = area(node.min, node.max);
+        for (int axis = 0; axis < 3; ++axis) {
+            double extent = centroidMax[axis] - centroidMin[axis];
+            if (extent <= 0) continue; //all the centroids are on the same coordinate
+            int[] binCounts = new int[BINS];
+            double[][] binMin = new double[BINS][];
+            double[][] binMax = new double[BINS][];
+            for (int i = first; i < first + count; ++i) {
+                int bin = bin(centroid(axis, i), centroidMin[axis], extent);
+                ++binCounts[bin];
+                binMin[bin] = expand(binMin[bin], i, true);
+                binMax[bin] = expand(binMax[bin], i, false);
+            }
+            //sweep from the right to accumulate the area of every right side
+            double[] rightAreas = new double[BINS];
+            double[] sweepMin = null;
+            double[] sweepMax = null;
+            for (int bin = BINS - 1; bin > 0; --bin) {
+                sweepMin = merge(sweepMin, binMin[bin], true);
+                sweepMax = merge(sweepMax, binMax[bin], false);
+                rightAreas[bin] = sweepMin == null ? 0 : area(sweepMin, sweepMax);
+            }
+            //sweep from the left and evaluate the cost of splitting before every bin
+            sweepMin = null;
+            sweepMax = null;
+            int leftCount = 0;
+            for (int bin = 1; bin < BINS; ++bin) {
+                sweepMin = merge(sweepMin, binMin[bin - 1], true);
+                sweepMax = merge(sweepMax, binMax[bin - 1], false);
+                leftCount += binCounts[bin - 1];
+                if (leftCount == 0 || leftCount == count) continue;
+                double leftArea = area(sweepMin, sweepMax);
+                double cost = TRAVERSAL_COST
+                        + (leftArea * leftCount + rightAreas[bin] * (count - leftCount)) / nodeArea;
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestAxis = axis;
+                    bestBin = bin;
+                }
+            }
+        }
+
+        int leftCount;
+        if (bestAxis != -1 && (bestCost < count || count > MAX_LEAF_SIZE)) {
+            double extent = centroidMax[bestAxis] - centroidMin[bestAxis];
+            leftCount = partition(first, count, bestAxis, centroidMin[bestAxis], extent, bestBin);
+        } else if (count > MAX_LEAF_SIZE) {
+            //all the centroids are in the same point - split in the middle of the range
+            leftCount = count / 2;
+        } else
+            return node;
+
+        node.left = build(first, leftCount);
+        node.right = build(first + leftCount, count - leftCount);
+        return node;
+    }
+
+    /**
+     * reorders a range of geometries such that the geometries of the bins before the split bin come first
+     *
+     * @param first       index of the first geometry in the range
+     * @param count       amount of geometries in the range
+     * @param axis        the split axis
+     * @param centroidMin minimal centroid coordinate on the axis
+     * @param extent      extent of the centroids on the axis
+     * @param splitBin    the first bin of the right side
+     * @return the amount of geometries on the left side
+     */
+    private int partition(int first, int count, int axis, double centroidMin, double extent, int splitBin) {
+        int i = first;
+        int j = first + count - 1;
+        while (i <= j) {
+            if (bin(centroid(axis, i), centroidMin, extent) < splitBin)
+                ++i;
+            else
+                swap(i, j--);
+        }
+        return i - first;
+    }
+
+    /**
+     * swaps two geometries with their boxes
+     *
+     * @param i index of the first geometry
+     * @param j index of the second geometry
+     */
+    private void swap(int i, int j) {
+        Intersectable geometry = bounded[i];
+        bounded[i] = bounded[j];
+        bounded[j] = geometry;
+        for (int axis = 0; axis < 3; ++axis) {
+            double temp = mins[axis][i];
+            mins[axis][i] = mins[axis][j];
+            mins[axis][j] = temp;
+            temp = maxs[axis][i];
+            maxs[axis][i] = maxs[axis][j];
+            maxs[axis][j] = temp;
+        }
+    }
+
+    /**
+     * @param axis  the axis
+     * @param index index of a geometry
+     * @return the coordinate of the geometry box center on the axis
+     */
+    private double centroid(int axis, int index) {
+        return (mins[axis][index] + maxs[axis][index]) / 2;
+    }
+
+    /**
+     * @param centroid    centroid coordinate
+     * @param centroidMin minimal centroid coordinate
+     * @param extent      extent of the centroids
+     * @return the bin of the centroid
+     */
+    private static int bin(double centroid, double centroidMin, double extent) {
+        return Math.min(BINS - 1, (int) (BINS * (centroid - centroidMin) / extent));
+    }
+
+    /**
+     * expands a bin box corner to contain the box of a geometry
+     *
+     * @param corner the corner, null for an empty bin
+     * @param index  index of the geometry
+     * @param isMin  true for the minimum corner, false for the maximum corner
+     * @return the expanded corner
+     */
+    private double[] expand(double[] corner, int index, boolean isMin) {
+        double[][] source = isMin ? mins : maxs;
+        if (corner == null)
+            return new double[]{source[0][index], source[1][index], source[2][index]};
+        for (int axis = 0; axis < 3; ++axis)
+            corner[axis] = isMin ? Math.min(corner[axis], source[axis][index]) : Math.max(corner[axis], source[axis][index]);
+        return corner;
+    }
+
+    /**
+     * merges two box corners
+     *
+     * @param corner accumulated corner, null if empty
+     * @param other  the corner to merge, null if empty
+     * @param isMin  true for minimum corners, false for maximum corners
+     * @return the merged corner
+     */
+    private static double[] merge(double[] corner, double[] other, boolean isMin) {
+        if (other == null) return corner;
+        if (corner == null) return other.clone();
+        for (int axis = 0; axis < 3; ++axis)
+            corner[axis] = isMin ? Math.min(corner[axis], other[axis]) : Math.max(corner[axis], other[axis]);
+        return corner;
+    }
+
+    /**
+     * @param min minimum corner of a box
+     * @param max maximum corner of a box
+     * @return the surface area of the box
+     */
+    private static double area(double[] min, double[] max) {
+        double dx = max[0] - min[0];
+        double dy = max[1] - min[1];
+        double dz = max[2] - min[2];
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+    //endregion
+
+    //region queries
+
+    /**
+     * {@inheritDoc}<br/>
+     * The nodes are visited front to back, and a node farther than the closest intersection found so far is skipped.
+     */
+
+    @Override
+    protected GeoPoint findClosestIntersectionHelper(Ray ray, double maxDistance, IntersectionCounter counter) {
+        GeoPoint closest = null;
+        for (Intersectable geometry : unbounded) {
+            countTests(counter, geometry, 1);
+            GeoPoint gp = geometry.findClosestIntersectionHelper(ray, maxDistance, counter);
+            if (gp != null) {
+                closest = gp;
+                maxDistance = ray.getP0().distance(gp.point);
+            }
+        }
+        if (root == null) return closest;
+
+        double[] origin = origin(ray);
+        double[] invDir = invDir(ray);
+        if (intersectBox(root, origin, invDir, maxDistance) == Double.POSITIVE_INFINITY)
+            return closest;
+        GeoPoint gp = findClosest(root, ray, origin, invDir, maxDistance, counter);
+        return gp == null ? closest : gp;
+    }
+
+    /**
+     * finds the closest intersection in a sub-tree which is closer than a given distance
+     *
+     * @param node     root of the sub-tree (its box is known to be intersected)
+     * @param ray      the ray
+     * @param origin   coordinates of the ray head
+     * @param invDir   inverse of the ray direction coordinates
+     * @param distance the distance of the closest intersection found so far
+     * @param counter  the counter of the intersection tests, null for not counting them
+     * @return the closest intersection in the sub-tree, null if there is none closer than the distance
+     */
+    private GeoPoint findClosest(Node node, Ray ray, double[] origin, double[] invDir, double distance,
+                                 IntersectionCounter counter) {
+        if (node.isLeaf()) {
+            GeoPoint closest = null;
+            for (int i = node.first; i < node.first + node.count; ++i) {
+                countTests(counter, bounded[i], 1);
+                GeoPoint gp = bounded[i].findClosestIntersectionHelper(ray, distance, counter);
+                if (gp != null) {
+                    closest = gp;
+                    distance = ray.getP0().distance(gp.point);
+                }
+            }
+            return closest;
+        }
+
+        double tLeft = intersectBox(node.left, origin, invDir, distance);
+        double tRight = intersectBox(node.right, origin, invDir, distance);
+        Node near = tLeft <= tRight ? node.left : node.right;
+        Node far = tLeft <= tRight ? node.right : node.left;
+        double tNear = Math.min(tLeft, tRight);
+        double tFar = Math.max(tLeft, tRight);
+
+        GeoPoint closest = null;
+        if (tNear != Double.POSITIVE_INFINITY) {
+            closest = findClosest(near, ray, origin, invDir, distance, counter);
+            if (closest != null)
+                distance = ray.getP0().distance(closest.point);
+        }
+        if (tFar < distance) {
+            GeoPoint gp = findClosest(far, ray, origin, invDir, distance, counter);
+            if (gp != null)
+                closest = gp;
+        }
+        return closest;
+    }
+
+    /**
+     * {@inheritDoc}<br/>
+     * The whole packet traverses the hierarchy together: a node is visited with the lanes of the rays that enter
+     * its box before their closest intersection, and its children are visited in the order of the first of them.
+     */
+
+    @Override
+    protected void findClosestIntersectionsHelper(RayPacket packet, int[] lanes, int count,
+                                                  double[] distances, GeoPoint[] hits, IntersectionCounter counter) {
+        for (Intersectable geometry : unbounded) {
+            countTests(counter, geometry, count);
+            geometry.findClosestIntersectionsHelper(packet, lanes, count, distances, hits, counter);
+        }
+        if (root == null) return;
+
+        //the active lanes of the node visited on each level of the hierarchy
+        int[][] levels = new int[depth][count];
+        int active = filter(root, packet, lanes, count, distances, levels[0]);
+        if (active > 0)
+            findClosest(root, 0, packet, levels, active, distances, hits, counter);
+    }
+
+    /**
+     * finds the closest intersections of the active lanes of a packet in a sub-tree
+     *
+     * @param node      root of the sub-tree (its box is known to be intersected by the active lanes)
+     * @param level     level of the node in the hierarchy
+     * @param packet    the rays
+     * @param levels    the active lanes on each level - levels[level] holds the active lanes of the node
+     * @param count     amount of the active lanes
+     * @param distances the distance of the closest intersection found so far on each lane
+     * @param hits      the closest intersection found so far on each lane
+     * @param counter   the counter of the intersection tests, null for not counting them
+     */
+    private void findClosest(Node node, int level, RayPacket packet, int[][] levels, int count,
+                             double[] distances, GeoPoint[] hits, IntersectionCounter counter) {
+        int[] lanes = levels[level];
+        if (node.isLeaf()) {
+            for (int i = node.first; i < node.first + node.count; ++i) {
+                countTests(counter, bounded[i], count);
+                bounded[i].findClosestIntersectionsHelper(packet, lanes, count, distances, hits, counter);
+            }
+            return;
+        }
+
+        //the rays are coherent, so the order of the first active ray is good for all of them
+        int first = lanes[0];
+        double tLeft = intersectBox(node.left, packet, first, distances[first]);
+        double tRight = intersectBox(node.right, packet, first, distances[first]);
+        Node near = tLeft <= tRight ? node.left : node.right;
+        Node far = tLeft <= tRight ? node.right : node.left;
+
+        //the far child is filtered after the near one, with the distances of the intersections found in it
+        int active = filter(near, packet, lanes, count, distances, levels[level + 1]);
+        if (active > 0)
+            findClosest(near, level + 1, packet, levels, active, distances, hits, counter);
+        active = filter(far, packet, lanes, count, distances, levels[level + 1]);
+        if (active > 0)
+            findClosest(far, level + 1, packet, levels, active, distances, hits, counter);
+    }
+
+    /**
+     * finds the lanes of a packet whose rays enter the box of a node before their closest intersection found so far
+     *
+     * @param node      the node
+     * @param packet    the rays
+     * @param lanes     the lanes to check
+     * @param count     amount of the lanes to check
+     * @param distances the distance of the closest intersection found so far on each lane
+     * @param result    array for the lanes entering the box
+     * @return the amount of the lanes entering the box
+     */
+    private static int filter(Node node, RayPacket packet, int[] lanes, int count, double[] distances, int[] result) {
+        //a box which the whole packet misses is rejected by a single test
+        if (count > 1 && packet.missesBox(node.min, node.max)) return 0;
+        int active = 0;
+        for (int i = 0; i < count; ++i) {
+            int lane = lanes[i];
+            if (intersectBox(node, packet, lane, distances[lane]) != Double.POSITIVE_INFINITY)
+                result[active++] = lane;
+        }
+        return active;
+    }
+
+    /**
+     * Checks whether a ray intersects any of the geometries before a given distance.<br/>
+     * The search stops on the first intersection found, in any order.
+     *
+     * @param ray         the ray
+     * @param maxDistance the distance along the ray to search up to
+     * @return true if there is an intersection closer than maxDistance
+     */
+    public boolean hasIntersection(Ray ray, double maxDistance) {
+        return hasIntersection(ray, maxDistance, null);
+    }
+
+    /**
+     * Checks whether a ray intersects any of the geometries before a given distance, and counts the intersection
+     * tests of the geometries, see {@link #hasIntersection(Ray, double)}
+     *
+     * @param ray         the ray
+     * @param maxDistance the distance along the ray to search up to
+     * @param counter     the counter of the tests, null for not counting them
+     * @return true if there is an intersection closer than maxDistance
+     */
+    public boolean hasIntersection(Ray ray, double maxDistance, IntersectionCounter counter) {
+        for (Intersectable geometry : unbounded)
+            if (hasIntersection(geometry, ray, maxDistance, counter))
+                return true;
+        if (root == null) return false;
+
+        double[] origin = origin(ray);
+        double[] invDir = invDir(ray);
+        return intersectBox(root, origin, invDir, maxDistance) != Double.POSITIVE_INFINITY
+                && hasIntersection(root, ray, origin, invDir, maxDistance, counter);
+    }
+
+    /**
+     * checks whether a ray intersects any geometry of a sub-tree before a given distance
+     *
+     * @param node        root of the sub-tree (its box is known to be intersected)
+     * @param ray         the ray
+     * @param origin      coordinates of the ray head
+     * @param invDir      inverse of the ray direction coordinates
+     * @param maxDistance the distance along the ray to search up to
+     * @param counter     the counter of the intersection tests, null for not counting them
+     * @return true if there is an intersection closer than maxDistance
+     */
+    private boolean hasIntersection(Node node, Ray ray, double[] origin, double[] invDir, double maxDistance,
+                                    IntersectionCounter counter) {
+        if (node.isLeaf()) {
+            for (int i = node.first; i < node.first + node.count; ++i)
+                if (hasIntersection(bounded[i], ray, maxDistance, counter))
+                    return true;
+            return false;
+        }
+        return intersectBox(node.left, origin, invDir, maxDistance) != Double.POSITIVE_INFINITY
+                && hasIntersection(node.left, ray, origin, invDir, maxDistance, counter)
+                || intersectBox(node.right, origin, invDir, maxDistance) != Double.POSITIVE_INFINITY
+                && hasIntersection(node.right, ray, origin, invDir, maxDistance, counter);
+    }
+
+    /**
+     * @param geometry    a geometric entity
+     * @param ray         the ray
+     * @param maxDistance the distance along the ray to search up to
+     * @param counter     the counter of the intersection tests, null for not counting them
+     * @return true if the ray intersects the geometry closer than maxDistance
+     */
+    private static boolean hasIntersection(Intersectable geometry, Ray ray, double maxDistance,
+                                           IntersectionCounter counter) {
+        countTests(counter, geometry, 1);
+        return geometry.findClosestIntersectionHelper(ray, maxDistance, counter) != null;
+    }
+
+    /**
+     * {@inheritDoc}<br/>
+     * Only the nodes whose box the ray enters before the distance are visited, in any order.
+     */
+
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 ktr, double minKtr,
+                                             IntersectionCounter counter) {
+        for (Intersectable geometry : unbounded) {
+            countTests(counter, geometry, 1);
+            ktr = geometry.findTransparencyHelper(ray, maxDistance, ktr, minKtr, counter);
+            if (ktr.lowerThan(minKtr)) return ktr;
+        }
+        if (root == null) return ktr;
+
+        double[] origin = origin(ray);
+        double[] invDir = invDir(ray);
+        return intersectBox(root, origin, invDir, maxDistance) == Double.POSITIVE_INFINITY ? ktr
+                : findTransparency(root, ray, origin, invDir, maxDistance, ktr, minKtr, counter);
+    }
+
+    /**
+     * accumulates the transparency factor of the geometries of a sub-tree
+     *
+     * @param node        root of the sub-tree (its box is known to be intersected)
+     * @param ray         the ray
+     * @param origin      coordinates of the ray head
+     * @param invDir      inverse of the ray direction coordinates
+     * @param maxDistance the distance along the ray to search up to
+     * @param ktr         the transparency factor accumulated so far
+     * @param minKtr      the transparency factor below which the ray is considered blocked
+     * @param counter     the counter of the intersection tests, null for not counting them
+     * @return the accumulated transparency factor
+     */
+    private Double3 findTransparency(Node node, Ray ray, double[] origin, double[] invDir,
+                                     double maxDistance, Double3 ktr, double minKtr, IntersectionCounter counter) {
+        if (node.isLeaf()) {
+            for (int i = node.first; i < node.first + node.count && !ktr.lowerThan(minKtr); ++i) {
+                countTests(counter, bounded[i], 1);
+                ktr = bounded[i].findTransparencyHelper(ray, maxDistance, ktr, minKtr, counter);
+            }
+            return ktr;
+        }
+        if (intersectBox(node.left, origin, invDir, maxDistance) != Double.POSITIVE_INFINITY)
+            ktr = findTransparency(node.left, ray, origin, invDir, maxDistance, ktr, minKtr, counter);
+        if (!ktr.lowerThan(minKtr) && intersectBox(node.right, origin, invDir, maxDistance) != Double.POSITIVE_INFINITY)
+            ktr = findTransparency(node.right, ray, origin, invDir, maxDistance, ktr, minKtr, counter);
+        return ktr;
+    }
+
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, IntersectionCounter counter) {
+        List<GeoPoint> intersections = null;
+        for (Intersectable geometry : unbounded) {
+            countTests(counter, geometry, 1);
+            intersections = addAll(intersections, geometry.findGeoIntersections(ray, counter));
+        }
+        if (root == null) return intersections;
+
+        double[] origin = origin(ray);
+        double[] invDir = invDir(ray);
+        if (intersectBox(root, origin, invDir, Double.POSITIVE_INFINITY) != Double.POSITIVE_INFINITY)
+            intersections = findAll(root, ray, origin, invDir, intersections, counter);
+        return intersections;
+    }
+
+    /**
+     * collects all the intersections of a ray with the geometries of a sub-tree
+     *
+     * @param node          root of the sub-tree (its box is known to be intersected)
+     * @param ray           the ray
+     * @param origin        coordinates of the ray head
+     * @param invDir        inverse of the ray direction coordinates
+     * @param intersections the intersections collected so far (may be null)
+     * @param counter       the counter of the intersection tests, null for not counting them
+     * @return the collected intersections (may be null)
+     */
+    private List<GeoPoint> findAll(Node node, Ray ray, double[] origin, double[] invDir, List<GeoPoint> intersections,
+                                   IntersectionCounter counter) {
+        if (node.isLeaf()) {
+            for (int i = node.first; i < node.first + node.count; ++i) {
+                countTests(counter, bounded[i], 1);
+                intersections = addAll(intersections, bounded[i].findGeoIntersections(ray, counter));
+            }
+            return intersections;
+        }
+        if (intersectBox(node.left, origin, invDir, Double.POSITIVE_INFINITY) != Double.POSITIVE_INFINITY)
+            intersections = findAll(node.left, ray, origin, invDir, intersections, counter);
+        if (intersectBox(node.right, origin, invDir, Double.POSITIVE_INFINITY) != Double.POSITIVE_INFINITY)
+            intersections = findAll(node.right, ray, origin, invDir, intersections, counter);
+        return intersections;
+    }
+
+    /**
+     * @param intersections the intersections collected so far (may be null)
+     * @param items         intersections to add (may be null)
+     * @return the collected intersections (may be null)
+     */
+    private static List<GeoPoint> addAll(List<GeoPoint> intersections, List<GeoPoint> items) {
+        if (items == null) return intersections;
+        if (intersections == null)
+            intersections = new LinkedList<>();
+        intersections.addAll(items);
+        return intersections;
+    }
+
+    /**
+     * Slab test of a ray with the box of a node
+     *
+     * @param node        the node
+     * @param origin      coordinates of the ray head
+     * @param invDir      inverse of the ray direction coordinates
+     * @param maxDistance the distance along the ray to search up to
+     * @return the distance along the ray where it enters the box (0 if the head is inside the box),
+     * or positive infinity if the ray misses the box before maxDistance
+     */
+    private static double intersectBox(Node node, double[] origin, double[] invDir, double maxDistance) {
+        double tNear = 0;
+        double tFar = maxDistance;
+        for (int axis = 0; axis < 3; ++axis) {
+            double t1 = (node.min[axis] - origin[axis]) * invDir[axis];
+            double t2 = (node.max[axis] - origin[axis]) * invDir[axis];
+            if (t1 > t2) {
+                double temp = t1;
+                t1 = t2;
+                t2 = temp;
+            }
+            //NaN (ray parallel to the slab and starts on its side) fails the comparisons and is ignored
+            if (t1 > tNear) tNear = t1;
+            if (t2 < tFar) tFar = t2;
+            if (tNear > tFar) return Double.POSITIVE_INFINITY;
+        }
+        return tNear;
+    }
+
+    /**
+     * Slab test of a ray of a packet with the box of a node, see {@link #intersectBox(Node, double[], double[], double)}
+     *
+     * @param node        the node
+     * @param packet      the rays
+     * @param lane        the lane of the ray in the packet
+     * @param maxDistance the distance along the ray to search up to
+     * @return the distance along the ray where it enters the box (0 if the head is inside the box),
+     * or positive infinity if the ray misses the box before maxDistance
+     */
+    private static double intersectBox(Node node, RayPacket packet, int lane, double maxDistance) {
+        //the axes are unrolled, so no coordinates arrays are created for the lane
+        double[] min = node.min;
+        double[] max = node.max;
+        double tNear = 0;
+        double tFar = maxDistance;
+        double inv = packet.invDx[lane];
+        double t1 = (min[0] - packet.ox[lane]) * inv;
+        double t2 = (max[0] - packet.ox[lane]) * inv;
+        if (inv < 0) {
+            double temp = t1;
+            t1 = t2;
+            t2 = temp;
+        }
+        //NaN (ray parallel to the slab and starts on its side) fails the comparisons and is ignored
+        if (t1 > tNear) tNear = t1;
+        if (t2 < tFar) tFar = t2;
+        if (tNear > tFar) return Double.POSITIVE_INFINITY;
+
+        inv = packet.invDy[lane];
+        t1 = (min[1] - packet.oy[lane]) * inv;
+        t2 = (max[1] - packet.oy[lane]) * inv;
+        if (inv < 0) {
+            double temp = t1;
+            t1 = t2;
+            t2 = temp;
+        }
+        if (t1 > tNear) tNear = t1;
+        if (t2 < tFar) tFar = t2;
+        if (tNear > tFar) return Double.POSITIVE_INFINITY;
+
+        inv = packet.invDz[lane];
+        t1 = (min[2] - packet.oz[lane]) * inv;
+        t2 = (max[2] - packet.oz[lane]) * inv;
+        if (inv < 0) {
+            double temp = t1;
+            t1 = t2;
+            t2 = temp;
+        }
+        if (t1 > tNear) tNear = t1;
+        if (t2 < tFar) tFar = t2;
+        return tNear > tFar ? Double.POSITIVE_INFINITY : tNear;
+    }
+
+    /**
+     * @param ray the ray
+     * @return the coordinates of the ray head
+     */
+    private static double[] origin(Ray ray) {
+        Point p0 = ray.getP0();
+        return new double[]{p0.getX(), p0.getY(), p0.getZ()};
+    }
+
+    /**
+     * @param ray the ray
+     * @return the inverse of the ray direction coordinates
+     */
+    private static double[] invDir(Ray ray) {
+        Vector dir = ray.getDir();
+        return new double[]{1 / dir.getX(), 1 / dir.getY(), 1 / dir.getZ()};
+    }
+    //endregion
+
+    @Override
+    protected AABB calcBoundary() {
+        if (root == null || unbounded.length > 0) return null; //there is no boundary to infinite geometric entity
+        return new AABB(root.min[0], root.min[1], root.min[2], root.max[0], root.max[1], root.max[2]);
+    }
+}
@@ -1,5 +1,6 @@
 package geometries;
 
+import primitives.AABB;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
@@ -60,7 +61,7 @@ public class Cylinder extends Tube {
     }
 
     @Override
-    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, IntersectionCounter counter) {
 //        List<Point> intersections = super.findIntersections(ray);
 //        if(intersections == null){
 //            if(ray.getDir().equals(this.axisRay.getDir()) || ray.getDir().equals(this.axisRay.getDir().scale(-1))){
@@ -77,19 +78,11 @@ public class Cylinder extends Tube {
 //        if (intersections.size()==2){
 //
 //        }
-        Vector va = axisRay.getDir();
-        Point p1 = axisRay.getP0();
-        Point p2 = axisRay.getPoint(height);
-
         List<GeoPoint> interactions = null;
-        List<GeoPoint> tubeIntersections = super.findGeoIntersectionsHelper(ray);
+        List<GeoPoint> tubeIntersections = super.findGeoIntersectionsHelper(ray, counter);
         if(tubeIntersections != null){
             for (GeoPoint q : tubeIntersections){
-                Vector qMinusP = q.point.subtract(p1);
-                double vaDotQMinusP1 = alignZero(va.dotProduct(qMinusP));
-                qMinusP = q.point.subtract(p2);
-                double vaDotQMinusP2 = alignZero(va.dotProduct(qMinusP));
-                if (vaDotQMinusP1 >0 && vaDotQMinusP2 <0){
+                if (isBetweenBases(q.point)){
                     if(interactions == null)
                         interactions = new LinkedList<>();
                     interactions.add(q);
@@ -146,17 +139,49 @@ public class Cylinder extends Tube {
         return interactions;
     }
     @Override
-    public int[][] calcBoundary() {
-        Point firstBaseCenter = axisRay.getP0();
-        Point secondBaseCenter = axisRay.getPoint(height);
+    protected GeoPoint findClosestIntersectionHelper(Ray ray, double maxDistance, IntersectionCounter counter) {
+        double[] distances = findIntersectionDistances(ray);
+        if (distances == null)
+            return null;
+        //the distances are ascending - the first one between the bases is the closest
+        for (double t : distances) {
+            if (t >= maxDistance)
+                return null;
+            Point q = ray.getPoint(t);
+            if (isBetweenBases(q))
+                return new GeoPoint(this, q);
+        }
+        return null;
+    }
 
-        return new int[][]{minMax(firstBaseCenter.getX(),secondBaseCenter.getX()),
-                minMax(firstBaseCenter.getY(), secondBaseCenter.getY()),
-                minMax(firstBaseCenter.getZ(), secondBaseCenter.getZ())};
+    /**
+     * checks whether a point on the tube is between the two bases of the cylinder
+     *
+     * @param q point on the round surface of the tube
+     * @return true if the point is on the round surface of the cylinder
+     */
+    private boolean isBetweenBases(Point q) {
+        Vector va = axisRay.getDir();
+        double vaDotQMinusP1 = alignZero(va.dotProduct(q.subtract(axisRay.getP0())));
+        double vaDotQMinusP2 = alignZero(va.dotProduct(q.subtract(axisRay.getPoint(height))));
+        return vaDotQMinusP1 > 0 && vaDotQMinusP2 < 0;
     }
 
-    private int[] minMax(double first,double second){
-        return first < second? new int[]{(int)Math.floor(first-radius),(int)Math.ceil(second+radius)}:
-                new int[]{(int)Math.floor(second-radius),(int)Math.ceil(first+radius)};
+    @Override
+    public AABB calcBoundary() {
+        Point firstBaseCenter = axisRay.getP0();
+        Point secondBaseCenter = axisRay.getPoint(height);
+        Vector dir = axisRay.getDir();
+        //the bases are discs perpendicular to the axis - their extent on each axis is radius * sqrt(1 - dir^2)
+        double ex = radius * Math.sqrt(Math.max(0, 1 - dir.getX() * dir.getX()));
+        double ey = radius * Math.sqrt(Math.max(0, 1 - dir.getY() * dir.getY()));
+        double ez = radius * Math.sqrt(Math.max(0, 1 - dir.getZ() * dir.getZ()));
+
+        return new AABB(Math.min(firstBaseCenter.getX(), secondBaseCenter.getX()) - ex,
+                Math.min(firstBaseCenter.getY(), secondBaseCenter.getY()) - ey,
+                Math.min(firstBaseCenter.getZ(), secondBaseCenter.getZ()) - ez,
+                Math.max(firstBaseCenter.getX(), secondBaseCenter.getX()) + ex,
+                Math.max(firstBaseCenter.getY(), secondBaseCenter.getY()) + ey,
+                Math.max(firstBaseCenter.getZ(), secondBaseCenter.getZ()) + ez);
     }
 }
@@ -1,10 +1,12 @@
 package geometries;
 
+import primitives.AABB;
 import primitives.Double3;
 import primitives.Ray;
+import primitives.RayPacket;
 import scene.Scene;
+import scene.VoxelGrid;
 
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -29,6 +31,7 @@ public class Geometries extends Intersectable {
      * @param geometries to init in list
      */
     public Geometries(Intersectable... geometries) {
+        this();
         add(geometries);
     }
 
@@ -42,6 +45,15 @@ public class Geometries extends Intersectable {
             this.geometries.addAll(List.of(geometries));
     }
 
+    /**
+     * geometries list getter
+     *
+     * @return the geometric entities of the composite
+     */
+    public List<Intersectable> getGeometries() {
+        return geometries;
+    }
+
     public Geometries remove(Geometry givenGeometry) {
         Geometries list = new Geometries();
         for (var geometry : geometries) {
@@ -65,13 +77,15 @@ public class Geometries extends Intersectable {
 //        return intersections;
 //    }
 
+
     @Override
-    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, IntersectionCounter counter) {
         List<GeoPoint> intersectionsWithAllShapes = null;
 
         //for each item in the list add the intersections to the list of intersections
         for (var item : geometries) {
-            var itemList = item.findGeoIntersectionsHelper(ray);
+            countTests(counter, item, 1);
+            var itemList = item.findGeoIntersectionsHelper(ray, counter);
             //out.print(itemList);
             //out.print("\n");
             //if there are(!) intersections with the specific item
@@ -87,60 +101,73 @@ public class Geometries extends Intersectable {
 
         return intersectionsWithAllShapes;
     }
+
     @Override
-    public int[][] calcBoundary() {
-        double minX = Double.POSITIVE_INFINITY;
-        double maxX = Double.NEGATIVE_INFINITY;
-        double minY = Double.POSITIVE_INFINITY;
-        double maxY = Double.NEGATIVE_INFINITY;
-        double minZ = Double.POSITIVE_INFINITY;
-        double maxZ = Double.NEGATIVE_INFINITY;
-        for (var geometry : geometries) {
-            if (geometry.boundary[0][0] < minX)
-                minX = geometry.boundary[0][0];
-            if (geometry.boundary[0][1] > maxX)
-                maxX = geometry.boundary[0][1];
-            if (geometry.boundary[1][0] < minY)
-                minY = geometry.boundary[1][0];
-            if (geometry.boundary[1][1] > maxY)
-                maxY = geometry.boundary[1][1];
-            if (geometry.boundary[2][0] < minZ)
-                minZ = geometry.boundary[2][0];
-            if (geometry.boundary[2][1] > maxZ)
-                maxZ = geometry.boundary[2][1];
+    protected GeoPoint findClosestIntersectionHelper(Ray ray, double maxDistance, IntersectionCounter counter) {
+        GeoPoint closest = null;
+        //each item searches only up to the closest intersection found so far
+        for (var item : geometries) {
+            countTests(counter, item, 1);
+            GeoPoint gp = item.findClosestIntersectionHelper(ray, maxDistance, counter);
+            if (gp != null) {
+                closest = gp;
+                maxDistance = ray.getP0().distance(gp.point);
+            }
         }
-        return new int[][]{{(int) minX, (int) Math.ceil(maxX)},
-                {(int) minY, (int) Math.ceil(maxY)},
-                {(int) minZ, (int) Math.ceil(maxZ)}};
+        return closest;
     }
 
-    /**
-     * move over all geometric entities of a scene and return a hashmap of all the none empty voxels
-     *
-     * @param scene the scene
-     * @return the hash map of voxels
-     */
-    public HashMap<Double3, Geometries> attachVoxel(Scene scene) {
-        HashMap<Double3, Geometries> voxels = new HashMap<>();
-        List<Double3> voxelIndexes;
-        for (var geometry : geometries) {
-            voxelIndexes = geometry.findVoxels(scene);
-            for (var index : voxelIndexes) {
-                if (!voxels.containsKey(index))//the voxel already exists in the map
-                    voxels.put(index, new Geometries(geometry));
-                else {
-                    voxels.get(index).add(geometry);
-                }
-            }
+
+    @Override
+    protected void findClosestIntersectionsHelper(RayPacket packet, int[] lanes, int count,
+                                                  double[] distances, GeoPoint[] hits, IntersectionCounter counter) {
+        //the whole packet is passed to each item, so packet kernels of the items are used
+        for (var item : geometries) {
+            countTests(counter, item, count);
+            item.findClosestIntersectionsHelper(packet, lanes, count, distances, hits, counter);
+        }
+    }
+
+
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 ktr, double minKtr,
+                                             IntersectionCounter counter) {
+        for (var item : geometries) {
+            countTests(counter, item, 1);
+            ktr = item.findTransparencyHelper(ray, maxDistance, ktr, minKtr, counter);
+            if (ktr.lowerThan(minKtr))
+                return ktr; //the ray is already blocked
+        }
+        return ktr;
+    }
+
+    @Override
+    public AABB calcBoundary() {
+        AABB boundary = null;
+        for (var item : geometries) {
+            AABB itemBoundary = item.getBoundary();
+            if (itemBoundary == null) return null; //there is no boundary to infinite geometric entity
+            boundary = boundary == null ? itemBoundary : boundary.union(itemBoundary);
         }
-        return voxels;
+        return boundary;
     }
 
     /**
-     * boundary getter
-     * @return the matrix of the boundary
+     * move over all geometric entities of a scene and attach each of them to the voxels it intersects with -
+     * the infinite entities are kept out of the grid (see {@link Scene#getUnbounded()})
+     *
+     * @param scene the scene
+     * @return the voxels grid of the scene, of its entities with a boundary in their order
      */
-    public int[][] getBoundary(){
-        return boundary;
+    public VoxelGrid attachVoxel(Scene scene) {
+        Intersectable[] items = geometries.stream().filter(item -> item.getBoundary() != null)
+                .toArray(Intersectable[]::new);
+        int[][] ranges = new int[items.length][];
+        for (int i = 0; i < items.length; ++i)
+            ranges[i] = items[i].findVoxels(scene);
+        //each entity is attached only to the voxels of its range that it overlaps
+        return new VoxelGrid(scene.resolutions[0], scene.resolutions[1], scene.resolutions[2], items, ranges,
+                scene.getGridBoundary());
     }
+
 }
@@ -1,10 +1,14 @@
 package geometries;
 
 import primitives.Color;
+import primitives.Double3;
 import primitives.Material;
 import primitives.Point;
+import primitives.Ray;
 import primitives.Vector;
 
+import java.util.List;
+
 /**
  * Geometry interface for geometric objects
  * @author Sarah Daatyah Furmanski and Efrat Kartman
@@ -36,6 +40,20 @@ public abstract class Geometry extends Intersectable {
         return this;
     }
 
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 ktr, double minKtr, IntersectionCounter counter) {
+        //opaque geometry - any intersection before the distance blocks the ray
+        if (material.kT.lowerThan(minKtr))
+            return findClosestIntersectionHelper(ray, maxDistance, counter) == null ? ktr : Double3.ZERO;
+
+        List<GeoPoint> intersections = findGeoIntersectionsHelper(ray, counter);
+        if (intersections != null)
+            for (GeoPoint gp : intersections)
+                if (ray.getP0().distance(gp.point) < maxDistance)
+                    ktr = ktr.product(material.kT);
+        return ktr;
+    }
+
     /**
      * getter for normal vector to the Geometry
      * @param point point on geometry to calculate
@@ -1,11 +1,13 @@
 package geometries;
 
+import primitives.AABB;
 import primitives.Double3;
 import primitives.Point;
 import primitives.Ray;
+import primitives.RayPacket;
 import scene.Scene;
 
-import java.util.LinkedList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 
@@ -66,16 +68,32 @@ public abstract class Intersectable {
     }
     //endregion
     /**
-     * boundary of the entity represented by the array [x[min,max],y[min,max],z[min,max]]
+     * boundary of the entity - its axis aligned bounding box (calculated on the first use)
      */
-    public int[][] boundary;
+    private AABB boundary;
+    /**
+     * the tolerance (relative and absolute) of the overlap checks of the entities and boxes (see
+     * {@link #overlapsBox(double[], double[])}), so an entity touching a box is not lost by rounding
+     */
+    protected static final double OVERLAP_TOLERANCE = 1e-9;
+    /**
+     * counts intersection tests of an item of a composite entity, if it is a geometry and the tests are counted
+     *
+     * @param counter the counter of the tests of the query, null when the tests are not counted
+     * @param item    the tested item
+     * @param tests   amount of the tests
+     */
+    static void countTests(IntersectionCounter counter, Intersectable item, int tests) {
+        if (counter != null && item instanceof Geometry geometry)
+            counter.count(geometry, tests);
+    }
 
     /**
-     * finds the boundary values of the geometric entity or a group of geometric entities
+     * finds the boundary of the geometric entity or a group of geometric entities
      *
-     * @return the geometry boundary
+     * @return the geometry bounding box, null for an infinite geometric entity
      */
-    protected abstract int[][] calcBoundary();
+    protected abstract AABB calcBoundary();
 
     /**
      * Method for finding intersections between a Ray and geometrical bodies
@@ -94,45 +112,210 @@ public abstract class Intersectable {
      * @return list of intersection Geopoints.
      */
     public List<GeoPoint> findGeoIntersections(Ray ray){
-        return findGeoIntersectionsHelper(ray);
+        return findGeoIntersectionsHelper(ray, null);
+    }
+
+    /**
+     * Finds all intersection GeoPoints of a ray and a geometric entity, and counts the intersection tests of the
+     * geometries of the composite entities (see {@link IntersectionCounter}).
+     *
+     * @param ray     the ray that intersect with the geometric entity.
+     * @param counter the counter of the tests, null for not counting them
+     * @return list of intersection Geopoints.
+     */
+    public List<GeoPoint> findGeoIntersections(Ray ray, IntersectionCounter counter) {
+        return findGeoIntersectionsHelper(ray, counter);
+    }
+
+    /**
+     * Finds all intersection GeoPoints of a ray - composite entities count the tests of their items,
+     * other entities have no tests to count
+     *
+     * @param ray     the ray
+     * @param counter the counter of the tests, null for not counting them
+     * @return list of intersection Geopoints.
+     */
+    protected abstract List<GeoPoint> findGeoIntersectionsHelper(Ray ray, IntersectionCounter counter);
+
+    /**
+     * Finds the closest intersection GeoPoint of a ray and a geometric entity.
+     *
+     * @param ray the ray that intersect with the geometric entity.
+     * @return the closest intersection GeoPoint, null if there is none
+     */
+    public GeoPoint findClosestIntersection(Ray ray) {
+        return findClosestIntersectionHelper(ray, Double.POSITIVE_INFINITY, null);
+    }
+
+    /**
+     * Finds the closest intersection GeoPoint of a ray and a geometric entity, which is closer than a given distance.
+     * No list of intersections is created - intersections beyond the distance are not calculated at all.
+     *
+     * @param ray         the ray that intersect with the geometric entity.
+     * @param maxDistance the distance along the ray to search up to
+     * @return the closest intersection GeoPoint, null if there is none closer than maxDistance
+     */
+    public GeoPoint findClosestIntersection(Ray ray, double maxDistance) {
+        return findClosestIntersectionHelper(ray, maxDistance, null);
+    }
+
+    /**
+     * Finds the closest intersection GeoPoint which is closer than a given distance, and counts the intersection
+     * tests of the geometries of the composite entities, see {@link #findClosestIntersection(Ray, double)}
+     *
+     * @param ray         the ray that intersect with the geometric entity.
+     * @param maxDistance the distance along the ray to search up to
+     * @param counter     the counter of the tests, null for not counting them
+     * @return the closest intersection GeoPoint, null if there is none closer than maxDistance
+     */
+    public GeoPoint findClosestIntersection(Ray ray, double maxDistance, IntersectionCounter counter) {
+        return findClosestIntersectionHelper(ray, maxDistance, counter);
+    }
+
+    /**
+     * Finds the closest intersection GeoPoint of a ray which is closer than a given distance - composite entities
+     * count the tests of their items, other entities have no tests to count
+     *
+     * @param ray         the ray
+     * @param maxDistance the distance along the ray to search up to
+     * @param counter     the counter of the tests, null for not counting them
+     * @return the closest intersection GeoPoint, null if there is none closer than maxDistance
+     */
+    protected abstract GeoPoint findClosestIntersectionHelper(Ray ray, double maxDistance, IntersectionCounter counter);
+
+    /**
+     * Finds the closest intersection GeoPoint of every ray of a packet of coherent rays and a geometric entity.
+     *
+     * @param packet the rays
+     * @return the closest intersection of each ray (by its lane in the packet), null for a ray with no intersection
+     */
+    public GeoPoint[] findClosestIntersections(RayPacket packet) {
+        return findClosestIntersections(packet, null);
     }
 
-    protected abstract List<GeoPoint> findGeoIntersectionsHelper(Ray ray);
+    /**
+     * Finds the closest intersection GeoPoint of every ray of a packet, and counts the intersection tests of the
+     * geometries of the composite entities, see {@link #findClosestIntersections(RayPacket)}
+     *
+     * @param packet  the rays
+     * @param counter the counter of the tests, null for not counting them
+     * @return the closest intersection of each ray (by its lane in the packet), null for a ray with no intersection
+     */
+    public GeoPoint[] findClosestIntersections(RayPacket packet, IntersectionCounter counter) {
+        GeoPoint[] hits = new GeoPoint[packet.size()];
+        double[] distances = new double[packet.size()];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        findClosestIntersectionsHelper(packet, packet.getLanes(), packet.size(), distances, hits, counter);
+        return hits;
+    }
 
     /**
-     * boundary getter
+     * Finds the intersections of some rays of a packet which are closer than the closest intersections found so far.<br/>
+     * By default, each ray is intersected on its own - geometric entities with a kernel for a whole packet
+     * (or an acceleration structure traversed by the whole packet) override it.
      *
-     * @return the boundary
+     * @param packet    the rays
+     * @param lanes     the lanes of the rays to intersect (the first count items)
+     * @param count     amount of the rays to intersect
+     * @param distances the distance of the closest intersection found so far on each lane - updated on a closer one
+     * @param hits      the closest intersection found so far on each lane - updated on a closer one
+     * @param counter   the counter of the tests, null for not counting them
      */
-    public int[][] getBoundary() {
+    protected void findClosestIntersectionsHelper(RayPacket packet, int[] lanes, int count,
+                                                  double[] distances, GeoPoint[] hits, IntersectionCounter counter) {
+        for (int i = 0; i < count; ++i) {
+            int lane = lanes[i];
+            Ray ray = packet.getRay(lane);
+            GeoPoint gp = findClosestIntersectionHelper(ray, distances[lane], counter);
+            if (gp != null) {
+                hits[lane] = gp;
+                distances[lane] = ray.getP0().distance(gp.point);
+            }
+        }
+    }
+
+    /**
+     * Calculates the transparency factor along a (shadow) ray up to a given distance -
+     * the product of the transparency factors (kT) of all the intersections before the distance.<br/>
+     * The search stops as soon as the factor drops below a minimal value (e.g. on the first opaque geometry),
+     * since the rest of the intersections can't make any difference.
+     *
+     * @param ray         the ray that intersect with the geometric entity.
+     * @param maxDistance the distance along the ray to search up to (e.g. distance to the light source)
+     * @param minKtr      the transparency factor below which the ray is considered blocked
+     * @return the transparency factor, lower than minKtr if the ray is blocked
+     */
+    public Double3 findTransparency(Ray ray, double maxDistance, double minKtr) {
+        return findTransparencyHelper(ray, maxDistance, Double3.ONE, minKtr, null);
+    }
+
+    /**
+     * Calculates the transparency factor along a ray up to a given distance, and counts the intersection tests of
+     * the geometries of the composite entities, see {@link #findTransparency(Ray, double, double)}
+     *
+     * @param ray         the ray that intersect with the geometric entity.
+     * @param maxDistance the distance along the ray to search up to (e.g. distance to the light source)
+     * @param minKtr      the transparency factor below which the ray is considered blocked
+     * @param counter     the counter of the tests, null for not counting them
+     * @return the transparency factor, lower than minKtr if the ray is blocked
+     */
+    public Double3 findTransparency(Ray ray, double maxDistance, double minKtr, IntersectionCounter counter) {
+        return findTransparencyHelper(ray, maxDistance, Double3.ONE, minKtr, counter);
+    }
+
+    /**
+     * Accumulates the transparency factor along a ray, see {@link #findTransparency(Ray, double, double)}
+     *
+     * @param ray         the ray that intersect with the geometric entity.
+     * @param maxDistance the distance along the ray to search up to
+     * @param ktr         the transparency factor accumulated so far
+     * @param minKtr      the transparency factor below which the ray is considered blocked
+     * @param counter     the counter of the tests, null for not counting them
+     * @return the accumulated transparency factor
+     */
+    protected abstract Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 ktr, double minKtr,
+                                                      IntersectionCounter counter);
+
+    /**
+     * boundary getter - the boundary is calculated on the first call
+     *
+     * @return the boundary, null for an infinite geometric entity
+     */
+    public AABB getBoundary() {
+        if (boundary == null)
+            boundary = calcBoundary();
         return boundary;
     }
 
+    /**
+     * Checks whether the geometric entity may intersect with a box (e.g. a voxel in the range of its boundary) -
+     * the voxels grid attaches the entity only to the voxels it overlaps.<br/>
+     * The check must be conservative - it may return true for a box the entity doesn't touch, but never false for a
+     * box it does. By default, any box in the boundary of the entity is overlapped
+     *
+     * @param min the minimal coordinates of the box (X, Y, Z)
+     * @param max the maximal coordinates of the box (X, Y, Z)
+     * @return false if the entity surely doesn't intersect with the box
+     */
+    public boolean overlapsBox(double[] min, double[] max) {
+        return true;
+    }
+
 
     /**
-     * return the indexes of all voxels that the geometric entity intersects with
+     * return the range of the voxels that the geometric entity boundary intersects with
      * @param scene the scene that we would use its voxels
-     * @return the indexes of the voxels intersected with this
-     */
-    protected List<Double3> findVoxels(Scene scene) {
-        List<Double3> indexes = new LinkedList<>();//since we won't remove any voxel but only add we will use linked list
-        double xEdgeVoxel=scene.getXEdgeVoxel();
-        double yEdgeVoxel=scene.getYEdgeVoxel();
-        double zEdgeVoxel=scene.getZEdgeVoxel();
-        int xMinIndex = (int) ((this.boundary[0][0] - scene.geometries.boundary[0][0]) / xEdgeVoxel - 0.01);
-        int xMaxIndex = (int) ((this.boundary[0][1] - scene.geometries.boundary[0][0]) / xEdgeVoxel - 0.01);
-        int yMinIndex = (int) ((this.boundary[1][0] - scene.geometries.boundary[1][0]) / yEdgeVoxel - 0.01);
-        int yMaxIndex = (int) ((this.boundary[1][1] - scene.geometries.boundary[1][0]) / yEdgeVoxel - 0.01);
-        int zMinIndex = (int) ((this.boundary[2][0] - scene.geometries.boundary[2][0]) / zEdgeVoxel - 0.01);
-        int zMaxIndex = (int) ((this.boundary[2][1] - scene.geometries.boundary[2][0]) / zEdgeVoxel - 0.01);
-        //move over all the voxels in the range of indexes
-        for (int i = xMinIndex; i <= xMaxIndex; i++) {
-            for (int j = yMinIndex; j <= yMaxIndex; j++) {
-                for (int k = zMinIndex; k <= zMaxIndex; k++) {
-                    indexes.add(new Double3(i, j, k));
-                }
-            }
+     * @return the range of the voxel coordinates - {xMin, xMax, yMin, yMax, zMin, zMax} (inclusive)
+     */
+    protected int[] findVoxels(Scene scene) {
+        double[] voxelEdges = {scene.getXEdgeVoxel(), scene.getYEdgeVoxel(), scene.getZEdgeVoxel()};
+        AABB box = getBoundary();
+        AABB grid = scene.getGridBoundary();
+        int[] range = new int[6];
+        for (int axis = 0; axis < 3; ++axis) {
+            range[2 * axis] = (int) Math.floor((box.getMin(axis) - grid.getMin(axis)) / voxelEdges[axis]);
+            range[2 * axis + 1] = (int) Math.floor((box.getMax(axis) - grid.getMin(axis)) / voxelEdges[axis]);
         }
-        return indexes;
+        return range;
     }
 }
@@ -0,0 +1,20 @@
+package geometries;
+
+/**
+ * A counter of the intersection tests of the geometries - an intersection query of a composite entity (e.g.
+ * {@link Intersectable#findClosestIntersection(primitives.Ray, double, IntersectionCounter)}) counts the tests of its
+ * geometries by the counter of the query.<br/>
+ * The counter is called by the rendering threads concurrently, so it must be thread safe
+ *
+ * @author Sarah Daatyah Furmanski and Efrat Kartman
+ */
+@FunctionalInterface
+public interface IntersectionCounter {
+    /**
+     * counts intersection tests of a geometry
+     *
+     * @param geometry the tested geometry
+     * @param tests    amount of the tests (the rays of a packet are tested together)
+     */
+    void count(Geometry geometry, int tests);
+}
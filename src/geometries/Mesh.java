@@ -0,0 +1,765 @@
+package geometries;
+
+import primitives.AABB;
+import primitives.Double3;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import static primitives.Util.*;
+
+/**
+ * Mesh class represents a triangle mesh - many triangles sharing their vertices, stored in flat buffers:
+ * the coordinates of the vertices (3 values per vertex) and the indices of the vertices of the faces
+ * (3 indices per face).<br/>
+ * Unlike a composite of {@link Triangle} objects (each with its points, vectors, plane and list of vertices),
+ * a face costs only its 3 indices, its unit normal (calculated once) and its share in the hierarchy of boxes,
+ * so big models (e.g. loaded from a file) take an order of magnitude less memory.<br/>
+ * The faces are accelerated by an internal bounding volume hierarchy, stored in flat arrays as well,
+ * and an intersection is reported on a light {@link Face} of the mesh.
+ * The mesh may be smooth shaded by normals given on its vertices, interpolated over the faces.
+ *
+ * @author Sarah Daatyah Furmanski and Efrat Kartman
+ */
+public class Mesh extends Geometry {
+    /**
+     * maximal amount of the faces of a leaf of the hierarchy
+     */
+    private static final int LEAF_SIZE = 4;
+
+    /**
+     * coordinates of the vertices - x, y, z of each vertex
+     */
+    private final double[] vertices;
+    /**
+     * indices of the vertices of the faces - 3 indices of each face (the faces are ordered by the hierarchy)
+     */
+    private final int[] indices;
+    /**
+     * unit normals of the faces - x, y, z of each face (zero for a degenerate face)
+     */
+    private final double[] faceNormals;
+    /**
+     * normals on the vertices for smooth shading - x, y, z of each vertex, null for flat shading
+     */
+    private double[] vertexNormals = null;
+    /**
+     * boxes of the nodes of the hierarchy - minimal x, y, z and maximal x, y, z of each node
+     */
+    private final double[] nodeBounds;
+    /**
+     * the nodes of the hierarchy, 2 values for each node (the nodes are stored in pre-order,
+     * so the left child of an inner node is the node following it):<br/>
+     * leaf - the first face and the amount of its faces,<br/>
+     * inner node - the index of its right child and 0
+     */
+    private final int[] nodes;
+
+    //region Face
+    /**
+     * A face of the mesh hit by a ray - a light geometry which refers to its mesh, and carries the barycentric
+     * coordinates of the intersection for interpolating the normals of the vertices.
+     */
+    public class Face extends Geometry {
+        /**
+         * the index of the face in the mesh
+         */
+        private final int index;
+        /**
+         * barycentric coordinates of the intersection (the weights of the second and the third vertices)
+         */
+        private final double u, v;
+
+        /**
+         * constructor - the face has the emission and the material of its mesh
+         *
+         * @param index the index of the face in the mesh
+         * @param u     the weight of the second vertex at the intersection
+         * @param v     the weight of the third vertex at the intersection
+         */
+        private Face(int index, double u, double v) {
+            this.index = index;
+            this.u = u;
+            this.v = v;
+            emission = Mesh.this.emission;
+            setMaterial(Mesh.this.getMaterial());
+        }
+
+        /**
+         * @return the mesh of the face
+         */
+        public Mesh getMesh() {
+            return Mesh.this;
+        }
+
+        /**
+         * @return the index of the face in the mesh
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * {@inheritDoc}<br/>
+         * The normal is the one at the intersection the face was found by (the point is not used).
+         */
+        @Override
+        public Vector getNormal(Point point) {
+            return normal(index, u, v);
+        }
+
+        @Override
+        protected AABB calcBoundary() {
+            return new AABB(vertex(index, 0), vertex(index, 1), vertex(index, 2));
+        }
+
+        @Override
+        protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, IntersectionCounter counter) {
+            GeoPoint intersection = findClosestIntersectionHelper(ray, Double.POSITIVE_INFINITY, counter);
+            return intersection == null ? null : List.of(intersection);
+        }
+
+        @Override
+        protected GeoPoint findClosestIntersectionHelper(Ray ray, double maxDistance, IntersectionCounter counter) {
+            Query query = new Query(ray, maxDistance);
+            double t = intersectFace(index, query, maxDistance);
+            return t == Double.POSITIVE_INFINITY ? null
+                    : new GeoPoint(new Face(index, query.uv[0], query.uv[1]), ray.getPoint(t));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Face face)) return false;
+            return index == face.index && getMesh() == face.getMesh();
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(Mesh.this) + index;
+        }
+
+        @Override
+        public String toString() {
+            return "Face{" +
+                    "index=" + index +
+                    ", vertices=" + List.of(vertex(index, 0), vertex(index, 1), vertex(index, 2)) +
+                    '}';
+        }
+    }
+    //endregion
+
+    /**
+     * constructor - the vertices buffer is used as is (it must not be changed later),
+     * and the faces are reordered by the hierarchy built on them
+     *
+     * @param vertices coordinates of the vertices - x, y, z of each vertex
+     * @param indices  indices of the vertices of the faces (counted from 0) - 3 indices of each face
+     * @throws IllegalArgumentException if the buffers are not made of whole vertices and faces,
+     *                                  if there are no faces, or if a face refers to a missing vertex
+     */
+    public Mesh(double[] vertices, int[] indices) {
+        if (vertices.length % 3 != 0)
+            throw new IllegalArgumentException("The vertices buffer must have 3 coordinates for each vertex");
+        if (indices.length == 0 || indices.length % 3 != 0)
+            throw new IllegalArgumentException("The indices buffer must have 3 vertices for each face");
+        int verticesCount = vertices.length / 3;
+        for (int index : indices)
+            if (index < 0 || index >= verticesCount)
+                throw new IllegalArgumentException("A face refers to a missing vertex " + index);
+
+        this.vertices = vertices;
+        int faces = indices.length / 3;
+        double[] normals = new double[3 * faces];
+        double[] centroids = new double[3 * faces];
+        double[] boxes = new double[6 * faces];
+        for (int face = 0; face < faces; ++face) {
+            int a = 3 * indices[3 * face], b = 3 * indices[3 * face + 1], c = 3 * indices[3 * face + 2];
+            double[] normal = cross(vertices, a, b, c);
+            double length = Math.sqrt(normal[0] * normal[0] + normal[1] * normal[1] + normal[2] * normal[2]);
+            for (int axis = 0; axis < 3; ++axis) {
+                //a degenerate face has no normal, and is never intersected
+                normals[3 * face + axis] = length == 0 ? 0 : normal[axis] / length;
+                double c1 = vertices[a + axis], c2 = vertices[b + axis], c3 = vertices[c + axis];
+                centroids[3 * face + axis] = (c1 + c2 + c3) / 3;
+                boxes[6 * face + axis] = Math.min(c1, Math.min(c2, c3));
+                boxes[6 * face + 3 + axis] = Math.max(c1, Math.max(c2, c3));
+            }
+        }
+
+        int nodesCount = countNodes(faces);
+        nodeBounds = new double[6 * nodesCount];
+        nodes = new int[2 * nodesCount];
+        int[] order = new int[faces];
+        for (int face = 0; face < faces; ++face)
+            order[face] = face;
+        build(0, faces, 0, order, centroids, boxes);
+
+        //the faces are stored in the order of the leaves of the hierarchy
+        this.indices = new int[indices.length];
+        faceNormals = new double[3 * faces];
+        for (int face = 0; face < faces; ++face) {
+            System.arraycopy(indices, 3 * order[face], this.indices, 3 * face, 3);
+            System.arraycopy(normals, 3 * order[face], faceNormals, 3 * face, 3);
+        }
+    }
+
+    /**
+     * constructor of a mesh that was already built - restores the buffers and the hierarchy of a mesh
+     * (as given by its getters, e.g. from a compiled scene file) without building the hierarchy again.
+     * The buffers are used as is, and they must not be changed later
+     *
+     * @param vertices      coordinates of the vertices
+     * @param indices       indices of the vertices of the faces, ordered by the hierarchy
+     * @param faceNormals   unit normals of the faces
+     * @param vertexNormals normals on the vertices, null for flat shading
+     * @param nodeBounds    boxes of the nodes of the hierarchy
+     * @param nodes         the nodes of the hierarchy
+     * @throws IllegalArgumentException if the sizes of the buffers do not match
+     */
+    public Mesh(double[] vertices, int[] indices, double[] faceNormals, double[] vertexNormals,
+                double[] nodeBounds, int[] nodes) {
+        if (vertices.length % 3 != 0 || indices.length == 0 || indices.length % 3 != 0
+                || faceNormals.length != indices.length || (vertexNormals != null && vertexNormals.length != vertices.length)
+                || nodes.length != 2 * countNodes(indices.length / 3) || nodeBounds.length != 3 * nodes.length)
+            throw new IllegalArgumentException("The buffers do not match a built mesh");
+        this.vertices = vertices;
+        this.indices = indices;
+        this.faceNormals = faceNormals;
+        this.vertexNormals = vertexNormals;
+        this.nodeBounds = nodeBounds;
+        this.nodes = nodes;
+    }
+
+    /**
+     * @return the amount of the vertices of the mesh
+     */
+    public int getVerticesCount() {
+        return vertices.length / 3;
+    }
+
+    /**
+     * @return the amount of the faces of the mesh
+     */
+    public int getFacesCount() {
+        return indices.length / 3;
+    }
+
+    /**
+     * @return whether the mesh is smooth shaded by normals on its vertices
+     */
+    public boolean isSmooth() {
+        return vertexNormals != null;
+    }
+
+    //region buffers getters - the buffers of the mesh itself, they must not be changed
+
+    /**
+     * @return coordinates of the vertices - x, y, z of each vertex
+     */
+    public double[] getVertices() {
+        return vertices;
+    }
+
+    /**
+     * @return indices of the vertices of the faces - 3 indices of each face, ordered by the hierarchy
+     */
+    public int[] getIndices() {
+        return indices;
+    }
+
+    /**
+     * @return unit normals of the faces - x, y, z of each face
+     */
+    public double[] getFaceNormals() {
+        return faceNormals;
+    }
+
+    /**
+     * @return normals on the vertices - x, y, z of each vertex, null for flat shading
+     */
+    public double[] getVertexNormals() {
+        return vertexNormals;
+    }
+
+    /**
+     * @return boxes of the nodes of the hierarchy - minimal x, y, z and maximal x, y, z of each node
+     */
+    public double[] getNodeBounds() {
+        return nodeBounds;
+    }
+
+    /**
+     * @return the nodes of the hierarchy in pre-order - 2 values for each node
+     */
+    public int[] getNodes() {
+        return nodes;
+    }
+    //endregion
+
+    /**
+     * setter for the normals on the vertices for smooth shading
+     *
+     * @param normals the normals - x, y, z of each vertex (need not be normalized), null for flat shading
+     * @return the mesh itself
+     * @throws IllegalArgumentException if there is not a normal for each vertex
+     */
+    public Mesh setVertexNormals(double[] normals) {
+        if (normals != null && normals.length != vertices.length)
+            throw new IllegalArgumentException("There must be a normal for each vertex");
+        vertexNormals = normals;
+        return this;
+    }
+
+    /**
+     * calculates the normals on the vertices for smooth shading - the normal of a vertex is the average of the
+     * normals of the faces around it, weighted by their areas
+     *
+     * @return the mesh itself
+     */
+    public Mesh calcVertexNormals() {
+        double[] normals = new double[vertices.length];
+        for (int face = 0; face < getFacesCount(); ++face) {
+            //the length of the cross product of the edges is twice the area of the face
+            double[] normal = cross(vertices, 3 * indices[3 * face], 3 * indices[3 * face + 1],
+                    3 * indices[3 * face + 2]);
+            for (int i = 0; i < 3; ++i) {
+                int vertex = indices[3 * face + i];
+                for (int axis = 0; axis < 3; ++axis)
+                    normals[3 * vertex + axis] += normal[axis];
+            }
+        }
+        vertexNormals = normals;
+        return this;
+    }
+
+    //region build
+
+    /**
+     * @param vertices coordinates of the vertices
+     * @param a        offset of the first vertex of a face
+     * @param b        offset of the second vertex of the face
+     * @param c        offset of the third vertex of the face
+     * @return the cross product of the edges of the face from its first vertex (not normalized)
+     */
+    private static double[] cross(double[] vertices, int a, int b, int c) {
+        double e1x = vertices[b] - vertices[a], e1y = vertices[b + 1] - vertices[a + 1];
+        double e1z = vertices[b + 2] - vertices[a + 2];
+        double e2x = vertices[c] - vertices[a], e2y = vertices[c + 1] - vertices[a + 1];
+        double e2z = vertices[c + 2] - vertices[a + 2];
+        return new double[]{e1y * e2z - e1z * e2y, e1z * e2x - e1x * e2z, e1x * e2y - e1y * e2x};
+    }
+
+    /**
+     * @param count amount of faces
+     * @return the amount of the nodes of the hierarchy of the faces
+     */
+    private static int countNodes(int count) {
+        return count <= LEAF_SIZE ? 1 : 1 + countNodes(count / 2) + countNodes(count - count / 2);
+    }
+
+    /**
+     * builds the sub-tree of a range of faces - the faces are split in the middle of the longest axis of the box
+     * of their centroids
+     *
+     * @param first     the first face of the range
+     * @param count     amount of the faces of the range
+     * @param node      the index of the root node of the sub-tree
+     * @param order     the faces in the order of the hierarchy - reordered by the build
+     * @param centroids centroids of the faces
+     * @param boxes     boxes of the faces
+     * @return the index following the nodes of the sub-tree
+     */
+    private int build(int first, int count, int node, int[] order, double[] centroids, double[] boxes) {
+        if (count <= LEAF_SIZE) {
+            for (int axis = 0; axis < 3; ++axis) {
+                nodeBounds[6 * node + axis] = Double.POSITIVE_INFINITY;
+                nodeBounds[6 * node + 3 + axis] = Double.NEGATIVE_INFINITY;
+            }
+            for (int i = first; i < first + count; ++i)
+                for (int axis = 0; axis < 3; ++axis) {
+                    nodeBounds[6 * node + axis] = Math.min(nodeBounds[6 * node + axis], boxes[6 * order[i] + axis]);
+                    nodeBounds[6 * node + 3 + axis] =
+                            Math.max(nodeBounds[6 * node + 3 + axis], boxes[6 * order[i] + 3 + axis]);
+                }
+            nodes[2 * node] = first;
+            nodes[2 * node + 1] = count;
+            return node + 1;
+        }
+
+        double[] min = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY};
+        double[] max = {Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        for (int i = first; i < first + count; ++i)
+            for (int axis = 0; axis < 3; ++axis) {
+                min[axis] = Math.min(min[axis], centroids[3 * order[i] + axis]);
+                max[axis] = Math.max(max[axis], centroids[3 * order[i] + axis]);
+            }
+        int axis = 0;
+        for (int i = 1; i < 3; ++i)
+            if (max[i] - min[i] > max[axis] - min[axis])
+                axis = i;
+        int half = count / 2;
+        select(order, first, first + count - 1, first + half, centroids, axis);
+
+        int right = build(first, half, node + 1, order, centroids, boxes);
+        nodes[2 * node] = right;
+        nodes[2 * node + 1] = 0;
+        int next = build(first + half, count - half, right, order, centroids, boxes);
+        //the box of an inner node bounds the boxes of its children
+        for (int i = 0; i < 3; ++i) {
+            nodeBounds[6 * node + i] = Math.min(nodeBounds[6 * (node + 1) + i], nodeBounds[6 * right + i]);
+            nodeBounds[6 * node + 3 + i] = Math.max(nodeBounds[6 * (node + 1) + 3 + i], nodeBounds[6 * right + 3 + i]);
+        }
+        return next;
+    }
+
+    /**
+     * partially sorts a range of faces by their centroids on an axis (quick select), so the face at a given
+     * position is in its sorted place, the faces before it are not bigger and the faces after it are not smaller
+     *
+     * @param order     the faces
+     * @param left      the first position of the range
+     * @param right     the last position of the range
+     * @param k         the position to sort
+     * @param centroids centroids of the faces
+     * @param axis      the axis
+     */
+    private static void select(int[] order, int left, int right, int k, double[] centroids, int axis) {
+        while (right > left) {
+            double pivot = centroids[3 * order[(left + right) >>> 1] + axis];
+            int i = left, j = right;
+            while (i <= j) {
+                while (centroids[3 * order[i] + axis] < pivot) ++i;
+                while (centroids[3 * order[j] + axis] > pivot) --j;
+                if (i <= j) {
+                    int temp = order[i];
+                    order[i++] = order[j];
+                    order[j--] = temp;
+                }
+            }
+            if (k <= j) right = j;
+            else if (k >= i) left = i;
+            else return;
+        }
+    }
+    //endregion
+
+    //region queries
+
+    /**
+     * The state of a query of a ray - the coordinates of the ray (so the traversal creates no objects)
+     * and the closest intersection found so far
+     */
+    private static class Query {
+        private final Ray ray;
+        private final double ox, oy, oz;
+        private final double dx, dy, dz;
+        private final double invDx, invDy, invDz;
+        /**
+         * the distance of the closest intersection found so far (or the distance to search up to)
+         */
+        private double distance;
+        /**
+         * the face of the closest intersection found so far, -1 if there is none
+         */
+        private int face = -1;
+        /**
+         * barycentric coordinates of the closest intersection found so far
+         */
+        private double u, v;
+        /**
+         * barycentric coordinates of the last intersection with a face
+         */
+        private final double[] uv = new double[2];
+
+        /**
+         * constructor
+         *
+         * @param ray         the ray
+         * @param maxDistance the distance along the ray to search up to
+         */
+        private Query(Ray ray, double maxDistance) {
+            this.ray = ray;
+            Point p0 = ray.getP0();
+            Vector dir = ray.getDir();
+            ox = p0.getX();
+            oy = p0.getY();
+            oz = p0.getZ();
+            dx = dir.getX();
+            dy = dir.getY();
+            dz = dir.getZ();
+            invDx = 1 / dx;
+            invDy = 1 / dy;
+            invDz = 1 / dz;
+            distance = maxDistance;
+        }
+    }
+
+    /**
+     * intersects a ray with a face of the mesh
+     *
+     * @param face        the index of the face
+     * @param query       the query of the ray - the barycentric coordinates of the intersection are stored in it
+     * @param maxDistance the distance along the ray to search up to
+     * @return the distance of the intersection along the ray, positive infinity if there is no intersection
+     * closer than maxDistance
+     */
+    private double intersectFace(int face, Query query, double maxDistance) {
+        int a = 3 * indices[3 * face], b = 3 * indices[3 * face + 1], c = 3 * indices[3 * face + 2];
+        double x1 = vertices[a], y1 = vertices[a + 1], z1 = vertices[a + 2];
+        return Triangle.intersect(x1, y1, z1,
+                vertices[b] - x1, vertices[b + 1] - y1, vertices[b + 2] - z1,
+                vertices[c] - x1, vertices[c + 1] - y1, vertices[c + 2] - z1,
+                faceNormals[3 * face], faceNormals[3 * face + 1], faceNormals[3 * face + 2],
+                query.ox, query.oy, query.oz, query.dx, query.dy, query.dz, maxDistance, query.uv);
+    }
+
+    /**
+     * slab test of a ray and the box of a node
+     *
+     * @param node        the index of the node
+     * @param query       the query of the ray
+     * @param maxDistance the distance along the ray to search up to
+     * @return the distance along the ray where it enters the box (0 if it starts inside it),
+     * positive infinity if the ray misses the box before maxDistance
+     */
+    private double intersectBox(int node, Query query, double maxDistance) {
+        int offset = 6 * node;
+        double tNear = 0;
+        double tFar = maxDistance;
+        double t1 = (nodeBounds[offset] - query.ox) * query.invDx;
+        double t2 = (nodeBounds[offset + 3] - query.ox) * query.invDx;
+        if (query.invDx < 0) {
+            double temp = t1;
+            t1 = t2;
+            t2 = temp;
+        }
+        //NaN (ray parallel to the slab and starts on its side) fails the comparisons and is ignored
+        if (t1 > tNear) tNear = t1;
+        if (t2 < tFar) tFar = t2;
+        if (tNear > tFar) return Double.POSITIVE_INFINITY;
+
+        t1 = (nodeBounds[offset + 1] - query.oy) * query.invDy;
+        t2 = (nodeBounds[offset + 4] - query.oy) * query.invDy;
+        if (query.invDy < 0) {
+            double temp = t1;
+            t1 = t2;
+            t2 = temp;
+        }
+        if (t1 > tNear) tNear = t1;
+        if (t2 < tFar) tFar = t2;
+        if (tNear > tFar) return Double.POSITIVE_INFINITY;
+
+        t1 = (nodeBounds[offset + 2] - query.oz) * query.invDz;
+        t2 = (nodeBounds[offset + 5] - query.oz) * query.invDz;
+        if (query.invDz < 0) {
+            double temp = t1;
+            t1 = t2;
+            t2 = temp;
+        }
+        if (t1 > tNear) tNear = t1;
+        if (t2 < tFar) tFar = t2;
+        return tNear > tFar ? Double.POSITIVE_INFINITY : tNear;
+    }
+
+    /**
+     * {@inheritDoc}<br/>
+     * The nodes are visited front to back, and a node farther than the closest intersection found so far is skipped.
+     */
+    @Override
+    protected GeoPoint findClosestIntersectionHelper(Ray ray, double maxDistance, IntersectionCounter counter) {
+        Query query = new Query(ray, maxDistance);
+        if (intersectBox(0, query, maxDistance) != Double.POSITIVE_INFINITY)
+            findClosest(0, query);
+        return query.face < 0 ? null : new GeoPoint(new Face(query.face, query.u, query.v), ray.getPoint(query.distance));
+    }
+
+    /**
+     * finds the closest intersection in a sub-tree which is closer than the closest one found so far
+     *
+     * @param node  the root of the sub-tree (its box is known to be intersected)
+     * @param query the query of the ray - updated on a closer intersection
+     */
+    private void findClosest(int node, Query query) {
+        int count = nodes[2 * node + 1];
+        if (count > 0) {
+            for (int face = nodes[2 * node]; face < nodes[2 * node] + count; ++face) {
+                double t = intersectFace(face, query, query.distance);
+                if (t != Double.POSITIVE_INFINITY) {
+                    query.distance = t;
+                    query.face = face;
+                    query.u = query.uv[0];
+                    query.v = query.uv[1];
+                }
+            }
+            return;
+        }
+
+        int left = node + 1, right = nodes[2 * node];
+        double tLeft = intersectBox(left, query, query.distance);
+        double tRight = intersectBox(right, query, query.distance);
+        int near = tLeft <= tRight ? left : right;
+        int far = tLeft <= tRight ? right : left;
+        if (Math.min(tLeft, tRight) != Double.POSITIVE_INFINITY)
+            findClosest(near, query);
+        if (Math.max(tLeft, tRight) < query.distance)
+            findClosest(far, query);
+    }
+
+    /**
+     * {@inheritDoc}<br/>
+     * An opaque mesh stops on the first face found before the distance, in any order.
+     */
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 ktr, double minKtr, IntersectionCounter counter) {
+        if (!getMaterial().kT.lowerThan(minKtr))
+            return super.findTransparencyHelper(ray, maxDistance, ktr, minKtr, counter);
+
+        Query query = new Query(ray, maxDistance);
+        return intersectBox(0, query, maxDistance) != Double.POSITIVE_INFINITY && hasIntersection(0, query)
+                ? Double3.ZERO : ktr;
+    }
+
+    /**
+     * checks whether a ray intersects any face of a sub-tree before the distance of the query
+     *
+     * @param node  the root of the sub-tree (its box is known to be intersected)
+     * @param query the query of the ray
+     * @return true if there is an intersection closer than the distance
+     */
+    private boolean hasIntersection(int node, Query query) {
+        int count = nodes[2 * node + 1];
+        if (count > 0) {
+            for (int face = nodes[2 * node]; face < nodes[2 * node] + count; ++face)
+                if (intersectFace(face, query, query.distance) != Double.POSITIVE_INFINITY)
+                    return true;
+            return false;
+        }
+        int left = node + 1, right = nodes[2 * node];
+        return intersectBox(left, query, query.distance) != Double.POSITIVE_INFINITY && hasIntersection(left, query)
+                || intersectBox(right, query, query.distance) != Double.POSITIVE_INFINITY
+                && hasIntersection(right, query);
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, IntersectionCounter counter) {
+        Query query = new Query(ray, Double.POSITIVE_INFINITY);
+        List<GeoPoint> intersections = new LinkedList<>();
+        if (intersectBox(0, query, query.distance) != Double.POSITIVE_INFINITY)
+            findAll(0, query, intersections);
+        return intersections.isEmpty() ? null : intersections;
+    }
+
+    /**
+     * collects all the intersections of a ray with the faces of a sub-tree
+     *
+     * @param node          the root of the sub-tree (its box is known to be intersected)
+     * @param query         the query of the ray
+     * @param intersections the list to add the intersections to
+     */
+    private void findAll(int node, Query query, List<GeoPoint> intersections) {
+        int count = nodes[2 * node + 1];
+        if (count > 0) {
+            for (int face = nodes[2 * node]; face < nodes[2 * node] + count; ++face) {
+                double t = intersectFace(face, query, query.distance);
+                if (t != Double.POSITIVE_INFINITY)
+                    intersections.add(new GeoPoint(new Face(face, query.uv[0], query.uv[1]), query.ray.getPoint(t)));
+            }
+            return;
+        }
+        int left = node + 1, right = nodes[2 * node];
+        if (intersectBox(left, query, query.distance) != Double.POSITIVE_INFINITY)
+            findAll(left, query, intersections);
+        if (intersectBox(right, query, query.distance) != Double.POSITIVE_INFINITY)
+            findAll(right, query, intersections);
+    }
+    //endregion
+
+    /**
+     * @param face   index of a face
+     * @param vertex index of the vertex in the face (0, 1 or 2)
+     * @return the vertex of the face
+     */
+    private Point vertex(int face, int vertex) {
+        int offset = 3 * indices[3 * face + vertex];
+        return new Point(vertices[offset], vertices[offset + 1], vertices[offset + 2]);
+    }
+
+    /**
+     * calculates the normal at a point of a face
+     *
+     * @param face the index of the face
+     * @param u    the weight of the second vertex at the point
+     * @param v    the weight of the third vertex at the point
+     * @return the normal of the face, or the normals of its vertices interpolated at the point for a smooth mesh
+     * (turned to the side of the normal of the face)
+     */
+    private Vector normal(int face, double u, double v) {
+        double nx = faceNormals[3 * face], ny = faceNormals[3 * face + 1], nz = faceNormals[3 * face + 2];
+        if (vertexNormals != null) {
+            int a = 3 * indices[3 * face], b = 3 * indices[3 * face + 1], c = 3 * indices[3 * face + 2];
+            double w = 1 - u - v;
+            double sx = w * vertexNormals[a] + u * vertexNormals[b] + v * vertexNormals[c];
+            double sy = w * vertexNormals[a + 1] + u * vertexNormals[b + 1] + v * vertexNormals[c + 1];
+            double sz = w * vertexNormals[a + 2] + u * vertexNormals[b + 2] + v * vertexNormals[c + 2];
+            double length = Math.sqrt(sx * sx + sy * sy + sz * sz);
+            if (!isZero(length)) {
+                if (sx * nx + sy * ny + sz * nz < 0) length = -length;
+                return new Vector(sx / length, sy / length, sz / length);
+            }
+        }
+        return new Vector(nx, ny, nz);
+    }
+
+    /**
+     * {@inheritDoc}<br/>
+     * The face of the point is searched for among all the faces - prefer the normal of the {@link Face}
+     * of an intersection.
+     *
+     * @throws IllegalArgumentException if the point is not on the mesh
+     */
+    @Override
+    public Vector getNormal(Point point) {
+        for (int face = 0; face < getFacesCount(); ++face) {
+            int a = 3 * indices[3 * face], b = 3 * indices[3 * face + 1], c = 3 * indices[3 * face + 2];
+            double e1x = vertices[b] - vertices[a], e1y = vertices[b + 1] - vertices[a + 1];
+            double e1z = vertices[b + 2] - vertices[a + 2];
+            double e2x = vertices[c] - vertices[a], e2y = vertices[c + 1] - vertices[a + 1];
+            double e2z = vertices[c + 2] - vertices[a + 2];
+            double px = point.getX() - vertices[a], py = point.getY() - vertices[a + 1];
+            double pz = point.getZ() - vertices[a + 2];
+            double nx = faceNormals[3 * face], ny = faceNormals[3 * face + 1], nz = faceNormals[3 * face + 2];
+            if ((nx == 0 && ny == 0 && nz == 0) || !isZero(px * nx + py * ny + pz * nz)) continue;
+
+            //barycentric coordinates of the point in the plane of the face
+            double d11 = e1x * e1x + e1y * e1y + e1z * e1z;
+            double d12 = e1x * e2x + e1y * e2y + e1z * e2z;
+            double d22 = e2x * e2x + e2y * e2y + e2z * e2z;
+            double dp1 = px * e1x + py * e1y + pz * e1z;
+            double dp2 = px * e2x + py * e2y + pz * e2z;
+            double denominator = d11 * d22 - d12 * d12;
+            double u = alignZero((d22 * dp1 - d12 * dp2) / denominator);
+            double v = alignZero((d11 * dp2 - d12 * dp1) / denominator);
+            if (u >= 0 && v >= 0 && alignZero(u + v - 1) <= 0)
+                return normal(face, u, v);
+        }
+        throw new IllegalArgumentException("The point is not on the mesh");
+    }
+
+    @Override
+    protected AABB calcBoundary() {
+        return new AABB(nodeBounds[0], nodeBounds[1], nodeBounds[2], nodeBounds[3], nodeBounds[4], nodeBounds[5]);
+    }
+
+    @Override
+    public String toString() {
+        return "Mesh{" +
+                "vertices=" + getVerticesCount() +
+                ", faces=" + getFacesCount() +
+                ", smooth=" + isSmooth() +
+                '}';
+    }
+}
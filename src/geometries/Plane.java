@@ -1,5 +1,6 @@
 package geometries;
 
+import primitives.AABB;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
@@ -7,6 +8,7 @@ import primitives.Vector;
 import java.util.List;
 
 import static primitives.Util.*;
+import static primitives.VectorMath.subtractDotProduct;
 
 /**
  * Plane class represents a plane,
@@ -64,27 +66,32 @@ public class Plane extends Geometry {
     }
 
     @Override
-    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
-        Vector QMinusP0;
-        try {
-            QMinusP0 = q0.subtract(ray.getP0());
-        } catch (IllegalArgumentException ex) {
-            return null; // ray begins at plane's reference point
-        }
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, IntersectionCounter counter) {
         double nv = normal.dotProduct(ray.getDir());
         if (isZero(nv))
             return null; // ray is parallel to plane
 
-        double nQMinusP0 = normal.dotProduct(QMinusP0);
-        double t = alignZero(nQMinusP0 / nv);
+        //n * (q0 - p0) is 0 when the ray begins at plane's reference point, so there is no intersection
+        double t = alignZero(subtractDotProduct(q0, ray.getP0(), normal) / nv);
         if (t > 0)
-            return List.of(new GeoPoint(this, ray.getP0().add(ray.getDir().scale(t))));
+            return List.of(new GeoPoint(this, ray.getPoint(t)));
 
         return null; // no intersection with plane
     }
 
     @Override
-    public int[][] calcBoundary() {//there is no boundary to infinite geometric entity
+    protected GeoPoint findClosestIntersectionHelper(Ray ray, double maxDistance, IntersectionCounter counter) {
+        double nv = normal.dotProduct(ray.getDir());
+        if (isZero(nv))
+            return null; // ray is parallel to plane
+
+        //n * (q0 - p0) is 0 when the ray begins at plane's reference point, so there is no intersection
+        double t = alignZero(subtractDotProduct(q0, ray.getP0(), normal) / nv);
+        return t > 0 && t < maxDistance ? new GeoPoint(this, ray.getPoint(t)) : null;
+    }
+
+    @Override
+    public AABB calcBoundary() {//there is no boundary to infinite geometric entity
         return null;
     }
 }
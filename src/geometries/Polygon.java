@@ -1,5 +1,6 @@
 package geometries;
 
+import primitives.AABB;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
@@ -87,76 +88,144 @@ public class Polygon extends Geometry {
         }
     }
 
+    /**
+     * vertices getter
+     *
+     * @return the vertices of the polygon by their order on its edge path
+     */
+    public List<Point> getVertices() {
+        return vertices;
+    }
+
     @Override
     public Vector getNormal(Point point) {
         return plane.getNormal();
     }
 
     @Override
-    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
-        List<GeoPoint> intersection = plane.findGeoIntersectionsHelper(ray);
+    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, IntersectionCounter counter) {
+        List<GeoPoint> intersection = plane.findGeoIntersectionsHelper(ray, counter);
         if (intersection == null)
             return null; //ray doesn't intersect with plane
 
-        GeoPoint p = intersection.get(0);
+        Point p = intersection.get(0).point;
+        // make new list of geopoints with polygon as geometry
+        return isInside(p) ? List.of(new GeoPoint(this, p)) : null;
+    }
+
+    @Override
+    protected GeoPoint findClosestIntersectionHelper(Ray ray, double maxDistance, IntersectionCounter counter) {
+        GeoPoint intersection = plane.findClosestIntersectionHelper(ray, maxDistance, counter);
+        if (intersection == null || !isInside(intersection.point))
+            return null; //ray doesn't intersect with plane (before maxDistance) or intersects it outside the polygon
+
+        intersection.geometry = this;
+        return intersection;
+    }
+
+    /**
+     * checks whether a point on the polygon's plane is inside the polygon
+     *
+     * @param p point on the plane
+     * @return true if the point is inside the polygon (not on its edges)
+     */
+    private boolean isInside(Point p) {
         try {
             Vector vecEdge = vertices.get(0).subtract(vertices.get(vertices.size() - 1));
-            Vector vecVertexToP = vertices.get(vertices.size() - 1).subtract(p.point);
+            Vector vecVertexToP = vertices.get(vertices.size() - 1).subtract(p);
             Vector vecNk = vecEdge.crossProduct(vecVertexToP); // first vector for comparison
 
             for (int i = 0; i < vertices.size() - 1; i++) {
 
                 vecEdge = vertices.get(i + 1).subtract(vertices.get(i)).normalize();
-                vecVertexToP = vertices.get(i).subtract(p.point).normalize();
+                vecVertexToP = vertices.get(i).subtract(p).normalize();
 
                 if (vecEdge.equals(vecVertexToP) || vecEdge.equals(vecVertexToP.scale(-1)))
-                    return null; //point on edge or edge's vector
+                    return false; //point on edge or edge's vector
 
                 Vector vecNi = vecEdge.crossProduct(vecVertexToP);
                 if (vecNk.dotProduct(vecNi) < 0) // not all Ni-vectors aer in the same direction
-                    return null;
+                    return false;
             }
-
-            // make new list of geopoints with polygon as geometry
-            return List.of(new GeoPoint(this,intersection.get(0).point));
+            return true;
 
         } catch (
                 IllegalArgumentException ex) {
-            return null; // point  on vertex or on edge or on edge's vector
+            return false; // point  on vertex or on edge or on edge's vector
         }
     }
 
+    /**
+     * Checks the overlap of the polygon and a box by the separating axis theorem - the convex polygon and the box
+     * don't intersect if and only if their projections are separated on one of the axes: the normal of the polygon,
+     * the axes of the box, or the cross product of an edge of the polygon and an axis of the box
+     *
+     * @param min the minimal coordinates of the box (X, Y, Z)
+     * @param max the maximal coordinates of the box (X, Y, Z)
+     * @return false if the polygon doesn't intersect with the box
+     */
     @Override
-    public int[][] calcBoundary() {
-        double minX = Double.POSITIVE_INFINITY;
-        double maxX = Double.NEGATIVE_INFINITY;
-        double minY = Double.POSITIVE_INFINITY;
-        double maxY = Double.NEGATIVE_INFINITY;
-        double minZ = Double.POSITIVE_INFINITY;
-        double maxZ = Double.NEGATIVE_INFINITY;
-        double x;
-        double y;
-        double z;
-        for (var point : vertices) {
-            x = point.getX();
-            y = point.getY();
-            z = point.getZ();
-            if (x < minX)
-                minX = x;
-            if (x > maxX)
-                maxX = x;
-            if (y < minY)
-                minY = y;
-            if (y > maxY)
-                maxY = y;
-            if (z < minZ)
-                minZ = z;
-            if (z > maxZ)
-                maxZ = z;
+    public boolean overlapsBox(double[] min, double[] max) {
+        //the center and the half sizes of the box
+        double hx = (max[0] - min[0]) / 2, hy = (max[1] - min[1]) / 2, hz = (max[2] - min[2]) / 2;
+        double cx = min[0] + hx, cy = min[1] + hy, cz = min[2] + hz;
+
+        //the plane of the polygon separates most of the boxes, so it is tested first
+        Vector n = plane.getNormal();
+        double nx = n.getX(), ny = n.getY(), nz = n.getZ();
+        Point first = vertices.get(0);
+        double distance = nx * (first.getX() - cx) + ny * (first.getY() - cy) + nz * (first.getZ() - cz);
+        if (Math.abs(distance) > limit(hx * Math.abs(nx) + hy * Math.abs(ny) + hz * Math.abs(nz)))
+            return false;
+        if (separated(cx, cy, cz, 1, 0, 0, hx) || separated(cx, cy, cz, 0, 1, 0, hy)
+                || separated(cx, cy, cz, 0, 0, 1, hz))
+            return false;
+        for (int i = 0; i < size; ++i) {
+            Point from = vertices.get(i), to = vertices.get((i + 1) % size);
+            double ex = to.getX() - from.getX(), ey = to.getY() - from.getY(), ez = to.getZ() - from.getZ();
+            //edge x X = (0, ez, -ey), edge x Y = (-ez, 0, ex), edge x Z = (ey, -ex, 0)
+            if (separated(cx, cy, cz, 0, ez, -ey, hy * Math.abs(ez) + hz * Math.abs(ey))
+                    || separated(cx, cy, cz, -ez, 0, ex, hx * Math.abs(ez) + hz * Math.abs(ex))
+                    || separated(cx, cy, cz, ey, -ex, 0, hx * Math.abs(ey) + hy * Math.abs(ex)))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * checks whether the projections of the polygon and a box on an axis are separated
+     *
+     * @param cx     the X coordinate of the center of the box
+     * @param cy     the Y coordinate of the center of the box
+     * @param cz     the Z coordinate of the center of the box
+     * @param ax     the X component of the axis
+     * @param ay     the Y component of the axis
+     * @param az     the Z component of the axis
+     * @param radius the radius of the projection of the box on the axis (around the projection of its center)
+     * @return true if the projection of the polygon is out of the projection of the box
+     */
+    private boolean separated(double cx, double cy, double cz, double ax, double ay, double az, double radius) {
+        double low = Double.POSITIVE_INFINITY, high = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < size; ++i) {
+            Point vertex = vertices.get(i);
+            double projection = ax * (vertex.getX() - cx) + ay * (vertex.getY() - cy) + az * (vertex.getZ() - cz);
+            if (projection < low) low = projection;
+            if (projection > high) high = projection;
         }
+        double limit = limit(radius);
+        return low > limit || high < -limit;
+    }
+
+    /**
+     * @param radius the radius of the projection of a box on an axis
+     * @return the radius with the tolerance of the overlap tests
+     */
+    private static double limit(double radius) {
+        return radius * (1 + OVERLAP_TOLERANCE) + OVERLAP_TOLERANCE;
+    }
 
-        return new int[][]{{(int) Math.floor(minX), (int) Math.ceil(maxX)},
-                {(int) Math.floor(minY), (int) Math.ceil(maxY)},
-                {(int) Math.floor(minZ), (int) Math.ceil(maxZ)}};
+    @Override
+    public AABB calcBoundary() {
+        return new AABB(vertices.toArray(new Point[0]));
     }
 }
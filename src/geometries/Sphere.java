@@ -1,12 +1,16 @@
 package geometries;
 
+import primitives.AABB;
 import primitives.Point;
 import primitives.Ray;
+import primitives.RayPacket;
 import primitives.Vector;
 
 import java.util.List;
 
 import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
+import static primitives.VectorMath.subtractDotProduct;
 
 /**
  * Sphere class extending abstract class RadialGeometry,
@@ -36,7 +40,7 @@ public class Sphere extends RadialGeometry {
     }
 
     @Override
-    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, IntersectionCounter counter) {
         try {
             Point P0 = ray.getP0();
             Vector v = ray.getDir();
@@ -44,10 +48,9 @@ public class Sphere extends RadialGeometry {
             if (P0.equals(center)) {
                 return List.of(new GeoPoint(this, center.add(v.scale(radius))));
             }
-            Vector u = center.subtract(P0);
-
-            double tm = alignZero(v.dotProduct(u));
-            double d = alignZero(Math.sqrt(Math.abs(u.dotProduct(u) - tm * tm)));
+            //u = center - P0, calculated without creating the vector
+            double tm = alignZero(subtractDotProduct(center, P0, v));
+            double d = alignZero(Math.sqrt(Math.abs(center.distanceSquared(P0) - tm * tm)));
 
             // no intersections : the ray direction is above the sphere
             if (d >= radius) {
@@ -83,13 +86,86 @@ public class Sphere extends RadialGeometry {
     }
 
     @Override
-    public int[][] calcBoundary() {
+    protected GeoPoint findClosestIntersectionHelper(Ray ray, double maxDistance, IntersectionCounter counter) {
+        Point P0 = ray.getP0();
+        Vector v = ray.getDir();
+
+        if (P0.equals(center)) {
+            return radius < maxDistance ? new GeoPoint(this, ray.getPoint(radius)) : null;
+        }
+        //u = center - P0, calculated without creating the vector
+        double tm = alignZero(subtractDotProduct(center, P0, v));
+        double d = alignZero(Math.sqrt(Math.abs(center.distanceSquared(P0) - tm * tm)));
+
+        // no intersections : the ray direction is above the sphere
+        if (d >= radius) {
+            return null;
+        }
+
+        double th = alignZero(Math.sqrt(radius * radius - d * d));
+        //t1 <= t2, therefore t1 is the closest one if it is in front of the ray head
+        double t1 = alignZero(tm - th);
+        double t = t1 > 0 ? t1 : alignZero(tm + th);
+
+        return t > 0 && t < maxDistance ? new GeoPoint(this, ray.getPoint(t)) : null;
+    }
+
+    /**
+     * {@inheritDoc}<br/>
+     * The same calculation as {@link #findClosestIntersectionHelper(Ray, double, IntersectionCounter)},
+     * done on the coordinates arrays of the packet, so a point is created only on an intersection.
+     */
+    @Override
+    protected void findClosestIntersectionsHelper(RayPacket packet, int[] lanes, int count,
+                                                  double[] distances, GeoPoint[] hits, IntersectionCounter counter) {
+        double cx = center.getX();
+        double cy = center.getY();
+        double cz = center.getZ();
+        for (int i = 0; i < count; ++i) {
+            int lane = lanes[i];
+            //u = center - P0
+            double ux = cx - packet.ox[lane];
+            double uy = cy - packet.oy[lane];
+            double uz = cz - packet.oz[lane];
+            if (isZero(ux) && isZero(uy) && isZero(uz)) { //the ray starts at the center
+                super.findClosestIntersectionsHelper(packet, new int[]{lane}, 1, distances, hits, counter);
+                continue;
+            }
+            double tm = alignZero(ux * packet.dx[lane] + uy * packet.dy[lane] + uz * packet.dz[lane]);
+            double d = alignZero(Math.sqrt(Math.abs(ux * ux + uy * uy + uz * uz - tm * tm)));
+            // no intersections : the ray direction is above the sphere
+            if (d >= radius) continue;
+
+            double th = alignZero(Math.sqrt(radius * radius - d * d));
+            double t1 = alignZero(tm - th);
+            double t = t1 > 0 ? t1 : alignZero(tm + th);
+            if (t > 0 && t < distances[lane]) {
+                Ray ray = packet.getRay(lane);
+                Point point = ray.getPoint(t);
+                hits[lane] = new GeoPoint(this, point);
+                distances[lane] = ray.getP0().distance(point);
+            }
+        }
+    }
+
+    @Override
+    public boolean overlapsBox(double[] min, double[] max) {
+        //the squared distance from the center to the closest point of the box
+        double[] c = {center.getX(), center.getY(), center.getZ()};
+        double distance = 0;
+        for (int axis = 0; axis < 3; ++axis) {
+            double d = c[axis] < min[axis] ? min[axis] - c[axis] : c[axis] > max[axis] ? c[axis] - max[axis] : 0;
+            distance += d * d;
+        }
+        return distance <= radius * radius * (1 + OVERLAP_TOLERANCE) + OVERLAP_TOLERANCE;
+    }
+
+    @Override
+    public AABB calcBoundary() {
         double x = center.getX();
         double y = center.getY();
         double z = center.getZ();
 
-        return new int[][]{{(int) Math.floor(x - radius), (int) Math.ceil(x + radius)},
-                {(int) Math.floor(y - radius), (int) Math.ceil(y + radius)},
-                {(int) Math.floor(z - radius), (int) Math.ceil(z + radius)}};
+        return new AABB(x - radius, y - radius, z - radius, x + radius, y + radius, z + radius);
     }
 }
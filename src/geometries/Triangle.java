@@ -2,6 +2,7 @@ package geometries;
 
 import primitives.Point;
 import primitives.Ray;
+import primitives.RayPacket;
 import primitives.Vector;
 
 import java.util.List;
@@ -14,6 +15,17 @@ import static primitives.Util.*;
  * @author Sarah Daatyah Furmanski and Efrat Kartman
  */
 public class Triangle extends Polygon {
+    /**
+     * amount of the values of the precalculated data of a triangle for the intersection kernel:
+     * the first vertex (3), the edges from it to the second and the third vertices (3 + 3)
+     * and the unit normal (3)
+     */
+    static final int STRIDE = 12;
+    /**
+     * the precalculated data of the triangle for the intersection kernel (see {@link #STRIDE})
+     */
+    private final double[] data = new double[STRIDE];
+
     /**
      * constructor that received 3 points
      *
@@ -23,31 +35,191 @@ public class Triangle extends Polygon {
      */
     public Triangle(Point p1, Point p2, Point p3) {
         super(p1, p2, p3);
+        precalculate(p1, p2, p3, data, 0);
+    }
+
+    /**
+     * precalculates the data of a triangle for the intersection kernel
+     *
+     * @param p1     first vertex
+     * @param p2     second vertex
+     * @param p3     third vertex
+     * @param data   array of the data of triangles
+     * @param offset the offset of the data of the triangle in the array
+     */
+    static void precalculate(Point p1, Point p2, Point p3, double[] data, int offset) {
+        precalculate(p1.getX(), p1.getY(), p1.getZ(), p2.getX(), p2.getY(), p2.getZ(),
+                p3.getX(), p3.getY(), p3.getZ(), data, offset);
+    }
+
+    /**
+     * precalculates the data of a triangle for the intersection kernel from the coordinates of its vertices
+     *
+     * @param x1     first vertex X coordinate
+     * @param y1     first vertex Y coordinate
+     * @param z1     first vertex Z coordinate
+     * @param x2     second vertex X coordinate
+     * @param y2     second vertex Y coordinate
+     * @param z2     second vertex Z coordinate
+     * @param x3     third vertex X coordinate
+     * @param y3     third vertex Y coordinate
+     * @param z3     third vertex Z coordinate
+     * @param data   array of the data of triangles
+     * @param offset the offset of the data of the triangle in the array
+     */
+    static void precalculate(double x1, double y1, double z1, double x2, double y2, double z2,
+                             double x3, double y3, double z3, double[] data, int offset) {
+        double e1x = x2 - x1, e1y = y2 - y1, e1z = z2 - z1;
+        double e2x = x3 - x1, e2y = y3 - y1, e2z = z3 - z1;
+        double nx = e1y * e2z - e1z * e2y;
+        double ny = e1z * e2x - e1x * e2z;
+        double nz = e1x * e2y - e1y * e2x;
+        double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+        data[offset] = x1;
+        data[offset + 1] = y1;
+        data[offset + 2] = z1;
+        data[offset + 3] = e1x;
+        data[offset + 4] = e1y;
+        data[offset + 5] = e1z;
+        data[offset + 6] = e2x;
+        data[offset + 7] = e2y;
+        data[offset + 8] = e2z;
+        //a degenerate triangle has no normal, and is never intersected
+        data[offset + 9] = length == 0 ? 0 : nx / length;
+        data[offset + 10] = length == 0 ? 0 : ny / length;
+        data[offset + 11] = length == 0 ? 0 : nz / length;
+    }
+
+    /**
+     * Möller–Trumbore intersection kernel of a ray and a triangle given by its precalculated data
+     * (see the kernel on the coordinates below)
+     *
+     * @param data        array of the precalculated data of triangles
+     * @param offset      the offset of the data of the triangle in the array
+     * @param ox          X coordinate of the ray head
+     * @param oy          Y coordinate of the ray head
+     * @param oz          Z coordinate of the ray head
+     * @param dx          X coordinate of the ray direction
+     * @param dy          Y coordinate of the ray direction
+     * @param dz          Z coordinate of the ray direction
+     * @param maxDistance the distance along the ray to search up to
+     * @param uv          array for the barycentric coordinates of the intersection, may be null
+     * @return the distance of the intersection along the ray, positive infinity if there is no intersection
+     * closer than maxDistance
+     */
+    static double intersect(double[] data, int offset, double ox, double oy, double oz,
+                            double dx, double dy, double dz, double maxDistance, double[] uv) {
+        return intersect(data[offset], data[offset + 1], data[offset + 2],
+                data[offset + 3], data[offset + 4], data[offset + 5],
+                data[offset + 6], data[offset + 7], data[offset + 8],
+                data[offset + 9], data[offset + 10], data[offset + 11],
+                ox, oy, oz, dx, dy, dz, maxDistance, uv);
+    }
+
+    /**
+     * Möller–Trumbore intersection kernel of a ray and a triangle - the intersection is found directly
+     * by its barycentric coordinates, without the intersection with the plane and without creating any objects.<br/>
+     * As in the other intersections, a ray parallel to the triangle, or intersecting it on its edges, does not
+     * intersect it.
+     *
+     * @param x1          X coordinate of the first vertex
+     * @param y1          Y coordinate of the first vertex
+     * @param z1          Z coordinate of the first vertex
+     * @param e1x         X coordinate of the edge from the first vertex to the second one
+     * @param e1y         Y coordinate of the edge from the first vertex to the second one
+     * @param e1z         Z coordinate of the edge from the first vertex to the second one
+     * @param e2x         X coordinate of the edge from the first vertex to the third one
+     * @param e2y         Y coordinate of the edge from the first vertex to the third one
+     * @param e2z         Z coordinate of the edge from the first vertex to the third one
+     * @param nx          X coordinate of the unit normal
+     * @param ny          Y coordinate of the unit normal
+     * @param nz          Z coordinate of the unit normal
+     * @param ox          X coordinate of the ray head
+     * @param oy          Y coordinate of the ray head
+     * @param oz          Z coordinate of the ray head
+     * @param dx          X coordinate of the ray direction
+     * @param dy          Y coordinate of the ray direction
+     * @param dz          Z coordinate of the ray direction
+     * @param maxDistance the distance along the ray to search up to
+     * @param uv          array for the barycentric coordinates of the intersection (u, v) - the weights of the second
+     *                    and the third vertices (the weight of the first vertex is 1 - u - v), may be null
+     * @return the distance of the intersection along the ray, positive infinity if there is no intersection
+     * closer than maxDistance
+     */
+    static double intersect(double x1, double y1, double z1, double e1x, double e1y, double e1z,
+                            double e2x, double e2y, double e2z, double nx, double ny, double nz,
+                            double ox, double oy, double oz, double dx, double dy, double dz,
+                            double maxDistance, double[] uv) {
+        if (isZero(nx * dx + ny * dy + nz * dz)) return Double.POSITIVE_INFINITY; //ray is parallel to the triangle
+
+        //p = d x e2
+        double px = dy * e2z - dz * e2y;
+        double py = dz * e2x - dx * e2z;
+        double pz = dx * e2y - dy * e2x;
+        double invDet = 1 / (e1x * px + e1y * py + e1z * pz);
+        double tx = ox - x1, ty = oy - y1, tz = oz - z1;
+        double u = alignZero((tx * px + ty * py + tz * pz) * invDet);
+        if (u <= 0 || u >= 1) return Double.POSITIVE_INFINITY;
+
+        //q = (o - v1) x e1
+        double qx = ty * e1z - tz * e1y;
+        double qy = tz * e1x - tx * e1z;
+        double qz = tx * e1y - ty * e1x;
+        double v = alignZero((dx * qx + dy * qy + dz * qz) * invDet);
+        if (v <= 0 || alignZero(u + v - 1) >= 0) return Double.POSITIVE_INFINITY;
+
+        double t = alignZero((e2x * qx + e2y * qy + e2z * qz) * invDet);
+        if (t <= 0 || t >= maxDistance) return Double.POSITIVE_INFINITY;
+        if (uv != null) {
+            uv[0] = u;
+            uv[1] = v;
+        }
+        return t;
+    }
+
+    /**
+     * Finds the intersection of a ray and the triangle with its barycentric coordinates,
+     * for interpolating values given on the vertices (e.g. normals or texture coordinates)
+     *
+     * @param ray         the ray
+     * @param maxDistance the distance along the ray to search up to
+     * @param uv          array for the barycentric coordinates of the intersection (u, v) - the weights of the second
+     *                    and the third vertices (the weight of the first vertex is 1 - u - v), may be null
+     * @return the distance of the intersection along the ray, positive infinity if there is no intersection
+     * closer than maxDistance
+     */
+    public double intersect(Ray ray, double maxDistance, double[] uv) {
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        return intersect(data, 0, p0.getX(), p0.getY(), p0.getZ(), dir.getX(), dir.getY(), dir.getZ(), maxDistance, uv);
+    }
+
+    @Override
+    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, IntersectionCounter counter) {
+        GeoPoint intersection = findClosestIntersectionHelper(ray, Double.POSITIVE_INFINITY, counter);
+        return intersection == null ? null : List.of(intersection);
+    }
+
+    @Override
+    protected GeoPoint findClosestIntersectionHelper(Ray ray, double maxDistance, IntersectionCounter counter) {
+        double t = intersect(ray, maxDistance, null);
+        return t == Double.POSITIVE_INFINITY ? null : new GeoPoint(this, ray.getPoint(t));
     }
 
     @Override
-    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
-        List<GeoPoint> intersection = plane.findGeoIntersectionsHelper(ray);
-        if (intersection == null)
-            return null; //ray doesn't intersect with plane
-
-        Vector v1 = vertices.get(0).subtract(ray.getP0());
-        Vector v2 = vertices.get(1).subtract(ray.getP0());
-        Vector n1 = v1.crossProduct(v2).normalize();
-        double sign1 = alignZero(ray.getDir().dotProduct(n1));
-        if (sign1 == 0) return null;
-
-        Vector v3 = vertices.get(2).subtract(ray.getP0());
-        Vector n2 = v2.crossProduct(v3).normalize();
-        double sign2 = alignZero(ray.getDir().dotProduct(n2));
-        if (sign1 * sign2 <= 0) return null;
-
-        Vector n3 = (v3.crossProduct(v1)).normalize();
-        double sign3 = alignZero(ray.getDir().dotProduct(n3));
-        if (sign1 * sign3 <= 0) return null;
-
-        // make new list of geopoints with triangle as geometry
-        return List.of(new GeoPoint(this,intersection.get(0).point));
+    protected void findClosestIntersectionsHelper(RayPacket packet, int[] lanes, int count,
+                                                  double[] distances, GeoPoint[] hits, IntersectionCounter counter) {
+        for (int i = 0; i < count; ++i) {
+            int lane = lanes[i];
+            double t = intersect(data, 0, packet.ox[lane], packet.oy[lane], packet.oz[lane],
+                    packet.dx[lane], packet.dy[lane], packet.dz[lane], distances[lane], null);
+            if (t != Double.POSITIVE_INFINITY) {
+                Ray ray = packet.getRay(lane);
+                Point point = ray.getPoint(t);
+                hits[lane] = new GeoPoint(this, point);
+                distances[lane] = ray.getP0().distance(point);
+            }
+        }
     }
 
     @Override
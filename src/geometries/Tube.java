@@ -1,5 +1,6 @@
 package geometries;
 
+import primitives.AABB;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
@@ -54,7 +55,28 @@ public class Tube extends RadialGeometry {
     }
 
     @Override
-    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, IntersectionCounter counter) {
+        double[] distances = findIntersectionDistances(ray);
+        if (distances == null)
+            return null;
+        if (distances.length == 1)
+            return List.of(new GeoPoint(this, ray.getPoint(distances[0])));
+        return List.of(new GeoPoint(this, ray.getPoint(distances[0])), new GeoPoint(this, ray.getPoint(distances[1])));
+    }
+
+    @Override
+    protected GeoPoint findClosestIntersectionHelper(Ray ray, double maxDistance, IntersectionCounter counter) {
+        double[] distances = findIntersectionDistances(ray);
+        return distances == null || distances[0] >= maxDistance ? null : new GeoPoint(this, ray.getPoint(distances[0]));
+    }
+
+    /**
+     * Finds the distances along the ray to its intersections with the tube
+     *
+     * @param ray the ray
+     * @return the positive distances in ascending order, null if there are no intersections
+     */
+    protected double[] findIntersectionDistances(Ray ray) {
         // solve for t : At^2 + Bt + C = 0
         // A = (vr - (vr,va)va)^2
         // B = 2(vr-(vr,va)va , deltaP-(deltaP,va)va)
@@ -71,18 +93,16 @@ public class Tube extends RadialGeometry {
 
         if (ray.getP0().equals(axisRay.getP0())) { //ray start on axis's head point
             if (isZero(vDotVa)) //ray also orthogonal to axis
-                return List.of(new GeoPoint(this, ray.getPoint(radius)));
-            double t = alignZero(radius / (vr.subtract(va.scale(vDotVa)).length()));
-            return List.of(new GeoPoint(this, ray.getPoint(t)));
+                return new double[]{radius};
+            return new double[]{alignZero(radius / (vr.subtract(va.scale(vDotVa)).length()))};
         }
 
         Vector vecDeltaP = ray.getP0().subtract(axisRay.getP0());
         double deltaPDotVa = vecDeltaP.dotProduct(va);
         if (va.equals(vecDeltaP.normalize()) || va.equals(vecDeltaP.normalize().scale(-1))) { //ray start along axis
             if (isZero(vDotVa)) //ray also orthogonal to axis
-                return List.of(new GeoPoint(this, ray.getPoint(radius)));
-            double t = alignZero(radius / (vr.subtract(va.scale(vDotVa)).length()));
-            return List.of(new GeoPoint(this, ray.getPoint(t)));
+                return new double[]{radius};
+            return new double[]{alignZero(radius / (vr.subtract(va.scale(vDotVa)).length()))};
         }
 
         // is either of the vectors, vr or deltaP, orthogonal to the vector va?
@@ -100,17 +120,17 @@ public class Tube extends RadialGeometry {
         double t1 = alignZero((-b - Math.sqrt(discriminant)) / (2 * a));
         double t2 = alignZero((-b + Math.sqrt(discriminant)) / (2 * a));
         if (t1 > 0 && t2 > 0)
-            return List.of(new GeoPoint(this, ray.getPoint(t1)), new GeoPoint(this, ray.getPoint(t2)));
+            return new double[]{t1, t2};
         if (t1 > 0)
-            return List.of(new GeoPoint(this, ray.getPoint(t1)));
+            return new double[]{t1};
         if (t2 > 0)
-            return List.of(new GeoPoint(this, ray.getPoint(t2)));
+            return new double[]{t2};
 
         return null;
     }
 
     @Override
-    public int[][] calcBoundary() {//there is no boundary to infinite geometric entity
+    public AABB calcBoundary() {//there is no boundary to infinite geometric entity
         return null;
     }
 }
@@ -31,6 +31,14 @@ public class DirectionalLight extends Light implements LightSource {
         return direction;
     }
 
+    /**
+     * direction getter
+     * @return direction of the illumination (normalized)
+     */
+    public Vector getDirection() {
+        return direction;
+    }
+
     @Override
     public double getDistance(Point point) {
         return Double.POSITIVE_INFINITY;
@@ -46,6 +46,35 @@ public class PointLight extends Light implements LightSource{
         return this;
     }
 
+    /**
+     * position getter
+     * @return position of light-source
+     */
+    public Point getPosition() {
+        return position;
+    }
+
+    /**
+     * @return the constant attenuation factor
+     */
+    public double getKc() {
+        return kC;
+    }
+
+    /**
+     * @return the linear attenuation factor
+     */
+    public double getKl() {
+        return kL;
+    }
+
+    /**
+     * @return the quadratic attenuation factor
+     */
+    public double getKq() {
+        return kQ;
+    }
+
     @Override
     public double getDistance(Point point) {
         return point.distance(position);
@@ -37,4 +37,19 @@ public class SpotLight extends PointLight {
         this.narrowBeam = narrowBeam;
         return this;
     }
+
+    /**
+     * direction getter
+     * @return direction of the illumination (normalized)
+     */
+    public Vector getDirection() {
+        return direction;
+    }
+
+    /**
+     * @return the exponent that narrows the beam (1 for a regular spot)
+     */
+    public double getNarrowBeam() {
+        return narrowBeam;
+    }
 }
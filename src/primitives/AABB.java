@@ -0,0 +1,128 @@
+package primitives;
+
+import java.util.Arrays;
+
+import static primitives.Util.isZero;
+
+/**
+ * AABB class represents an axis aligned bounding box - the box between the minimal and the maximal
+ * coordinates of a geometric entity on each axis (axis 0 - X, 1 - Y, 2 - Z)
+ * @author Sarah Daatyah Furmanski and Efrat Kartman
+ */
+public class AABB {
+    /**
+     * the minimal coordinates of the box on each axis
+     */
+    private final double[] min;
+    /**
+     * the maximal coordinates of the box on each axis
+     */
+    private final double[] max;
+
+    /**
+     * constructor which receives the minimal and the maximal coordinates
+     * @param minX minimal X coordinate
+     * @param minY minimal Y coordinate
+     * @param minZ minimal Z coordinate
+     * @param maxX maximal X coordinate
+     * @param maxY maximal Y coordinate
+     * @param maxZ maximal Z coordinate
+     * @throws IllegalArgumentException if a minimal coordinate is bigger than the maximal one
+     */
+    public AABB(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        if (minX > maxX || minY > maxY || minZ > maxZ)
+            throw new IllegalArgumentException("minimal coordinates of a box must not be bigger than the maximal ones");
+        min = new double[]{minX, minY, minZ};
+        max = new double[]{maxX, maxY, maxZ};
+    }
+
+    /**
+     * constructor of the bounding box of points
+     * @param points the points
+     * @throws IllegalArgumentException if there are no points
+     */
+    public AABB(Point... points) {
+        if (points.length == 0)
+            throw new IllegalArgumentException("bounding box must bound at least one point");
+        min = new double[]{Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY};
+        max = new double[]{Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        for (Point point : points) {
+            double[] coordinates = {point.xyz.d1, point.xyz.d2, point.xyz.d3};
+            for (int axis = 0; axis < 3; ++axis) {
+                if (coordinates[axis] < min[axis]) min[axis] = coordinates[axis];
+                if (coordinates[axis] > max[axis]) max[axis] = coordinates[axis];
+            }
+        }
+    }
+
+    /**
+     * the smallest box containing this box and another box
+     * @param other the other box
+     * @return the union box
+     */
+    public AABB union(AABB other) {
+        return new AABB(Math.min(min[0], other.min[0]), Math.min(min[1], other.min[1]), Math.min(min[2], other.min[2]),
+                Math.max(max[0], other.max[0]), Math.max(max[1], other.max[1]), Math.max(max[2], other.max[2]));
+    }
+
+    /**
+     * checks whether a point is inside the box (or on its faces)
+     * @param point the point
+     * @return true if the point is inside the box
+     */
+    public boolean contains(Point point) {
+        return point.xyz.d1 >= min[0] && point.xyz.d1 <= max[0]
+                && point.xyz.d2 >= min[1] && point.xyz.d2 <= max[1]
+                && point.xyz.d3 >= min[2] && point.xyz.d3 <= max[2];
+    }
+
+    /**
+     * minimal coordinate getter
+     * @param axis the axis (0 - X, 1 - Y, 2 - Z)
+     * @return the minimal coordinate of the box on the axis
+     */
+    public double getMin(int axis) {
+        return min[axis];
+    }
+
+    /**
+     * maximal coordinate getter
+     * @param axis the axis (0 - X, 1 - Y, 2 - Z)
+     * @return the maximal coordinate of the box on the axis
+     */
+    public double getMax(int axis) {
+        return max[axis];
+    }
+
+    /**
+     * the size of the box edge on an axis
+     * @param axis the axis (0 - X, 1 - Y, 2 - Z)
+     * @return the size of the box edge on the axis
+     */
+    public double getSize(int axis) {
+        return max[axis] - min[axis];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof AABB other)) return false;
+        for (int axis = 0; axis < 3; ++axis)
+            if (!isZero(min[axis] - other.min[axis]) || !isZero(max[axis] - other.max[axis]))
+                return false;
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) Math.round(min[0] + min[1] + min[2] + max[0] + max[1] + max[2]);
+    }
+
+    @Override
+    public String toString() {
+        return "AABB{" +
+                "min=" + Arrays.toString(min) +
+                ", max=" + Arrays.toString(max) +
+                '}';
+    }
+}
@@ -76,6 +76,15 @@ public class Color {
         return new java.awt.Color(ir > 255 ? 255 : ir, ig > 255 ? 255 : ig, ib > 255 ? 255 : ib);
     }
 
+    /**
+     * RGB components getter - without the upper limit of 255
+     *
+     * @return the triad of Red/Green/Blue components
+     */
+    public Double3 getRgb() {
+        return rgb;
+    }
+
     /**
      * Operation of adding this and one or more other colors (by component)
      *
@@ -106,6 +115,26 @@ public class Color {
         return new Color(rgb.product(k));
     }
 
+    /**
+     * Add to the color another color scaled by two scaled triads - this + c * (k1 * s1) + c * (k2 * s2),
+     * without creating the intermediate triads and colors
+     *
+     * @param c  the color to scale and add
+     * @param k1 first scale factor per rgb
+     * @param s1 scale of the first factor
+     * @param k2 second scale factor per rgb
+     * @param s2 scale of the second factor
+     * @return new Color object which is the result of the operation
+     */
+    public Color addScaled(Color c, Double3 k1, double s1, Double3 k2, double s2) {
+        if (k1.d1 * s1 < 0.0 || k1.d2 * s1 < 0.0 || k1.d3 * s1 < 0.0
+                || k2.d1 * s2 < 0.0 || k2.d2 * s2 < 0.0 || k2.d3 * s2 < 0.0)
+            throw new IllegalArgumentException("Can't scale a color by a negative number");
+        return new Color(rgb.d1 + c.rgb.d1 * (k1.d1 * s1) + c.rgb.d1 * (k2.d1 * s2),
+                rgb.d2 + c.rgb.d2 * (k1.d2 * s1) + c.rgb.d2 * (k2.d2 * s2),
+                rgb.d3 + c.rgb.d3 * (k1.d3 * s1) + c.rgb.d3 * (k2.d3 * s2));
+    }
+
     /**
      * Scale the color by a scalar
      *
@@ -144,10 +173,4 @@ public class Color {
     public String toString() {
         return "rgb:" + rgb;
     }
-
-    public boolean similar(Color color) {
-        Double3 diff = this.rgb.subtract(color.rgb);
-        return (Math.abs(diff.d1) <= 1) && (Math.abs(diff.d2) <= 1) && (Math.abs(diff.d3) <= 1);
-        //return (Math.abs(diff.d1) <= 2) && (Math.abs(diff.d2) <= 2) && (Math.abs(diff.d3) <= 2);
-    }
 }
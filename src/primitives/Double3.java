@@ -39,6 +39,18 @@ public class Double3 {
       this.d3 = value;
    }
 
+   /** First number getter
+    * @return the first number */
+   public double getD1() { return d1; }
+
+   /** Second number getter
+    * @return the second number */
+   public double getD2() { return d2; }
+
+   /** Third number getter
+    * @return the third number */
+   public double getD3() { return d3; }
+
    @Override
    public boolean equals(Object obj) {
       if (this == obj) return true;
@@ -112,4 +124,14 @@ public class Double3 {
    public boolean lowerThan(Double3 other) {
       return d1 < other.d1 && d2 < other.d2 && d3 < other.d3;
    }
+
+   /** Checks whether all the numbers of the product with another triad are lower
+    * than a test number, without creating the product triad
+    * @param  rhs right handle side operand for product
+    * @param  k   the test number
+    * @return     true if all the numbers of the product are less than k, false
+    *             otherwise */
+   public boolean productLowerThan(Double3 rhs, double k) {
+      return d1 * rhs.d1 < k && d2 * rhs.d2 < k && d3 * rhs.d3 < k;
+   }
 }
@@ -38,13 +38,15 @@ public class Ray {
      * @param normal normal vector
      */
     public Ray(Point p0, Vector direction, Vector normal) {
-        Vector delta = normal.scale(normal.dotProduct(direction) > 0 ? DELTA : - DELTA);
-        this.p0 = p0.add(delta);
+        double delta = normal.dotProduct(direction) > 0 ? DELTA : - DELTA;
+        this.p0 = new Point(p0.xyz.d1 + normal.xyz.d1 * delta,
+                p0.xyz.d2 + normal.xyz.d2 * delta,
+                p0.xyz.d3 + normal.xyz.d3 * delta);
         this.dir = direction.normalize();
     }
 
     public Point getPoint(double t) {
-        return isZero(t) ? p0 : p0.add(dir.scale(t));
+        return isZero(t) ? p0 : new Point(p0.xyz.d1 + dir.xyz.d1 * t, p0.xyz.d2 + dir.xyz.d2 * t, p0.xyz.d3 + dir.xyz.d3 * t);
     }
 
     public Point getP0() {
@@ -0,0 +1,177 @@
+package primitives;
+
+import java.util.List;
+
+/**
+ * RayPacket class represents a bundle of coherent rays (e.g. the rays of an anti-aliasing beam through a pixel),
+ * which are intersected with the geometries together.<br/>
+ * The rays are stored as a structure of arrays - an array for every coordinate of the heads and the directions,
+ * so the intersection kernels run a tight loop over the rays (the lanes of the packet) on primitive arrays.
+ * @author Sarah Daatyah Furmanski and Efrat Kartman
+ */
+public class RayPacket {
+    /**
+     * the rays of the packet
+     */
+    private final Ray[] rays;
+    /**
+     * coordinates of the heads of the rays
+     */
+    public final double[] ox, oy, oz;
+    /**
+     * coordinates of the directions of the rays
+     */
+    public final double[] dx, dy, dz;
+    /**
+     * inverse of the coordinates of the directions of the rays (for the slab tests with boxes)
+     */
+    public final double[] invDx, invDy, invDz;
+    /**
+     * the indexes of all the lanes of the packet (0, 1, ... size - 1)
+     */
+    private final int[] lanes;
+    /**
+     * the intervals of the coordinates of the heads of the rays on each axis
+     */
+    private final double[] originMin, originMax;
+    /**
+     * the intervals of the inverse coordinates of the directions of the rays on each axis
+     */
+    private final double[] invDirMin, invDirMax;
+    /**
+     * whether the directions of all the rays have the same (non-zero) sign on each axis -
+     * only then the intervals bound the rays of the packet (see {@link #missesBox(double[], double[])})
+     */
+    private final boolean coherent;
+
+    /**
+     * constructor
+     * @param rays the rays of the packet
+     */
+    public RayPacket(List<Ray> rays) {
+        this.rays = rays.toArray(new Ray[0]);
+        int size = this.rays.length;
+        ox = new double[size];
+        oy = new double[size];
+        oz = new double[size];
+        dx = new double[size];
+        dy = new double[size];
+        dz = new double[size];
+        invDx = new double[size];
+        invDy = new double[size];
+        invDz = new double[size];
+        lanes = new int[size];
+        for (int i = 0; i < size; ++i) {
+            Double3 p0 = this.rays[i].getP0().xyz;
+            Double3 dir = this.rays[i].getDir().xyz;
+            ox[i] = p0.d1;
+            oy[i] = p0.d2;
+            oz[i] = p0.d3;
+            dx[i] = dir.d1;
+            dy[i] = dir.d2;
+            dz[i] = dir.d3;
+            invDx[i] = 1 / dir.d1;
+            invDy[i] = 1 / dir.d2;
+            invDz[i] = 1 / dir.d3;
+            lanes[i] = i;
+        }
+
+        originMin = new double[]{min(ox), min(oy), min(oz)};
+        originMax = new double[]{max(ox), max(oy), max(oz)};
+        invDirMin = new double[]{min(invDx), min(invDy), min(invDz)};
+        invDirMax = new double[]{max(invDx), max(invDy), max(invDz)};
+        boolean sameSigns = size > 0;
+        for (int axis = 0; axis < 3; ++axis)
+            sameSigns = sameSigns && Double.isFinite(invDirMin[axis]) && Double.isFinite(invDirMax[axis])
+                    && (invDirMin[axis] > 0 || invDirMax[axis] < 0);
+        coherent = sameSigns;
+    }
+
+    /**
+     * @param values array of values
+     * @return the minimal value
+     */
+    private static double min(double[] values) {
+        double min = Double.POSITIVE_INFINITY;
+        for (double value : values)
+            if (value < min) min = value;
+        return min;
+    }
+
+    /**
+     * @param values array of values
+     * @return the maximal value
+     */
+    private static double max(double[] values) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (double value : values)
+            if (value > max) max = value;
+        return max;
+    }
+
+    /**
+     * @return the amount of rays in the packet
+     */
+    public int size() {
+        return rays.length;
+    }
+
+    /**
+     * ray getter
+     * @param lane index of the ray in the packet
+     * @return the ray
+     */
+    public Ray getRay(int lane) {
+        return rays[lane];
+    }
+
+    /**
+     * Conservative test whether all the rays of the packet miss a box, using interval arithmetic:
+     * the slab test is calculated on the intervals of the heads and the inverse directions of the rays,
+     * so a single test rejects the box for the whole packet.<br/>
+     * The test is conservative - false does not mean that any ray intersects the box.
+     *
+     * @param min the minimal coordinates of the box
+     * @param max the maximal coordinates of the box
+     * @return true if surely none of the rays intersects the box (in front of its head)
+     */
+    public boolean missesBox(double[] min, double[] max) {
+        if (!coherent) return false;
+        double tNear = 0;
+        double tFar = Double.POSITIVE_INFINITY;
+        for (int axis = 0; axis < 3; ++axis) {
+            //rays in the positive direction enter the slab through its minimal plane
+            boolean positive = invDirMin[axis] > 0;
+            double entryPlane = positive ? min[axis] : max[axis];
+            double exitPlane = positive ? max[axis] : min[axis];
+            tNear = Math.max(tNear, intervalProduct(entryPlane - originMax[axis], entryPlane - originMin[axis],
+                    invDirMin[axis], invDirMax[axis], true));
+            tFar = Math.min(tFar, intervalProduct(exitPlane - originMax[axis], exitPlane - originMin[axis],
+                    invDirMin[axis], invDirMax[axis], false));
+            if (tNear > tFar) return true;
+        }
+        return false;
+    }
+
+    /**
+     * bound of the product of two intervals
+     *
+     * @param a1    lower bound of the first interval
+     * @param a2    upper bound of the first interval
+     * @param b1    lower bound of the second interval
+     * @param b2    upper bound of the second interval
+     * @param lower true for the lower bound of the product, false for the upper bound
+     * @return the bound of the product
+     */
+    private static double intervalProduct(double a1, double a2, double b1, double b2, boolean lower) {
+        double p1 = a1 * b1, p2 = a1 * b2, p3 = a2 * b1, p4 = a2 * b2;
+        return lower ? Math.min(Math.min(p1, p2), Math.min(p3, p4)) : Math.max(Math.max(p1, p2), Math.max(p3, p4));
+    }
+
+    /**
+     * @return the indexes of all the lanes of the packet - must not be changed
+     */
+    public int[] getLanes() {
+        return lanes;
+    }
+}
@@ -0,0 +1,60 @@
+package primitives;
+
+/**
+ * VectorMath class is used for allocation free vector calculations in the hot paths of the ray tracing.<br/>
+ * The functions work on the coordinates of the given points and vectors (or on plain numbers)
+ * and return numbers, so no intermediate Point, Vector or Double3 objects are created.
+ * The immutable API of Point and Vector stays the one to use for building scenes
+ *
+ * @author Sarah Daatyah Furmanski and Efrat Kartman
+ */
+public abstract class VectorMath {
+    /**
+     * Empty private constructor to hide the public one
+     */
+    private VectorMath() {
+    }
+
+    /**
+     * Dot product of two vectors given by their coordinates
+     *
+     * @param x1 x of the first vector
+     * @param y1 y of the first vector
+     * @param z1 z of the first vector
+     * @param x2 x of the second vector
+     * @param y2 y of the second vector
+     * @param z2 z of the second vector
+     * @return the dot product
+     */
+    public static double dotProduct(double x1, double y1, double z1, double x2, double y2, double z2) {
+        return x1 * x2 + y1 * y2 + z1 * z2;
+    }
+
+    /**
+     * Dot product of the vector between two points and another vector - (a - b) * v
+     *
+     * @param a the head of the vector between the points
+     * @param b the tail of the vector between the points
+     * @param v the other vector
+     * @return the dot product, 0 if the points are equal
+     */
+    public static double subtractDotProduct(Point a, Point b, Vector v) {
+        return dotProduct(a.xyz.d1 - b.xyz.d1, a.xyz.d2 - b.xyz.d2, a.xyz.d3 - b.xyz.d3,
+                v.xyz.d1, v.xyz.d2, v.xyz.d3);
+    }
+
+    /**
+     * Dot product of the opposite of a vector and the reflection of another vector - (-v) * (l - 2 * (n * l) * n)
+     *
+     * @param v  the vector (e.g. ray direction)
+     * @param l  the reflected vector (e.g. light direction)
+     * @param n  the normal of the reflecting surface
+     * @param nl the dot product of the normal and the reflected vector
+     * @return the dot product
+     */
+    public static double reflectionDotProduct(Vector v, Vector l, Vector n, double nl) {
+        double scale = 2 * nl;
+        return dotProduct(-v.xyz.d1, -v.xyz.d2, -v.xyz.d3,
+                l.xyz.d1 - n.xyz.d1 * scale, l.xyz.d2 - n.xyz.d2 * scale, l.xyz.d3 - n.xyz.d3 * scale);
+    }
+}
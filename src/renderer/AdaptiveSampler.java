@@ -0,0 +1,309 @@
+package renderer;
+
+import primitives.Color;
+import primitives.Double3;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * AdaptiveSampler is a helper class of the adaptive super-sampling of a Camera.<br/>
+ * The samples are the points of a lattice over the whole view plane - each pixel is a square of the lattice,
+ * which is divided into 4 squares while the colors of its corners vary more than the threshold, up to the
+ * maximal level. A corner is shared by the neighbouring squares, and the points on the border of a pixel are
+ * shared by the neighbouring pixels, so each ray is traced once:
+ * <ul>
+ *     <li>the corners of the pixels - in an array of the whole image</li>
+ *     <li>the other points on the borders of the pixels - in an array of each edge of the pixels, which is dropped
+ *     when both pixels of the edge are sampled at the maximal level</li>
+ *     <li>the points inside a pixel - in a lattice of the pixel, one in each thread</li>
+ * </ul>
+ * The colors are immutable, so the threads share them without locks - two threads may trace the same point at the
+ * same time, and both get the same color.
+ *
+ * @author Sarah Daatyah Furmanski and Efrat Kartman
+ */
+class AdaptiveSampler {
+    /**
+     * the ray tracer of the samples
+     */
+    private final RayTracerBase rayTracer;
+    /**
+     * the origin of the rays (the location of the camera)
+     */
+    private final Point origin;
+    /**
+     * the coordinates of the upper left corner of the view plane
+     */
+    private final double cornerX, cornerY, cornerZ;
+    /**
+     * the step of one cell of the lattice to the right, and down
+     */
+    private final Vector right, down;
+    /**
+     * resolution of the image
+     */
+    private final int nX, nY;
+    /**
+     * the cells of the lattice on a side of a pixel (2 to the power of the maximal level)
+     */
+    private final int cells;
+    /**
+     * the maximal level of the sampling
+     */
+    private final int maxLevel;
+    /**
+     * the maximal standard deviation of the colors of the corners of a square which is not divided
+     */
+    private final double threshold;
+    /**
+     * the colors of the corners of the pixels, row by row (null if not traced yet)
+     */
+    private final Color[] corners;
+    /**
+     * the colors of the points inside each edge of the pixels, by their position on the edge (null if not sampled
+     * yet, or dropped) - the vertical edges row by row, and then the horizontal edges row by row
+     */
+    private final AtomicReferenceArray<Color[]> edges;
+    /**
+     * amount of the pixels of each edge which are not sampled at the maximal level yet
+     */
+    private final AtomicIntegerArray edgePixels;
+    /**
+     * the samples of the color of each pixel (row by row)
+     */
+    private final int[] samples;
+    /**
+     * the lattice of the pixel of each thread
+     */
+    private final ThreadLocal<Lattice> lattices;
+
+    /**
+     * The lattice of a pixel - the colors of its points that were sampled for the current pixel, which are
+     * stamped by the pixel, so the lattice is not cleared between pixels
+     */
+    private static class Lattice {
+        final Color[] colors;
+        final int[] stamps;
+        int stamp;
+        /**
+         * amount of the points sampled for the current pixel
+         */
+        int sampled;
+
+        /**
+         * @param points amount of the points of the lattice
+         */
+        Lattice(int points) {
+            colors = new Color[points];
+            stamps = new int[points];
+        }
+    }
+
+    /**
+     * Constructor
+     *
+     * @param rayTracer the ray tracer of the samples
+     * @param origin    the origin of the rays
+     * @param center    the center of the view plane
+     * @param vRight    the right direction of the view plane
+     * @param vUp       the up direction of the view plane
+     * @param width     the width of the view plane
+     * @param height    the height of the view plane
+     * @param nX        the columns of pixels
+     * @param nY        the rows of pixels
+     * @param maxLevel  the maximal level of the sampling - the pixels are divided up to maxLevel times
+     * @param threshold the maximal standard deviation of the colors (in each of red, green and blue)
+     *                  of the corners of a square which is not divided
+     */
+    AdaptiveSampler(RayTracerBase rayTracer, Point origin, Point center, Vector vRight, Vector vUp,
+                    double width, double height, int nX, int nY, int maxLevel, double threshold) {
+        this.rayTracer = rayTracer;
+        this.origin = origin;
+        this.nX = nX;
+        this.nY = nY;
+        this.maxLevel = maxLevel;
+        this.cells = 1 << maxLevel;
+        this.threshold = threshold;
+        right = vRight.scale(width / nX / cells);
+        down = vUp.scale(-height / nY / cells);
+        Point corner = center.add(vRight.scale(-width / 2)).add(vUp.scale(height / 2));
+        cornerX = corner.getX();
+        cornerY = corner.getY();
+        cornerZ = corner.getZ();
+        corners = new Color[(nX + 1) * (nY + 1)];
+        int verticalEdges = (nX + 1) * nY;
+        edges = new AtomicReferenceArray<>(verticalEdges + nX * (nY + 1));
+        edgePixels = new AtomicIntegerArray(edges.length());
+        for (int row = 0; row < nY; ++row)
+            for (int col = 0; col < nX; ++col)
+                for (int edge : pixelEdges(col, row))
+                    edgePixels.incrementAndGet(edge);
+        samples = new int[nX * nY];
+        int points = (cells + 1) * (cells + 1);
+        lattices = ThreadLocal.withInitial(() -> new Lattice(points));
+    }
+
+    /**
+     * Samples the color of a pixel adaptively
+     *
+     * @param col   the column of the pixel
+     * @param row   the row of the pixel
+     * @param level the level of the sampling (at most the maximal level), level 0 samples the corners only
+     * @return the color of the pixel
+     */
+    Color samplePixel(int col, int row, int level) {
+        Lattice lattice = lattices.get();
+        ++lattice.stamp;
+        lattice.sampled = 0;
+        Color color = sampleSquare(lattice, col, row, 0, 0, cells, level);
+        samples[row * nX + col] = lattice.sampled;
+        if (level >= maxLevel)
+            //the pixel is done - the edges which no pixel needs anymore are dropped
+            for (int edge : pixelEdges(col, row))
+                if (edgePixels.decrementAndGet(edge) == 0)
+                    edges.set(edge, null);
+        return color;
+    }
+
+    /**
+     * @param col the column of the pixel
+     * @param row the row of the pixel
+     * @return the indexes of the edges of the pixel - left, right, top and bottom
+     */
+    private int[] pixelEdges(int col, int row) {
+        int verticalEdges = (nX + 1) * nY;
+        return new int[]{row * (nX + 1) + col, row * (nX + 1) + col + 1,
+                verticalEdges + row * nX + col, verticalEdges + (row + 1) * nX + col};
+    }
+
+    /**
+     * @return the samples of the color of each pixel (row by row), the latest sampling of the pixel
+     */
+    int[] getSamples() {
+        return samples;
+    }
+
+    /**
+     * Samples the color of a square of the lattice of a pixel
+     *
+     * @param lattice the lattice of the thread
+     * @param col     the column of the pixel
+     * @param row     the row of the pixel
+     * @param x       the column of the upper left corner of the square in the lattice of the pixel
+     * @param y       the row of the upper left corner of the square in the lattice of the pixel
+     * @param size    the size of the square (cells)
+     * @param level   the level of the square - a square of level 0 is not divided
+     * @return the color of the square
+     */
+    private Color sampleSquare(Lattice lattice, int col, int row, int x, int y, int size, int level) {
+        Color c1 = sample(lattice, col, row, x, y);
+        Color c2 = sample(lattice, col, row, x + size, y);
+        Color c3 = sample(lattice, col, row, x, y + size);
+        Color c4 = sample(lattice, col, row, x + size, y + size);
+        if (level == 0 || !varies(c1.getRgb(), c2.getRgb(), c3.getRgb(), c4.getRgb()))
+            return c1.add(c2, c3, c4).reduce(4);
+
+        int half = size / 2;
+        return sampleSquare(lattice, col, row, x, y, half, level - 1).add(
+                        sampleSquare(lattice, col, row, x + half, y, half, level - 1),
+                        sampleSquare(lattice, col, row, x, y + half, half, level - 1),
+                        sampleSquare(lattice, col, row, x + half, y + half, half, level - 1))
+                .reduce(4);
+    }
+
+    /**
+     * Checks whether the colors of the corners of a square vary more than the threshold
+     *
+     * @param c1 the color of the first corner
+     * @param c2 the color of the second corner
+     * @param c3 the color of the third corner
+     * @param c4 the color of the fourth corner
+     * @return true if the standard deviation of red, green or blue is more than the threshold
+     */
+    private boolean varies(Double3 c1, Double3 c2, Double3 c3, Double3 c4) {
+        double limit = 4 * threshold * threshold;
+        return variance(c1.getD1(), c2.getD1(), c3.getD1(), c4.getD1()) > limit
+                || variance(c1.getD2(), c2.getD2(), c3.getD2(), c4.getD2()) > limit
+                || variance(c1.getD3(), c2.getD3(), c3.getD3(), c4.getD3()) > limit;
+    }
+
+    /**
+     * @return 4 times the variance of the 4 values
+     */
+    private static double variance(double a, double b, double c, double d) {
+        double mean = (a + b + c + d) / 4;
+        return (a - mean) * (a - mean) + (b - mean) * (b - mean) + (c - mean) * (c - mean) + (d - mean) * (d - mean);
+    }
+
+    /**
+     * The color of a point of the lattice of a pixel - from the lattice of the pixel, from the shared corners and
+     * borders of the pixels, or traced
+     *
+     * @param lattice the lattice of the thread
+     * @param col     the column of the pixel
+     * @param row     the row of the pixel
+     * @param x       the column of the point in the lattice of the pixel
+     * @param y       the row of the point in the lattice of the pixel
+     * @return the color of the point
+     */
+    private Color sample(Lattice lattice, int col, int row, int x, int y) {
+        int index = y * (cells + 1) + x;
+        if (lattice.stamps[index] == lattice.stamp)
+            return lattice.colors[index];
+
+        ++lattice.sampled;
+        long gx = (long) col * cells + x;
+        long gy = (long) row * cells + y;
+        Color color;
+        boolean vertical = x == 0 || x == cells, horizontal = y == 0 || y == cells;
+        if (vertical && horizontal) {
+            int corner = (row + y / cells) * (nX + 1) + col + x / cells;
+            color = corners[corner];
+            if (color == null)
+                corners[corner] = color = trace(gx, gy);
+        } else if (vertical || horizontal) {
+            Color[] edge = edge(vertical ? row * (nX + 1) + col + x / cells
+                    : (nX + 1) * nY + (row + y / cells) * nX + col);
+            int position = (vertical ? y : x) - 1;
+            color = edge[position];
+            if (color == null)
+                edge[position] = color = trace(gx, gy);
+        } else
+            color = trace(gx, gy);
+
+        lattice.stamps[index] = lattice.stamp;
+        lattice.colors[index] = color;
+        return color;
+    }
+
+    /**
+     * @param index the index of the edge
+     * @return the colors of the points inside the edge, allocated on the first sample of the edge
+     */
+    private Color[] edge(int index) {
+        Color[] edge = edges.get(index);
+        while (edge == null) {
+            Color[] created = new Color[cells - 1];
+            edge = edges.compareAndSet(index, null, created) ? created : edges.get(index);
+        }
+        return edge;
+    }
+
+    /**
+     * Traces the ray through a point of the lattice of the image
+     *
+     * @param gx the column of the point in the lattice of the image
+     * @param gy the row of the point in the lattice of the image
+     * @return the color of the ray
+     */
+    private Color trace(long gx, long gy) {
+        return rayTracer.traceRay(new Ray(origin, new Vector(
+                cornerX + gx * right.getX() + gy * down.getX() - origin.getX(),
+                cornerY + gx * right.getY() + gy * down.getY() - origin.getY(),
+                cornerZ + gx * right.getZ() + gy * down.getZ() - origin.getZ())));
+    }
+}
@@ -1,12 +1,20 @@
 package renderer;
 
 import primitives.Color;
+import primitives.Double3;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
 import renderer.PixelManager.Pixel;
+import renderer.PixelManager.Tile;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import static primitives.Util.isZero;
 
@@ -41,8 +49,18 @@ public class Camera {
     //-----Improvements-----
     //Anti-Aliasing
     private int antiAliasingFactor = 1;
+    /**
+     * the maximal level of the adaptive super-sampling (a lattice of 1025 * 1025 points in a pixel)
+     */
+    private static final int MAX_ADAPTIVE_LEVEL = 10;
     private int maxAdaptiveLevel = 3;
     private boolean useAdaptive = false;
+    private double adaptiveThreshold = 1;
+    /**
+     * the sampler of the current adaptive rendering, and the samples of each pixel in the last one
+     */
+    private AdaptiveSampler adaptiveSampler;
+    private int[] sampleCounts;
 
     //@TODO delete
 //    //depth of field
@@ -62,6 +80,44 @@ public class Camera {
     private PixelManager pixelManager;
     private double printInterval;
     private double threadsCount = 0;
+    /**
+     * Tiles rendering - the width and height of a tile in pixels (0 - rendering pixel by pixel)
+     * and the order the tiles are rendered in
+     */
+    private int tileSize = 0;
+    private TileOrder tileOrder = TileOrder.HILBERT;
+    /**
+     * the tile size of the rendering by an executor service when no tile size is set
+     */
+    private static final int DEFAULT_TILE_SIZE = 16;
+    /**
+     * Rendering by an executor service - the tiles are submitted as tasks to the executor,
+     * the rendering may be limited in time and can be cancelled
+     */
+    private ExecutorService executor;
+    private Duration renderTimeout;
+    private volatile List<Future<?>> renderTasks;
+    private volatile boolean renderCancelled;
+    /**
+     * Progressive rendering - the image is rendered in passes, the first pass traces one sample in each pixel
+     * and each pass refines all the pixels with more samples. The listener gets a snapshot of the image
+     * after a pass (at most once in the interval, and after the last pass)
+     */
+    private int progressivePasses = 0;
+    private Duration snapshotInterval;
+    private SnapshotListener snapshotListener;
+    /**
+     * Time-budgeted rendering - after a pass of one sample in each pixel, the pixels of the highest estimated
+     * variance get more samples of the anti-aliasing grid until the budget expires
+     */
+    private Duration timeBudget;
+    /**
+     * the statistics of the renderings, null when they are not collected, and the file they are exported to
+     */
+    private RenderMetrics metrics;
+    private Path metricsFile;
+    private static final Logger LOGGER = Logger.getLogger(Camera.class.getName());
+    private Progress progress;
     //----------
 
     //endregion
@@ -128,24 +184,39 @@ public class Camera {
         Point centerTarget = centerRay.getPoint(targetAreaDis);
         double spacing = targetAreaSide / (targetAreaRes - 1);
 
-        double scaleUp, scaleRight;
-        Point destinationPoint;
         for (int i = 0; i < targetAreaRes; i++) {
             for (int j = 0; j < targetAreaRes; j++) {
-                scaleUp = (-i + (targetAreaRes - 1d) / 2) * spacing;
-                scaleRight = (j - (targetAreaRes - 1d) / 2) * spacing;
-                destinationPoint = centerTarget;
-                if (scaleUp != 0)
-                    destinationPoint = destinationPoint.add(vup.scale(scaleUp));
-                if (scaleRight != 0)
-                    destinationPoint = destinationPoint.add(vright.scale(scaleRight));
-                rays.add(new Ray(origin, destinationPoint.subtract(origin)));
+                rays.add(constructBeamRay(origin, centerTarget, vup, vright, spacing, targetAreaRes, i, j));
             }
         }
 
         return rays;
     }
 
+    /**
+     * Calculate a ray of a beam - through a point of the target area grid
+     * @param origin        the origin of the beam
+     * @param centerTarget  the center of the target area
+     * @param vup           vector for target area plane
+     * @param vright        vector for target area plane
+     * @param spacing       distance between the points of the grid
+     * @param targetAreaRes resolution of target area, number of rays on one side
+     * @param i             row of the point in the grid
+     * @param j             column of the point in the grid
+     * @return the ray
+     */
+    private static Ray constructBeamRay(Point origin, Point centerTarget, Vector vup, Vector vright, double spacing,
+                                        int targetAreaRes, int i, int j) {
+        double scaleUp = (-i + (targetAreaRes - 1d) / 2) * spacing;
+        double scaleRight = (j - (targetAreaRes - 1d) / 2) * spacing;
+        Point destinationPoint = centerTarget;
+        if (scaleUp != 0)
+            destinationPoint = destinationPoint.add(vup.scale(scaleUp));
+        if (scaleRight != 0)
+            destinationPoint = destinationPoint.add(vright.scale(scaleRight));
+        return new Ray(origin, destinationPoint.subtract(origin));
+    }
+
 //@TODO: delete
 //
 //    /**
@@ -163,47 +234,6 @@ public class Camera {
 //    }
 
 
-    /**
-     * Calculate color of pixel, using adaptive antialiasing
-     *
-     * @param centerRay      the central ray to build beam around
-     * @param targetAreaSide length of target area side. target area full size = side*side
-     * @param level          level of recursion
-     * @return color of pixel
-     */
-    private Color adaptiveHelper(Ray centerRay, Vector vup, Vector vright, double targetAreaDis, double targetAreaSide, int level) {
-        // list of colors of four corners
-        List<Ray> rays = new ArrayList<>(
-                constructRaysBeam(centerRay, vup, vright, targetAreaDis, targetAreaSide / 2, 2));
-        List<Color> colors = rays.stream().map(ray -> rayTracer.traceRay(ray)).toList();
-
-        //if finished recursion, return average of colors
-        if (level == 1)
-            return colors.get(0).add(colors.get(1), colors.get(2), colors.get(3))
-                    .reduce(4);
-
-        //If the four colors are similar to each other, return one
-        if (colors.get(0).similar(colors.get(1))
-                && colors.get(0).similar(colors.get(2))
-                && colors.get(0).similar(colors.get(3)))
-            return colors.get(0);
-
-        //else, call recursion
-        Point origin = centerRay.getP0();
-        Point p = centerRay.getPoint(distance);
-        Point[] points = {
-                p.add(vup.scale(0.25 * targetAreaSide)).add(vright.scale(-0.25 * targetAreaSide)),
-                p.add(vup.scale(0.25 * targetAreaSide)).add(vright.scale(0.25 * targetAreaSide)),
-                p.add(vup.scale(-0.25 * targetAreaSide)).add(vright.scale(-0.25 * targetAreaSide)),
-                p.add(vup.scale(-0.25 * targetAreaSide)).add(vright.scale(0.25 * targetAreaSide))};
-
-        return adaptiveHelper(new Ray(origin, points[0].subtract(origin)), vup, vright, targetAreaDis, targetAreaSide / 2, level - 1).add(
-                        adaptiveHelper(new Ray(origin, points[1].subtract(origin)), vup, vright, targetAreaDis, targetAreaSide / 2, level - 1),
-                        adaptiveHelper(new Ray(origin, points[2].subtract(origin)), vup, vright, targetAreaDis, targetAreaSide / 2, level - 1),
-                        adaptiveHelper(new Ray(origin, points[3].subtract(origin)), vup, vright, targetAreaDis, targetAreaSide / 2, level - 1))
-                .reduce(4);
-    }
-
 //@TODO: delete
 //
 //    /**
@@ -273,6 +303,8 @@ public class Camera {
      * included in the ray tracer object
      *
      * @return the camera object itself
+     * @throws IllegalStateException if rendering by an executor failed or timed out
+     * @throws CancellationException if rendering by an executor was cancelled or interrupted
      */
     public Camera renderImage() {
         //info: coordinates of the camera != null
@@ -285,35 +317,246 @@ public class Camera {
         if ((imageWriter == null) || (rayTracer == null))
             throw new MissingResourceException("Image creation details are not initialized", "Camera", "Writer info");
 
+        RenderMetrics metrics = this.metrics;
+        if (metrics == null) {
+            render();
+            return this;
+        }
+        //the ray tracer passes the statistics to the intersection queries, which count the tests of the geometries
+        rayTracer.setMetrics(metrics);
+        long start = System.nanoTime();
+        try {
+            render();
+        } finally {
+            metrics.addTime(RenderMetrics.Phase.TRACE, System.nanoTime() - start);
+            metrics.setTime(RenderMetrics.Phase.SCENE_BUILD, rayTracer.scene.getBuildTime());
+            metrics.setTime(RenderMetrics.Phase.VOXELIZATION, rayTracer.scene.getVoxelsTime());
+        }
+        exportMetrics();
+        return this;
+    }
+
+    /**
+     * renders the image by the rendering mode of the camera
+     */
+    private void render() {
         int nX = imageWriter.getNx();
         int nY = imageWriter.getNy();
+        if (timeBudget != null) {
+            renderBudgeted(nX, nY);
+            return;
+        }
+        if (useAdaptive)
+            adaptiveSampler = new AdaptiveSampler(rayTracer, centerPoint, centerPoint.add(vTo.scale(distance)),
+                    vRight, vUp, width, height, nX, nY, maxAdaptiveLevel, adaptiveThreshold);
+        try {
+            if (progressivePasses > 0)
+                renderProgressive(nX, nY);
+            else
+                renderPass(nX, nY);
+        } finally {
+            if (adaptiveSampler != null)
+                sampleCounts = adaptiveSampler.getSamples();
+            adaptiveSampler = null;
+        }
+    }
+
+    /**
+     * writes the statistics to their file, if there is one - a failure is logged, and does not fail the rendering
+     */
+    private void exportMetrics() {
+        if (metricsFile == null) return;
+        try {
+            metrics.writeJson(metricsFile);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Rendering statistics can't be written to " + metricsFile, e);
+        }
+    }
+
+    /**
+     * Renders all the pixels of the image once - by the threads, tiles or executor that were set
+     *
+     * @param nX resolution on X axis (number of pixels in row)
+     * @param nY resolution on Y axis (number of pixels in column)
+     */
+    private void renderPass(int nX, int nY) {
         pixelManager = new PixelManager(nY, nX, printInterval);
 
-        if (threadsCount == 0) // no multi threading
+        if (executor != null) // tiles submitted to the given executor
+            renderTiles(nX, nY, executor);
+        else if (threadsCount == 0) { // no multi threading
             for (int i = 0; i < nY; ++i)
-                for (int j = 0; j < nX; ++j)
+                for (int j = 0; j < nX; ++j) {
                     castRay(nX, nY, j, i);
+                    pixelManager.pixelDone();
+                }
+        } else if (tileSize > 0) // multi threading by tiles
+            renderTiles(nX, nY);
         else {
             var threads = new LinkedList<Thread>(); // list of threads
-            while (threadsCount-- > 0) // add appropriate number of threads
+            for (double count = threadsCount; count > 0; --count) // add appropriate number of threads
                 threads.add(new Thread(() -> { // add a thread with its code
                     Pixel pixel; // current pixel(row,col)
                     // allocate pixel(row,col) in loop until there are no more pixels
-                    while ((pixel = pixelManager.nextPixel()) != null)
+                    while ((pixel = pixelManager.nextPixel()) != null) {
                         // cast ray through pixel (and color it – inside castRay)
                         castRay(nX, nY, pixel.col(), pixel.row());
+                        pixelManager.pixelDone();
+                    }
                 }));
             // start all the threads
             for (var thread : threads) thread.start();
             // wait until all the threads have finished
             try {
                 for (var thread : threads) thread.join();
-            } catch (InterruptedException ignore) {
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Renders the image tile by tile in a work-stealing thread pool.
+     * The tiles are sorted along a space-filling curve, and each thread splits the tiles range it got in halves,
+     * so a thread works on close tiles while the idle threads steal the far halves
+     *
+     * @param nX resolution on X axis (number of pixels in row)
+     * @param nY resolution on Y axis (number of pixels in column)
+     */
+    private void renderTiles(int nX, int nY) {
+        Tile[] tiles = pixelManager.tiles(tileSize, tileOrder);
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, (int) Math.ceil(threadsCount)));
+        try {
+            pool.invoke(new TilesTask(tiles, 0, tiles.length, nX, nY));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Renders the image tile by tile, each tile is a task submitted to the given executor.
+     * The rendering waits for all the tasks up to the rendering timeout (if set),
+     * on failure, timeout, interruption or cancellation the remaining tasks are cancelled
+     *
+     * @param nX       resolution on X axis (number of pixels in row)
+     * @param nY       resolution on Y axis (number of pixels in column)
+     * @param executor the executor running the tiles
+     * @throws IllegalStateException if a tile failed (the failure is the cause) or the rendering timed out
+     * @throws CancellationException if the rendering was cancelled or the rendering thread was interrupted
+     */
+    private void renderTiles(int nX, int nY, ExecutorService executor) {
+        Tile[] tiles = pixelManager.tiles(tileSize > 0 ? tileSize : DEFAULT_TILE_SIZE, tileOrder);
+        List<Future<?>> tasks = new ArrayList<>(tiles.length);
+        renderCancelled = false;
+        long deadline = renderTimeout == null ? 0 : System.nanoTime() + renderTimeout.toNanos();
+        try {
+            //the tasks are published to cancelRendering only when all of them are submitted
+            for (Tile tile : tiles) {
+                if (renderCancelled) throw new CancellationException("Rendering was cancelled");
+                tasks.add(executor.submit(() -> renderTile(nX, nY, tile)));
             }
+            renderTasks = tasks;
+            if (renderCancelled) throw new CancellationException("Rendering was cancelled");
+            for (Future<?> task : tasks)
+                if (renderTimeout == null) task.get();
+                else task.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            cancelTasks(tasks);
+            throw new IllegalStateException("Rendering of a tile failed", e.getCause());
+        } catch (TimeoutException e) {
+            cancelTasks(tasks);
+            throw new IllegalStateException("Rendering timed out after " + renderTimeout, e);
+        } catch (InterruptedException e) {
+            cancelTasks(tasks);
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Rendering was interrupted");
+        } catch (CancellationException | RejectedExecutionException e) {
+            cancelTasks(tasks);
+            throw e;
+        } finally {
+            renderTasks = null;
         }
+    }
+
+    /**
+     * Cancels the tasks of a rendering, the running tasks are interrupted
+     *
+     * @param tasks the tasks
+     */
+    private void cancelTasks(List<Future<?>> tasks) {
+        for (Future<?> task : tasks) task.cancel(true);
+    }
+
+    /**
+     * Cancels the rendering which is running by an executor (see {@link #setExecutor(ExecutorService)}).
+     * The tiles which have not started are not rendered, the running tiles stop at their next row,
+     * and {@link #renderImage()} throws {@link CancellationException}.
+     * Does nothing if there is no such rendering
+     *
+     * @return the camera object itself
+     */
+    public Camera cancelRendering() {
+        renderCancelled = true;
+        List<Future<?>> tasks = renderTasks;
+        if (tasks != null) cancelTasks(tasks);
         return this;
     }
 
+    /**
+     * Renders a tile of the image, stops if the thread is interrupted (i.e. the rendering was cancelled)
+     *
+     * @param nX   resolution on X axis (number of pixels in row)
+     * @param nY   resolution on Y axis (number of pixels in column)
+     * @param tile the tile
+     */
+    private void renderTile(int nX, int nY, Tile tile) {
+        for (int i = tile.row(); i < tile.row() + tile.height(); ++i) {
+            if (Thread.currentThread().isInterrupted()) return;
+            for (int j = tile.col(); j < tile.col() + tile.width(); ++j)
+                castRay(nX, nY, j, i);
+        }
+        pixelManager.pixelsDone(tile.pixels());
+    }
+
+    /**
+     * Fork-join task rendering a range of tiles
+     */
+    private class TilesTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Tile[] tiles;
+        private final int from;
+        private final int to;
+        private final int nX;
+        private final int nY;
+
+        /**
+         * Constructor of a task for the tiles in the range [from, to)
+         *
+         * @param tiles all the tiles of the image
+         * @param from  index of the first tile in the range
+         * @param to    index after the last tile in the range
+         * @param nX    resolution on X axis (number of pixels in row)
+         * @param nY    resolution on Y axis (number of pixels in column)
+         */
+        TilesTask(Tile[] tiles, int from, int to, int nX, int nY) {
+            this.tiles = tiles;
+            this.from = from;
+            this.to = to;
+            this.nX = nX;
+            this.nY = nY;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new TilesTask(tiles, from, middle, nX, nY), new TilesTask(tiles, middle, to, nX, nY));
+                return;
+            }
+            if (to > from) renderTile(nX, nY, tiles[from]);
+        }
+    }
+
     /**
      * Cast ray from camera and color a pixel
      *
@@ -325,13 +568,20 @@ public class Camera {
     private void castRay(int nX, int nY, int i, int j) {
         Color color;
         Ray ray = constructRay(nX, nY, i, j);
+        if (progress != null) {
+            color = progress.targets == null ? refinePixel(nX, nY, i, j, ray) : refineBudgeted(nX, i, j, ray);
+            //a pixel which is not refined in a budgeted pass keeps its color
+            if (color != null)
+                imageWriter.writePixel(i, j, color);
+            return;
+        }
         //@TODO delete
 //        if (depthOfField)
 //            //depthOfFieldHelper know to combine DOF with other improvements
 //            color = depthOfFieldHelper(ray, height / nY);
 //        else
         if (useAdaptive)
-            color = adaptiveHelper(ray, vUp, vRight, distance, height / nY, maxAdaptiveLevel);
+            color = adaptiveSampler.samplePixel(i, j, maxAdaptiveLevel);
         else if (antiAliasingFactor == 1)
             color = rayTracer.traceRay(ray);
         else
@@ -339,9 +589,321 @@ public class Camera {
                     constructRaysBeam(ray, vUp, vRight, distance, height / nY, antiAliasingFactor));
 
         imageWriter.writePixel(i, j, color);
-        pixelManager.pixelDone();
+    }
+
+    //region progressive rendering
+
+    /**
+     * The state of a progressive rendering - the samples of the current pass and the sums of the samples
+     * of each pixel. A pass is rendered after its state is set, so the rendering threads see the state.<br/>
+     * In a time-budgeted rendering each pixel has its own amount of samples, and its target for the current pass
+     */
+    private static class Progress {
+        /**
+         * the points of the anti-aliasing grid (row * resolution + column) from coarse to fine - each point is
+         * the nearest to the center of a cell of a quad-tree over the pixel, level after level
+         */
+        final int[] order;
+        /**
+         * the sum of the red, green and blue of the samples of each pixel (row by row)
+         */
+        final double[] sums;
+        /**
+         * the current pass (from 1)
+         */
+        int pass;
+        /**
+         * the samples of the current pass - from the sample in position {@code from} of the order, up to
+         * {@code to} (not included)
+         */
+        int from, to;
+        /**
+         * the adaptive anti-aliasing level of the current pass (adaptive rendering)
+         */
+        int level;
+        /**
+         * the time of the last snapshot (nanoseconds)
+         */
+        long lastSnapshot = System.nanoTime();
+        /**
+         * the samples of each pixel so far (time-budgeted rendering)
+         */
+        int[] counts;
+        /**
+         * the samples of each pixel after the current pass (time-budgeted rendering)
+         */
+        int[] targets;
+        /**
+         * the sum of the squared luminance of the samples of each pixel, for the variance (time-budgeted rendering)
+         */
+        double[] squares;
+        /**
+         * the time (nanoseconds) after which the pixels of the current pass are not refined, 0 for no limit
+         */
+        long deadline;
+
+        /**
+         * Constructor
+         *
+         * @param resolution the resolution of the anti-aliasing grid
+         * @param pixels     amount of the pixels of the image
+         */
+        Progress(int resolution, int pixels) {
+            order = sampleOrder(resolution);
+            sums = new double[3 * pixels];
+        }
+    }
+
+    /**
+     * Orders the points of the anti-aliasing grid of a pixel from coarse to fine - the first point is the nearest
+     * to the center of the pixel, then the nearest to the centers of its 4 quarters, of their 16 quarters and so on,
+     * so the samples of any prefix of the order are spread over the pixel
+     *
+     * @param resolution the resolution of the grid (number of points on one side)
+     * @return the points (row * resolution + column)
+     */
+    static int[] sampleOrder(int resolution) {
+        int[] order = new int[resolution * resolution];
+        boolean[] taken = new boolean[order.length];
+        int count = 0;
+        //once the cells are smaller than the spacing of the grid, each point is the nearest to a cell center
+        for (int cells = 1; count < order.length; cells *= 2)
+            for (int row = 0; row < cells; ++row)
+                for (int col = 0; col < cells; ++col) {
+                    int i = (int) Math.round((row + 0.5) / cells * (resolution - 1));
+                    int j = (int) Math.round((col + 0.5) / cells * (resolution - 1));
+                    if (!taken[i * resolution + j]) {
+                        taken[i * resolution + j] = true;
+                        order[count++] = i * resolution + j;
+                    }
+                }
+        return order;
+    }
+
+    /**
+     * Renders the image progressively - pass after pass, each pass refines all the pixels.<br/>
+     * With anti-aliasing the first pass traces one sample of the grid in each pixel and the next passes trace
+     * geometrically growing numbers of the other samples of the grid, so the last pass completes the grid;
+     * with adaptive anti-aliasing the first pass traces the corners of the pixels and the next passes trace the
+     * pixels adaptively up to growing levels (reusing the samples of the previous passes on the pixels' borders)
+     *
+     * @param nX resolution on X axis (number of pixels in row)
+     * @param nY resolution on Y axis (number of pixels in column)
+     */
+    private void renderProgressive(int nX, int nY) {
+        int samples = antiAliasingFactor * antiAliasingFactor;
+        int passes = Math.min(progressivePasses, useAdaptive ? maxAdaptiveLevel + 1 : samples);
+        Progress current = new Progress(antiAliasingFactor, nX * nY);
+        progress = current;
+        try {
+            for (int pass = 1; pass <= passes; ++pass) {
+                current.pass = pass;
+                current.level = maxAdaptiveLevel - (passes - pass);
+                current.from = current.to;
+                //1 sample in the first pass and all the samples after the last pass, a geometric growth between them
+                current.to = pass == passes ? samples : Math.min(samples - (passes - pass),
+                        Math.max(current.from + 1, (int) Math.round(Math.pow(samples, (pass - 1d) / (passes - 1)))));
+                renderPass(nX, nY);
+                if (!snapshot(current, passes, pass == passes))
+                    return;
+            }
+        } finally {
+            progress = null;
+        }
+    }
+
+    /**
+     * Renders the image in the time budget - the first pass traces one sample in each pixel (the pass is completed
+     * even if it takes longer than the budget), and then each pass doubles the samples of the pixels of the highest
+     * estimated variance of their color, until the budget expires or all the samples of the anti-aliasing grid
+     * are traced. The pixels are refined one by one, so the image is complete when the budget expires
+     *
+     * @param nX resolution on X axis (number of pixels in row)
+     * @param nY resolution on Y axis (number of pixels in column)
+     */
+    private void renderBudgeted(int nX, int nY) {
+        long deadline = System.nanoTime() + timeBudget.toNanos();
+        int pixels = nX * nY;
+        Progress current = new Progress(antiAliasingFactor, pixels);
+        current.counts = new int[pixels];
+        current.targets = new int[pixels];
+        current.squares = new double[pixels];
+        Arrays.fill(current.targets, 1);
+        current.pass = 1;
+        progress = current;
+        try {
+            renderPass(nX, nY);
+            current.deadline = deadline;
+            while (System.nanoTime() - deadline < 0 && selectPixels(current, nX, nY)) {
+                if (snapshotListener != null && !snapshot(current, 0, false))
+                    return;
+                ++current.pass;
+                renderPass(nX, nY);
+            }
+            if (snapshotListener != null)
+                snapshot(current, 0, true);
+        } finally {
+            progress = null;
+        }
+    }
+
+    /**
+     * Selects the pixels of the next pass of a time-budgeted rendering - a quarter of the pixels, of the highest
+     * estimated variance of the average of their samples (the variance of the luminance of the samples, or the
+     * variance of an edge by the difference from the neighbours, divided by the amount of the samples),
+     * get twice their samples
+     *
+     * @param current the state of the rendering
+     * @param nX      resolution on X axis (number of pixels in row)
+     * @param nY      resolution on Y axis (number of pixels in column)
+     * @return false if no pixel is selected - all the pixels are fully sampled, or none has a variance
+     */
+    private static boolean selectPixels(Progress current, int nX, int nY) {
+        int samples = current.order.length;
+        int[] counts = current.counts;
+        double[] priorities = new double[counts.length];
+        int candidates = 0;
+        for (int j = 0; j < nY; ++j)
+            for (int i = 0; i < nX; ++i) {
+                int pixel = j * nX + i;
+                int n = counts[pixel];
+                if (n >= samples) continue;
+                double mean = luminance(current, pixel);
+                double variance = n > 1 ? (current.squares[pixel] - n * mean * mean) / (n - 1) : 0;
+                //an edge between two colors in the pixel is a variance of a quarter of their squared difference,
+                //the samples may miss the edge, so the difference from the neighbours is a bound of the variance
+                double difference = 0;
+                if (i > 0) difference = Math.max(difference, Math.abs(mean - luminance(current, pixel - 1)));
+                if (i < nX - 1) difference = Math.max(difference, Math.abs(mean - luminance(current, pixel + 1)));
+                if (j > 0) difference = Math.max(difference, Math.abs(mean - luminance(current, pixel - nX)));
+                if (j < nY - 1) difference = Math.max(difference, Math.abs(mean - luminance(current, pixel + nX)));
+                variance = Math.max(variance, difference * difference / 4) / n;
+                priorities[pixel] = variance;
+                if (variance > 0) ++candidates;
+            }
+        if (candidates == 0) return false;
+
+        double[] sorted = new double[candidates];
+        int k = 0;
+        for (double priority : priorities)
+            if (priority > 0) sorted[k++] = priority;
+        Arrays.sort(sorted);
+        double threshold = sorted[candidates - Math.min(candidates, Math.max(1, counts.length / 4))];
+        for (int pixel = 0; pixel < counts.length; ++pixel)
+            current.targets[pixel] = priorities[pixel] > 0 && priorities[pixel] >= threshold
+                    ? Math.min(samples, 2 * counts[pixel]) : counts[pixel];
+        return true;
+    }
+
+    /**
+     * @param current the state of a time-budgeted rendering
+     * @param pixel   the pixel (row * nX + column)
+     * @return the average luminance of the samples of the pixel
+     */
+    private static double luminance(Progress current, int pixel) {
+        double[] sums = current.sums;
+        return (sums[3 * pixel] + sums[3 * pixel + 1] + sums[3 * pixel + 2]) / 3 / current.counts[pixel];
     }
 
+    /**
+     * Gives the listener a snapshot of the image after a pass, if the interval has passed since the last snapshot
+     *
+     * @param current the state of the rendering
+     * @param passes  the amount of the passes of the rendering, 0 for a time-budgeted rendering
+     * @param last    whether it is the last pass - its snapshot is not limited by the interval
+     * @return false if the listener stops the rendering
+     */
+    private boolean snapshot(Progress current, int passes, boolean last) {
+        long now = System.nanoTime();
+        if (!last && snapshotInterval != null && now - current.lastSnapshot < snapshotInterval.toNanos())
+            return true;
+        current.lastSnapshot = now;
+        if (snapshotListener != null)
+            return snapshotListener.snapshot(current.pass, passes, imageWriter);
+        imageWriter.writeToImage();
+        return true;
+    }
+
+    /**
+     * Refines the color of a pixel in the current pass of a progressive rendering
+     *
+     * @param nX  resolution on X axis (number of pixels in row)
+     * @param nY  resolution on Y axis (number of pixels in column)
+     * @param i   pixel's column number (pixel index in row)
+     * @param j   pixel's row number (pixel index in column)
+     * @param ray the ray through the center of the pixel
+     * @return the color of the pixel - the average of its samples so far
+     */
+    private Color refinePixel(int nX, int nY, int i, int j, Ray ray) {
+        Progress current = progress;
+        if (useAdaptive)
+            return adaptiveSampler.samplePixel(i, j, current.level);
+
+        Color sum;
+        if (antiAliasingFactor == 1)
+            sum = rayTracer.traceRay(ray);
+        else {
+            Point origin = ray.getP0();
+            Point centerTarget = ray.getPoint(distance);
+            double spacing = height / nY / (antiAliasingFactor - 1);
+            List<Ray> rays = new ArrayList<>(current.to - current.from);
+            for (int k = current.from; k < current.to; ++k)
+                rays.add(constructBeamRay(origin, centerTarget, vUp, vRight, spacing, antiAliasingFactor,
+                        current.order[k] / antiAliasingFactor, current.order[k] % antiAliasingFactor));
+            sum = rayTracer.traceRaysSum(rays);
+        }
+        int pixel = 3 * (j * nX + i);
+        double[] sums = current.sums;
+        sums[pixel] += sum.getRgb().getD1();
+        sums[pixel + 1] += sum.getRgb().getD2();
+        sums[pixel + 2] += sum.getRgb().getD3();
+        return new Color(sums[pixel] / current.to, sums[pixel + 1] / current.to, sums[pixel + 2] / current.to);
+    }
+
+    /**
+     * Refines the color of a pixel in the current pass of a time-budgeted rendering - the samples are traced
+     * one by one, for the variance of the pixel
+     *
+     * @param nX  resolution on X axis (number of pixels in row)
+     * @param i   pixel's column number (pixel index in row)
+     * @param j   pixel's row number (pixel index in column)
+     * @param ray the ray through the center of the pixel
+     * @return the color of the pixel - the average of its samples so far,
+     * null if the pixel is not refined in this pass or the budget has expired
+     */
+    private Color refineBudgeted(int nX, int i, int j, Ray ray) {
+        Progress current = progress;
+        int pixel = j * nX + i;
+        int from = current.counts[pixel];
+        int to = current.targets[pixel];
+        if (from >= to || current.deadline != 0 && System.nanoTime() - current.deadline > 0)
+            return null;
+
+        Point origin = ray.getP0();
+        Point centerTarget = ray.getPoint(distance);
+        double spacing = antiAliasingFactor == 1 ? 0 : height / imageWriter.getNy() / (antiAliasingFactor - 1);
+        double[] sums = current.sums;
+        double r = sums[3 * pixel], g = sums[3 * pixel + 1], b = sums[3 * pixel + 2];
+        double squares = current.squares[pixel];
+        for (int k = from; k < to; ++k) {
+            Double3 rgb = rayTracer.traceRay(antiAliasingFactor == 1 ? ray
+                    : constructBeamRay(origin, centerTarget, vUp, vRight, spacing, antiAliasingFactor,
+                    current.order[k] / antiAliasingFactor, current.order[k] % antiAliasingFactor)).getRgb();
+            r += rgb.getD1();
+            g += rgb.getD2();
+            b += rgb.getD3();
+            double luminance = (rgb.getD1() + rgb.getD2() + rgb.getD3()) / 3;
+            squares += luminance * luminance;
+        }
+        sums[3 * pixel] = r;
+        sums[3 * pixel + 1] = g;
+        sums[3 * pixel + 2] = b;
+        current.squares[pixel] = squares;
+        current.counts[pixel] = to;
+        return new Color(r / to, g / to, b / to);
+    }
+    //endregion
+
     /**
      * Prints a grid to the image
      *
@@ -368,7 +930,14 @@ public class Camera {
         if (imageWriter == null)
             throw new MissingResourceException("Image creation details are not initialized", "Camera", "Writer info");
         //call image writer
+        if (metrics == null) {
+            imageWriter.writeToImage();
+            return;
+        }
+        long start = System.nanoTime();
         imageWriter.writeToImage();
+        metrics.addTime(RenderMetrics.Phase.WRITE, System.nanoTime() - start);
+        exportMetrics();
     }
 
     //endregion
@@ -496,14 +1065,41 @@ public class Camera {
     /**
      * setter for maxAdaptiveLevel
      *
-     * @param maxAdaptiveLevel- The depth of the recursion
+     * @param maxAdaptiveLevel- The depth of the recursion - the pixels are divided up to maxAdaptiveLevel times
+     *                          (see {@link #setAdaptiveThreshold(double)}), 0 for sampling the corners of the pixels
      * @return camera itself
      */
     public Camera setMaxAdaptiveLevel(int maxAdaptiveLevel) {
+        if (maxAdaptiveLevel < 0 || maxAdaptiveLevel > MAX_ADAPTIVE_LEVEL)
+            throw new IllegalArgumentException("adaptive level must be between 0 and " + MAX_ADAPTIVE_LEVEL);
         this.maxAdaptiveLevel = maxAdaptiveLevel;
         return this;
     }
 
+    /**
+     * setter for the threshold of the adaptive super-sampling - a square of a pixel is divided while the standard
+     * deviation of the colors of its corners (in red, green or blue) is more than the threshold
+     *
+     * @param threshold the threshold, 0 for dividing the squares up to the maximal level unless the colors are equal
+     * @return camera
+     */
+    public Camera setAdaptiveThreshold(double threshold) {
+        if (threshold < 0)
+            throw new IllegalArgumentException("adaptive threshold must not be negative");
+        adaptiveThreshold = threshold;
+        return this;
+    }
+
+    /**
+     * The samples of each pixel in the last rendering by adaptive super-sampling - the points of its lattice
+     * which its color is calculated by (the points on its borders are shared by the neighbouring pixels)
+     *
+     * @return the amount of the samples of each pixel (row by row), null if the camera has not rendered adaptively
+     */
+    public int[] getSampleCounts() {
+        return sampleCounts;
+    }
+
     //@TODO delete
 //    public Camera setDepthOfField(double focalDistance, double apertureSize, int aperturePointNum) {
 //        this.depthOfField = true;
@@ -545,6 +1141,128 @@ public class Camera {
         if (threads < 0)
             throw new IllegalArgumentException("threads count must be non-negative");
         threadsCount = threads;
+        tileSize = 0;
+        executor = null;
+        return this;
+    }
+
+    /**
+     * setter for multi threading by tiles - the image is split into square tiles
+     * which are rendered by a work-stealing thread pool, in Hilbert curve order
+     *
+     * @param threads  number of threads
+     * @param tileSize the width and height of a tile in pixels
+     * @return camera
+     */
+    public Camera setMultithreading(double threads, int tileSize) {
+        return setMultithreading(threads, tileSize, TileOrder.HILBERT);
+    }
+
+    /**
+     * setter for multi threading by tiles - the image is split into square tiles
+     * which are rendered by a work-stealing thread pool, in the given order
+     *
+     * @param threads  number of threads
+     * @param tileSize the width and height of a tile in pixels
+     * @param order    the order of rendering the tiles
+     * @return camera
+     */
+    public Camera setMultithreading(double threads, int tileSize, TileOrder order) {
+        if (threads <= 0)
+            throw new IllegalArgumentException("threads count must be positive");
+        if (tileSize <= 0)
+            throw new IllegalArgumentException("tile size must be positive");
+        if (order == null)
+            throw new IllegalArgumentException("tiles order must be given");
+        threadsCount = threads;
+        this.tileSize = tileSize;
+        tileOrder = order;
+        executor = null;
+        return this;
+    }
+
+    /**
+     * setter for rendering by an executor service - every tile of the image is submitted to the executor as a task.
+     * The tile size and order are taken from {@link #setMultithreading(double, int, TileOrder)} if it was called
+     * before, otherwise tiles of 16x16 pixels in Hilbert curve order are used.
+     * The executor is not shut down by the camera, so it may be shared by many renderings.
+     * E.g. on Java 21 and later {@code Executors.newVirtualThreadPerTaskExecutor()} runs each tile in a virtual thread
+     *
+     * @param executor the executor service, null for rendering without it
+     * @return camera
+     */
+    public Camera setExecutor(ExecutorService executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * setter for the maximal time of a rendering by an executor service (see {@link #setExecutor(ExecutorService)}),
+     * when the time passes the rendering is cancelled and {@link #renderImage()} throws {@link IllegalStateException}
+     *
+     * @param timeout the maximal rendering time, null for no limit
+     * @return camera
+     */
+    public Camera setRenderTimeout(Duration timeout) {
+        if (timeout != null && (timeout.isNegative() || timeout.isZero()))
+            throw new IllegalArgumentException("rendering timeout must be positive");
+        renderTimeout = timeout;
+        return this;
+    }
+
+    /**
+     * setter for progressive rendering - the image is rendered in passes: the first pass traces one sample in each
+     * pixel, and the next passes refine all the pixels up to the anti-aliasing of the camera
+     * (see {@link #setAntiAliasingFactor(int)} and {@link #setUseAdaptive(boolean)}).
+     * After a pass, if the interval has passed since the last snapshot, and after the last pass,
+     * the listener gets a snapshot of the image and may stop the rendering
+     *
+     * @param passes   the maximal amount of passes, 0 for rendering in one pass
+     *                 (the passes are limited by the samples of a pixel, or by the adaptive levels)
+     * @param interval the minimal time between snapshots, null for a snapshot after every pass
+     * @param listener the listener of the snapshots, null for writing the image file on every snapshot
+     * @return camera
+     */
+    public Camera setProgressive(int passes, Duration interval, SnapshotListener listener) {
+        if (passes < 0)
+            throw new IllegalArgumentException("passes count must be non-negative");
+        if (interval != null && interval.isNegative())
+            throw new IllegalArgumentException("snapshots interval must not be negative");
+        progressivePasses = passes;
+        snapshotInterval = interval;
+        snapshotListener = listener;
+        return this;
+    }
+
+    /**
+     * setter for time-budgeted rendering - the first pass traces one sample in each pixel, and then the pixels of the
+     * highest estimated variance get more samples of the anti-aliasing grid (see {@link #setAntiAliasingFactor(int)},
+     * up to all its samples) until the budget expires. The image is complete when {@link #renderImage()} returns
+     * (even if the first pass takes longer than the budget). The listener of {@link #setProgressive(int, Duration,
+     * SnapshotListener)}, if there is one, gets snapshots after the passes (with 0 passes)
+     *
+     * @param budget the rendering time, null for rendering all the samples
+     * @return camera
+     */
+    public Camera setTimeBudget(Duration budget) {
+        if (budget != null && (budget.isNegative() || budget.isZero()))
+            throw new IllegalArgumentException("time budget must be positive");
+        timeBudget = budget;
+        return this;
+    }
+
+    /**
+     * setter for the statistics of the renderings - the traced rays, the intersection tests, the visited voxels and
+     * the time of the phases are collected into the statistics (see {@link RenderMetrics}), and exported to the file
+     * at the end of {@link #renderImage()} and again by {@link #writeToImage()} (with the time of writing the image)
+     *
+     * @param metrics the statistics, null for not collecting statistics
+     * @param file    the JSON file to export the statistics to, null for not exporting them
+     * @return camera
+     */
+    public Camera setMetrics(RenderMetrics metrics, Path file) {
+        this.metrics = metrics;
+        this.metricsFile = metrics == null ? null : file;
         return this;
     }
 
@@ -62,6 +62,15 @@ public class ImageWriter {
         return nX;
     }
 
+    /**
+     * The image as rendered so far
+     *
+     * @return the image - pixels that were not written yet are black
+     */
+    public BufferedImage getImage() {
+        return image;
+    }
+
     // ***************** Operations ******************** //
 
     /**
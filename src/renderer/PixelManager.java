@@ -1,10 +1,18 @@
 package renderer;
 
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
 /** PixelManager is a helper class. It is used for multi-threading in the
  * renderer and
  * for follow up its progress.<br/>
  * A Camera uses one pixel manager object and several Pixel objects - one in
- * each thread.
+ * each thread, or splits the image into tiles which are rendered by a
+ * work-stealing thread pool.<br/>
+ * All the shared data is updated with atomic operations, so the threads never
+ * wait for each other.
  * @author Dan Zilberstein */
 class PixelManager {
     /** Immutable class for object containing allocated pixel (with its row and
@@ -12,6 +20,15 @@ class PixelManager {
     record Pixel(int col, int row) {
     }
 
+    /** Immutable class for object containing a rectangular tile of pixels (with
+     * its first column and row numbers and its size) */
+    record Tile(int col, int row, int width, int height) {
+        /** @return the amount of pixels in the tile */
+        int pixels() {
+            return width * height;
+        }
+    }
+
     /** Maximum rows of pixels */
     private int                 maxRows       = 0;
     /** Maximum columns of pixels */
@@ -19,14 +36,12 @@ class PixelManager {
     /** Total amount of pixels in the generated image */
     private long                totalPixels   = 0l;
 
-    /** Currently processed row of pixels */
-    private volatile int        cRow          = 0;
-    /** Currently processed column of pixels */
-    private volatile int        cCol          = -1;
+    /** Index of the next pixel to be allocated (row by row) */
+    private final AtomicLong    next          = new AtomicLong();
     /** Amount of pixels that have been processed */
-    private volatile long       pixels        = 0l;
+    private final AtomicLong    pixels        = new AtomicLong();
     /** Last printed progress update percentage */
-    private volatile int        lastPrinted   = 0;
+    private final AtomicInteger lastPrinted   = new AtomicInteger();
 
     /** Flag of debug printing of progress percentage */
     private boolean             print         = false;
@@ -34,12 +49,6 @@ class PixelManager {
     private long                printInterval = 100l;
     /** Printing format */
     private static final String PRINT_FORMAT  = "%5.1f%%\r";
-    /** Mutual exclusion object for synchronizing next pixel allocation between
-     * threads */
-    private Object              mutexNext     = new Object();
-    /** Mutual exclusion object for printing progress percentage in console window
-     * by different threads */
-    private Object              mutexPixels   = new Object();
 
     /** Initialize pixel manager data for multi-threading
      * @param maxRows  the amount of pixel rows
@@ -54,41 +63,103 @@ class PixelManager {
         if (print = printInterval != 0) System.out.printf(PRINT_FORMAT, 0d);
     }
 
-    /** Function for thread-safe manipulating of main follow up Pixel object - this
-     * function is critical section for all the threads, and the pixel manager data
-     * is the shared data of this critical section.<br/>
+    /** Function for thread-safe allocation of the next pixel - the pixels are
+     * numbered row by row and the next number is taken atomically.<br/>
      * The function provides next available pixel number each call.
-     * @return true if next pixel is allocated, false if there are no more pixels */
+     * @return the next pixel, null if there are no more pixels */
     Pixel nextPixel() {
-        synchronized (mutexNext) {
-            if (cRow == maxRows) return null;
+        long index = next.getAndIncrement();
+        if (index >= totalPixels) return null;
+        return new Pixel((int) (index % maxCols), (int) (index / maxCols));
+    }
 
-            ++cCol;
-            if (cCol < maxCols)
-                return new Pixel(cRow, cCol);
+    /** Splits the image into tiles of the given size (the tiles at the right and
+     * bottom edges may be smaller) and sorts them in the given order
+     * @param  tileSize the width and height of a tile in pixels
+     * @param  order    the order of the tiles
+     * @return          the tiles covering the whole image */
+    Tile[] tiles(int tileSize, TileOrder order) {
+        int tileCols = (maxCols + tileSize - 1) / tileSize;
+        int tileRows = (maxRows + tileSize - 1) / tileSize;
+        Tile[] tiles = new Tile[tileCols * tileRows];
+        int k = 0;
+        for (int row = 0; row < tileRows; ++row)
+            for (int col = 0; col < tileCols; ++col) {
+                int x = col * tileSize, y = row * tileSize;
+                tiles[k++] = new Tile(x, y, Math.min(tileSize, maxCols - x), Math.min(tileSize, maxRows - y));
+            }
 
-            cCol = 0;
-            ++cRow;
-            if (cRow < maxRows)
-                return new Pixel(cRow, cCol);
-        }
-        return null;
+        if (order == TileOrder.ROWS) return tiles;
+        // the curves are defined on a square grid with side of power of 2
+        int side = Integer.highestOneBit(Math.max(Math.max(tileCols, tileRows) - 1, 1)) << 1;
+        Comparator<Tile> comparator = order == TileOrder.MORTON //
+                ? Comparator.comparingLong(t -> mortonIndex(t.col() / tileSize, t.row() / tileSize))
+                : Comparator.comparingLong(t -> hilbertIndex(side, t.col() / tileSize, t.row() / tileSize));
+        Arrays.sort(tiles, comparator);
+        return tiles;
     }
 
-    /** Finish pixel processing by updating and printing of progress percentage */
-    void pixelDone() {
-        boolean flag       = false;
-        int     percentage = 0;
-        synchronized (mutexPixels) {
-            ++pixels;
-            if (print) {
-                percentage = (int) (1000l * pixels / totalPixels);
-                if (percentage - lastPrinted >= printInterval) {
-                    lastPrinted = percentage;
-                    flag        = true;
+    /** Calculates the position of a cell on the Morton (Z-order) curve
+     * @param  x the cell column
+     * @param  y the cell row
+     * @return   the index on the curve */
+    private static long mortonIndex(int x, int y) {
+        return spreadBits(x) | (spreadBits(y) << 1);
+    }
+
+    /** Spreads the bits of a number so there is a zero bit between every two bits
+     * @param  v the number
+     * @return   the spread number */
+    private static long spreadBits(int v) {
+        long x = v & 0xFFFFFFFFL;
+        x = (x | (x << 16)) & 0x0000FFFF0000FFFFL;
+        x = (x | (x << 8)) & 0x00FF00FF00FF00FFL;
+        x = (x | (x << 4)) & 0x0F0F0F0F0F0F0F0FL;
+        x = (x | (x << 2)) & 0x3333333333333333L;
+        x = (x | (x << 1)) & 0x5555555555555555L;
+        return x;
+    }
+
+    /** Calculates the position of a cell on the Hilbert curve
+     * @param  side the side of the square grid of the curve (power of 2)
+     * @param  x    the cell column
+     * @param  y    the cell row
+     * @return      the index on the curve */
+    private static long hilbertIndex(int side, int x, int y) {
+        long d = 0;
+        for (int s = side / 2; s > 0; s /= 2) {
+            int rx = (x & s) > 0 ? 1 : 0;
+            int ry = (y & s) > 0 ? 1 : 0;
+            d += (long) s * s * ((3 * rx) ^ ry);
+            // rotate the quadrant
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = side - 1 - x;
+                    y = side - 1 - y;
                 }
+                int t = x;
+                x = y;
+                y = t;
             }
-            if (flag) System.out.printf(PRINT_FORMAT, percentage / 10d);
         }
+        return d;
+    }
+
+    /** Finish pixel processing by updating and printing of progress percentage */
+    void pixelDone() {
+        pixelsDone(1);
+    }
+
+    /** Finish processing of several pixels (e.g. a tile) by updating and printing
+     * of progress percentage
+     * @param count the amount of the processed pixels */
+    void pixelsDone(long count) {
+        long done = pixels.addAndGet(count);
+        if (!print) return;
+        int percentage = (int) (1000l * done / totalPixels);
+        int last       = lastPrinted.get();
+        // only the thread which succeeds to update the last printed percentage prints it
+        if (percentage - last >= printInterval && lastPrinted.compareAndSet(last, percentage))
+            System.out.printf(PRINT_FORMAT, percentage / 10d);
     }
-}
\ No newline at end of file
+}
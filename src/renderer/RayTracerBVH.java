@@ -0,0 +1,34 @@
+package renderer;
+
+import geometries.BVH;
+import geometries.Intersectable;
+import scene.Scene;
+
+/**
+ * (Extends) class for ray tracing - calculates color of pixels
+ * use of a bounding volume hierarchy (BVH) over the scene geometries
+ *
+ * @author Sarah Daatyah Furmanski and Efrat Kartman
+ */
+public class RayTracerBVH extends RayTracerBasic {
+    /**
+     * the hierarchy over the scene geometries
+     */
+    private final BVH bvh;
+
+    /**
+     * Constructor - builds the hierarchy over the geometries of the scene,
+     * therefore the scene geometries must be set before
+     *
+     * @param scene given scene
+     */
+    public RayTracerBVH(Scene scene) {
+        super(scene);
+        bvh = new BVH(scene.geometries);
+    }
+
+    @Override
+    protected Intersectable intersectables() {
+        return bvh;
+    }
+}
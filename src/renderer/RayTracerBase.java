@@ -12,6 +12,10 @@ import java.util.List;
  */
 public abstract class RayTracerBase {
     protected Scene scene;
+    /**
+     * the statistics of the rendering, null when they are not collected
+     */
+    protected RenderMetrics metrics;
 
     /**
      * Constructor
@@ -35,4 +39,44 @@ public abstract class RayTracerBase {
      */
     public abstract Color traceRays(List<Ray> rays);
 
+    /**
+     * Tracing rays - the sum of their colors, for accumulating the samples of a pixel
+     * @param rays given list of rays
+     * @return the sum of the colors that we see from the rays
+     */
+    public Color traceRaysSum(List<Ray> rays) {
+        Color sum = Color.BLACK;
+        for (Ray ray : rays)
+            sum = sum.add(traceRay(ray));
+        return sum;
+    }
+
+    /**
+     * setter for the statistics of the rendering (see {@link RenderMetrics})
+     * @param metrics the statistics to collect the traced rays into, null for not collecting them
+     * @return the ray tracer
+     */
+    public RayTracerBase setMetrics(RenderMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    /**
+     * @return the statistics of the rendering, null when they are not collected
+     */
+    public RenderMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * counts traced rays, if the statistics are collected
+     * @param type  the type of the rays
+     * @param count amount of the rays
+     */
+    protected void countRays(RenderMetrics.RayType type, int count) {
+        RenderMetrics metrics = this.metrics;
+        if (metrics != null)
+            metrics.countRays(type, count);
+    }
+
 }
@@ -1,14 +1,18 @@
 package renderer;
 
+import geometries.Intersectable;
 import geometries.Intersectable.GeoPoint;
 import lighting.LightSource;
 import primitives.*;
+import renderer.RenderMetrics.RayType;
 import scene.Scene;
 
 import java.util.List;
 
 import static primitives.Util.alignZero;
 import static primitives.Util.isZero;
+import static primitives.VectorMath.reflectionDotProduct;
+import static renderer.RenderMetrics.RayType.*;
 
 /**
  * (Extends) class for ray tracing - calculates color of pixels
@@ -32,23 +36,41 @@ public class RayTracerBasic extends RayTracerBase {
 
     @Override
     public Color traceRay(Ray ray) {
+        countRays(PRIMARY, 1);
         GeoPoint closestGeoPoint = findClosestIntersection(ray);
         if (closestGeoPoint == null)
             return scene.background;
         return calcColor(closestGeoPoint, ray);
     }
+    /**
+     * {@inheritDoc}<br/>
+     * The rays of a beam are coherent, therefore they are intersected together as a packet
+     */
     @Override
     public Color traceRays(List<Ray> rays) {
+        countRays(PRIMARY, rays.size());
+        RayPacket packet = new RayPacket(rays);
+        GeoPoint[] hits = intersectables().findClosestIntersections(packet, metrics);
         Color currentPixelColor = scene.background;
-        for(Ray ray :rays)
-            currentPixelColor = currentPixelColor.add(traceRay(ray));
-        return  currentPixelColor.reduce(rays.size());
-
-//        GeoPoint closestGeoPoint = findClosestIntersection(ray);
-//        if (closestGeoPoint == null)
-//            return scene.background;
-//        Color currentPixelColor = calcColor(closestGeoPoint, ray);
-//        return currentPixelColor;
+        for (int lane = 0; lane < hits.length; ++lane)
+            currentPixelColor = currentPixelColor.add(hits[lane] == null ? scene.background
+                    : calcColor(hits[lane], packet.getRay(lane)));
+        return currentPixelColor.reduce(rays.size());
+    }
+
+    /**
+     * {@inheritDoc}<br/>
+     * The rays are intersected together as a packet
+     */
+    @Override
+    public Color traceRaysSum(List<Ray> rays) {
+        countRays(PRIMARY, rays.size());
+        RayPacket packet = new RayPacket(rays);
+        GeoPoint[] hits = intersectables().findClosestIntersections(packet, metrics);
+        Color sum = Color.BLACK;
+        for (int lane = 0; lane < hits.length; ++lane)
+            sum = sum.add(hits[lane] == null ? scene.background : calcColor(hits[lane], packet.getRay(lane)));
+        return sum;
     }
 
 
@@ -108,12 +130,11 @@ public class RayTracerBasic extends RayTracerBase {
             double nl = alignZero(normal.dotProduct(lightVector));
             if (nl * nv > 0) { // sign(nl) == sign(nv)      //if (unshaded(gp, lightSource, lightVector, normal))
                 Double3 ktr = transparency(gp, lightSource, lightVector, normal);
-                if (!ktr.product(k).lowerThan(MIN_CALC_COLOR_K)) {
+                if (!ktr.productLowerThan(k, MIN_CALC_COLOR_K)) {
                     Color lightIntensity = lightSource.getIntensity(gp.point).scale(ktr);
-                    color = color.add(
-                            lightIntensity.scale(calcDiffusive(mat, nl)),
-                            lightIntensity.scale(calcSpecular(mat, normal, lightVector, nl, vector))
-                    );
+                    color = color.addScaled(lightIntensity,
+                            mat.kD, calcDiffusive(nl),
+                            mat.kS, calcSpecular(mat, normal, lightVector, nl, vector));
                 }
             }
         }
@@ -128,23 +149,22 @@ public class RayTracerBasic extends RayTracerBase {
      * @param l   light source vector
      * @param nl  dot product of normal and light vectors
      * @param v   direction of camera's ray
-     * @return specular effect on color
+     * @return specular effect on color - the scale of the specular factor of the material
      */
-    private Double3 calcSpecular(Material mat, Vector n, Vector l, double nl, Vector v) {
-        Vector reflectedVector = l.subtract(n.scale(2 * nl));
-        double max = Math.max(0, alignZero(v.scale(-1).dotProduct(reflectedVector)));
-        return mat.kS.scale(Math.pow(max, mat.nShininess));
+    private double calcSpecular(Material mat, Vector n, Vector l, double nl, Vector v) {
+        //-v * r where r = l - 2 * nl * n is the reflected light vector (calculated without creating vectors)
+        double max = Math.max(0, alignZero(reflectionDotProduct(v, l, n, nl)));
+        return Math.pow(max, mat.nShininess);
     }
 
     /**
      * calculate the diffusive effect
      *
-     * @param mat material of Geometry
-     * @param nl  dot product of normal and light vectors
-     * @return diffusive effect on color
+     * @param nl dot product of normal and light vectors
+     * @return diffusive effect on color - the scale of the diffusive factor of the material
      */
-    private Double3 calcDiffusive(Material mat, double nl) {
-        return mat.kD.scale(Math.abs(nl));
+    private double calcDiffusive(double nl) {
+        return Math.abs(nl);
     }
 
     /**
@@ -158,7 +178,8 @@ public class RayTracerBasic extends RayTracerBase {
      */
     private boolean unshaded(GeoPoint gp, LightSource lightSource, Vector l, Vector n) {
         Ray lightRay = new Ray(gp.point, l.scale(-1), n);
-        List<GeoPoint> intersections = scene.geometries.findGeoIntersections(lightRay);
+        countRays(SHADOW, 1);
+        List<GeoPoint> intersections = scene.geometries.findGeoIntersections(lightRay, metrics);
 
         if (intersections == null) return true;
 
@@ -184,21 +205,12 @@ public class RayTracerBasic extends RayTracerBase {
      * @param n           vector normal
      * @return Double3 that is the transparency factor
      */
-    private Double3 transparency(GeoPoint gp, LightSource lightSource, Vector l, Vector n) {
+    protected Double3 transparency(GeoPoint gp, LightSource lightSource, Vector l, Vector n) {
         Ray lightRay = new Ray(gp.point, l.scale(-1), n);
-        List<GeoPoint> intersections = scene.geometries.findGeoIntersections(lightRay);
-
-        Double3 ktr = Double3.ONE;
-        if (intersections == null)
-            return ktr;
-
+        countRays(SHADOW, 1);
         double distance = alignZero(lightSource.getDistance(gp.point));
-        for (GeoPoint intersection : intersections) {
-            if (alignZero(intersection.point.distance(gp.point)) < distance)
-                ktr = ktr.product(intersection.geometry.getMaterial().kT);
-        }
-
-        return ktr;
+        //the search stops on the first intersections that block the light
+        return intersectables().findTransparency(lightRay, distance, MIN_CALC_COLOR_K, metrics);
     }
 
     //endregion
@@ -231,7 +243,7 @@ public class RayTracerBasic extends RayTracerBase {
             List<Ray> diffusedSampling = Sampling.superSample(refractedRay, material.kDg, normal);
             //for each sampling ray calculate the global effect
             for (var secondaryRay : diffusedSampling) {
-                diffSamplingSum = diffSamplingSum.add(calcGlobalEffects(secondaryRay, level, k, material.kT));
+                diffSamplingSum = diffSamplingSum.add(calcGlobalEffects(secondaryRay, level, k, material.kT, SAMPLE));
             }
             //take the average of the calculation for all sample rays
             diffSamplingSum = diffSamplingSum.reduce(diffusedSampling.size());
@@ -242,7 +254,7 @@ public class RayTracerBasic extends RayTracerBase {
             List<Ray> glossySampling = Sampling.superSample(reflectedRay, material.kSg, normal);
             //for each sampling ray calculate the global effect
             for (var secondaryRay : glossySampling) {
-                glossSamplingSum = glossSamplingSum.add(calcGlobalEffects(secondaryRay, level, k, material.kR));
+                glossSamplingSum = glossSamplingSum.add(calcGlobalEffects(secondaryRay, level, k, material.kR, SAMPLE));
             }
             //take the average of the calculation for all sample rays
             glossSamplingSum = glossSamplingSum.reduce(glossySampling.size());
@@ -255,12 +267,12 @@ public class RayTracerBasic extends RayTracerBase {
         }
         //else return the matching result
         else if (material.kDg + material.kSg > 0) {
-            return material.kDg != 0 ? calcGlobalEffects(reflectedRay, level, k, material.kR).add(diffSamplingSum) :
-                    calcGlobalEffects(refractedRay, level, k, material.kT).add(glossSamplingSum);
+            return material.kDg != 0 ? calcGlobalEffects(reflectedRay, level, k, material.kR, REFLECTION).add(diffSamplingSum) :
+                    calcGlobalEffects(refractedRay, level, k, material.kT, REFRACTION).add(glossSamplingSum);
         }
 
-        return calcGlobalEffects(reflectedRay, level, k, material.kR)
-                .add(calcGlobalEffects(refractedRay, level, k, material.kT));
+        return calcGlobalEffects(reflectedRay, level, k, material.kR, REFLECTION)
+                .add(calcGlobalEffects(refractedRay, level, k, material.kT, REFRACTION));
     }
 
     /**
@@ -270,12 +282,14 @@ public class RayTracerBasic extends RayTracerBase {
      * @param level the current level
      * @param k    a color factor to reduce the color (according to the current level of recursion)
      * @param kx   the color factor for the next level of recursion
+     * @param type the type of the ray (for the statistics)
      * @return the new calculated color
      */
-    private Color calcGlobalEffects(Ray ray, int level, Double3 k, Double3 kx) {
+    private Color calcGlobalEffects(Ray ray, int level, Double3 k, Double3 kx, RayType type) {
         Double3 kkx = k.product(kx);
         if (kkx.lowerThan(MIN_CALC_COLOR_K))
             return Color.BLACK;
+        countRays(type, 1);
 
         GeoPoint gp = findClosestIntersection(ray);
         if (gp == null)
@@ -318,9 +332,16 @@ public class RayTracerBasic extends RayTracerBase {
      * @param ray ray to check intersections with
      * @return closest intersection point with ray
      */
-    private GeoPoint findClosestIntersection(Ray ray) {
-        List<GeoPoint> intersections = scene.geometries.findGeoIntersections(ray);
-        if (intersections == null) return null;
-        return ray.findClosestGeoPoint(intersections);
+    protected GeoPoint findClosestIntersection(Ray ray) {
+        return intersectables().findClosestIntersection(ray, Double.POSITIVE_INFINITY, metrics);
+    }
+
+    /**
+     * the geometries which the rays are intersected with
+     *
+     * @return the scene geometries
+     */
+    protected Intersectable intersectables() {
+        return scene.geometries;
     }
 }
@@ -1,16 +1,21 @@
 package renderer;
 
-import geometries.Geometries;
+import geometries.Geometry;
 import geometries.Intersectable;
-import geometries.Polygon;
 import lighting.LightSource;
 import primitives.*;
+import renderer.RenderMetrics.RayType;
 import scene.Scene;
+import scene.VoxelGrid;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import static primitives.Util.alignZero;
 import static primitives.Util.isZero;
+import static primitives.VectorMath.reflectionDotProduct;
+import static renderer.RenderMetrics.RayType.*;
 
 /**
  * (Extends) class for ray tracing - calculates color of pixels
@@ -24,7 +29,152 @@ public class RayTracerRegular extends RayTracerBase {
     private static final double MIN_CALC_COLOR_K = 0.001;
     private static final Double3 INIT_CALC_COLOR_K = Double3.ONE;
 
-    private final double EPSILON = 0.001;
+    /**
+     * the traversal states which are not in use - a traversal borrows a state and returns it when it is finished,
+     * so there are only as many states as concurrent traversals, whatever threads render (see {@link #borrow()})
+     */
+    private final AtomicReferenceArray<Traversal> idle =
+            new AtomicReferenceArray<>(Math.max(64, 4 * Runtime.getRuntime().availableProcessors()));
+
+    /**
+     * The state of the traversal of a ray through the voxels grid, reused by the following traversals, so
+     * no objects are allocated per ray or per voxel:
+     * <ul>
+     *     <li>the mailbox - the geometries of the grid that were tested by the current ray, which are stamped by
+     *     the ray, so a geometry that is in several voxels of the ray is tested once, and the mailbox is not
+     *     cleared between rays</li>
+     *     <li>the 3D-DDA state of the grid, and of the nested grid of the current voxel</li>
+     * </ul>
+     * A traversal is finished before the rays of the shading are traced, so a thread uses one state at a time
+     */
+    private static class Traversal {
+        /**
+         * the stamp of each geometry of the grid (by its index in the grid)
+         */
+        int[] stamps = new int[0];
+        /**
+         * the stamp of the current ray
+         */
+        int ray;
+        /**
+         * the head and the direction of the current ray on each axis
+         */
+        final double[] origin = new double[3], direction = new double[3];
+        /**
+         * the 3D-DDA state of the grid, and of the nested grid of its current voxel
+         */
+        final Dda grid = new Dda(), subgrid = new Dda();
+
+        /**
+         * posts a geometry to the current ray
+         *
+         * @param item the index of the geometry in the grid
+         * @return true if the geometry was not tested by the current ray yet (it should be tested now)
+         */
+        boolean post(int item) {
+            if (stamps[item] == ray)
+                return false;
+            stamps[item] = ray;
+            return true;
+        }
+
+        /**
+         * starts the traversal of the nested grid of the current voxel of the grid, from the entry of the ray into
+         * the voxel
+         *
+         * @param nested the nested grid of the voxel
+         * @return the 3D-DDA state of the nested grid
+         */
+        Dda nest(VoxelGrid nested) {
+            for (int axis = 0; axis < 3; ++axis) {
+                subgrid.min[axis] = grid.min[axis] + grid.voxel[axis] * grid.edge[axis];
+                subgrid.size[axis] = grid.edge[axis];
+            }
+            subgrid.start(origin, direction, grid.entry, nested);
+            return subgrid;
+        }
+    }
+
+    /**
+     * The 3D-DDA state of a ray in a grid - the current voxel, and on each axis the step direction, the distance (t)
+     * along the ray to the next voxel boundary and the distance between the boundaries.
+     * All the distances are in units of t along the ray, from its head (the direction of the ray is normalized)
+     */
+    private static class Dda {
+        /**
+         * the minimal coordinates and the size of the box of the grid, the size of its voxels on each axis
+         */
+        final double[] min = new double[3], size = new double[3], edge = new double[3];
+        /**
+         * the indexes of the current voxel, the step direction (-1, 0 or 1) and the amount of the voxels on each axis
+         */
+        final int[] voxel = new int[3], step = new int[3], voxels = new int[3];
+        /**
+         * the distance along the ray to the next voxel boundary, and between the voxel boundaries, on each axis
+         */
+        final double[] tMax = new double[3], tDelta = new double[3];
+        /**
+         * the distance along the ray to the entry into the current voxel
+         */
+        double entry;
+
+        /**
+         * starts the traversal in the voxel of the entry point of the ray into the box of the grid
+         *
+         * @param origin    the head of the ray
+         * @param direction the direction of the ray
+         * @param tNear     the distance along the ray to its entry into the box (0 if the head is inside it)
+         * @param grid      the grid
+         */
+        void start(double[] origin, double[] direction, double tNear, VoxelGrid grid) {
+            voxels[0] = grid.getNx();
+            voxels[1] = grid.getNy();
+            voxels[2] = grid.getNz();
+            entry = tNear;
+            for (int axis = 0; axis < 3; ++axis) {
+                edge[axis] = size[axis] / voxels[axis];
+                //the entry point may be on the boundary, or off it by rounding - clamped into the grid
+                int index = (int) ((origin[axis] + tNear * direction[axis] - min[axis]) / edge[axis]);
+                voxel[axis] = Math.max(0, Math.min(voxels[axis] - 1, index));
+                if (direction[axis] > 0) {
+                    step[axis] = 1;
+                    tMax[axis] = (min[axis] + (voxel[axis] + 1) * edge[axis] - origin[axis]) / direction[axis];
+                    tDelta[axis] = edge[axis] / direction[axis];
+                } else if (direction[axis] < 0) {
+                    step[axis] = -1;
+                    tMax[axis] = (min[axis] + voxel[axis] * edge[axis] - origin[axis]) / direction[axis];
+                    tDelta[axis] = -edge[axis] / direction[axis];
+                } else {
+                    step[axis] = 0;
+                    tMax[axis] = Double.POSITIVE_INFINITY;
+                    tDelta[axis] = Double.POSITIVE_INFINITY;
+                }
+            }
+        }
+
+        /**
+         * @return the distance along the ray to the exit from the current voxel
+         */
+        double exit() {
+            return Math.min(tMax[0], Math.min(tMax[1], tMax[2]));
+        }
+
+        /**
+         * moves to the next voxel of the ray - over the closest voxel boundary
+         *
+         * @return false if the ray leaves the grid
+         */
+        boolean next() {
+            int axis = tMax[0] < tMax[1] ? (tMax[0] < tMax[2] ? 0 : 2) : (tMax[1] < tMax[2] ? 1 : 2);
+            entry = tMax[axis];
+            voxel[axis] += step[axis];
+            if (voxel[axis] < 0 || voxel[axis] >= voxels[axis])
+                return false;
+            tMax[axis] += tDelta[axis];
+            return true;
+        }
+    }
+
     /**
      * Constructor
      *
@@ -38,6 +188,7 @@ public class RayTracerRegular extends RayTracerBase {
     //region traceRay - overrides
     @Override
     public Color traceRay(Ray ray) {
+        countRays(PRIMARY, 1);
         Intersectable.GeoPoint closestIntersection = traversalAlgorithm(ray);
         return closestIntersection == null ? scene.background : calcColor(closestIntersection, ray);
     }
@@ -114,12 +265,11 @@ public class RayTracerRegular extends RayTracerBase {
             if (nl * nv > 0) { // sign(nl) == sign(nv)
 //                if (unshaded(gp, lightSource, lightVector, normal))
                 Double3 ktr = transparency(gp, lightSource, lightVector, normal);
-                if (!ktr.product(k).lowerThan(MIN_CALC_COLOR_K)) {
+                if (!ktr.productLowerThan(k, MIN_CALC_COLOR_K)) {
                     Color lightIntensity = lightSource.getIntensity(gp.point).scale(ktr);
-                    color = color.add(
-                            lightIntensity.scale(calcDiffusive(mat, nl)),
-                            lightIntensity.scale(calcSpecular(mat, normal, lightVector, nl, vector))
-                    );
+                    color = color.addScaled(lightIntensity,
+                            mat.kD, calcDiffusive(nl),
+                            mat.kS, calcSpecular(mat, normal, lightVector, nl, vector));
                 }
             }
         }
@@ -134,23 +284,22 @@ public class RayTracerRegular extends RayTracerBase {
      * @param l   light source vector
      * @param nl  dot product of normal and light vectors
      * @param v   direction of camera's ray
-     * @return specular effect on color
+     * @return specular effect on color - the scale of the specular factor of the material
      */
-    private Double3 calcSpecular(Material mat, Vector n, Vector l, double nl, Vector v) {
-        Vector reflectedVector = l.subtract(n.scale(2 * nl));
-        double max = Math.max(0, alignZero(v.scale(-1).dotProduct(reflectedVector)));
-        return mat.kS.scale(Math.pow(max, mat.nShininess));
+    private double calcSpecular(Material mat, Vector n, Vector l, double nl, Vector v) {
+        //-v * r where r = l - 2 * nl * n is the reflected light vector (calculated without creating vectors)
+        double max = Math.max(0, alignZero(reflectionDotProduct(v, l, n, nl)));
+        return Math.pow(max, mat.nShininess);
     }
 
     /**
      * calculate the diffusive effect
      *
-     * @param mat material of Geometry
-     * @param nl  dot product of normal and light vectors
-     * @return diffusive effect on color
+     * @param nl dot product of normal and light vectors
+     * @return diffusive effect on color - the scale of the diffusive factor of the material
      */
-    private Double3 calcDiffusive(Material mat, double nl) {
-        return mat.kD.scale(Math.abs(nl));
+    private double calcDiffusive(double nl) {
+        return Math.abs(nl);
     }
 
 //    /**
@@ -192,18 +341,8 @@ public class RayTracerRegular extends RayTracerBase {
      */
     private Double3 transparency(Intersectable.GeoPoint gp, LightSource lightSource, Vector l, Vector n) {
         Ray lightRay = new Ray(gp.point, l.scale(-1), n);
-        Double3 ktr = Double3.ONE;
-        Geometries geometries = voxelsPathGeometries(lightRay);
-        if (geometries == null) return ktr;
-        List<Intersectable.GeoPoint> intersections = geometries.findGeoIntersections(lightRay);
-        if (intersections == null) return ktr;
-
-        double distance = alignZero(lightSource.getDistance(gp.point));
-        for (Intersectable.GeoPoint intersection : intersections) {
-            if (alignZero(intersection.point.distance(gp.point)) < distance)
-                ktr = ktr.product(intersection.geometry.getMaterial().kT);
-        }
-        return ktr;
+        countRays(SHADOW, 1);
+        return voxelsPathTransparency(lightRay, alignZero(lightSource.getDistance(gp.point)));
     }
 
     //endregion
@@ -236,7 +375,7 @@ public class RayTracerRegular extends RayTracerBase {
             List<Ray> diffusedSampling = Sampling.superSample(refractedRay, material.kDg, normal);
             //for each sampling ray calculate the global effect
             for (var secondaryRay : diffusedSampling) {
-                diffSamplingSum = diffSamplingSum.add(calcGlobalEffects(secondaryRay, level, k, material.kT));
+                diffSamplingSum = diffSamplingSum.add(calcGlobalEffects(secondaryRay, level, k, material.kT, SAMPLE));
             }
             //take the average of the calculation for all sample rays
             diffSamplingSum = diffSamplingSum.reduce(diffusedSampling.size());
@@ -247,7 +386,7 @@ public class RayTracerRegular extends RayTracerBase {
             List<Ray> glossySampling = Sampling.superSample(reflectedRay, material.kSg, normal);
             //for each sampling ray calculate the global effect
             for (var secondaryRay : glossySampling) {
-                glossSamplingSum = glossSamplingSum.add(calcGlobalEffects(secondaryRay, level, k, material.kR));
+                glossSamplingSum = glossSamplingSum.add(calcGlobalEffects(secondaryRay, level, k, material.kR, SAMPLE));
             }
             //take the average of the calculation for all sample rays
             glossSamplingSum = glossSamplingSum.reduce(glossySampling.size());
@@ -260,12 +399,12 @@ public class RayTracerRegular extends RayTracerBase {
         }
         //else return the matching result
         else if (material.kDg + material.kSg > 0) {
-            return material.kDg != 0 ? calcGlobalEffects(reflectedRay, level, k, material.kR).add(diffSamplingSum) :
-                    calcGlobalEffects(refractedRay, level, k, material.kT).add(glossSamplingSum);
+            return material.kDg != 0 ? calcGlobalEffects(reflectedRay, level, k, material.kR, REFLECTION).add(diffSamplingSum) :
+                    calcGlobalEffects(refractedRay, level, k, material.kT, REFRACTION).add(glossSamplingSum);
         }
 
-        return calcGlobalEffects(reflectedRay, level, k, material.kR)
-                .add(calcGlobalEffects(refractedRay, level, k, material.kT));
+        return calcGlobalEffects(reflectedRay, level, k, material.kR, REFLECTION)
+                .add(calcGlobalEffects(refractedRay, level, k, material.kT, REFRACTION));
     }
 
     /**
@@ -275,12 +414,14 @@ public class RayTracerRegular extends RayTracerBase {
      * @param level the current level
      * @param k    a color factor to reduce the color (according to the current level of recursion)
      * @param kx   the color factor for the next level of recursion
+     * @param type the type of the ray (for the statistics)
      * @return the new calculated color
      */
-    private Color calcGlobalEffects(Ray ray, int level, Double3 k, Double3 kx) {
+    private Color calcGlobalEffects(Ray ray, int level, Double3 k, Double3 kx, RayType type) {
         Double3 kkx = k.product(kx);
         if (kkx.lowerThan(MIN_CALC_COLOR_K))
             return Color.BLACK;
+        countRays(type, 1);
 
         Intersectable.GeoPoint gp = traversalAlgorithm(ray);
         if (gp == null)
@@ -318,13 +459,23 @@ public class RayTracerRegular extends RayTracerBase {
     //endregion
 
     /**
-     * finds the closest intersection GeoPoint to the base of the ray
+     * counts an intersection test of a geometry of a voxel, if the statistics are collected
      *
-     * @param ray the ray that we find intersection from
-     * @return the closest intersection GeoPoint
+     * @param geometry the tested geometry
      */
-    private Intersectable.GeoPoint findClosestIntersection(Ray ray, Geometries geometries) {
-        return ray.findClosestGeoPoint(geometries.findGeoIntersections(ray));
+    private void countTest(Intersectable geometry) {
+        RenderMetrics metrics = this.metrics;
+        if (metrics != null && geometry instanceof Geometry g)
+            metrics.count(g, 1);
+    }
+
+    /**
+     * counts a voxel visited by a traversal, if the statistics are collected
+     */
+    private void countVoxel() {
+        RenderMetrics metrics = this.metrics;
+        if (metrics != null)
+            metrics.countVoxels(1);
     }
 
     //region voxel algorithms
@@ -334,345 +485,267 @@ public class RayTracerRegular extends RayTracerBase {
      * @param ray the ray through the scene voxels grid
      * @return the first intersection GeoPoint
      */
-    private Intersectable.GeoPoint traversalAlgorithm(Ray ray) {
-        //first sub algo
-        //finds the first intersection with the grid
-        Point firstIntersection = firstIntersection(ray);
-        if (firstIntersection == null) return null;
-        Vector dir = ray.getDir();
-        int[][] boundary = scene.geometries.boundary;
-        //move the point a little, so it would be inside the grid
-        Point fixedFirstIntersection = fixPoint(firstIntersection, boundary);
-        //arrays for calculations
-        int[] indexes = VoxelByPoint(fixedFirstIntersection, boundary);
-        double[] directions = new double[]{dir.getX(), dir.getY(), dir.getZ()};
-        int[] steps = new int[3];
-        double[] voxelEdges = new double[]{scene.getXEdgeVoxel(), scene.getYEdgeVoxel(), scene.getZEdgeVoxel()};
-        double[] tMax = new double[3];
-        double[] firstIntersectionCoordinates = new double[]{firstIntersection.getX(), firstIntersection.getY(), firstIntersection.getZ()};
-        double[] tDelta = new double[3];
-
-        for (int i = 0; i <= 2; i++) {
-            steps[i] = determineDirection(directions[i]);
-        }
-
-        for (int i = 0; i <= 2; i++) {
-            tMax[i] = determineTmax(boundary[i][0], steps[i], indexes[i], voxelEdges[i], directions[i], firstIntersectionCoordinates[i]);
-        }
-
-        for (int i = 0; i <= 2; i++) {
-            tDelta[i] = Math.abs(voxelEdges[i] / directions[i]);
-        }
-
-        //second sub algo
-        //move over all the geometries of the first voxel and find the closest intersection (if there is any)
-        Intersectable.GeoPoint farIntersection = null;
-        Geometries list = scene.voxels.get(new Double3(indexes[0], indexes[1], indexes[2]));
-        Intersectable.GeoPoint closestIntersection;
-        if (list != null) {
-            closestIntersection = findClosestIntersection(ray, list);
-            //check if the intersection point exists, and it's inside the voxel
-            if (closestIntersection != null)
-                if (!isInsideVoxel(indexes, closestIntersection.point, boundary))
-                    farIntersection = closestIntersection;
-                else return closestIntersection;
-        }
-
-        do {
-            if (!nextVoxel(tMax, indexes, tDelta, steps)) {
-                return null;
+    Intersectable.GeoPoint traversalAlgorithm(Ray ray) {
+        //the infinite geometries are out of the grid - they are tested first, and their closest intersection
+        //bounds the search in the grid
+        Intersectable.GeoPoint closestIntersection = null;
+        double distance = Double.POSITIVE_INFINITY;
+        for (Intersectable geometry : scene.getUnbounded()) {
+            countTest(geometry);
+            Intersectable.GeoPoint intersection = geometry.findClosestIntersection(ray, distance, metrics);
+            if (intersection != null) {
+                closestIntersection = intersection;
+                distance = ray.getP0().distance(intersection.point);
             }
-            //move the point a voxel
-            //find the intersection inside teh current voxel
-            list = scene.voxels.get(new Double3(indexes[0], indexes[1], indexes[2]));
-            if (list == null) {
-                closestIntersection = null;
-            } else {
-                if (farIntersection != null && isInsideVoxel(indexes, farIntersection.point, boundary)) {//if it's the voxel with the saved point
-                    list = list.remove(farIntersection.geometry);
-                    closestIntersection = findClosestIntersection(ray, list);
-                    if (closestIntersection != null) {
-                        if (isInsideVoxel(indexes, closestIntersection.point, boundary)) {
-                            //checks the closest of both
-                            if (closestIntersection.point.distanceSquared(fixedFirstIntersection) <= farIntersection.point.distanceSquared(fixedFirstIntersection)) {
-                                //even though we reached the voxel that contains the precalculated point, we found closer one
-                                return closestIntersection;
-                            } else {
-                                //the saved point is still the closest
-                                return farIntersection;
-                            }
-                        } else {//the closest intersection is outside the voxel meaning the saved one is closer
-                            return farIntersection;
-                        }
-                    } else {//no other intersection in this voxel, therefore the saved intersection is the closest
-                        return farIntersection;
+        }
+        Traversal traversal = startTraversal(ray, distance);
+        if (traversal == null) return closestIntersection;
+
+        //move over the voxels and test each geometry once (a geometry may be in several voxels of the ray),
+        //the closest intersection so far is final when it is not farther than the exit from the current voxel,
+        //since the geometries of the next voxels are not tested yet only if they are all beyond the exit.
+        //A voxel with a nested grid is traversed through the voxels of its nested grid
+        try {
+            VoxelGrid grid = scene.voxels;
+            Dda dda = traversal.grid;
+            do {
+                countVoxel();
+                int cell = grid.getCell(dda.voxel[0], dda.voxel[1], dda.voxel[2]);
+                VoxelGrid subgrid = grid.getSubgrid(cell);
+                if (subgrid == null) {
+                    Intersectable.GeoPoint intersection =
+                            findClosestIntersection(ray, grid, cell, traversal, closestIntersection, distance);
+                    if (intersection != closestIntersection) {
+                        closestIntersection = intersection;
+                        distance = ray.getP0().distance(intersection.point);
                     }
-                } else {//if it's not the voxel with the saved point
-                    closestIntersection = findClosestIntersection(ray, list);
-                    if (closestIntersection != null) {
-                        if (!isInsideVoxel(indexes, closestIntersection.point, boundary)) {
-                            //if not in the voxel
-                            if (farIntersection == null || closestIntersection.point.distanceSquared(fixedFirstIntersection) <= farIntersection.point.distanceSquared(fixedFirstIntersection)) {
-                                //if it's closer than the already saved farIntersection, save this, since tha saved one would not intersect before this
-                                farIntersection = closestIntersection;
-                                closestIntersection = null;
-                            }
-                        } else {//if it's in the voxel and closest
-                            return closestIntersection;
+                } else {
+                    Dda nested = traversal.nest(subgrid);
+                    do {
+                        countVoxel();
+                        cell = subgrid.getCell(nested.voxel[0], nested.voxel[1], nested.voxel[2]);
+                        Intersectable.GeoPoint intersection =
+                                findClosestIntersection(ray, subgrid, cell, traversal, closestIntersection, distance);
+                        if (intersection != closestIntersection) {
+                            closestIntersection = intersection;
+                            distance = ray.getP0().distance(intersection.point);
                         }
-                    }
+                        if (closestIntersection != null && distance <= nested.exit())
+                            return closestIntersection;
+                    } while (nested.next());
                 }
-            }
-
-        } while (closestIntersection == null || !isInsideVoxel(indexes, closestIntersection.point, boundary));
+                if (closestIntersection != null && distance <= dda.exit())
+                    return closestIntersection;
+            } while (dda.next());
 
-        return closestIntersection;
-    }
-
-    /**
-     * function that finds the geometric objects in all the voxels the ray travels through
-     *
-     * @param ray the ray through the scene voxels grid
-     * @return geometries in all the voxels the ray travels through
-     */
-    private Geometries voxelsPathGeometries(Ray ray) {
-        //finds the first intersection with the grid
-        Point firstIntersection = firstIntersection(ray);
-        if (firstIntersection == null) return null;
-        Vector dir = ray.getDir();
-        int[][] boundary = scene.geometries.boundary;
-        //move the point a little, so it would be inside the grid
-        Point fixedFirstIntersection = fixPoint(firstIntersection, boundary);
-
-        //arrays for calculations
-        int[] indexes = VoxelByPoint(fixedFirstIntersection, boundary);
-        double[] directions = new double[]{dir.getX(), dir.getY(), dir.getZ()};
-        int[] steps = new int[3];
-        double[] voxelEdges = new double[]{scene.getXEdgeVoxel(), scene.getYEdgeVoxel(), scene.getZEdgeVoxel()};
-        double[] tMax = new double[3];
-        double[] firstIntersectionCoordinates = new double[]{firstIntersection.getX(), firstIntersection.getY(), firstIntersection.getZ()};
-        double[] tDelta = new double[3];
-
-        for (int i = 0; i <= 2; i++) {
-            steps[i] = determineDirection(directions[i]);
-        }
-
-        for (int i = 0; i <= 2; i++) {
-            tMax[i] = determineTmax(boundary[i][0], steps[i], indexes[i], voxelEdges[i], directions[i], firstIntersectionCoordinates[i]);
-        }
-
-        for (int i = 0; i <= 2; i++) {
-            tDelta[i] = Math.abs(voxelEdges[i] / directions[i]);
-        }
-
-        //find the geometries in the first voxel
-        Geometries list = new Geometries();
-        Geometries temp = scene.voxels.get(new Double3(indexes[0], indexes[1], indexes[2]));
-
-
-        if (temp != null) {
-            list.add(temp);
-        }
-        //travel through all the voxels in a loop and their geometries
-        while (nextVoxel(tMax, indexes, tDelta, steps)) {
-            temp = scene.voxels.get(new Double3(indexes[0], indexes[1], indexes[2]));
-            if (temp != null) {
-                list.add(temp);
-            }
+            return closestIntersection;
+        } finally {
+            release(traversal);
         }
-        return list;
     }
 
-
     /**
-     * moves to the next voxel
+     * finds the closest intersection of the ray with the geometries of a voxel which were not tested by the ray yet
      *
-     * @param tMax    maximum in units of t to get to the next voxel
-     * @param indexes index of the current voxel
-     * @param tDelta  width, height and depth of voxel in units of t
-     * @param steps   the direction of the steps
-     * @return if moved successfully to the next voxel or got out of the grid
+     * @param ray       the ray
+     * @param grid      the grid of the voxel
+     * @param cell      the index of the voxel in the grid
+     * @param traversal the traversal state of the ray
+     * @param closest   the closest intersection so far, null if there is none
+     * @param distance  the distance to the closest intersection so far
+     * @return the closest intersection - the given one if no geometry of the voxel intersects before it
      */
-    //if there is no intersection points in the first voxel search in the rest of the ray's way
-    //since the ray starts in the middle of a voxel (since we moved it on the intersection with the  scene CBR,
-    //or the head is already inside the scene SCR), we had to calculate the remaining distance to the fist voxel's edge.
-    //But from now on, we can use the constant voxel size, since it would always intersect with the edge of the voxel.
-    //now would do the same calculation on the rest of the ray's way in the voxels grid.
-    private boolean nextVoxel(double[] tMax, int[] indexes, double[] tDelta, int[] steps) {
-        if (tMax[0] < tMax[1]) {
-            if (tMax[0] < tMax[2]) {
-                indexes[0] = indexes[0] + steps[0];
-                if ((indexes[0] > 0 && indexes[0] == scene.resolution + 1) || (indexes[0] < 0))
-                    return false; //the ray leaves the scene's CBR with no intersection
-                tMax[0] = tMax[0] + tDelta[0];
-            }
-            else {
-                indexes[2] = indexes[2] + steps[2];
-                if ((indexes[2] > 0 && indexes[2] == scene.resolution + 1) || (indexes[2] < 0))
-                    return false;
-                tMax[2] = tMax[2] + tDelta[2];
+    private Intersectable.GeoPoint findClosestIntersection(Ray ray, VoxelGrid grid, int cell, Traversal traversal,
+                                                           Intersectable.GeoPoint closest, double distance) {
+        for (int i = grid.start(cell); i < grid.end(cell); ++i) {
+            if (!traversal.post(grid.itemIndex(i))) continue;
+            Intersectable geometry = grid.item(i);
+            countTest(geometry);
+            Intersectable.GeoPoint intersection = geometry.findClosestIntersection(ray, distance, metrics);
+            if (intersection != null) {
+                closest = intersection;
+                distance = ray.getP0().distance(intersection.point);
             }
         }
-        else {
-            if (tMax[1] < tMax[2]) {
-                indexes[1] = indexes[1] + steps[1];
-                if ((indexes[1] > 0 && indexes[1] == scene.resolution + 1) || (indexes[1] < 0))
-                    return false;
-                tMax[1] = tMax[1] + tDelta[1];
-            }
-            else {
-                indexes[2] = indexes[2] + steps[2];
-                if ((indexes[2] > 0 && indexes[2] == scene.resolution + 1) || (indexes[2] < 0))
-                    return false;
-                tMax[2] = tMax[2] + tDelta[2];
-            }
-        }
-        return true;
+        return closest;
     }
 
-
     /**
-     * the intersection of the ray with CBR of the scene
+     * function that calculates the transparency factor of the geometric objects in the voxels the ray travels through.
+     * The travel stops when the ray is blocked or when it passes the given distance
      *
-     * @param ray the entering ray
-     * @return the intersection point
+     * @param ray         the ray through the scene voxels grid
+     * @param maxDistance the distance along the ray to search up to (e.g. distance to the light source)
+     * @return the transparency factor along the ray
      */
-    private Point firstIntersection(Ray ray) {
-        double x = ray.getP0().getX();
-        double y = ray.getP0().getY();
-        double z = ray.getP0().getZ();
-        Point head = ray.getP0();
-
-        int[][] boundary = scene.geometries.boundary;
-
-        //if the head of the ray is inside the regular grid return the head of the ray
-        if (x >= boundary[0][0] && x <= boundary[0][1] &&
-                y >= boundary[1][0] && y <= boundary[1][1] &&
-                z >= boundary[2][0] && z <= boundary[2][1]) {
-            return head;
+    private Double3 voxelsPathTransparency(Ray ray, double maxDistance) {
+        //the infinite geometries are out of the grid
+        Double3 ktr = Double3.ONE;
+        for (Intersectable geometry : scene.getUnbounded()) {
+            countTest(geometry);
+            ktr = ktr.product(geometry.findTransparency(ray, maxDistance, MIN_CALC_COLOR_K, metrics));
+            if (ktr.lowerThan(MIN_CALC_COLOR_K))
+                return ktr;
         }
-
-        List<Point> intersections;
-        Point closest = null;
-
-        //find the closest intersection
-        double distance = Double.POSITIVE_INFINITY;
-        for (Polygon p : scene.faces) {
-            intersections = p.findIntersections(ray);
-            if (intersections != null) {
-                if (intersections.get(0).distance(head) < distance) {
-                    distance = intersections.get(0).distance(head);
-                    closest = intersections.get(0);
+        Traversal traversal = startTraversal(ray, maxDistance);
+        if (traversal == null) return ktr;
+
+        //accumulate the transparency of the geometries voxel by voxel, until the ray is blocked or passes the distance,
+        //each geometry is accounted once, even if it is in several voxels of the ray
+        try {
+            VoxelGrid grid = scene.voxels;
+            Dda dda = traversal.grid;
+            do {
+                countVoxel();
+                int cell = grid.getCell(dda.voxel[0], dda.voxel[1], dda.voxel[2]);
+                VoxelGrid subgrid = grid.getSubgrid(cell);
+                if (subgrid == null)
+                    ktr = findTransparency(ray, maxDistance, grid, cell, traversal, ktr);
+                else {
+                    Dda nested = traversal.nest(subgrid);
+                    do {
+                        countVoxel();
+                        cell = subgrid.getCell(nested.voxel[0], nested.voxel[1], nested.voxel[2]);
+                        ktr = findTransparency(ray, maxDistance, subgrid, cell, traversal, ktr);
+                    } while (!ktr.lowerThan(MIN_CALC_COLOR_K) && nested.exit() < maxDistance && nested.next());
                 }
-            }
+                if (ktr.lowerThan(MIN_CALC_COLOR_K))
+                    return ktr;
+            } while (dda.exit() < maxDistance && dda.next());
+            return ktr;
+        } finally {
+            release(traversal);
         }
-
-        return closest;
-
     }
 
     /**
-     * this function matches a voxel to a point.
+     * accumulates the transparency factor of the geometries of a voxel which were not accounted by the ray yet
      *
-     * @param p        the point in the voxel
-     * @param boundary the scene CBR
-     * @return the voxel of the specified point
+     * @param ray         the ray
+     * @param maxDistance the distance along the ray to search up to
+     * @param grid        the grid of the voxel
+     * @param cell        the index of the voxel in the grid
+     * @param traversal   the traversal state of the ray
+     * @param ktr         the transparency factor accumulated so far
+     * @return the accumulated transparency factor, lower than the minimal factor if the ray is blocked
      */
-    private int[] VoxelByPoint(Point p, int[][] boundary) {
-
-        int xCoordinate = (int) ((p.getX() - boundary[0][0]) / scene.getXEdgeVoxel());
-        int yCoordinate = (int) ((p.getY() - boundary[1][0]) / scene.getYEdgeVoxel());
-        int zCoordinate = (int) ((p.getZ() - boundary[2][0]) / scene.getZEdgeVoxel());
-
-        return new int[]{xCoordinate, yCoordinate, zCoordinate};
+    private Double3 findTransparency(Ray ray, double maxDistance, VoxelGrid grid, int cell, Traversal traversal,
+                                     Double3 ktr) {
+        for (int i = grid.start(cell); i < grid.end(cell); ++i) {
+            if (!traversal.post(grid.itemIndex(i))) continue;
+            countTest(grid.item(i));
+            ktr = ktr.product(grid.item(i).findTransparency(ray, maxDistance, MIN_CALC_COLOR_K, metrics));
+            if (ktr.lowerThan(MIN_CALC_COLOR_K))
+                return ktr;
+        }
+        return ktr;
     }
 
     /**
-     * decides sign of a number
+     * Starts the traversal of a ray through the voxels grid in a borrowed traversal state, which must be released
+     * when the traversal is finished (see {@link #release(Traversal)}).<br/>
+     * The interval of the ray inside the grid is found by the slab test - the intersection of the intervals of
+     * the ray between the boundary planes of each axis, and the traversal starts in the voxel of the entry point
+     * (the head of the ray if it is inside the grid)
      *
-     * @param component direction of the ray inside teh voxel
-     * @return positivity or negativity of the direction
+     * @param ray         the ray
+     * @param maxDistance the distance along the ray to search up to
+     * @return the traversal state, null if the ray misses the grid (or the scene has no grid), or enters it beyond
+     * the distance
      */
-    private int determineDirection(double component) {
-        if (component > 0)
-            return 1;
-        else if (component < 0)
-            return -1;
-        else
-            return 0;
-    }
+    private Traversal startTraversal(Ray ray, double maxDistance) {
+        AABB boundary = scene.getGridBoundary();
+        if (boundary == null) return null;
+        Traversal traversal = borrow();
+        double[] origin = traversal.origin, direction = traversal.direction;
+        Point head = ray.getP0();
+        Vector dir = ray.getDir();
+        origin[0] = head.getX();
+        origin[1] = head.getY();
+        origin[2] = head.getZ();
+        direction[0] = dir.getX();
+        direction[1] = dir.getY();
+        direction[2] = dir.getZ();
+
+        //slab test
+        double tNear = 0, tFar = Double.POSITIVE_INFINITY;
+        for (int axis = 0; axis < 3; ++axis) {
+            double min = boundary.getMin(axis), max = boundary.getMax(axis);
+            if (direction[axis] == 0) {
+                //parallel to the boundary planes of the axis - inside the slab or missing it
+                if (origin[axis] < min || origin[axis] > max) {
+                    release(traversal);
+                    return null;
+                }
+                continue;
+            }
+            double inverse = 1 / direction[axis];
+            double t1 = (min - origin[axis]) * inverse, t2 = (max - origin[axis]) * inverse;
+            if (inverse < 0) {
+                double t = t1;
+                t1 = t2;
+                t2 = t;
+            }
+            if (t1 > tNear) tNear = t1;
+            if (t2 < tFar) tFar = t2;
+        }
+        if (tNear > tFar || tNear > maxDistance) {
+            release(traversal);
+            return null;
+        }
 
-    /**
-     * Determines the maximum step (units) of t to the next voxel
-     *
-     * @param minBoundary            minimum boundary coordinate
-     * @param step                   the direction of the next voxel
-     * @param index                  index of the current voxel
-     * @param voxelEdge              length of voxel edge
-     * @param direction              the direction of the vector of the ray
-     * @param intersectionCoordinate the first intersection of the ray with the regular grid
-     * @return the maximum step in units of t to the next voxel
-     */
-    private double determineTmax(double minBoundary, double step, int index, double voxelEdge, double direction, double intersectionCoordinate) {
-        if (step == 1) {
-            return Math.abs((minBoundary + (index + 1) * voxelEdge - intersectionCoordinate) / direction);
-        } else if (step == -1) {
-            return Math.abs((intersectionCoordinate - (minBoundary + index * voxelEdge)) / direction);
+        VoxelGrid grid = scene.voxels;
+        Dda dda = traversal.grid;
+        for (int axis = 0; axis < 3; ++axis) {
+            dda.min[axis] = boundary.getMin(axis);
+            dda.size[axis] = boundary.getSize(axis);
         }
-        return 0;
+        dda.start(origin, direction, tNear, grid);
+
+        //a new stamp of the mailbox
+        int items = grid.getItemsCount();
+        if (traversal.stamps.length != items) {
+            //the grid was (re)built
+            traversal.stamps = new int[items];
+            traversal.ray = 0;
+        }
+        if (++traversal.ray == 0) {
+            //the stamps wrapped around - clear the old stamps
+            Arrays.fill(traversal.stamps, 0);
+            traversal.ray = 1;
+        }
+        return traversal;
     }
 
     /**
-     * checks if the intersection point ith the geometry is inside the voxel
+     * Borrows an idle traversal state - the search starts in a slot of the current thread, so concurrent threads
+     * rarely compete on a slot. A new state is created only when all the states are in use
      *
-     * @param index        voxel index
-     * @param intersection intersection point of the ray with the geometry
-     * @param boundary     boundary of the scene
-     * @return if the intersection point is inside the voxel
+     * @return the traversal state
      */
-    private boolean isInsideVoxel(int[] index, Point intersection, int[][] boundary) {
-        //minimum coordinates
-        double xMax = boundary[0][0] + (index[0] + 1) * scene.getXEdgeVoxel();
-        double yMax = boundary[1][0] + (index[1] + 1) * scene.getYEdgeVoxel();
-        double zMax = boundary[2][0] + (index[2] + 1) * scene.getZEdgeVoxel();
-
-        //maximum coordinates
-        double xMin = boundary[0][0] + (index[0]) * scene.getXEdgeVoxel();
-        double yMin = boundary[1][0] + (index[1]) * scene.getYEdgeVoxel();
-        double zMin = boundary[2][0] + (index[2]) * scene.getZEdgeVoxel();
-
-        return intersection.getX() >= xMin && intersection.getX() <= xMax
-                && intersection.getY() >= yMin && intersection.getY() <= yMax
-                && intersection.getZ() >= zMin && intersection.getZ() <= zMax;
+    private Traversal borrow() {
+        int slots = idle.length();
+        int first = (int) (Thread.currentThread().getId() % slots);
+        for (int i = 0; i < slots; ++i) {
+            int slot = (first + i) % slots;
+            Traversal traversal = idle.get(slot);
+            if (traversal != null && idle.compareAndSet(slot, traversal, null))
+                return traversal;
+        }
+        return new Traversal();
     }
 
     /**
-     * fixes the intersection of the ray with the scene CBR on exact intersection with voxel edges
+     * Returns a borrowed traversal state to the idle states, or drops it if there is no free slot
      *
-     * @param p        intersection point with the scene CBR
-     * @param boundary the CBR
-     * @return the fixed point
+     * @param traversal the traversal state
      */
-    private Point fixPoint(Point p, int[][] boundary) {
-        if (isZero((p.getX() - boundary[0][0]))) {
-            p = p.add(new Vector(1, 0, 0).scale(EPSILON));
-        }
-        if (isZero((p.getX() - boundary[0][1]))) {
-            p = p.add(new Vector(1, 0, 0).scale(-EPSILON));
-        }
-        if (isZero((p.getY() - boundary[1][0]))) {
-            p = p.add(new Vector(0, 1, 0).scale(EPSILON));
-        }
-        if (isZero((p.getY() - boundary[1][1]))) {
-            p = p.add(new Vector(0, 1, 0).scale(-EPSILON));
-        }
-        if (isZero((p.getZ() - boundary[2][0]))) {
-            p = p.add(new Vector(0, 0, 1).scale(EPSILON));
-        }
-        if (isZero((p.getZ() - boundary[2][1]))) {
-            p = p.add(new Vector(0, 0, 1).scale(-EPSILON));
-        }
-        return p;
+    private void release(Traversal traversal) {
+        int slots = idle.length();
+        int first = (int) (Thread.currentThread().getId() % slots);
+        for (int i = 0; i < slots; ++i)
+            if (idle.compareAndSet((first + i) % slots, null, traversal))
+                return;
     }
     //endregion
 }
@@ -0,0 +1,223 @@
+package renderer;
+
+import geometries.Geometry;
+import geometries.IntersectionCounter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of renderings - the traced rays by their type, the intersection tests by the type of the geometry,
+ * the voxels visited by the traversal of the regular grid and the time of the phases of the rendering.<br/>
+ * The counters are striped ({@link LongAdder}), so the rendering threads update them without contention, and the
+ * statistics may be collected in production. The statistics are collected by a camera and its ray tracer
+ * (see {@link Camera#setMetrics(RenderMetrics, Path)}) and accumulated over the renderings, until {@link #reset()}
+ *
+ * @author Sarah Daatyah Furmanski and Efrat Kartman
+ */
+public class RenderMetrics implements IntersectionCounter {
+    /**
+     * the types of the traced rays
+     */
+    public enum RayType {
+        /** the rays from the camera through the pixels */
+        PRIMARY("primary"),
+        /** the rays from the intersection points to the light sources */
+        SHADOW("shadow"),
+        /** the reflected rays */
+        REFLECTION("reflection"),
+        /** the refracted rays */
+        REFRACTION("refraction"),
+        /** the glossy and diffuse samples of the reflected and refracted rays */
+        SAMPLE("sample");
+
+        /**
+         * the name in the JSON export
+         */
+        private final String name;
+
+        RayType(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * the phases of a rendering
+     */
+    public enum Phase {
+        /** building the scene from its file */
+        SCENE_BUILD("sceneBuild"),
+        /** building the voxels grid of the scene */
+        VOXELIZATION("voxelization"),
+        /** tracing the rays of the image */
+        TRACE("trace"),
+        /** writing the image file */
+        WRITE("write");
+
+        /**
+         * the name in the JSON export
+         */
+        private final String name;
+
+        Phase(String name) {
+            this.name = name;
+        }
+    }
+
+    private final LongAdder[] rays = adders(RayType.values().length);
+    private final LongAdder[] times = adders(Phase.values().length);
+    private final LongAdder voxels = new LongAdder();
+    /**
+     * the intersection tests by the class of the geometry
+     */
+    private final Map<Class<?>, LongAdder> tests = new ConcurrentHashMap<>();
+
+    /**
+     * @param count amount of the counters
+     * @return new counters
+     */
+    private static LongAdder[] adders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; ++i)
+            adders[i] = new LongAdder();
+        return adders;
+    }
+
+    /**
+     * counts traced rays
+     *
+     * @param type  the type of the rays
+     * @param count amount of the rays
+     */
+    public void countRays(RayType type, int count) {
+        rays[type.ordinal()].add(count);
+    }
+
+    /**
+     * counts voxels visited by the traversal of a ray
+     *
+     * @param count amount of the voxels
+     */
+    public void countVoxels(int count) {
+        voxels.add(count);
+    }
+
+    @Override
+    public void count(Geometry geometry, int count) {
+        LongAdder adder = tests.get(geometry.getClass());
+        if (adder == null)
+            adder = tests.computeIfAbsent(geometry.getClass(), type -> new LongAdder());
+        adder.add(count);
+    }
+
+    /**
+     * adds the time of a phase
+     *
+     * @param phase the phase
+     * @param nanos the time of the phase (nanoseconds)
+     */
+    public void addTime(Phase phase, long nanos) {
+        times[phase.ordinal()].add(nanos);
+    }
+
+    /**
+     * sets the time of a phase - for the phases of the scene, which is built once for its renderings
+     *
+     * @param phase the phase
+     * @param nanos the time of the phase (nanoseconds)
+     */
+    public void setTime(Phase phase, long nanos) {
+        times[phase.ordinal()].reset();
+        times[phase.ordinal()].add(nanos);
+    }
+
+    /**
+     * @param type the type of the rays
+     * @return amount of the traced rays of the type
+     */
+    public long getRays(RayType type) {
+        return rays[type.ordinal()].sum();
+    }
+
+    /**
+     * @param type the class of the geometries
+     * @return amount of the intersection tests of the geometries of the class
+     */
+    public long getTests(Class<? extends Geometry> type) {
+        LongAdder adder = tests.get(type);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    /**
+     * @return amount of the voxels visited by the traversals of the regular grid
+     */
+    public long getVoxels() {
+        return voxels.sum();
+    }
+
+    /**
+     * @param phase the phase
+     * @return the time of the phase (nanoseconds)
+     */
+    public long getTime(Phase phase) {
+        return times[phase.ordinal()].sum();
+    }
+
+    /**
+     * resets all the statistics
+     */
+    public void reset() {
+        for (LongAdder adder : rays) adder.reset();
+        for (LongAdder adder : times) adder.reset();
+        voxels.reset();
+        tests.clear();
+    }
+
+    /**
+     * The statistics as a JSON object - the rays by type, the intersection tests by the simple name of the class of
+     * the geometry, the visited voxels and the time of the phases in milliseconds, e.g.
+     * <pre>{"rays": {"primary": 160000, ...}, "intersectionTests": {"Sphere": 180000, ...}, "voxelsVisited": 520000,
+     * "phases": {"sceneBuild": 12.500, ...}}</pre>
+     *
+     * @return the JSON text
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\n  \"rays\": {");
+        for (RayType type : RayType.values())
+            json.append(type.ordinal() == 0 ? "" : ", ").append('"').append(type.name).append("\": ")
+                    .append(getRays(type));
+
+        //sorted by name for a stable output, types of the same simple name (e.g. nested classes) are summed
+        Map<String, Long> sorted = new TreeMap<>();
+        tests.forEach((type, adder) -> sorted.merge(type.getSimpleName(), adder.sum(), Long::sum));
+        json.append("},\n  \"intersectionTests\": {");
+        String separator = "";
+        for (Map.Entry<String, Long> entry : sorted.entrySet()) {
+            json.append(separator).append('"').append(entry.getKey()).append("\": ").append(entry.getValue());
+            separator = ", ";
+        }
+
+        json.append("},\n  \"voxelsVisited\": ").append(getVoxels()).append(",\n  \"phases\": {");
+        for (Phase phase : Phase.values())
+            json.append(phase.ordinal() == 0 ? "" : ", ").append('"').append(phase.name).append("\": ")
+                    .append(String.format(Locale.ROOT, "%.3f", getTime(phase) / 1e6));
+        return json.append("}\n}\n").toString();
+    }
+
+    /**
+     * writes the statistics to a JSON file (see {@link #toJson()})
+     *
+     * @param file the file
+     * @throws IOException if the file can't be written
+     */
+    public void writeJson(Path file) throws IOException {
+        Files.writeString(file, toJson(), StandardCharsets.UTF_8);
+    }
+}
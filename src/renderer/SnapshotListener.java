@@ -0,0 +1,23 @@
+package renderer;
+
+/**
+ * A listener of the snapshots of a progressive rendering (see {@link Camera#setProgressive(int, java.time.Duration,
+ * SnapshotListener)}).<br/>
+ * The listener is called on the rendering thread between the passes, when the image writer holds the whole image
+ * as refined so far, so it may read or write the image (e.g. {@link ImageWriter#writeToImage()} for a preview file)
+ *
+ * @author Sarah Daatyah Furmanski and Efrat Kartman
+ */
+@FunctionalInterface
+public interface SnapshotListener {
+    /**
+     * receives a snapshot of the image
+     *
+     * @param pass        the number of the finished pass (from 1)
+     * @param passes      the amount of the passes of the rendering, 0 for a time-budgeted rendering
+     *                    (see {@link Camera#setTimeBudget(java.time.Duration)})
+     * @param imageWriter the image writer holding the image
+     * @return true to continue the rendering, false to stop it after this pass (the image is kept as it is)
+     */
+    boolean snapshot(int pass, int passes, ImageWriter imageWriter);
+}
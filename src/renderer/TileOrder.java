@@ -0,0 +1,23 @@
+package renderer;
+
+/**
+ * The order in which the tiles of the image are handed to the rendering threads.<br/>
+ * Space-filling curve orders keep the tiles that are rendered one after the other close to each other
+ * in the image, so neighbouring rays share the same geometries in the caches
+ *
+ * @author Sarah Daatyah Furmanski and Efrat Kartman
+ */
+public enum TileOrder {
+    /**
+     * row by row, from left to right
+     */
+    ROWS,
+    /**
+     * Morton (Z-order) curve - interleaving of the tile column and row bits
+     */
+    MORTON,
+    /**
+     * Hilbert curve - every tile is adjacent to the tile before it
+     */
+    HILBERT
+}
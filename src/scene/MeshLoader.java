@@ -0,0 +1,706 @@
+package scene;
+
+import geometries.Mesh;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Class responsible for loading triangle meshes from model files - Wavefront OBJ and PLY (binary or ascii).<br/>
+ * The files are streamed through a fixed NIO buffer and parsed straight into the flat buffers of a {@link Mesh} -
+ * no line strings and no point objects are created, so big models are loaded fast and in little memory.
+ * Polygonal faces are split into triangles (as a fan around their first vertex).
+ *
+ * @author Sarah Daatyah Furmanski and Efrat Kartman
+ */
+public class MeshLoader {
+    /**
+     * size of the buffer of the file reading
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+    /**
+     * maximal length of a token of a text file (a keyword, a number or the vertex of a face)
+     */
+    private static final int TOKEN_SIZE = 64;
+    /**
+     * the powers of 10 which are exact in double precision
+     */
+    private static final double[] POWERS_OF_10 = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private MeshLoader() {
+    }
+
+    /**
+     * Loads a mesh from a model file by the extension of its name (.obj or .ply)
+     *
+     * @param file the model file
+     * @return the mesh
+     * @throws IOException if the file can't be read, is of an unknown format or is malformed
+     */
+    public static Mesh load(Path file) throws IOException {
+        String name = file.getFileName().toString().toLowerCase();
+        if (name.endsWith(".obj")) return loadObj(file);
+        if (name.endsWith(".ply")) return loadPly(file);
+        throw new IOException("Unknown mesh file format: " + file);
+    }
+
+    //region OBJ
+
+    /**
+     * Loads a mesh from a Wavefront OBJ file - its vertices (v) and faces (f).<br/>
+     * The normals (vn) the faces refer to are set on their vertices, for smooth shading -
+     * a vertex gets the last normal it is given. The other statements (e.g. texture coordinates, groups
+     * and materials) are ignored.
+     *
+     * @param file the OBJ file
+     * @return the mesh
+     * @throws IOException if the file can't be read or is malformed
+     */
+    public static Mesh loadObj(Path file) throws IOException {
+        DoubleArray vertices = new DoubleArray();
+        DoubleArray normals = new DoubleArray();
+        IntArray indices = new IntArray();
+        //pairs of a vertex and the normal given to it by a face
+        IntArray vertexNormals = new IntArray();
+        byte[] token = new byte[TOKEN_SIZE];
+        int[] corner = new int[2];
+
+        try (Input input = new Input(file)) {
+            while (input.peek() != -1) {
+                int length = input.readToken(token);
+                if (length == 1 && token[0] == 'v') {
+                    for (int i = 0; i < 3; ++i)
+                        vertices.add(input.readDouble(token));
+                } else if (length == 2 && token[0] == 'v' && token[1] == 'n') {
+                    for (int i = 0; i < 3; ++i)
+                        normals.add(input.readDouble(token));
+                } else if (length == 1 && token[0] == 'f') {
+                    int first = -1, previous = -1;
+                    int count = 0;
+                    while ((length = input.readToken(token)) > 0) {
+                        parseCorner(input, token, length, vertices.size / 3, normals.size / 3, corner);
+                        if (corner[1] >= 0) vertexNormals.add(corner[0]).add(corner[1]);
+                        if (count == 0) first = corner[0];
+                        else if (count >= 2) indices.add(first).add(previous).add(corner[0]);
+                        previous = corner[0];
+                        ++count;
+                    }
+                    if (count < 3) throw input.error("a face must have at least 3 vertices");
+                }
+                input.skipLine();
+            }
+
+            double[] normalsBuffer = null;
+            if (vertexNormals.size > 0) {
+                normalsBuffer = new double[vertices.size];
+                for (int i = 0; i < vertexNormals.size; i += 2)
+                    System.arraycopy(normals.values, 3 * vertexNormals.values[i + 1],
+                            normalsBuffer, 3 * vertexNormals.values[i], 3);
+            }
+            return createMesh(input, vertices, indices, normalsBuffer);
+        }
+    }
+
+    /**
+     * parses a vertex of a face - "v", "v/vt", "v//vn" or "v/vt/vn", where each index is counted from 1,
+     * or back from the last one if it is negative
+     *
+     * @param input         the input (for the errors)
+     * @param token         the token of the vertex
+     * @param length        the length of the token
+     * @param verticesCount amount of the vertices read so far
+     * @param normalsCount  amount of the normals read so far
+     * @param corner        array for the result - the index of the vertex and the index of its normal
+     *                      (-1 if there is none), both counted from 0
+     * @throws IOException if the token is malformed or refers to a missing vertex or normal
+     */
+    private static void parseCorner(Input input, byte[] token, int length, int verticesCount, int normalsCount,
+                                    int[] corner) throws IOException {
+        if (length > TOKEN_SIZE) throw input.error("too long vertex of a face");
+        int field = 0;
+        int start = 0;
+        corner[1] = -1;
+        for (int i = 0; i <= length; ++i) {
+            if (i < length && token[i] != '/') continue;
+            if (field == 0)
+                corner[0] = parseIndex(input, token, start, i, verticesCount, "vertex");
+            else if (field == 2)
+                corner[1] = parseIndex(input, token, start, i, normalsCount, "normal");
+            else if (field > 2)
+                throw input.error("malformed vertex of a face");
+            ++field;
+            start = i + 1;
+        }
+    }
+
+    /**
+     * parses an index of an OBJ file
+     *
+     * @param input the input (for the errors)
+     * @param token the token of the index
+     * @param start the first character of the index in the token
+     * @param end   the character following the index in the token
+     * @param count amount of the items read so far
+     * @param item  name of the item for the errors
+     * @return the index of the item counted from 0
+     * @throws IOException if the index is malformed or refers to a missing item
+     */
+    private static int parseIndex(Input input, byte[] token, int start, int end, int count, String item)
+            throws IOException {
+        boolean negative = start < end && token[start] == '-';
+        int i = negative ? start + 1 : start;
+        if (i == end) throw input.error("missing " + item + " index");
+        long index = 0;
+        for (; i < end; ++i) {
+            if (token[i] < '0' || token[i] > '9' || index > Integer.MAX_VALUE)
+                throw input.error("malformed " + item + " index");
+            index = index * 10 + token[i] - '0';
+        }
+        index = negative ? count - index : index - 1;
+        if (index < 0 || index >= count)
+            throw input.error("missing " + item + " " + new String(token, start, end - start, StandardCharsets.US_ASCII));
+        return (int) index;
+    }
+    //endregion
+
+    //region PLY
+
+    /**
+     * type of a PLY property
+     */
+    private enum Type {
+        CHAR(1), UCHAR(1), SHORT(2), USHORT(2), INT(4), UINT(4), FLOAT(4), DOUBLE(8);
+
+        /**
+         * size of a binary value of the type in bytes
+         */
+        private final int size;
+
+        Type(int size) {
+            this.size = size;
+        }
+
+        /**
+         * @param name name of a type in the header (e.g. "float" or "float32")
+         * @return the type, null for an unknown name
+         */
+        private static Type of(String name) {
+            return switch (name) {
+                case "char", "int8" -> CHAR;
+                case "uchar", "uint8" -> UCHAR;
+                case "short", "int16" -> SHORT;
+                case "ushort", "uint16" -> USHORT;
+                case "int", "int32" -> INT;
+                case "uint", "uint32" -> UINT;
+                case "float", "float32" -> FLOAT;
+                case "double", "float64" -> DOUBLE;
+                default -> null;
+            };
+        }
+    }
+
+    /**
+     * property of a PLY element
+     *
+     * @param name      the name of the property
+     * @param type      the type of the values
+     * @param countType the type of the size of a list property, null for a single value
+     */
+    private record Property(String name, Type type, Type countType) {
+    }
+
+    /**
+     * element of a PLY file - a list of items with the same properties (e.g. the vertices or the faces)
+     *
+     * @param name       the name of the element
+     * @param count      amount of the items
+     * @param properties the properties of each item
+     */
+    private record Element(String name, long count, List<Property> properties) {
+        /**
+         * @param property name of a property
+         * @return the position of the property in the item, -1 if there is no such property
+         */
+        private int indexOf(String property) {
+            for (int i = 0; i < properties.size(); ++i)
+                if (properties.get(i).name.equals(property)) return i;
+            return -1;
+        }
+    }
+
+    /**
+     * Loads a mesh from a PLY file - the "vertex" element (its coordinates x, y, z and its normal nx, ny, nz
+     * if it has one) and the "face" element (its list "vertex_indices"). Other elements and properties are skipped.
+     *
+     * @param file the PLY file, binary (in any byte order) or ascii
+     * @return the mesh
+     * @throws IOException if the file can't be read or is malformed
+     */
+    public static Mesh loadPly(Path file) throws IOException {
+        try (Input input = new Input(file)) {
+            if (!"ply".equals(input.readLine())) throw input.error("not a PLY file");
+            boolean ascii = false;
+            List<Element> elements = new ArrayList<>();
+            String line;
+            while (!"end_header".equals(line = input.readLine())) {
+                if (line == null) throw input.error("unexpected end of the header");
+                String[] words = line.trim().split("\\s+");
+                switch (words[0]) {
+                    case "format" -> {
+                        switch (words.length > 1 ? words[1] : "") {
+                            case "ascii" -> ascii = true;
+                            case "binary_little_endian" -> input.order(ByteOrder.LITTLE_ENDIAN);
+                            case "binary_big_endian" -> input.order(ByteOrder.BIG_ENDIAN);
+                            default -> throw input.error("unknown format " + line);
+                        }
+                    }
+                    case "element" -> {
+                        if (words.length != 3) throw input.error("malformed element " + line);
+                        elements.add(new Element(words[1], parseCount(input, words[2]), new ArrayList<>()));
+                    }
+                    case "property" -> {
+                        if (elements.isEmpty()) throw input.error("property out of an element");
+                        elements.get(elements.size() - 1).properties.add(parseProperty(input, words));
+                    }
+                    //comments and other information
+                    default -> {
+                    }
+                }
+            }
+            input.setMultiline(true);
+
+            Element vertexElement = null;
+            Element faceElement = null;
+            for (Element element : elements)
+                if (element.name.equals("vertex")) vertexElement = element;
+                else if (element.name.equals("face")) faceElement = element;
+            if (vertexElement == null || vertexElement.count > Integer.MAX_VALUE / 3)
+                throw input.error("missing or too big vertex element");
+            int[] coordinates = {vertexElement.indexOf("x"), vertexElement.indexOf("y"), vertexElement.indexOf("z")};
+            int[] normalCoordinates = {vertexElement.indexOf("nx"), vertexElement.indexOf("ny"),
+                    vertexElement.indexOf("nz")};
+            if (coordinates[0] < 0 || coordinates[1] < 0 || coordinates[2] < 0)
+                throw input.error("missing vertex coordinates");
+            boolean hasNormals = normalCoordinates[0] >= 0 && normalCoordinates[1] >= 0 && normalCoordinates[2] >= 0;
+            int verticesCount = (int) vertexElement.count;
+            int indicesProperty = faceElement == null ? -1 : faceElement.indexOf("vertex_indices");
+            if (indicesProperty < 0 && faceElement != null) indicesProperty = faceElement.indexOf("vertex_index");
+            if (indicesProperty < 0 || faceElement.properties.get(indicesProperty).countType == null)
+                throw input.error("missing faces list of vertex indices");
+
+            DoubleArray vertices = new DoubleArray();
+            DoubleArray normals = new DoubleArray();
+            IntArray indices = new IntArray();
+            byte[] token = new byte[TOKEN_SIZE];
+            double[] values = new double[vertexElement.properties.size()];
+            for (Element element : elements) {
+                List<Property> properties = element.properties;
+                for (long item = 0; item < element.count; ++item) {
+                    for (int p = 0; p < properties.size(); ++p) {
+                        Property property = properties.get(p);
+                        if (property.countType == null) {
+                            double value = input.readValue(property.type, ascii, token);
+                            if (element == vertexElement) values[p] = value;
+                        } else if (element == faceElement && p == indicesProperty)
+                            readFace(input, property, ascii, token, verticesCount, indices);
+                        else
+                            skipList(input, property, ascii, token);
+                    }
+                    if (element == vertexElement) {
+                        for (int axis = 0; axis < 3; ++axis)
+                            vertices.add(values[coordinates[axis]]);
+                        if (hasNormals)
+                            for (int axis = 0; axis < 3; ++axis)
+                                normals.add(values[normalCoordinates[axis]]);
+                    }
+                }
+            }
+            return createMesh(input, vertices, indices, hasNormals ? normals.toArray() : null);
+        }
+    }
+
+    /**
+     * parses the amount of the items of a PLY element
+     *
+     * @param input the input (for the errors)
+     * @param count the amount in the header
+     * @return the amount
+     * @throws IOException if the amount is malformed
+     */
+    private static long parseCount(Input input, String count) throws IOException {
+        try {
+            long value = Long.parseLong(count);
+            if (value < 0) throw input.error("negative element count " + count);
+            return value;
+        } catch (NumberFormatException e) {
+            throw input.error("malformed element count " + count);
+        }
+    }
+
+    /**
+     * parses a PLY property - "property type name" or "property list count-type type name"
+     *
+     * @param input the input (for the errors)
+     * @param words the words of the property line
+     * @return the property
+     * @throws IOException if the property is malformed
+     */
+    private static Property parseProperty(Input input, String[] words) throws IOException {
+        boolean list = words.length == 5 && words[1].equals("list");
+        if (words.length != 3 && !list) throw input.error("malformed property " + String.join(" ", words));
+        Type type = Type.of(words[list ? 3 : 1]);
+        Type countType = list ? Type.of(words[2]) : null;
+        if (type == null || list && countType == null)
+            throw input.error("unknown type of property " + String.join(" ", words));
+        return new Property(words[words.length - 1], type, countType);
+    }
+
+    /**
+     * reads the vertex indices of a face and splits the face into triangles
+     *
+     * @param input         the input
+     * @param property      the list property of the vertex indices
+     * @param ascii         whether the file is an ascii file
+     * @param token         buffer for a token of an ascii file
+     * @param verticesCount amount of the vertices of the file
+     * @param indices       the indices buffer to add the triangles to
+     * @throws IOException if the input fails, or the face is malformed or refers to a missing vertex
+     */
+    private static void readFace(Input input, Property property, boolean ascii, byte[] token, int verticesCount,
+                                 IntArray indices) throws IOException {
+        long count = (long) input.readValue(property.countType, ascii, token);
+        if (count < 3) throw input.error("a face must have at least 3 vertices");
+        int first = -1, previous = -1;
+        for (long i = 0; i < count; ++i) {
+            double value = input.readValue(property.type, ascii, token);
+            if (value < 0 || value >= verticesCount || value != Math.rint(value))
+                throw input.error("a face refers to a missing vertex " + value);
+            int vertex = (int) value;
+            if (i == 0) first = vertex;
+            else if (i >= 2) indices.add(first).add(previous).add(vertex);
+            previous = vertex;
+        }
+    }
+
+    /**
+     * skips the values of a list property
+     *
+     * @param input    the input
+     * @param property the list property
+     * @param ascii    whether the file is an ascii file
+     * @param token    buffer for a token of an ascii file
+     * @throws IOException if the input fails or the list is malformed
+     */
+    private static void skipList(Input input, Property property, boolean ascii, byte[] token) throws IOException {
+        long count = (long) input.readValue(property.countType, ascii, token);
+        if (count < 0) throw input.error("negative list size");
+        for (long i = 0; i < count; ++i)
+            input.readValue(property.type, ascii, token);
+    }
+    //endregion
+
+    /**
+     * creates the mesh of the buffers read from a file
+     *
+     * @param input    the input (for the errors)
+     * @param vertices coordinates of the vertices
+     * @param indices  indices of the vertices of the faces
+     * @param normals  normals of the vertices, null if there are none
+     * @return the mesh
+     * @throws IOException if there are no faces
+     */
+    private static Mesh createMesh(Input input, DoubleArray vertices, IntArray indices, double[] normals)
+            throws IOException {
+        if (indices.size == 0) throw input.error("no faces");
+        return new Mesh(vertices.toArray(), indices.toArray()).setVertexNormals(normals);
+    }
+
+    /**
+     * parses a number token of a text file - decimal numbers of up to 18 digits with up to 22 digits of
+     * exponent are calculated directly (by a single exact rounding, as {@link Double#parseDouble(String)}),
+     * other numbers are left to {@link Double#parseDouble(String)}
+     *
+     * @param input  the input (for the errors)
+     * @param token  the token
+     * @param length the length of the token
+     * @return the number
+     * @throws IOException if the token is not a number
+     */
+    private static double parseDouble(Input input, byte[] token, int length) throws IOException {
+        if (length == 0) throw input.error("missing number");
+        if (length > TOKEN_SIZE) throw input.error("too long number");
+        int i = 0;
+        boolean negative = token[0] == '-';
+        if (negative || token[0] == '+') ++i;
+        long mantissa = 0;
+        int digits = 0, exponent = 0;
+        //whether the digits beyond the precision of the mantissa are all zeros
+        boolean exact = true;
+        boolean hasDigits = false;
+        for (; i < length && token[i] >= '0' && token[i] <= '9'; ++i, hasDigits = true)
+            if (digits < 18) {
+                mantissa = mantissa * 10 + token[i] - '0';
+                if (mantissa != 0) ++digits;
+            } else {
+                ++exponent;
+                exact &= token[i] == '0';
+            }
+        if (i < length && token[i] == '.')
+            for (++i; i < length && token[i] >= '0' && token[i] <= '9'; ++i, hasDigits = true)
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + token[i] - '0';
+                    if (mantissa != 0) ++digits;
+                    --exponent;
+                } else
+                    exact &= token[i] == '0';
+        if (hasDigits && i < length && (token[i] == 'e' || token[i] == 'E')) {
+            boolean negativeExponent = ++i < length && token[i] == '-';
+            if (i < length && (token[i] == '-' || token[i] == '+')) ++i;
+            hasDigits = i < length;
+            int value = 0;
+            for (; i < length && token[i] >= '0' && token[i] <= '9'; ++i)
+                value = Math.min(value * 10 + token[i] - '0', 10000);
+            exponent += negativeExponent ? -value : value;
+        }
+
+        if (hasDigits && exact && i == length && mantissa < 1L << 53 && exponent >= -22 && exponent <= 22) {
+            double value = exponent < 0 ? mantissa / POWERS_OF_10[-exponent] : mantissa * POWERS_OF_10[exponent];
+            return negative ? -value : value;
+        }
+        try {
+            return Double.parseDouble(new String(token, 0, length, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            throw input.error("malformed number " + new String(token, 0, length, StandardCharsets.US_ASCII));
+        }
+    }
+
+    //region input
+
+    /**
+     * Streaming input of a file through a fixed buffer, for both text and binary files
+     */
+    private static class Input implements AutoCloseable {
+        /**
+         * the file (for the errors)
+         */
+        private final Path file;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        /**
+         * the number of the current line of a text file (for the errors)
+         */
+        private long line = 1;
+        /**
+         * whether a line end separates tokens like a space (otherwise it ends the tokens of a line)
+         */
+        private boolean multiline = false;
+
+        /**
+         * constructor - opens the file
+         *
+         * @param file the file
+         * @throws IOException if the file can't be opened
+         */
+        private Input(Path file) throws IOException {
+            this.file = file;
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            buffer.limit(0);
+        }
+
+        /**
+         * @param order the byte order of the binary values
+         */
+        private void order(ByteOrder order) {
+            buffer.order(order);
+        }
+
+        /**
+         * @param multiline whether a line end separates tokens like a space
+         */
+        private void setMultiline(boolean multiline) {
+            this.multiline = multiline;
+        }
+
+        /**
+         * makes the next bytes of the file available in the buffer
+         *
+         * @param count amount of the bytes
+         * @return false if the file ends before them
+         * @throws IOException if the reading fails
+         */
+        private boolean fill(int count) throws IOException {
+            if (buffer.remaining() >= count) return true;
+            buffer.compact();
+            while (buffer.position() < count && channel.read(buffer) >= 0) ;
+            buffer.flip();
+            return buffer.remaining() >= count;
+        }
+
+        /**
+         * @return the next byte (without consuming it), -1 at the end of the file
+         * @throws IOException if the reading fails
+         */
+        private int peek() throws IOException {
+            return fill(1) ? buffer.get(buffer.position()) & 0xFF : -1;
+        }
+
+        /**
+         * @return the next byte, -1 at the end of the file
+         * @throws IOException if the reading fails
+         */
+        private int read() throws IOException {
+            if (!fill(1)) return -1;
+            int c = buffer.get() & 0xFF;
+            if (c == '\n') ++line;
+            return c;
+        }
+
+        /**
+         * skips the rest of the current line, including its end
+         *
+         * @throws IOException if the reading fails
+         */
+        private void skipLine() throws IOException {
+            int c;
+            do c = read(); while (c != '\n' && c != -1);
+        }
+
+        /**
+         * reads a line of a text file
+         *
+         * @return the line without its end, null at the end of the file
+         * @throws IOException if the reading fails
+         */
+        private String readLine() throws IOException {
+            if (peek() == -1) return null;
+            StringBuilder builder = new StringBuilder();
+            for (int c = read(); c != '\n' && c != -1; c = read())
+                if (c != '\r') builder.append((char) c);
+            return builder.toString();
+        }
+
+        /**
+         * reads the next token of a text file - the characters up to a space or a line end
+         * (the line end itself is not consumed). A comment - from # to the line end - is skipped.
+         *
+         * @param token array for the characters of the token - a longer token is cut
+         * @return the length of the token, 0 at the end of the line (or of the file)
+         * @throws IOException if the reading fails
+         */
+        private int readToken(byte[] token) throws IOException {
+            int c = peek();
+            while (c == ' ' || c == '\t' || c == '\r' || c == '#' || multiline && c == '\n') {
+                if (c == '#')
+                    while (c != '\n' && c != -1) {
+                        read();
+                        c = peek();
+                    }
+                else {
+                    read();
+                    c = peek();
+                }
+            }
+            int length = 0;
+            while (c != -1 && c != ' ' && c != '\t' && c != '\r' && c != '\n') {
+                if (length < token.length) token[length] = (byte) c;
+                ++length;
+                read();
+                c = peek();
+            }
+            return length;
+        }
+
+        /**
+         * reads a number token of a text file
+         *
+         * @param token buffer for the token
+         * @return the number
+         * @throws IOException if the reading fails, or the token is missing or is not a number
+         */
+        private double readDouble(byte[] token) throws IOException {
+            return parseDouble(this, token, readToken(token));
+        }
+
+        /**
+         * reads a value of a PLY file
+         *
+         * @param type  the type of the value
+         * @param ascii whether the file is an ascii file
+         * @param token buffer for a token of an ascii file
+         * @return the value
+         * @throws IOException if the reading fails or the value is missing
+         */
+        private double readValue(Type type, boolean ascii, byte[] token) throws IOException {
+            if (ascii) return readDouble(token);
+            if (!fill(type.size)) throw error("unexpected end of file");
+            return switch (type) {
+                case CHAR -> buffer.get();
+                case UCHAR -> buffer.get() & 0xFF;
+                case SHORT -> buffer.getShort();
+                case USHORT -> buffer.getShort() & 0xFFFF;
+                case INT -> buffer.getInt();
+                case UINT -> buffer.getInt() & 0xFFFFFFFFL;
+                case FLOAT -> buffer.getFloat();
+                case DOUBLE -> buffer.getDouble();
+            };
+        }
+
+        /**
+         * @param message description of the error
+         * @return an exception of a malformed file, with the position of the error
+         */
+        private IOException error(String message) {
+            return new IOException(file + ":" + line + ": " + message);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * growing buffer of doubles
+     */
+    private static class DoubleArray {
+        private double[] values = new double[1024];
+        private int size = 0;
+
+        private void add(double value) {
+            if (size == values.length) values = Arrays.copyOf(values, 2 * size);
+            values[size++] = value;
+        }
+
+        private double[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * growing buffer of integers
+     */
+    private static class IntArray {
+        private int[] values = new int[1024];
+        private int size = 0;
+
+        private IntArray add(int value) {
+            if (size == values.length) values = Arrays.copyOf(values, 2 * size);
+            values[size++] = value;
+            return this;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+    //endregion
+}
@@ -1,16 +1,18 @@
 package scene;
 
 import geometries.Geometries;
-import geometries.Polygon;
+import geometries.Intersectable;
 import lighting.AmbientLight;
 import lighting.LightSource;
+import primitives.AABB;
 import primitives.Color;
-import primitives.Double3;
-import primitives.Point;
 
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.logging.Logger;
+
+import static primitives.Util.isZero;
 
 /**
  * Class for creating a scene
@@ -24,35 +26,61 @@ public class Scene {
     public Color background = Color.BLACK;
     public List<LightSource> lights = new LinkedList<>();
 
-    public Polygon[] faces;
-
     //scene geometric attributes
+    /**
+     * the boundary of the voxels grid - the bounding box of the scene geometries
+     */
+    private AABB gridBoundary;
     /**
      * the size of the edge of the scene boundary on the X axis
      */
-    private int xEdgeScene;
+    private double xEdgeScene;
     /**
      * the size of the edge of the scene boundary on the Y axis
      */
-    private int yEdgeScene;
+    private double yEdgeScene;
     /**
      * the size of the edge of the scene boundary on the Z axis
      */
-    private int zEdgeScene;
+    private double zEdgeScene;
+    /**
+     * the resolution of the voxels that divide the scene on all the axes,
+     * 0 - the resolution of each axis is chosen automatically (see {@link #setResolutions(int)})
+     */
+    public double resolution = 0;
+    /**
+     * the resolution of each axis given by the tests (null if not given)
+     */
+    private int[] axisResolutions;
+    /**
+     * array of resolution to each axis - the amount of the voxels on the axis
+     */
+    public int[] resolutions;
+    /**
+     * the factor of the cube root rule for the automatic resolution -
+     * the amount of the voxels on the longest axis is GRID_DENSITY * cbrt(amount of geometries)
+     */
+    private static final double GRID_DENSITY = 3;
+    /**
+     * the maximal automatic resolution of an axis
+     */
+    private static final int MAX_RESOLUTION = 64;
     /**
-     * the resolution of the voxels that divide the scene
+     * the default amount of geometric entities of a voxel above which the voxel gets a nested grid
      */
-    public double resolution = 10;
+    private static final int SUBGRID_THRESHOLD = 32;
     /**
-     * array of resolution to each axis
+     * the amount of geometric entities of a voxel above which the voxel gets a nested grid,
+     * 0 - no nested grids (see {@link #setSubgridThreshold(int)})
      */
-    public double[] resolutions;
+    private int subgridThreshold = SUBGRID_THRESHOLD;
+    private static final Logger LOGGER = Logger.getLogger(Scene.class.getName());
 
     //voxel attributes
     /**
-     * hash map of all voxels in the scene - index as the key & list of geometric entities that intersects with the voxel as the value.
+     * the voxels grid of the scene - the geometric entities that intersect with each voxel
      */
-    public HashMap<Double3, Geometries> voxels = new HashMap<Double3, Geometries>();
+    public VoxelGrid voxels;
     /**
      * the size of the edge of the voxel on the X axis
      */
@@ -65,6 +93,21 @@ public class Scene {
      * the size of the edge of the voxel on the Z axis
      */
     private double zEdgeVoxel;
+    /**
+     * whether the voxels grid was compiled with the scene by {@link SceneCache} - such a grid is kept by
+     * {@link #calcVoxels()} as long as it holds the geometries of the scene
+     */
+    private boolean compiled = false;
+    /**
+     * the infinite geometries of the scene (e.g. planes) - they have no boundary, so they are kept out of the voxels
+     * grid and are tested by each ray separately
+     */
+    private Intersectable[] unbounded = new Intersectable[0];
+    /**
+     * the time of building the scene from its file (see {@link SceneBuilder}, {@link SceneCache}) and the time of
+     * building its voxels grid (nanoseconds)
+     */
+    private long buildTime, voxelsTime;
 
     /**
      * Constructor
@@ -75,6 +118,25 @@ public class Scene {
         this.geometries = new Geometries();
     }
     //region getters - voxels
+    /**
+     * gridBoundary getter
+     *
+     * @return the boundary of the voxels grid, null before the voxels are calculated
+     */
+    public AABB getGridBoundary() {
+        return gridBoundary;
+    }
+
+    /**
+     * unbounded getter - the infinite geometries of the scene, which are not in the voxels grid
+     * (the array must not be modified)
+     *
+     * @return the infinite geometries, found when the voxels are calculated
+     */
+    public Intersectable[] getUnbounded() {
+        return unbounded;
+    }
+
     /**
      * xEdgeVoxel getter
      *
@@ -123,91 +185,246 @@ public class Scene {
     }
 
     /**
-     * sets the resolution of the voxel grid from the tests
+     * sets the resolution of the voxel grid from the tests - the same resolution on all the axes
      *
-     * @param resolution teh resolution of the grid
+     * @param resolution the resolution of the grid, 0 for choosing it automatically
      * @return the object itself
      */
     public Scene setResolution(int resolution) {
+        if (resolution < 0)
+            throw new IllegalArgumentException("resolution must not be negative");
         this.resolution = resolution;
+        axisResolutions = null;
+        compiled = false;
+        return this;
+    }
+
+    /**
+     * sets the resolution of each axis of the voxel grid from the tests
+     *
+     * @param nX the amount of voxels on the X axis
+     * @param nY the amount of voxels on the Y axis
+     * @param nZ the amount of voxels on the Z axis
+     * @return the object itself
+     */
+    public Scene setResolution(int nX, int nY, int nZ) {
+        if (nX <= 0 || nY <= 0 || nZ <= 0)
+            throw new IllegalArgumentException("resolution of each axis must be positive");
+        axisResolutions = new int[]{nX, nY, nZ};
+        compiled = false;
+        return this;
+    }
+
+    /**
+     * sets the amount of geometric entities of a voxel above which the voxel gets a nested grid of its own -
+     * a two-level grid, so the voxels of dense regions (e.g. a detailed model in a large room) hold a bounded amount
+     * of entities without raising the resolution of the whole grid
+     *
+     * @param threshold the amount of the entities, 0 for no nested grids
+     * @return the object itself
+     */
+    public Scene setSubgridThreshold(int threshold) {
+        if (threshold < 0)
+            throw new IllegalArgumentException("subgrid threshold must not be negative");
+        subgridThreshold = threshold;
+        compiled = false;
         return this;
     }
 
     /**
-     * calculates what voxels the scene has and the attributes of the voxels
+     * the resolution of each axis given by the tests
+     *
+     * @return the resolutions, null if not given
+     */
+    int[] getAxisResolutions() {
+        return axisResolutions;
+    }
+
+    /**
+     * calculates what voxels the scene has and the attributes of the voxels.<br/>
+     * A grid compiled with the scene (see {@link SceneCache}) is kept as long as it holds the geometries of the scene
      */
     public void calcVoxels() {
-        this.setBoundary(); //V
+        List<Intersectable> bounded = splitUnbounded();
+        if (compiled && voxels != null && voxels.holds(bounded))
+            return;
+        long start = System.nanoTime();
+        if (bounded.isEmpty()) {
+            //only infinite geometries (or none) - there is nothing to bound by a grid
+            gridBoundary = null;
+            voxels = null;
+            voxelsTime = System.nanoTime() - start;
+            LOGGER.info(() -> String.format("Scene \"%s\" has no voxels grid for %d infinite geometries",
+                    name, unbounded.length));
+            return;
+        }
+        this.setBoundary(bounded); //V
         this.setSceneEdges(); //V
-        this.setResolution(); //V
+        this.setResolutions(bounded.size()); //V
         this.setVoxelsEdges(); //V
-        this.setVoxelsGeometries(); //@TODO: FIX
-        this.setFaces(); //V
+        this.setVoxelsGeometries(); //V
+        int subdivided = subgridThreshold == 0 ? 0 : voxels.subdivide(gridBoundary, subgridThreshold);
+        voxelsTime = System.nanoTime() - start;
+        LOGGER.info(() -> String.format("Scene \"%s\" voxels grid %dx%dx%d for %d geometries: " +
+                        "%d of %d voxels occupied, %.2f geometries per occupied voxel (maximum %d), " +
+                        "%d voxels with nested grids, %d infinite geometries outside the grid, built in %.1f ms",
+                name, voxels.getNx(), voxels.getNy(), voxels.getNz(), voxels.getItemsCount(),
+                voxels.getOccupiedCells(), voxels.getNx() * voxels.getNy() * voxels.getNz(),
+                voxels.getAverageOccupancy(), voxels.getMaxOccupancy(), subdivided, unbounded.length,
+                voxelsTime / 1e6));
     }
 
     /**
-     * sets the boundary of the geometries in the scene
+     * @return the time of building the scene from its file (nanoseconds), 0 if it was not built from a file
      */
-    private void setBoundary() {
-        this.geometries.boundary = this.geometries.calcBoundary();
+    public long getBuildTime() {
+        return buildTime;
     }
 
     /**
-     * sets the edges of the scene
+     * @param buildTime the time of building the scene from its file (nanoseconds)
      */
-    private void setSceneEdges() {
-        this.xEdgeScene = this.geometries.boundary[0][1] - this.geometries.boundary[0][0];
-        this.yEdgeScene = this.geometries.boundary[1][1] - this.geometries.boundary[1][0];
-        this.zEdgeScene = this.geometries.boundary[2][1] - this.geometries.boundary[2][0];
+    void setBuildTime(long buildTime) {
+        this.buildTime = buildTime;
     }
 
     /**
-     * sets the resolution of the scene to divide to voxels
+     * @return the time of the last building of the voxels grid (nanoseconds), 0 if it was not built
+     * (a grid compiled with the scene is loaded with it)
      */
-    private void setResolution() {
-        resolutions = new double[]{resolution, resolution, resolution};
+    public long getVoxelsTime() {
+        return voxelsTime;
     }
 
     /**
-     * sets the attributes of the voxels
+     * builds the voxels grid of the scene to be compiled with it - the grid is kept by {@link #calcVoxels()}
      */
-    private void setVoxelsEdges() {
-        this.xEdgeVoxel = ((double) this.xEdgeScene) / resolution;
-        this.yEdgeVoxel = ((double) this.yEdgeScene) / resolution;
-        this.zEdgeVoxel = ((double) this.zEdgeScene) / resolution;
+    void compileVoxels() {
+        calcVoxels();
+        compiled = true;
     }
 
     /**
-     * attaches the voxels to each geometric entity in the scene
+     * sets a voxels grid that was compiled with the scene - the grid is kept by {@link #calcVoxels()}
+     *
+     * @param gridBoundary the boundary of the grid
+     * @param resolutions  the amount of the voxels on each axis
+     * @param voxels       the grid
      */
-    private void setVoxelsGeometries() {
-        this.voxels = this.geometries.attachVoxel(this);
+    void setVoxels(AABB gridBoundary, int[] resolutions, VoxelGrid voxels) {
+        this.gridBoundary = gridBoundary;
+        this.xEdgeScene = gridBoundary.getSize(0);
+        this.yEdgeScene = gridBoundary.getSize(1);
+        this.zEdgeScene = gridBoundary.getSize(2);
+        this.resolutions = resolutions;
+        this.setVoxelsEdges();
+        this.voxels = voxels;
+        splitUnbounded();
+        //the nested grids are not compiled with the scene, they are built from the compiled grid
+        if (subgridThreshold > 0)
+            voxels.subdivide(gridBoundary, subgridThreshold);
+        compiled = true;
+    }
+
+    /**
+     * splits the geometries of the scene - the infinite geometries are kept out of the voxels grid
+     *
+     * @return the geometries with a boundary (the geometries of the grid), in the order of the scene
+     */
+    private List<Intersectable> splitUnbounded() {
+        List<Intersectable> bounded = new ArrayList<>();
+        List<Intersectable> unboundedList = new LinkedList<>();
+        for (Intersectable geometry : geometries.getGeometries())
+            if (geometry.getBoundary() == null)
+                unboundedList.add(geometry);
+            else
+                bounded.add(geometry);
+        unbounded = unboundedList.toArray(new Intersectable[0]);
+        return bounded;
+    }
+
+    /**
+     * sets the boundary of the geometries of the grid
+     *
+     * @param bounded the geometries with a boundary
+     */
+    private void setBoundary(List<Intersectable> bounded) {
+        AABB boundary = null;
+        for (Intersectable geometry : bounded)
+            boundary = boundary == null ? geometry.getBoundary() : boundary.union(geometry.getBoundary());
+        this.gridBoundary = boundary;
     }
 
     /**
-     * sets the regular grid faces field
+     * sets the edges of the scene
+     */
+    private void setSceneEdges() {
+        //a flat scene is widened to one unit on its flat axis, so the voxels would have a volume
+        double[] min = new double[3];
+        double[] max = new double[3];
+        for (int axis = 0; axis < 3; ++axis) {
+            min[axis] = gridBoundary.getMin(axis);
+            max[axis] = gridBoundary.getMax(axis);
+            if (isZero(max[axis] - min[axis])) {
+                min[axis] -= 0.5;
+                max[axis] += 0.5;
+            }
+        }
+        this.gridBoundary = new AABB(min[0], min[1], min[2], max[0], max[1], max[2]);
+        this.xEdgeScene = gridBoundary.getSize(0);
+        this.yEdgeScene = gridBoundary.getSize(1);
+        this.zEdgeScene = gridBoundary.getSize(2);
+    }
+
+    /**
+     * sets the resolution of each axis of the scene to divide to voxels.<br/>
+     * Unless the resolution is given, it is chosen by the cube root rule:
+     * the longest axis gets GRID_DENSITY * cbrt(amount of geometries) voxels, and the other axes get voxels
+     * of about the same edge size, so flat or elongated scenes get voxels close to cubes
+     *
+     * @param count amount of the geometries of the grid
+     */
+    private void setResolutions(int count) {
+        if (axisResolutions != null) {
+            resolutions = axisResolutions.clone();
+            return;
+        }
+        if (resolution > 0) {
+            resolutions = new int[]{(int) resolution, (int) resolution, (int) resolution};
+            return;
+        }
+        resolutions = cubeRootResolutions(new double[]{xEdgeScene, yEdgeScene, zEdgeScene}, count);
+    }
+
+    /**
+     * the resolution of each axis of a grid by the cube root rule (see {@link #setResolutions(int)})
+     *
+     * @param edges the size of the grid on each axis
+     * @param count amount of the geometric entities in the grid
+     * @return the amount of the voxels on each axis
      */
-    private void setFaces(){
-        //points of the scene regular grid
-        int[][] gridBoundary = geometries.getBoundary();
-        primitives.Point p1 = new primitives.Point(gridBoundary[0][0],gridBoundary[1][0], gridBoundary[2][0]);//(0,0,0)
-        primitives.Point p2 = new primitives.Point(gridBoundary[0][1], gridBoundary[1][0], gridBoundary[2][0]);//(1,0,0)
-        primitives.Point p3 = new primitives.Point(gridBoundary[0][0], gridBoundary[1][1], gridBoundary[2][0]);//(0,1,0)
-        primitives.Point p4 = new primitives.Point(gridBoundary[0][0], gridBoundary[1][0], gridBoundary[2][1]);//(0,0,1)
-        primitives.Point p5 = new primitives.Point(gridBoundary[0][1], gridBoundary[1][1], gridBoundary[2][0]);//(1,1,0)
-        primitives.Point p6 = new primitives.Point(gridBoundary[0][1], gridBoundary[1][0], gridBoundary[2][1]);//(1,0,1)
-        primitives.Point p7 = new primitives.Point(gridBoundary[0][0], gridBoundary[1][1], gridBoundary[2][1]);//(0,1,1)
-        primitives.Point p8 = new Point(gridBoundary[0][1], gridBoundary[1][1], gridBoundary[2][1]);//(1,1,1)
+    static int[] cubeRootResolutions(double[] edges, int count) {
+        double maxEdge = Math.max(edges[0], Math.max(edges[1], edges[2]));
+        double voxelsPerUnit = GRID_DENSITY * Math.cbrt(count) / maxEdge;
+        int[] resolutions = new int[3];
+        for (int i = 0; i < 3; ++i)
+            resolutions[i] = Math.max(1, Math.min(MAX_RESOLUTION, (int) Math.round(edges[i] * voxelsPerUnit)));
+        return resolutions;
+    }
 
-        //faces of the regular grid
-        geometries.Polygon bottom = new geometries.Polygon(p1, p2, p5, p3);//bottom
-        geometries.Polygon front = new geometries.Polygon(p1, p2, p6, p4);//front
-        geometries.Polygon left = new geometries.Polygon(p1, p3, p7, p4);//left
-        geometries.Polygon up = new geometries.Polygon(p4, p6, p8, p7);//up
-        geometries.Polygon behind = new geometries.Polygon(p3, p5, p8, p7);//behind
-        geometries.Polygon right = new geometries.Polygon(p2, p5, p8, p6);//right
+    /**
+     * sets the attributes of the voxels
+     */
+    private void setVoxelsEdges() {
+        this.xEdgeVoxel = this.xEdgeScene / resolutions[0];
+        this.yEdgeVoxel = this.yEdgeScene / resolutions[1];
+        this.zEdgeVoxel = this.zEdgeScene / resolutions[2];
+    }
 
-        //Memory wise, we won't use the ray function of findClosestPoint, since we will be in need to create a list of points
-        this.faces = new Polygon[]{bottom, front, left, up, behind, right};
+    /**
+     * attaches the voxels to each geometric entity in the scene (except the infinite ones)
+     */
+    private void setVoxelsGeometries() {
+        this.voxels = this.geometries.attachVoxel(this);
     }
 }
@@ -2,250 +2,571 @@ package scene;
 
 import geometries.*;
 import lighting.*;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.xml.sax.SAXException;
 import primitives.*;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import java.io.File;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
 
 /**
- * Class responsible for parsing the XML file and creating the scene
+ * Class responsible for parsing the XML file and creating the scene.<br/>
+ * The file is streamed (StAX) - each geometry and light source is created when its element is read,
+ * so the document is never held in memory. Errors are reported with their position in the file.
  * @author Sarah Daatyah Furmanski and Efrat Kartman
  */
 public class SceneBuilder {
+    /**
+     * amount of the geometry elements that are created together in parallel parsing
+     */
+    private static final int BATCH_SIZE = 256;
 
     /**
      * Method parses XML file
      * @param scene the scene to add the objects to
      * @param fileName file that contains XML
-     * @throws ParserConfigurationException exception
-     * @throws IOException exception
-     * @throws SAXException exception
+     * @throws IOException if the file (or a model file of a mesh) can't be read, or is malformed
      */
-    public static void sceneParser(Scene scene, String fileName) throws ParserConfigurationException, IOException, SAXException {
-        //build the parser
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder builder = factory.newDocumentBuilder();
-
-        Document document = builder.parse(new File(fileName));
-        document.getDocumentElement().normalize();
-
-        //-------------start at root of scene---------------
-        var root = document.getDocumentElement();
-        //1:
-        scene.setBackground(parseColor(root.getAttribute("background-color"))); // scene - background
-        //2:
-        var ambient = (Element) root.getChildNodes().item(1); // scene - ambient light
-        scene.setAmbientLight(new AmbientLight(parseColor(ambient.getAttribute("color")), parseDouble3(ambient.getAttribute("ka"))));
-        //3:
-        scene.geometries = getGeometries(root);
-        scene.lights = getLights(root);
+    public static void sceneParser(Scene scene, String fileName) throws IOException {
+        sceneParser(scene, fileName, false, new LinkedList<>());
     }
 
-    //region geometry parsing
+    /**
+     * Method parses XML file, optionally creating the geometries in parallel - the geometry elements are read
+     * in batches, and the geometries of a batch (e.g. meshes loaded from their model files) are created in parallel
+     * @param scene the scene to add the objects to
+     * @param fileName file that contains XML
+     * @param parallel whether to create the geometries in parallel
+     * @throws IOException if the file (or a model file of a mesh) can't be read, or is malformed
+     */
+    public static void sceneParser(Scene scene, String fileName, boolean parallel) throws IOException {
+        sceneParser(scene, fileName, parallel, new LinkedList<>());
+    }
 
     /**
-     * Gets all geometries from xml file - converter
-     * @param root root of file
-     * @return returns all geometries in scene
+     * Method parses XML file, and collects the model files the scene refers to
+     * @param scene the scene to add the objects to
+     * @param fileName file that contains XML
+     * @param models list to add the paths of the model files of the meshes to
+     * @throws IOException if the file (or a model file of a mesh) can't be read, or is malformed
      */
-    private static Geometries getGeometries(Element root) {
-        var geometriesList = root.getChildNodes().item(3).getChildNodes(); // scene - geometries in scene
-        //-------------parse geometries in scene---------------
-        Geometries geometries = new Geometries();
-        for (int i = 0; i < geometriesList.getLength(); i++) {
-            var geometry = geometriesList.item(i);
-            if (geometry instanceof Element elem) {
-                switch (geometry.getNodeName()) {
-                    case "triangle" -> {
-                        geometries.add(parseTriangle(elem));
-                    }
-                    case "sphere" -> {
-                        geometries.add(parseSphere(elem));
-                    }
-                    case "plane" -> {
-                        geometries.add(parsePlane(elem));
-                    }
-                    case "tube" -> {
-                        geometries.add(parseTube(elem));
-                    }
-                    case "cylinder" -> {
-                        geometries.add(parseCylinder(elem));
-                    }
-                }
+    static void sceneParser(Scene scene, String fileName, List<Path> models) throws IOException {
+        sceneParser(scene, fileName, false, models);
+    }
+
+    /**
+     * Method parses XML file
+     * @param scene the scene to add the objects to
+     * @param fileName file that contains XML
+     * @param parallel whether to create the geometries in parallel
+     * @param models list to add the paths of the model files of the meshes to
+     * @throws IOException if the file (or a model file of a mesh) can't be read, or is malformed
+     */
+    private static void sceneParser(Scene scene, String fileName, boolean parallel, List<Path> models)
+            throws IOException {
+        //build the parser - no DTD and no external entities
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        long buildStart = System.nanoTime();
+        Path file = Path.of(fileName);
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            XMLStreamReader reader = factory.createXMLStreamReader(in);
+            try {
+                new Parser(reader, fileName, file.toAbsolutePath().getParent(), parallel, models).parse(scene);
+            } finally {
+                reader.close();
             }
+            scene.setBuildTime(System.nanoTime() - buildStart);
+        } catch (XMLStreamException e) {
+            //the message of the exception starts with its position, which is reported in the file position form
+            Location location = e.getLocation();
+            String message = e.getMessage();
+            int start = message.indexOf("Message: ");
+            if (start >= 0)
+                message = message.substring(start + "Message: ".length());
+            throw new IOException(location == null ? fileName + ": " + message
+                    : fileName + ":" + location.getLineNumber() + ":" + location.getColumnNumber() + ": " + message, e);
         }
-        return geometries;
     }
 
-    //region parsing geometries
-
-//    private static Polygon parsePolygon(Element elem) {
-//        return new Polygon(
-//                parsePoint(elem.getAttribute("p0")),
-//                parsePoint(elem.getAttribute("p1")),
-//                parsePoint(elem.getAttribute("p2"))
-//        );
-//    }
-
-    private static Material parseMaterial(Element elem) {
-        Material material = new Material();
-        if(elem.hasAttribute("kd"))
-            material.setKd(parseDouble3(elem.getAttribute("kd")));
-        if(elem.hasAttribute("ks"))
-            material.setKs(parseDouble3(elem.getAttribute("ks")));
-        if(elem.hasAttribute("shininess"))
-            material.setShininess((int)Double.parseDouble(elem.getAttribute("shininess")));
-        if(elem.hasAttribute("kr"))
-            material.setKr(parseDouble3(elem.getAttribute("kr")));
-        if(elem.hasAttribute("kt"))
-            material.setKt(parseDouble3(elem.getAttribute("kt")));
-        return material;
-    }
+    //region parser
 
-    private static Triangle parseTriangle(Element elem) {
-        Triangle triangle = new Triangle(
-                parsePoint(elem.getAttribute("p0")),
-                parsePoint(elem.getAttribute("p1")),
-                parsePoint(elem.getAttribute("p2"))
-        );
-        triangle.setMaterial(parseMaterial(elem));
-        if(elem.hasAttribute("emission"))
-            triangle.setEmission(parseColor(elem.getAttribute("emission")));
-        return triangle;
-    }
+    /**
+     * A start tag of an element - its name, its attributes and its position in the file
+     * @param fileName the XML file
+     * @param name the name of the element
+     * @param attributes the attributes of the element
+     * @param line the line of the element
+     * @param column the column of the element
+     */
+    private record Tag(String fileName, String name, Map<String, String> attributes, int line, int column) {
+        /**
+         * @param attribute name of an attribute
+         * @return whether the element has the attribute
+         */
+        boolean has(String attribute) {
+            return attributes.containsKey(attribute);
+        }
 
-    private static Sphere parseSphere(Element elem) {
-        Sphere sphere = new Sphere(
-                Double.parseDouble(elem.getAttribute("radius")),
-                parsePoint(elem.getAttribute("center"))
-        );
-        sphere.setMaterial(parseMaterial(elem));
-        if(elem.hasAttribute("emission"))
-            sphere.setEmission(parseColor(elem.getAttribute("emission")));
-        return sphere;
-    }
-    private static Plane parsePlane(Element elem) {
-        Plane plane = new Plane(
-                parsePoint(elem.getAttribute("point")),
-                parseVector(elem.getAttribute("vector"))
-        );
-        if(elem.hasAttribute("emission"))
-            plane.setEmission(parseColor(elem.getAttribute("emission")));
-        return plane;
-    }
+        /**
+         * @param attribute name of an attribute
+         * @return the value of the attribute
+         * @throws IOException if the element has not the attribute
+         */
+        String get(String attribute) throws IOException {
+            String value = attributes.get(attribute);
+            if (value == null)
+                throw error("missing attribute '" + attribute + "'");
+            return value;
+        }
 
-    private static Tube parseTube(Element elem) {
-        Tube tube = new Tube(
-                Double.parseDouble(elem.getAttribute("radius")),
-                new Ray(parsePoint(elem.getAttribute("point")),
-                        parseVector(elem.getAttribute("vector")))
-        );
-        if(elem.hasAttribute("emission"))
-            tube.setEmission(parseColor(elem.getAttribute("emission")));
-        return tube;
-    }
+        /**
+         * @param attribute name of an attribute
+         * @return the number of the attribute
+         * @throws IOException if the element has not the attribute, or it is not a number
+         */
+        double getDouble(String attribute) throws IOException {
+            String value = get(attribute);
+            try {
+                return Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                throw error("malformed number '" + value + "' in attribute '" + attribute + "'");
+            }
+        }
+
+        /**
+         * @param attribute name of an attribute
+         * @return the triad of the attribute (one number for all the triad, or 3 numbers)
+         * @throws IOException if the element has not the attribute, or it is not a triad
+         */
+        Double3 getDouble3(String attribute) throws IOException {
+            String value = get(attribute);
+            try {
+                return parseDouble3(value);
+            } catch (NumberFormatException e) {
+                throw error("malformed numbers '" + value + "' in attribute '" + attribute + "'");
+            }
+        }
 
-    private static Cylinder parseCylinder(Element elem) {
-        Cylinder cylinder = new Cylinder(
-                Double.parseDouble(elem.getAttribute("radius")),
-                new Ray(parsePoint(elem.getAttribute("p0")),
-                        parseVector(elem.getAttribute("vector"))),
-                Double.parseDouble(elem.getAttribute("height"))
-        );
-        if(elem.hasAttribute("emission"))
-            cylinder.setEmission(parseColor(elem.getAttribute("emission")));
-        return cylinder;
+        /**
+         * @param attribute name of an attribute
+         * @return the point of the attribute
+         * @throws IOException if the element has not the attribute, or it is not a point
+         */
+        Point getPoint(String attribute) throws IOException {
+            return new Point(getDouble3(attribute));
+        }
+
+        /**
+         * @param attribute name of an attribute
+         * @return the vector of the attribute
+         * @throws IOException if the element has not the attribute, or it is not a vector
+         */
+        Vector getVector(String attribute) throws IOException {
+            return new Vector(getDouble3(attribute));
+        }
+
+        /**
+         * @param attribute name of an attribute
+         * @return the color of the attribute
+         * @throws IOException if the element has not the attribute, or it is not a color
+         */
+        Color getColor(String attribute) throws IOException {
+            return new Color(getDouble3(attribute));
+        }
+
+        /**
+         * @param message description of the error
+         * @return an exception of a malformed file, with the position of the element
+         */
+        IOException error(String message) {
+            return new IOException(fileName + ":" + line + ":" + column + ": <" + name + "> " + message);
+        }
     }
 
-    //endregion
-    //endregion
+    /**
+     * The state of the parsing of a file - the elements are read one after the other from the stream reader
+     */
+    private static final class Parser {
+        private final XMLStreamReader reader;
+        private final String fileName;
+        /**
+         * the directory of the file (the model files of the meshes are relative to it)
+         */
+        private final Path directory;
+        private final boolean parallel;
+        /**
+         * list to add the paths of the model files of the meshes to
+         */
+        private final List<Path> models;
 
-    //region light sources parsing
-    private static List<LightSource> getLights(Element root) {
-        var lightSourceList = root.getChildNodes().item(3).getNextSibling().getNextSibling().getChildNodes();
-        List<LightSource> lightSources = new LinkedList<>();
-        for (int i = 0; i < lightSourceList.getLength(); i++) {
-            var light = lightSourceList.item(i);
-            if (light instanceof Element elem) {
-                switch (light.getNodeName()) {
-                    case "point" -> {
-                        lightSources.add(parsePointLight(elem));
-                    }
-                    case "directional" -> {
-                        lightSources.add(parseDirectionalLight(elem));
-                    }
-                    case "spot" -> {
-                        lightSources.add(parseSpotLight(elem));
+        /**
+         * Constructor
+         * @param reader the stream reader of the file
+         * @param fileName the XML file
+         * @param directory the directory of the file
+         * @param parallel whether to create the geometries in parallel
+         * @param models list to add the paths of the model files of the meshes to
+         */
+        private Parser(XMLStreamReader reader, String fileName, Path directory, boolean parallel, List<Path> models) {
+            this.reader = reader;
+            this.fileName = fileName;
+            this.directory = directory;
+            this.parallel = parallel;
+            this.models = models;
+        }
+
+        /**
+         * parses the scene element - the scene is changed only after the whole file was parsed
+         * @param scene the scene to add the objects to
+         * @throws XMLStreamException if the file is not a well-formed XML file
+         * @throws IOException if the scene is malformed, or a model file can't be loaded
+         */
+        private void parse(Scene scene) throws XMLStreamException, IOException {
+            Tag root = nextChild();
+            if (!root.name().equals("scene"))
+                throw root.error("the root element must be <scene>");
+            Color background = root.getColor("background-color");
+            AmbientLight ambientLight = null;
+            Geometries geometries = new Geometries();
+            List<LightSource> lights = new LinkedList<>();
+            for (Tag tag = nextChild(); tag != null; tag = nextChild()) {
+                switch (tag.name()) {
+                    case "ambient-light" -> ambientLight = parseAmbientLight(tag);
+                    case "geometries" -> parseGeometries(geometries);
+                    case "light-source" -> parseLights(lights);
+                    default -> throw tag.error("unknown element of the scene");
+                }
+            }
+
+            scene.setBackground(background);
+            if (ambientLight != null)
+                scene.setAmbientLight(ambientLight);
+            scene.geometries = geometries;
+            scene.lights = lights;
+        }
+
+        /**
+         * parses the ambient light element
+         * @param tag the element
+         * @return the ambient light
+         * @throws XMLStreamException if the file is not well-formed
+         * @throws IOException if the ambient light is malformed
+         */
+        private AmbientLight parseAmbientLight(Tag tag) throws XMLStreamException, IOException {
+            endEmpty(tag);
+            return create(tag, () -> new AmbientLight(tag.getColor("color"), tag.getDouble3("ka")));
+        }
+
+        /**
+         * moves to the next child element of the current element
+         * @return the start tag of the child, null at the end of the current element
+         * @throws XMLStreamException if the file is not well-formed, or there is text between the elements
+         */
+        private Tag nextChild() throws XMLStreamException {
+            if (reader.nextTag() != XMLStreamConstants.START_ELEMENT)
+                return null;
+            Map<String, String> attributes = new HashMap<>();
+            for (int i = 0; i < reader.getAttributeCount(); ++i)
+                attributes.put(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+            Location location = reader.getLocation();
+            return new Tag(fileName, reader.getLocalName(), attributes, location.getLineNumber(),
+                    location.getColumnNumber());
+        }
+
+        /**
+         * moves to the end of an element which must have no child elements
+         * @param tag the start tag of the element
+         * @throws XMLStreamException if the file is not well-formed
+         * @throws IOException if the element has a child element
+         */
+        private void endEmpty(Tag tag) throws XMLStreamException, IOException {
+            if (reader.nextTag() != XMLStreamConstants.END_ELEMENT)
+                throw tag.error("must not have child elements");
+        }
+
+        //region geometry parsing
+
+        /**
+         * parses the geometries element - each geometry is created when its element is read, or in parallel parsing
+         * when the batch of its element is full
+         * @param geometries the geometries to add to
+         * @throws XMLStreamException if the file is not well-formed
+         * @throws IOException if a geometry is malformed, or a model file of a mesh can't be loaded
+         */
+        private void parseGeometries(Geometries geometries) throws XMLStreamException, IOException {
+            List<Tag> batch = new ArrayList<>(BATCH_SIZE);
+            for (Tag tag = nextChild(); tag != null; tag = nextChild()) {
+                endEmpty(tag);
+                if (tag.name().equals("mesh"))
+                    models.add(directory.resolve(tag.get("file")));
+                if (!parallel)
+                    geometries.add(parseGeometry(tag));
+                else {
+                    batch.add(tag);
+                    if (batch.size() == BATCH_SIZE) {
+                        geometries.add(parseBatch(batch));
+                        batch.clear();
                     }
                 }
             }
+            if (!batch.isEmpty())
+                geometries.add(parseBatch(batch));
         }
-        return lightSources;
-    }
 
-    private static PointLight parsePointLight(Element elem) {
-        PointLight pointLight = new PointLight(
-                parseColor(elem.getAttribute("intensity")),
-                parsePoint(elem.getAttribute("p0"))
-        );
-        pointLight.setKl(Double.parseDouble(elem.getAttribute("kl")))
-                .setKq(Double.parseDouble(elem.getAttribute("kq")));
-        return pointLight;
-    }
+        /**
+         * creates the geometries of a batch of elements in parallel
+         * @param batch the elements
+         * @return the geometries, by the order of their elements
+         * @throws IOException if a geometry is malformed, or a model file of a mesh can't be loaded
+         */
+        private Geometry[] parseBatch(List<Tag> batch) throws IOException {
+            Geometry[] geometries = new Geometry[batch.size()];
+            try {
+                IntStream.range(0, batch.size()).parallel().forEach(i -> {
+                    try {
+                        geometries[i] = parseGeometry(batch.get(i));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return geometries;
+        }
+
+        /**
+         * creates a geometry of an element
+         * @param tag the element
+         * @return the geometry
+         * @throws IOException if the geometry is malformed, or a model file of a mesh can't be loaded
+         */
+        private Geometry parseGeometry(Tag tag) throws IOException {
+            return switch (tag.name()) {
+                case "triangle" -> create(tag, () -> parseTriangle(tag));
+                case "sphere" -> create(tag, () -> parseSphere(tag));
+                case "plane" -> create(tag, () -> parsePlane(tag));
+                case "tube" -> create(tag, () -> parseTube(tag));
+                case "cylinder" -> create(tag, () -> parseCylinder(tag));
+                case "mesh" -> create(tag, () -> parseMesh(tag));
+                default -> throw tag.error("unknown geometry");
+            };
+        }
+
+        //region parsing geometries
+
+        private static Material parseMaterial(Tag tag) throws IOException {
+            Material material = new Material();
+            if(tag.has("kd"))
+                material.setKd(tag.getDouble3("kd"));
+            if(tag.has("ks"))
+                material.setKs(tag.getDouble3("ks"));
+            if(tag.has("shininess"))
+                material.setShininess((int)tag.getDouble("shininess"));
+            if(tag.has("kr"))
+                material.setKr(tag.getDouble3("kr"));
+            if(tag.has("kt"))
+                material.setKt(tag.getDouble3("kt"));
+            return material;
+        }
+
+        private static Triangle parseTriangle(Tag tag) throws IOException {
+            Triangle triangle = new Triangle(tag.getPoint("p0"), tag.getPoint("p1"), tag.getPoint("p2"));
+            triangle.setMaterial(parseMaterial(tag));
+            if(tag.has("emission"))
+                triangle.setEmission(tag.getColor("emission"));
+            return triangle;
+        }
+
+        private static Sphere parseSphere(Tag tag) throws IOException {
+            Sphere sphere = new Sphere(tag.getDouble("radius"), tag.getPoint("center"));
+            sphere.setMaterial(parseMaterial(tag));
+            if(tag.has("emission"))
+                sphere.setEmission(tag.getColor("emission"));
+            return sphere;
+        }
+
+        private static Plane parsePlane(Tag tag) throws IOException {
+            Plane plane = new Plane(tag.getPoint("point"), tag.getVector("vector"));
+            if(tag.has("emission"))
+                plane.setEmission(tag.getColor("emission"));
+            return plane;
+        }
+
+        private static Tube parseTube(Tag tag) throws IOException {
+            Tube tube = new Tube(tag.getDouble("radius"), new Ray(tag.getPoint("point"), tag.getVector("vector")));
+            if(tag.has("emission"))
+                tube.setEmission(tag.getColor("emission"));
+            return tube;
+        }
+
+        private static Cylinder parseCylinder(Tag tag) throws IOException {
+            Cylinder cylinder = new Cylinder(tag.getDouble("radius"),
+                    new Ray(tag.getPoint("p0"), tag.getVector("vector")), tag.getDouble("height"));
+            if(tag.has("emission"))
+                cylinder.setEmission(tag.getColor("emission"));
+            return cylinder;
+        }
+
+        /**
+         * Parses a mesh - loads its model file (OBJ or PLY).<br/>
+         * The attribute smooth="true" shades the mesh smoothly by the normals of its vertices (given in the file,
+         * or calculated), smooth="false" shades its faces flat, and without it the mesh is shaded as in the file.
+         * @param tag the mesh element
+         * @return the mesh
+         * @throws IOException if the model file can't be loaded
+         */
+        private Mesh parseMesh(Tag tag) throws IOException {
+            Path model = directory.resolve(tag.get("file"));
+            Mesh mesh;
+            try {
+                mesh = MeshLoader.load(model);
+            } catch (IOException e) {
+                throw tag.error(e.getMessage());
+            }
+            if ("true".equals(tag.attributes().get("smooth")) && !mesh.isSmooth())
+                mesh.calcVertexNormals();
+            else if ("false".equals(tag.attributes().get("smooth")))
+                mesh.setVertexNormals(null);
+            mesh.setMaterial(parseMaterial(tag));
+            if(tag.has("emission"))
+                mesh.setEmission(tag.getColor("emission"));
+            return mesh;
+        }
 
-    private static DirectionalLight parseDirectionalLight(Element elem) {
-        return new DirectionalLight(
-                parseColor(elem.getAttribute("intensity")),
-                parseVector(elem.getAttribute("vector"))
-        );
+        //endregion
+        //endregion
+
+        //region light sources parsing
+
+        /**
+         * parses the light sources element
+         * @param lights the light sources to add to
+         * @throws XMLStreamException if the file is not well-formed
+         * @throws IOException if a light source is malformed
+         */
+        private void parseLights(List<LightSource> lights) throws XMLStreamException, IOException {
+            for (Tag tag = nextChild(); tag != null; tag = nextChild()) {
+                endEmpty(tag);
+                lights.add(parseLight(tag));
+            }
+        }
+
+        /**
+         * creates a light source of an element
+         * @param tag the element
+         * @return the light source
+         * @throws IOException if the light source is malformed
+         */
+        private static LightSource parseLight(Tag tag) throws IOException {
+            return switch (tag.name()) {
+                case "point" -> create(tag, () -> parsePointLight(tag));
+                case "directional" -> create(tag, () -> parseDirectionalLight(tag));
+                case "spot" -> create(tag, () -> parseSpotLight(tag));
+                default -> throw tag.error("unknown light source");
+            };
+        }
+
+        /**
+         * sets the attenuation factors of a point light that its element has
+         * @param tag the element
+         * @param pointLight the point light
+         * @return the point light
+         * @throws IOException if a factor is malformed
+         */
+        private static PointLight parseAttenuation(Tag tag, PointLight pointLight) throws IOException {
+            if (tag.has("kc"))
+                pointLight.setKc(tag.getDouble("kc"));
+            if (tag.has("kl"))
+                pointLight.setKl(tag.getDouble("kl"));
+            if (tag.has("kq"))
+                pointLight.setKq(tag.getDouble("kq"));
+            return pointLight;
+        }
+
+        private static PointLight parsePointLight(Tag tag) throws IOException {
+            return parseAttenuation(tag, new PointLight(tag.getColor("intensity"), tag.getPoint("p0")));
+        }
+
+        private static DirectionalLight parseDirectionalLight(Tag tag) throws IOException {
+            return new DirectionalLight(tag.getColor("intensity"), tag.getVector("vector"));
+        }
+
+        private static SpotLight parseSpotLight(Tag tag) throws IOException {
+            SpotLight spotLight = new SpotLight(tag.getColor("intensity"), tag.getPoint("p0"), tag.getVector("vector"));
+            parseAttenuation(tag, spotLight);
+            return spotLight;
+        }
+
+        //endregion
     }
 
-    private static SpotLight parseSpotLight(Element elem) {
-        SpotLight spotLight = new SpotLight(
-                parseColor(elem.getAttribute("intensity")),
-                parsePoint(elem.getAttribute("p0")),
-                parseVector(elem.getAttribute("vector"))
-        );
-        spotLight.setKl(Double.parseDouble(elem.getAttribute("kl")))
-                .setKq(Double.parseDouble(elem.getAttribute("kq")));
-        return spotLight;
+    /**
+     * Creation of an object of an element, which may fail on a malformed attribute
+     * @param <T> the type of the object
+     */
+    @FunctionalInterface
+    private interface Creator<T> {
+        /**
+         * @return the object
+         * @throws IOException if the element is malformed
+         */
+        T create() throws IOException;
     }
 
+    /**
+     * creates an object of an element - an illegal value of the element (e.g. a zero vector)
+     * is reported with the position of the element
+     * @param tag the element
+     * @param creator the creation of the object
+     * @param <T> the type of the object
+     * @return the object
+     * @throws IOException if the element is malformed
+     */
+    private static <T> T create(Tag tag, Creator<T> creator) throws IOException {
+        try {
+            return creator.create();
+        } catch (IllegalArgumentException e) {
+            throw tag.error(e.getMessage());
+        }
+    }
     //endregion
 
     //region regular parsers
     /**
      * Parses Double3 from a string
-     * @param toParse string of 3 numbers to be changed into Double3
+     * @param toParse string of 3 numbers (or one number for all of them) to be changed into Double3
      * @return returns a Double3 variable
+     * @throws NumberFormatException if the string is not one number or 3 numbers
      */
     private static Double3 parseDouble3(String toParse) {
-        var parsed = toParse.split(" ");
+        var parsed = toParse.trim().split("\\s+");
         if(parsed.length == 3)
             return new Double3(
                     Double.parseDouble(parsed[0]),
                     Double.parseDouble(parsed[1]),
                     Double.parseDouble(parsed[2])
             );
-        else
+        else if(parsed.length == 1)
             return new Double3(Double.parseDouble(parsed[0]));
-    }
-
-    /**
-     * Parses a vector from a string
-     * @param toParse the string to parse
-     * @return the vector parsed
-     */
-    private static Vector parseVector(String toParse) {
-        return new Vector(parseDouble3(toParse));
+        else
+            throw new NumberFormatException("a triad must have 1 or 3 numbers");
     }
 
     /**
@@ -0,0 +1,511 @@
+package scene;
+
+import geometries.*;
+import lighting.*;
+import primitives.*;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Class for a cache of compiled scenes.<br/>
+ * A scene XML file is compiled once into a binary file which holds the geometries with their materials,
+ * the light sources and the voxels grid built on the geometries, and later loads of the same scene map the
+ * compiled file into memory instead of parsing the XML file and building the grid again.<br/>
+ * The compiled file is named by a hash (SHA-256) of the XML file and of the resolution settings of the grid,
+ * so a changed file or changed settings compile the scene again. The model files of the meshes of the scene
+ * are checked by their size and modification time.
+ *
+ * @author Sarah Daatyah Furmanski and Efrat Kartman
+ */
+public class SceneCache {
+    /**
+     * the first bytes of a compiled scene file - "RTSC"
+     */
+    private static final int MAGIC = 0x52545343;
+    /**
+     * the version of the compiled file format - a changed format makes different keys
+     */
+    private static final int VERSION = 1;
+    /**
+     * the extension of the compiled scene files
+     */
+    private static final String EXTENSION = ".scene";
+
+    //region types of the entities in the compiled file
+    private static final byte SPHERE = 1;
+    private static final byte TRIANGLE = 2;
+    private static final byte POLYGON = 3;
+    private static final byte PLANE = 4;
+    private static final byte TUBE = 5;
+    private static final byte CYLINDER = 6;
+    private static final byte MESH = 7;
+    private static final byte POINT_LIGHT = 1;
+    private static final byte SPOT_LIGHT = 2;
+    private static final byte DIRECTIONAL_LIGHT = 3;
+    //endregion
+
+    private static final Logger LOGGER = Logger.getLogger(SceneCache.class.getName());
+
+    /**
+     * the directory of the compiled scene files
+     */
+    private final Path directory;
+
+    /**
+     * Constructor
+     *
+     * @param directory the directory of the compiled scene files (created if missing)
+     */
+    public SceneCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * loads a scene from its XML file - from the compiled file of the scene if there is one, otherwise the XML
+     * file is parsed, the voxels grid is built (of the geometries with a boundary - the infinite geometries are kept
+     * out of the grid) and the scene is compiled.
+     * The resolution of the grid must be set on the scene before
+     *
+     * @param scene    the scene to load into
+     * @param fileName the XML file
+     * @return true if the scene was loaded from its compiled file, false if it was parsed
+     * @throws IOException if the XML file or a model file can't be read, or is malformed
+     */
+    public boolean load(Scene scene, String fileName) throws IOException {
+        long start = System.nanoTime();
+        Path compiled = directory.resolve(key(scene, Files.readAllBytes(Path.of(fileName))) + EXTENSION);
+        if (Files.isRegularFile(compiled)) {
+            try {
+                read(scene, compiled);
+                scene.setBuildTime(System.nanoTime() - start);
+                LOGGER.info(() -> String.format("Scene \"%s\" loaded from %s in %.1f ms",
+                        scene.name, compiled, (System.nanoTime() - start) / 1e6));
+                return true;
+            } catch (IOException | BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException
+                     | NegativeArraySizeException e) {
+                LOGGER.log(Level.WARNING, "Compiled scene " + compiled + " is stale or corrupt, compiling again", e);
+            }
+        }
+
+        List<Path> models = new LinkedList<>();
+        SceneBuilder.sceneParser(scene, fileName, models);
+        scene.compileVoxels();
+        try {
+            write(scene, models, compiled);
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.log(Level.WARNING, "Scene \"" + scene.name + "\" can't be compiled", e);
+        }
+        return false;
+    }
+
+    /**
+     * @param scene the scene (its resolution settings)
+     * @param xml   the content of the XML file of the scene
+     * @return the key of the compiled scene - hexadecimal SHA-256 of the format version, the XML file and the
+     * resolution settings of the grid
+     */
+    private static String key(Scene scene, byte[] xml) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+        ByteBuffer settings = ByteBuffer.allocate(Integer.BYTES * 4 + Double.BYTES);
+        settings.putInt(VERSION).putDouble(scene.resolution);
+        int[] axisResolutions = scene.getAxisResolutions();
+        for (int axis = 0; axis < 3; ++axis)
+            settings.putInt(axisResolutions == null ? 0 : axisResolutions[axis]);
+        digest.update(settings.array());
+        digest.update(xml);
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest())
+            hex.append(String.format("%02x", b));
+        return hex.toString();
+    }
+
+    //region write
+
+    /**
+     * writes the compiled file of a scene - to a temporary file which is moved to its place, so a compiled file
+     * is never seen partially written
+     *
+     * @param scene    the scene
+     * @param models   the model files of the meshes of the scene
+     * @param compiled the compiled file
+     * @throws IOException              if the file can't be written
+     * @throws IllegalArgumentException if the scene has a geometry or a light source which can't be compiled
+     */
+    private void write(Scene scene, List<Path> models, Path compiled) throws IOException {
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, "scene", ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary),
+                    1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(models.size());
+                for (Path model : models) {
+                    byte[] name = model.toAbsolutePath().toString().getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(name.length);
+                    out.write(name);
+                    out.writeLong(Files.size(model));
+                    out.writeLong(Files.getLastModifiedTime(model).toMillis());
+                }
+
+                writeDouble3(out, scene.background.getRgb());
+                writeDouble3(out, scene.ambientLight.getIntensity().getRgb());
+                List<Intersectable> geometries = scene.geometries.getGeometries();
+                out.writeInt(geometries.size());
+                for (Intersectable geometry : geometries)
+                    writeGeometry(out, geometry);
+                out.writeInt(scene.lights.size());
+                for (LightSource light : scene.lights)
+                    writeLight(out, light);
+
+                out.writeBoolean(scene.voxels != null);
+                if (scene.voxels != null) {
+                    AABB boundary = scene.getGridBoundary();
+                    for (int axis = 0; axis < 3; ++axis)
+                        out.writeDouble(boundary.getMin(axis));
+                    for (int axis = 0; axis < 3; ++axis)
+                        out.writeDouble(boundary.getMax(axis));
+                    for (int resolution : scene.resolutions)
+                        out.writeInt(resolution);
+                    writeInts(out, scene.voxels.getCellStart());
+                    writeInts(out, scene.voxels.getCellItems());
+                }
+            }
+            Files.move(temporary, compiled, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * writes a geometry - its type, emission and material, and then its own attributes
+     *
+     * @param out      the output
+     * @param geometry the geometry
+     * @throws IOException              if the output fails
+     * @throws IllegalArgumentException if the geometry can't be compiled
+     */
+    private static void writeGeometry(DataOutputStream out, Intersectable geometry) throws IOException {
+        //subclasses are checked before their base classes
+        byte type;
+        if (geometry instanceof Triangle) type = TRIANGLE;
+        else if (geometry instanceof Polygon) type = POLYGON;
+        else if (geometry instanceof Sphere) type = SPHERE;
+        else if (geometry instanceof Plane) type = PLANE;
+        else if (geometry instanceof Cylinder) type = CYLINDER;
+        else if (geometry instanceof Tube) type = TUBE;
+        else if (geometry instanceof Mesh) type = MESH;
+        else throw new IllegalArgumentException("Can't compile " + geometry.getClass().getSimpleName());
+        out.writeByte(type);
+        Geometry shape = (Geometry) geometry;
+        writeDouble3(out, shape.getEmission().getRgb());
+        Material material = shape.getMaterial();
+        writeDouble3(out, material.kD);
+        writeDouble3(out, material.kS);
+        writeDouble3(out, material.kR);
+        writeDouble3(out, material.kT);
+        out.writeDouble(material.kDg);
+        out.writeDouble(material.kSg);
+        out.writeInt(material.nShininess);
+
+        if (geometry instanceof Polygon polygon) {
+            if (type == POLYGON)
+                out.writeInt(polygon.getVertices().size());
+            for (Point vertex : polygon.getVertices())
+                writePoint(out, vertex);
+        } else if (geometry instanceof Sphere sphere) {
+            out.writeDouble(sphere.getRadius());
+            writePoint(out, sphere.getCenter());
+        } else if (geometry instanceof Plane plane) {
+            writePoint(out, plane.getQ0());
+            writePoint(out, plane.getNormal());
+        } else if (geometry instanceof Tube tube) {
+            out.writeDouble(tube.getRadius());
+            writePoint(out, tube.getAxisRay().getP0());
+            writePoint(out, tube.getAxisRay().getDir());
+            if (tube instanceof Cylinder cylinder)
+                out.writeDouble(cylinder.getHeight());
+        } else if (geometry instanceof Mesh mesh) {
+            writeDoubles(out, mesh.getVertices());
+            writeInts(out, mesh.getIndices());
+            writeDoubles(out, mesh.getFaceNormals());
+            out.writeBoolean(mesh.isSmooth());
+            if (mesh.isSmooth())
+                writeDoubles(out, mesh.getVertexNormals());
+            writeDoubles(out, mesh.getNodeBounds());
+            writeInts(out, mesh.getNodes());
+        }
+    }
+
+    /**
+     * writes a light source - its type and intensity, and then its own attributes
+     *
+     * @param out   the output
+     * @param light the light source
+     * @throws IOException              if the output fails
+     * @throws IllegalArgumentException if the light source can't be compiled
+     */
+    private static void writeLight(DataOutputStream out, LightSource light) throws IOException {
+        //a spot light is a point light, so it is checked first
+        if (light instanceof SpotLight spot) {
+            out.writeByte(SPOT_LIGHT);
+            writePointLight(out, spot);
+            writePoint(out, spot.getDirection());
+            out.writeDouble(spot.getNarrowBeam());
+        } else if (light instanceof PointLight point) {
+            out.writeByte(POINT_LIGHT);
+            writePointLight(out, point);
+        } else if (light instanceof DirectionalLight directional) {
+            out.writeByte(DIRECTIONAL_LIGHT);
+            writeDouble3(out, directional.getIntensity().getRgb());
+            writePoint(out, directional.getDirection());
+        } else
+            throw new IllegalArgumentException("Can't compile " + light.getClass().getSimpleName());
+    }
+
+    /**
+     * writes the attributes of a point light
+     *
+     * @param out   the output
+     * @param light the point light
+     * @throws IOException if the output fails
+     */
+    private static void writePointLight(DataOutputStream out, PointLight light) throws IOException {
+        writeDouble3(out, light.getIntensity().getRgb());
+        writePoint(out, light.getPosition());
+        out.writeDouble(light.getKc());
+        out.writeDouble(light.getKl());
+        out.writeDouble(light.getKq());
+    }
+
+    /**
+     * @param out     the output
+     * @param double3 the triad to write
+     * @throws IOException if the output fails
+     */
+    private static void writeDouble3(DataOutputStream out, Double3 double3) throws IOException {
+        out.writeDouble(double3.getD1());
+        out.writeDouble(double3.getD2());
+        out.writeDouble(double3.getD3());
+    }
+
+    /**
+     * @param out   the output
+     * @param point the point (or vector) to write
+     * @throws IOException if the output fails
+     */
+    private static void writePoint(DataOutputStream out, Point point) throws IOException {
+        out.writeDouble(point.getX());
+        out.writeDouble(point.getY());
+        out.writeDouble(point.getZ());
+    }
+
+    /**
+     * @param out    the output
+     * @param values the array to write - its length and then its values
+     * @throws IOException if the output fails
+     */
+    private static void writeDoubles(DataOutputStream out, double[] values) throws IOException {
+        out.writeInt(values.length);
+        for (double value : values)
+            out.writeDouble(value);
+    }
+
+    /**
+     * @param out    the output
+     * @param values the array to write - its length and then its values
+     * @throws IOException if the output fails
+     */
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values)
+            out.writeInt(value);
+    }
+    //endregion
+
+    //region read
+
+    /**
+     * reads a compiled scene file into a scene - the file is mapped into memory, and the scene is changed only
+     * after the whole file was read
+     *
+     * @param scene    the scene
+     * @param compiled the compiled file
+     * @throws IOException              if the file can't be read, or its model files were changed
+     * @throws BufferUnderflowException if the file is truncated
+     * @throws IllegalArgumentException if the file is corrupt
+     */
+    private static void read(Scene scene, Path compiled) throws IOException {
+        MappedByteBuffer in;
+        try (FileChannel channel = FileChannel.open(compiled, StandardOpenOption.READ)) {
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (in.getInt() != MAGIC || in.getInt() != VERSION)
+            throw new IOException("Not a compiled scene of the current version");
+        int modelsCount = in.getInt();
+        for (int i = 0; i < modelsCount; ++i) {
+            byte[] name = new byte[in.getInt()];
+            in.get(name);
+            Path model = Path.of(new String(name, StandardCharsets.UTF_8));
+            if (!Files.isRegularFile(model) || Files.size(model) != in.getLong()
+                    || Files.getLastModifiedTime(model).toMillis() != in.getLong())
+                throw new IOException("The model file " + model + " was changed");
+        }
+
+        Color background = new Color(readDouble3(in));
+        AmbientLight ambientLight = new AmbientLight(new Color(readDouble3(in)), Double3.ONE);
+        Intersectable[] items = new Intersectable[in.getInt()];
+        for (int i = 0; i < items.length; ++i)
+            items[i] = readGeometry(in);
+        List<LightSource> lights = new LinkedList<>();
+        for (int i = in.getInt(); i > 0; --i)
+            lights.add(readLight(in));
+
+        AABB gridBoundary = null;
+        int[] resolutions = null;
+        VoxelGrid voxels = null;
+        if (in.get() != 0) {
+            gridBoundary = new AABB(in.getDouble(), in.getDouble(), in.getDouble(),
+                    in.getDouble(), in.getDouble(), in.getDouble());
+            resolutions = new int[]{in.getInt(), in.getInt(), in.getInt()};
+            //the grid holds the geometries with a boundary, in their order
+            Intersectable[] bounded = Arrays.stream(items).filter(item -> item.getBoundary() != null)
+                    .toArray(Intersectable[]::new);
+            voxels = new VoxelGrid(resolutions[0], resolutions[1], resolutions[2], bounded, readInts(in), readInts(in));
+        }
+
+        scene.setBackground(background);
+        scene.setAmbientLight(ambientLight);
+        scene.setGeometries(new Geometries(items));
+        scene.setLights(lights);
+        if (voxels != null)
+            scene.setVoxels(gridBoundary, resolutions, voxels);
+    }
+
+    /**
+     * @param in the input
+     * @return the geometry read
+     * @throws IllegalArgumentException if the geometry is corrupt
+     */
+    private static Geometry readGeometry(ByteBuffer in) {
+        byte type = in.get();
+        Color emission = new Color(readDouble3(in));
+        Material material = new Material().setKd(readDouble3(in)).setKs(readDouble3(in))
+                .setKr(readDouble3(in)).setKt(readDouble3(in))
+                .setKdG(in.getDouble()).setKsG(in.getDouble()).setShininess(in.getInt());
+        Geometry geometry = switch (type) {
+            case SPHERE -> new Sphere(in.getDouble(), readPoint(in));
+            case TRIANGLE -> new Triangle(readPoint(in), readPoint(in), readPoint(in));
+            case POLYGON -> {
+                Point[] vertices = new Point[in.getInt()];
+                for (int i = 0; i < vertices.length; ++i)
+                    vertices[i] = readPoint(in);
+                yield new Polygon(vertices);
+            }
+            case PLANE -> new Plane(readPoint(in), new Vector(readDouble3(in)));
+            case TUBE -> new Tube(in.getDouble(), new Ray(readPoint(in), new Vector(readDouble3(in))));
+            case CYLINDER -> new Cylinder(in.getDouble(), new Ray(readPoint(in), new Vector(readDouble3(in))),
+                    in.getDouble());
+            case MESH -> new Mesh(readDoubles(in), readInts(in), readDoubles(in), in.get() != 0 ? readDoubles(in) : null,
+                    readDoubles(in), readInts(in));
+            default -> throw new IllegalArgumentException("Unknown geometry type " + type);
+        };
+        geometry.setEmission(emission).setMaterial(material);
+        return geometry;
+    }
+
+    /**
+     * @param in the input
+     * @return the light source read
+     * @throws IllegalArgumentException if the light source is corrupt
+     */
+    private static LightSource readLight(ByteBuffer in) {
+        byte type = in.get();
+        return switch (type) {
+            case POINT_LIGHT -> readPointLight(in, new PointLight(new Color(readDouble3(in)), readPoint(in)));
+            case SPOT_LIGHT -> {
+                Color intensity = new Color(readDouble3(in));
+                Point position = readPoint(in);
+                double kC = in.getDouble(), kL = in.getDouble(), kQ = in.getDouble();
+                SpotLight spot = new SpotLight(intensity, position, new Vector(readDouble3(in)));
+                spot.setNarrowBeam(in.getDouble()).setKc(kC).setKl(kL).setKq(kQ);
+                yield spot;
+            }
+            case DIRECTIONAL_LIGHT -> new DirectionalLight(new Color(readDouble3(in)), new Vector(readDouble3(in)));
+            default -> throw new IllegalArgumentException("Unknown light source type " + type);
+        };
+    }
+
+    /**
+     * reads the attenuation factors of a point light
+     *
+     * @param in    the input
+     * @param light the point light
+     * @return the point light
+     */
+    private static PointLight readPointLight(ByteBuffer in, PointLight light) {
+        return light.setKc(in.getDouble()).setKl(in.getDouble()).setKq(in.getDouble());
+    }
+
+    /**
+     * @param in the input
+     * @return the triad read
+     */
+    private static Double3 readDouble3(ByteBuffer in) {
+        return new Double3(in.getDouble(), in.getDouble(), in.getDouble());
+    }
+
+    /**
+     * @param in the input
+     * @return the point read
+     */
+    private static Point readPoint(ByteBuffer in) {
+        return new Point(readDouble3(in));
+    }
+
+    /**
+     * @param in the input
+     * @return the array read - in bulk from the mapped file
+     */
+    private static double[] readDoubles(ByteBuffer in) {
+        double[] values = new double[in.getInt()];
+        in.asDoubleBuffer().get(values);
+        in.position(in.position() + values.length * Double.BYTES);
+        return values;
+    }
+
+    /**
+     * @param in the input
+     * @return the array read - in bulk from the mapped file
+     */
+    private static int[] readInts(ByteBuffer in) {
+        int[] values = new int[in.getInt()];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + values.length * Integer.BYTES);
+        return values;
+    }
+    //endregion
+}
@@ -0,0 +1,437 @@
+package scene;
+
+import geometries.Intersectable;
+import primitives.AABB;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * Class for a dense regular grid of voxels.<br/>
+ * The geometric entities of all the voxels are stored in compressed arrays (CSR):
+ * the entities of the voxel with the index c are at the positions cellStart[c] ... cellStart[c + 1] - 1
+ * of the voxels items array, which holds the indexes of the entities in the entities array.
+ * The voxels are addressed by their integer coordinates, so looking up a voxel creates no object and computes no hash.
+ * <br/>
+ * A voxel with many entities may have a nested grid of its own over the box of the voxel (a two-level grid,
+ * see {@link #subdivide(AABB, int)}) - the nested grid shares the entities array of its grid, so an entity has the
+ * same index in both
+ *
+ * @author Sarah Daatyah Furmanski and Efrat Kartman
+ */
+public class VoxelGrid {
+    /**
+     * the amount of the geometric entities (or voxels) from which the grid is built in parallel
+     */
+    private static final int PARALLEL_THRESHOLD = 1024;
+    /**
+     * amount of the voxels on the X axis
+     */
+    private final int nX;
+    /**
+     * amount of the voxels on the Y axis
+     */
+    private final int nY;
+    /**
+     * amount of the voxels on the Z axis
+     */
+    private final int nZ;
+    /**
+     * the start position of the items of each voxel (and the end of the items of the last voxel)
+     */
+    private final int[] cellStart;
+    /**
+     * the indexes of the geometric entities of all the voxels, voxel after voxel
+     */
+    private final int[] cellItems;
+    /**
+     * the geometric entities of the grid
+     */
+    private final Intersectable[] items;
+    /**
+     * the nested grid of each voxel (null for a voxel without a nested grid), null if no voxel has a nested grid
+     */
+    private VoxelGrid[] subgrids;
+
+    /**
+     * Constructor - attaches each geometric entity to the voxels in its range of voxel coordinates
+     *
+     * @param nX     amount of the voxels on the X axis
+     * @param nY     amount of the voxels on the Y axis
+     * @param nZ     amount of the voxels on the Z axis
+     * @param items  the geometric entities
+     * @param ranges the voxels range of each entity - {xMin, xMax, yMin, yMax, zMin, zMax} (inclusive),
+     *               the ranges are clamped to the grid
+     */
+    public VoxelGrid(int nX, int nY, int nZ, Intersectable[] items, int[][] ranges) {
+        this(nX, nY, nZ, items, null, ranges, null);
+    }
+
+    /**
+     * Constructor - attaches each geometric entity to the voxels in its range of voxel coordinates which it overlaps
+     * (see {@link Intersectable#overlapsBox(double[], double[])})
+     *
+     * @param nX       amount of the voxels on the X axis
+     * @param nY       amount of the voxels on the Y axis
+     * @param nZ       amount of the voxels on the Z axis
+     * @param items    the geometric entities
+     * @param ranges   the voxels range of each entity (see {@link #VoxelGrid(int, int, int, Intersectable[], int[][])})
+     * @param boundary the boundary of the grid
+     */
+    public VoxelGrid(int nX, int nY, int nZ, Intersectable[] items, int[][] ranges, AABB boundary) {
+        this(nX, nY, nZ, items, null, ranges, boundary);
+    }
+
+    /**
+     * Constructor of a grid of some of the geometric entities of an entities array.<br/>
+     * The grid is built in parallel for many entities: the voxels of each entity are found, the entities of each
+     * voxel are counted in lock-free bins, and the entities are placed in their voxels - the entities of each voxel
+     * are then sorted, so the grid is the same as if the entities were placed one by one
+     *
+     * @param nX       amount of the voxels on the X axis
+     * @param nY       amount of the voxels on the Y axis
+     * @param nZ       amount of the voxels on the Z axis
+     * @param items    the geometric entities array
+     * @param ids      the indexes of the entities of the grid in the array, null for all the entities
+     * @param ranges   the voxels range of each entity of the grid (see {@link #VoxelGrid(int, int, int,
+     *                 Intersectable[], int[][])})
+     * @param boundary the boundary of the grid, null for attaching each entity to all the voxels of its range
+     */
+    private VoxelGrid(int nX, int nY, int nZ, Intersectable[] items, int[] ids, int[][] ranges, AABB boundary) {
+        if (nX <= 0 || nY <= 0 || nZ <= 0)
+            throw new IllegalArgumentException("grid must have at least one voxel on each axis");
+        if ((ids == null ? items.length : ids.length) != ranges.length)
+            throw new IllegalArgumentException("each geometric entity must have a range of voxels");
+        this.nX = nX;
+        this.nY = nY;
+        this.nZ = nZ;
+        this.items = items;
+        int cells = nX * nY * nZ;
+
+        //the voxels of each entity
+        int[][] itemCells = new int[ranges.length][];
+        indexes(ranges.length).forEach(i ->
+                itemCells[i] = findCells(items[ids == null ? i : ids[i]], ranges[i], boundary));
+
+        //count the entities of each voxel
+        AtomicIntegerArray counts = new AtomicIntegerArray(cells);
+        indexes(ranges.length).forEach(i -> {
+            for (int c : itemCells[i]) counts.incrementAndGet(c);
+        });
+        cellStart = new int[cells + 1];
+        for (int c = 0; c < cells; ++c)
+            cellStart[c + 1] = cellStart[c] + counts.get(c);
+
+        //place the entities in their voxels
+        cellItems = new int[cellStart[cells]];
+        AtomicIntegerArray next = new AtomicIntegerArray(cells);
+        indexes(ranges.length).forEach(i -> {
+            int id = ids == null ? i : ids[i];
+            for (int c : itemCells[i]) cellItems[cellStart[c] + next.getAndIncrement(c)] = id;
+        });
+        indexes(cells).forEach(c -> {
+            if (cellStart[c + 1] - cellStart[c] > 1) Arrays.sort(cellItems, cellStart[c], cellStart[c + 1]);
+        });
+    }
+
+    /**
+     * @param count amount of the indexes
+     * @return the indexes from 0, in parallel if there are many
+     */
+    private static IntStream indexes(int count) {
+        IntStream indexes = IntStream.range(0, count);
+        return count < PARALLEL_THRESHOLD ? indexes : indexes.parallel();
+    }
+
+    /**
+     * finds the voxels of a geometric entity - the voxels of its range which it overlaps
+     *
+     * @param item     the entity
+     * @param range    the voxels range of the entity (not clamped)
+     * @param boundary the boundary of the grid, null for all the voxels of the range
+     * @return the indexes of the voxels, ascending
+     */
+    private int[] findCells(Intersectable item, int[] range, AABB boundary) {
+        int xMin = clamp(range[0], nX), xMax = clamp(range[1], nX);
+        int yMin = clamp(range[2], nY), yMax = clamp(range[3], nY);
+        int zMin = clamp(range[4], nZ), zMax = clamp(range[5], nZ);
+        int[] found = new int[(xMax - xMin + 1) * (yMax - yMin + 1) * (zMax - zMin + 1)];
+        if (found.length == 1) {
+            //the entity is in a single voxel (at least its part in the grid)
+            found[0] = cell(xMin, yMin, zMin);
+            return found;
+        }
+        int count = 0;
+        double[] min = new double[3], max = new double[3], edges = new double[3];
+        if (boundary != null) {
+            edges[0] = boundary.getSize(0) / nX;
+            edges[1] = boundary.getSize(1) / nY;
+            edges[2] = boundary.getSize(2) / nZ;
+        }
+        for (int z = zMin; z <= zMax; ++z)
+            for (int y = yMin; y <= yMax; ++y)
+                for (int x = xMin; x <= xMax; ++x) {
+                    if (boundary != null) {
+                        min[0] = boundary.getMin(0) + x * edges[0];
+                        min[1] = boundary.getMin(1) + y * edges[1];
+                        min[2] = boundary.getMin(2) + z * edges[2];
+                        for (int axis = 0; axis < 3; ++axis)
+                            max[axis] = min[axis] + edges[axis];
+                        if (!item.overlapsBox(min, max)) continue;
+                    }
+                    found[count++] = cell(x, y, z);
+                }
+        return count == found.length ? found : Arrays.copyOf(found, count);
+    }
+
+    /**
+     * Constructor of a grid that was already built - restores the compressed arrays of a grid
+     * (e.g. from a compiled scene file)
+     *
+     * @param nX        amount of the voxels on the X axis
+     * @param nY        amount of the voxels on the Y axis
+     * @param nZ        amount of the voxels on the Z axis
+     * @param items     the geometric entities
+     * @param cellStart the start position of the items of each voxel
+     * @param cellItems the indexes of the geometric entities of all the voxels
+     */
+    VoxelGrid(int nX, int nY, int nZ, Intersectable[] items, int[] cellStart, int[] cellItems) {
+        if (nX <= 0 || nY <= 0 || nZ <= 0)
+            throw new IllegalArgumentException("grid must have at least one voxel on each axis");
+        if (cellStart.length != nX * nY * nZ + 1 || cellStart[nX * nY * nZ] != cellItems.length)
+            throw new IllegalArgumentException("the items of the voxels do not match the grid");
+        for (int item : cellItems)
+            if (item < 0 || item >= items.length)
+                throw new IllegalArgumentException("a voxel refers to a missing geometric entity " + item);
+        this.nX = nX;
+        this.nY = nY;
+        this.nZ = nZ;
+        this.items = items;
+        this.cellStart = cellStart;
+        this.cellItems = cellItems;
+    }
+
+    /**
+     * Nests a grid in each voxel which has more geometric entities than a threshold - over the box of the voxel,
+     * with the resolution of the cube root rule of the entities of the voxel (see {@link Scene#setResolution(int)}).
+     * The former nested grids are replaced
+     *
+     * @param boundary  the boundary of the grid
+     * @param threshold the amount of the entities of a voxel above which the voxel gets a nested grid
+     * @return amount of the voxels with nested grids
+     */
+    int subdivide(AABB boundary, int threshold) {
+        subgrids = null;
+        int[] dense = indexes(nX * nY * nZ).filter(c -> cellStart[c + 1] - cellStart[c] > threshold).toArray();
+        if (dense.length == 0)
+            return 0;
+
+        //the nested grids are built in parallel
+        double[] edges = {boundary.getSize(0) / nX, boundary.getSize(1) / nY, boundary.getSize(2) / nZ};
+        VoxelGrid[] nested = new VoxelGrid[nX * nY * nZ];
+        Arrays.stream(dense).parallel().forEach(c -> {
+            int count = cellStart[c + 1] - cellStart[c];
+
+            //the box of the voxel
+            int[] voxel = {c % nX, c / nX % nY, c / (nX * nY)};
+            double[] min = new double[3];
+            for (int axis = 0; axis < 3; ++axis)
+                min[axis] = boundary.getMin(axis) + voxel[axis] * edges[axis];
+            int[] resolutions = Scene.cubeRootResolutions(edges, count);
+
+            //the range of the nested voxels of each entity of the voxel
+            int[] ids = new int[count];
+            int[][] ranges = new int[count][6];
+            for (int i = 0; i < count; ++i) {
+                ids[i] = cellItems[cellStart[c] + i];
+                AABB box = items[ids[i]].getBoundary();
+                for (int axis = 0; axis < 3; ++axis) {
+                    double edge = edges[axis] / resolutions[axis];
+                    ranges[i][2 * axis] = (int) Math.floor((box.getMin(axis) - min[axis]) / edge);
+                    ranges[i][2 * axis + 1] = (int) Math.floor((box.getMax(axis) - min[axis]) / edge);
+                }
+            }
+
+            AABB voxelBox = new AABB(min[0], min[1], min[2],
+                    min[0] + edges[0], min[1] + edges[1], min[2] + edges[2]);
+            nested[c] = new VoxelGrid(resolutions[0], resolutions[1], resolutions[2], items, ids, ranges, voxelBox);
+        });
+        subgrids = nested;
+        return dense.length;
+    }
+
+    /**
+     * the nested grid of a voxel
+     *
+     * @param cell the voxel index
+     * @return the nested grid over the box of the voxel, null if the voxel has no nested grid
+     */
+    public VoxelGrid getSubgrid(int cell) {
+        return subgrids == null ? null : subgrids[cell];
+    }
+
+    /**
+     * clamps a voxel coordinate into the grid
+     *
+     * @param coordinate the coordinate
+     * @param n          amount of the voxels on the axis
+     * @return the clamped coordinate
+     */
+    private static int clamp(int coordinate, int n) {
+        return Math.max(0, Math.min(n - 1, coordinate));
+    }
+
+    /**
+     * the index of a voxel by its coordinates, the coordinates must be inside the grid
+     *
+     * @param x the voxel X coordinate
+     * @param y the voxel Y coordinate
+     * @param z the voxel Z coordinate
+     * @return the voxel index
+     */
+    private int cell(int x, int y, int z) {
+        return (z * nY + y) * nX + x;
+    }
+
+    /**
+     * the index of a voxel by its coordinates
+     *
+     * @param x the voxel X coordinate
+     * @param y the voxel Y coordinate
+     * @param z the voxel Z coordinate
+     * @return the voxel index, -1 if the coordinates are outside the grid
+     */
+    public int getCell(int x, int y, int z) {
+        if (x < 0 || x >= nX || y < 0 || y >= nY || z < 0 || z >= nZ)
+            return -1;
+        return cell(x, y, z);
+    }
+
+    /**
+     * the first position of the items of a voxel
+     *
+     * @param cell the voxel index
+     * @return the position of the first item of the voxel
+     */
+    public int start(int cell) {
+        return cellStart[cell];
+    }
+
+    /**
+     * the position after the last item of a voxel
+     *
+     * @param cell the voxel index
+     * @return the position after the last item of the voxel (equals to the start if the voxel is empty)
+     */
+    public int end(int cell) {
+        return cellStart[cell + 1];
+    }
+
+    /**
+     * the geometric entity of an item of a voxel
+     *
+     * @param position the position of the item (between the start and the end of its voxel)
+     * @return the geometric entity
+     */
+    public Intersectable item(int position) {
+        return items[cellItems[position]];
+    }
+
+    /**
+     * the index of the geometric entity of an item of a voxel (the entity may be in several voxels)
+     *
+     * @param position the position of the item (between the start and the end of its voxel)
+     * @return the index of the geometric entity
+     */
+    public int itemIndex(int position) {
+        return cellItems[position];
+    }
+
+    /**
+     * @return the start position of the items of each voxel
+     */
+    int[] getCellStart() {
+        return cellStart;
+    }
+
+    /**
+     * @return the indexes of the geometric entities of all the voxels
+     */
+    int[] getCellItems() {
+        return cellItems;
+    }
+
+    /**
+     * checks whether the grid was built exactly for given geometric entities
+     *
+     * @param geometries the geometric entities
+     * @return true if the grid has the same entities in the same order
+     */
+    boolean holds(List<Intersectable> geometries) {
+        if (geometries.size() != items.length)
+            return false;
+        int i = 0;
+        for (Intersectable geometry : geometries)
+            if (geometry != items[i++])
+                return false;
+        return true;
+    }
+
+    /**
+     * @return amount of the geometric entities of the grid
+     */
+    public int getItemsCount() {
+        return items.length;
+    }
+
+    /**
+     * @return amount of the voxels which have geometric entities
+     */
+    public int getOccupiedCells() {
+        int occupied = 0;
+        for (int c = 0; c < cellStart.length - 1; ++c)
+            if (cellStart[c + 1] > cellStart[c]) ++occupied;
+        return occupied;
+    }
+
+    /**
+     * @return the average amount of geometric entities in the voxels which have entities
+     */
+    public double getAverageOccupancy() {
+        int occupied = getOccupiedCells();
+        return occupied == 0 ? 0 : (double) cellItems.length / occupied;
+    }
+
+    /**
+     * @return the maximal amount of geometric entities in a voxel
+     */
+    public int getMaxOccupancy() {
+        int max = 0;
+        for (int c = 0; c < cellStart.length - 1; ++c)
+            max = Math.max(max, cellStart[c + 1] - cellStart[c]);
+        return max;
+    }
+
+    /**
+     * @return amount of the voxels on the X axis
+     */
+    public int getNx() {
+        return nX;
+    }
+
+    /**
+     * @return amount of the voxels on the Y axis
+     */
+    public int getNy() {
+        return nY;
+    }
+
+    /**
+     * @return amount of the voxels on the Z axis
+     */
+    public int getNz() {
+        return nZ;
+    }
+}
@@ -0,0 +1,164 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.RayPacket;
+import primitives.Vector;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for geometries.BVH class
+ *
+ * @author Sarah Daatyah Furmanski and Efrat Kartman
+ */
+public class BVHTests {
+
+    /**
+     * builds a group of small triangles and spheres scattered in a box
+     *
+     * @param random random generator
+     * @param amount amount of geometries
+     * @return the group of geometries
+     */
+    private Geometries randomGeometries(Random random, int amount) {
+        Geometries geometries = new Geometries();
+        for (int i = 0; i < amount; ++i) {
+            Point p = new Point(random.nextDouble() * 100 - 50, random.nextDouble() * 100 - 50, random.nextDouble() * 100 - 50);
+            if (i % 3 == 0)
+                geometries.add(new Sphere(random.nextDouble() * 3 + 0.5, p));
+            else
+                geometries.add(new Triangle(p,
+                        p.add(new Vector(random.nextDouble() * 4 + 1, 0, random.nextDouble())),
+                        p.add(new Vector(0, random.nextDouble() * 4 + 1, random.nextDouble()))));
+        }
+        return geometries;
+    }
+
+    /**
+     * Test method for {@link geometries.BVH#findClosestIntersection(Ray)}
+     */
+    @Test
+    public void testFindClosestIntersection() {
+        Random random = new Random(7);
+        Geometries geometries = randomGeometries(random, 300);
+        BVH bvh = new BVH(geometries);
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: Rays from outside the geometries towards them - same closest point as the linear search
+        for (int i = 0; i < 500; ++i) {
+            Ray ray = new Ray(new Point(0, 0, 200),
+                    new Vector(random.nextDouble() * 100 - 50, random.nextDouble() * 100 - 50, -200));
+            Intersectable.GeoPoint expected = ray.findClosestGeoPoint(geometries.findGeoIntersections(ray));
+            assertEquals(expected, bvh.findClosestIntersection(ray), "Wrong closest intersection");
+        }
+        // EP2: Rays starting among the geometries
+        for (int i = 0; i < 500; ++i) {
+            Ray ray = new Ray(Point.ZERO,
+                    new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, random.nextDouble() - 0.5));
+            Intersectable.GeoPoint expected = ray.findClosestGeoPoint(geometries.findGeoIntersections(ray));
+            assertEquals(expected, bvh.findClosestIntersection(ray), "Wrong closest intersection from inside");
+        }
+
+        // =============== Boundary Values Tests ==================
+        // BVA1: Ray misses the geometries box
+        assertNull(bvh.findClosestIntersection(new Ray(new Point(0, 0, 200), new Vector(0, 0, 1))),
+                "Ray away from the geometries must not intersect");
+        // BVA2: Infinite plane is kept outside the hierarchy and still found
+        Plane plane = new Plane(new Point(0, 0, 100), new Vector(0, 0, 1));
+        BVH withPlane = new BVH(geometries, plane);
+        Ray ray = new Ray(new Point(0, 0, 200), new Vector(0, 0, -1));
+        assertEquals(new Point(0, 0, 100), withPlane.findClosestIntersection(ray).point,
+                "Wrong closest intersection with an infinite plane");
+        // BVA3: Empty hierarchy
+        assertNull(new BVH().findClosestIntersection(ray), "Empty hierarchy must not intersect");
+    }
+
+    /**
+     * Test method for {@link geometries.BVH#findClosestIntersections(RayPacket)}
+     */
+    @Test
+    public void testFindClosestIntersections() {
+        Random random = new Random(5);
+        Geometries geometries = randomGeometries(random, 300);
+        Plane plane = new Plane(new Point(0, 0, -100), new Vector(0, 0, 1));
+        BVH bvh = new BVH(geometries, plane);
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: Beams of coherent rays - same closest intersection of every ray as a single ray query,
+        // both through the hierarchy and through the geometries list
+        for (int i = 0; i < 50; ++i) {
+            Point head = new Point(random.nextDouble() * 20 - 10, random.nextDouble() * 20 - 10, 200);
+            Vector dir = new Vector(random.nextDouble() * 100 - 50, random.nextDouble() * 100 - 50, -200);
+            List<Ray> rays = new LinkedList<>();
+            for (int j = 0; j < 25; ++j)
+                rays.add(new Ray(head, dir.add(new Vector(j % 5 - 2, j / 5 - 2, 0.5))));
+            RayPacket packet = new RayPacket(rays);
+            Intersectable.GeoPoint[] hits = bvh.findClosestIntersections(packet);
+            Intersectable.GeoPoint[] listHits = new Geometries(geometries, plane).findClosestIntersections(packet);
+            for (int lane = 0; lane < rays.size(); ++lane) {
+                Intersectable.GeoPoint expected = bvh.findClosestIntersection(rays.get(lane));
+                assertEquals(expected, hits[lane], "Wrong closest intersection of a packet ray");
+                assertEquals(expected, listHits[lane], "Wrong closest intersection of a packet ray in a list");
+            }
+        }
+
+        // =============== Boundary Values Tests ==================
+        // BVA1: Packet of a single ray which misses all the geometries
+        RayPacket packet = new RayPacket(List.of(new Ray(new Point(0, 0, 200), new Vector(0, 0, 1))));
+        assertNull(bvh.findClosestIntersections(packet)[0], "Ray away from the geometries must not intersect");
+        // BVA2: Packet of rays starting at the center of a sphere
+        Sphere sphere = new Sphere(2, new Point(1, 1, 1));
+        packet = new RayPacket(List.of(new Ray(new Point(1, 1, 1), new Vector(1, 0, 0)),
+                new Ray(new Point(1, 1, 1), new Vector(0, 0, -1))));
+        Intersectable.GeoPoint[] hits = sphere.findClosestIntersections(packet);
+        assertEquals(new Point(3, 1, 1), hits[0].point, "Wrong intersection from the center of a sphere");
+        assertEquals(new Point(1, 1, -1), hits[1].point, "Wrong intersection from the center of a sphere");
+    }
+
+    /**
+     * Test method for {@link geometries.BVH#hasIntersection(Ray, double)}
+     */
+    @Test
+    public void testHasIntersection() {
+        BVH bvh = new BVH(new Sphere(1, new Point(0, 0, -5)), new Sphere(1, new Point(10, 0, -5)));
+        Ray ray = new Ray(Point.ZERO, new Vector(0, 0, -1));
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: Intersection before the distance
+        assertTrue(bvh.hasIntersection(ray, 10), "Sphere before the distance must be found");
+        // EP2: Intersection only after the distance
+        assertFalse(bvh.hasIntersection(ray, 2), "Sphere after the distance must not be found");
+
+        // =============== Boundary Values Tests ==================
+        // BVA1: Ray misses all the geometries
+        assertFalse(bvh.hasIntersection(new Ray(Point.ZERO, new Vector(0, 1, 0)), Double.POSITIVE_INFINITY),
+                "Ray away from the geometries must not intersect");
+    }
+
+    /**
+     * Test method for {@link geometries.BVH#findIntersections(Ray)}
+     */
+    @Test
+    public void testFindIntersections() {
+        Random random = new Random(11);
+        Geometries geometries = randomGeometries(random, 100);
+        BVH bvh = new BVH(geometries);
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: Same amount of intersections as the linear search
+        for (int i = 0; i < 200; ++i) {
+            Ray ray = new Ray(new Point(0, 0, 200),
+                    new Vector(random.nextDouble() * 100 - 50, random.nextDouble() * 100 - 50, -200));
+            var expected = geometries.findIntersections(ray);
+            var result = bvh.findIntersections(ray);
+            assertEquals(expected == null ? 0 : expected.size(), result == null ? 0 : result.size(),
+                    "Wrong number of intersections");
+        }
+    }
+}
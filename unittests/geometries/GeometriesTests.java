@@ -1,6 +1,8 @@
 package geometries;
 
 import org.junit.jupiter.api.Test;
+import primitives.Double3;
+import primitives.Material;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
@@ -50,4 +52,66 @@ public class GeometriesTests {
                 "Wrong number of intersections points - empty geometries");
     }
 
+    /**
+     * Test method for {@link geometries.Geometries#findClosestIntersection(Ray, double)}
+     */
+    @Test
+    public void testFindClosestIntersection() {
+        Geometries geometries = new Geometries();
+        geometries.add(
+                new Sphere(1, new Point(0, 0, -10)),
+                new Plane(new Point(0, 0, -5), new Vector(0, 0, 1)),
+                new Triangle(new Point(-1, -1, -3), new Point(1, -1, -3), new Point(0, 1, -3))
+        );
+        Ray ray = new Ray(Point.ZERO, new Vector(0, 0, -1));
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: Closest of several geometries
+        assertEquals(new Point(0, 0, -3), geometries.findClosestIntersection(ray).point,
+                "Wrong closest intersection point");
+        // EP2: Closest geometry beyond the distance is skipped
+        assertNull(geometries.findClosestIntersection(ray, 2),
+                "Intersection beyond the distance must not be found");
+        // EP3: Closest geometry of the ones before the distance
+        assertEquals(new Point(0, 0, -3), geometries.findClosestIntersection(ray, 4).point,
+                "Wrong closest intersection point before the distance");
+
+        // =============== Boundary Values Tests ==================
+        // BVA1: Ray doesn't intersect with any of Geometries
+        assertNull(geometries.findClosestIntersection(new Ray(Point.ZERO, new Vector(0, 0, 1))),
+                "Ray away from the geometries must not intersect");
+        // BVA2: Empty Geometries
+        assertNull(new Geometries().findClosestIntersection(ray), "Empty geometries must not intersect");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#findTransparency(Ray, double, double)}
+     */
+    @Test
+    public void testFindTransparency() {
+        Geometries geometries = new Geometries();
+        geometries.add(
+                new Sphere(1, new Point(0, 0, -10)).setMaterial(new Material().setKt(0.5)),
+                new Triangle(new Point(-1, -1, -3), new Point(1, -1, -3), new Point(0, 1, -3))
+                        .setMaterial(new Material().setKt(0.5)),
+                new Plane(new Point(0, 0, -20), new Vector(0, 0, 1))
+        );
+        Ray ray = new Ray(Point.ZERO, new Vector(0, 0, -1));
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: Transparent geometries only before the distance - the factors are multiplied (triangle once, sphere twice)
+        assertEquals(new Double3(0.125), geometries.findTransparency(ray, 15, 0.001),
+                "Wrong transparency of transparent geometries");
+        // EP2: Opaque geometry before the distance blocks the ray
+        assertTrue(geometries.findTransparency(ray, 25, 0.001).lowerThan(0.001),
+                "Opaque geometry must block the ray");
+
+        // =============== Boundary Values Tests ==================
+        // BVA1: No geometry before the distance
+        assertEquals(Double3.ONE, geometries.findTransparency(ray, 2, 0.001),
+                "Geometries beyond the distance must not block the ray");
+        // BVA2: Transparency falls below the minimal factor - stops as blocked
+        assertTrue(geometries.findTransparency(ray, 15, 0.2).lowerThan(0.2),
+                "Transparency below the minimal factor must stop the search");
+    }
 }
@@ -0,0 +1,211 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.Double3;
+import primitives.Material;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for geometries.Mesh class
+ *
+ * @author Sarah Daatyah Furmanski and Efrat Kartman
+ */
+public class MeshTests {
+    /**
+     * a pyramid of 4 faces over the square [-1,1]x[-1,1] on the plane z = 0, with its apex at (0,0,1)
+     */
+    private final double[] pyramidVertices = {-1, -1, 0, 1, -1, 0, 1, 1, 0, -1, 1, 0, 0, 0, 1};
+    private final int[] pyramidIndices = {0, 1, 4, 1, 2, 4, 2, 3, 4, 3, 0, 4};
+
+    /**
+     * @param size amount of the cells of the grid on each axis
+     * @return vertices of a grid of size x size cells over the plane z = 0, bent by a height function
+     */
+    private static double[] surfaceVertices(int size) {
+        double[] vertices = new double[3 * (size + 1) * (size + 1)];
+        for (int i = 0; i <= size; ++i)
+            for (int j = 0; j <= size; ++j) {
+                int vertex = 3 * (i * (size + 1) + j);
+                vertices[vertex] = j - size / 2d;
+                vertices[vertex + 1] = i - size / 2d;
+                vertices[vertex + 2] = Math.sin(i * 0.7) * Math.cos(j * 0.4);
+            }
+        return vertices;
+    }
+
+    /**
+     * @param size amount of the cells of the grid on each axis
+     * @return the faces of the grid - 2 triangles in each cell
+     */
+    private static int[] surfaceIndices(int size) {
+        int[] indices = new int[6 * size * size];
+        int next = 0;
+        for (int i = 0; i < size; ++i)
+            for (int j = 0; j < size; ++j) {
+                int corner = i * (size + 1) + j;
+                indices[next++] = corner;
+                indices[next++] = corner + 1;
+                indices[next++] = corner + size + 2;
+                indices[next++] = corner;
+                indices[next++] = corner + size + 2;
+                indices[next++] = corner + size + 1;
+            }
+        return indices;
+    }
+
+    /**
+     * Test method for {@link geometries.Mesh#Mesh(double[], int[])}
+     */
+    @Test
+    public void testConstructor() {
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: Correct mesh
+        Mesh mesh = new Mesh(pyramidVertices, pyramidIndices);
+        assertEquals(5, mesh.getVerticesCount(), "Wrong amount of vertices");
+        assertEquals(4, mesh.getFacesCount(), "Wrong amount of faces");
+        // EP2: Face refers to a missing vertex
+        assertThrows(IllegalArgumentException.class, () -> new Mesh(pyramidVertices, new int[]{0, 1, 5}),
+                "Face with a missing vertex must throw");
+
+        // =============== Boundary Values Tests ==================
+        // BVA1: No faces
+        assertThrows(IllegalArgumentException.class, () -> new Mesh(pyramidVertices, new int[0]),
+                "Mesh without faces must throw");
+        // BVA2: Partial face
+        assertThrows(IllegalArgumentException.class, () -> new Mesh(pyramidVertices, new int[]{0, 1}),
+                "Partial face must throw");
+        // BVA3: Partial vertex
+        assertThrows(IllegalArgumentException.class, () -> new Mesh(new double[]{0, 0, 0, 1, 0}, new int[]{0, 0, 0}),
+                "Partial vertex must throw");
+    }
+
+    /**
+     * Test method for {@link geometries.Mesh#findIntersections(Ray)}
+     */
+    @Test
+    public void testFindIntersections() {
+        Mesh mesh = new Mesh(pyramidVertices, pyramidIndices);
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: Ray crosses the pyramid through two faces
+        Ray ray = new Ray(new Point(-2, 0, 0.5), new Vector(1, 0, 0));
+        List<Point> result = mesh.findIntersections(ray);
+        assertNotNull(result, "Ray must cross the pyramid");
+        assertEquals(2, result.size(), "Wrong number of points");
+        assertTrue(result.containsAll(List.of(new Point(-0.5, 0, 0.5), new Point(0.5, 0, 0.5))),
+                "Wrong intersection points");
+        // EP2: Ray misses the pyramid
+        assertNull(mesh.findIntersections(new Ray(new Point(-2, 0, 2), new Vector(1, 0, 0))),
+                "Ray must miss the pyramid");
+
+        // =============== Boundary Values Tests ==================
+        // BVA1: Ray through the shared edge of two faces - like a triangle, not intersected on its edges
+        assertNull(mesh.findIntersections(new Ray(new Point(2, 2, 0.5), new Vector(-1, -1, 0))),
+                "Ray through the edges must not intersect");
+    }
+
+    /**
+     * Test method for {@link geometries.Mesh#findClosestIntersection(Ray, double)}
+     */
+    @Test
+    public void testFindClosestIntersection() {
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: The same intersections as a composite of the triangles of the mesh, for many random rays
+        int size = 12;
+        double[] vertices = surfaceVertices(size);
+        int[] indices = surfaceIndices(size);
+        Mesh mesh = new Mesh(vertices, indices);
+        Geometries triangles = new Geometries();
+        for (int i = 0; i < indices.length; i += 3)
+            triangles.add(new Triangle(point(vertices, indices[i]), point(vertices, indices[i + 1]),
+                    point(vertices, indices[i + 2])));
+
+        Random random = new Random(3);
+        for (int i = 0; i < 500; ++i) {
+            Ray ray = new Ray(new Point(random.nextDouble() * 4 - 2, random.nextDouble() * 4 - 2, 5),
+                    new Vector(random.nextDouble() * 2 - 1, random.nextDouble() * 2 - 1, -1));
+            Intersectable.GeoPoint expected = triangles.findClosestIntersection(ray);
+            Intersectable.GeoPoint actual = mesh.findClosestIntersection(ray);
+            if (expected == null)
+                assertNull(actual, "Ray must miss the mesh");
+            else {
+                assertNotNull(actual, "Ray must hit the mesh");
+                assertEquals(expected.point, actual.point, "Wrong closest intersection");
+                assertSame(mesh, ((Mesh.Face) actual.geometry).getMesh(), "Intersection must be on a face of the mesh");
+            }
+        }
+
+        // =============== Boundary Values Tests ==================
+        // BVA1: Intersection beyond the maximal distance
+        Ray ray = new Ray(new Point(0.3, 0.2, 5), new Vector(0, 0, -1));
+        assertNotNull(mesh.findClosestIntersection(ray), "Ray must hit the mesh");
+        assertNull(mesh.findClosestIntersection(ray, 3), "Intersection beyond the distance must not be found");
+    }
+
+    /**
+     * @param vertices the vertices buffer
+     * @param vertex   index of a vertex
+     * @return the vertex
+     */
+    private static Point point(double[] vertices, int vertex) {
+        return new Point(vertices[3 * vertex], vertices[3 * vertex + 1], vertices[3 * vertex + 2]);
+    }
+
+    /**
+     * Test method for {@link geometries.Mesh#getNormal(Point)} and the normals of the intersections
+     */
+    @Test
+    public void testGetNormal() {
+        Mesh mesh = new Mesh(pyramidVertices, pyramidIndices);
+        double n = Math.sqrt(0.5);
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: Flat shading - the normal of the face
+        assertEquals(new Vector(0, -n, n), mesh.getNormal(new Point(0, -0.5, 0.5)), "Wrong normal of a face");
+        Ray ray = new Ray(new Point(0, -2, 0.5), new Vector(0, 1, 0));
+        assertEquals(new Vector(0, -n, n), mesh.findClosestIntersection(ray).geometry.getNormal(null),
+                "Wrong normal of an intersection");
+        // EP2: Smooth shading - the normals of the vertices interpolated at the intersection
+        mesh.setVertexNormals(new double[]{0, -1, 0, 0, -1, 0, 0, -1, 0, 0, -1, 0, 0, 0, 1});
+        Intersectable.GeoPoint gp = mesh.findClosestIntersection(ray);
+        assertEquals(new Vector(0, -n, n), gp.geometry.getNormal(gp.point), "Wrong interpolated normal");
+        // EP3: Point outside the mesh
+        assertThrows(IllegalArgumentException.class, () -> mesh.getNormal(new Point(3, 3, 3)),
+                "Point outside the mesh must throw");
+
+        // =============== Boundary Values Tests ==================
+        // BVA1: Calculated normals of the vertices - the apex gets the average of the faces around it
+        mesh.calcVertexNormals();
+        assertEquals(new Vector(0, 0, 1), mesh.getNormal(new Point(0, 0, 1)), "Wrong calculated normal at the apex");
+        // BVA2: Wrong amount of normals
+        assertThrows(IllegalArgumentException.class, () -> mesh.setVertexNormals(new double[3]),
+                "Wrong amount of normals must throw");
+    }
+
+    /**
+     * Test method for {@link geometries.Mesh#findTransparency(Ray, double, double)}
+     */
+    @Test
+    public void testFindTransparency() {
+        Ray ray = new Ray(new Point(-2, 0, 0.5), new Vector(1, 0, 0));
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: Opaque mesh blocks the ray
+        Mesh mesh = new Mesh(pyramidVertices, pyramidIndices);
+        assertEquals(Double3.ZERO, mesh.findTransparency(ray, 10, 0.001), "Opaque mesh must block the ray");
+        // EP2: Transparent mesh - both faces the ray crosses
+        mesh.setMaterial(new Material().setKt(0.5));
+        assertEquals(new Double3(0.25), mesh.findTransparency(ray, 10, 0.001), "Wrong transparency of two faces");
+
+        // =============== Boundary Values Tests ==================
+        // BVA1: Only the faces before the distance
+        assertEquals(new Double3(0.5), mesh.findTransparency(ray, 2, 0.001), "Wrong transparency of one face");
+    }
+}
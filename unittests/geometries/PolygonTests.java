@@ -124,4 +124,39 @@ public class PolygonTests {
         assertNull(polygon.findIntersections(ray),
                 "Ray failed to NOT intersect polygon, on polygon's edge's vector");
     }
+
+    /**
+     * Test method for {@link geometries.Polygon#overlapsBox(double[], double[])}
+     */
+    @Test
+    public void testOverlapsBox() {
+        Polygon triangle = new Triangle(new Point(0, 0, 0), new Point(4, 0, 0), new Point(0, 4, 0));
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: The box contains a part of the polygon
+        assertTrue(triangle.overlapsBox(new double[]{-1, -1, -1}, new double[]{1, 1, 1}),
+                "Box over a vertex must overlap the polygon");
+        // EP2: The box contains the whole polygon
+        assertTrue(triangle.overlapsBox(new double[]{-1, -1, -1}, new double[]{5, 5, 1}),
+                "Box around the polygon must overlap it");
+        // EP3: The box is on one side of the plane of the polygon
+        assertFalse(triangle.overlapsBox(new double[]{0, 0, 1}, new double[]{1, 1, 2}),
+                "Box above the polygon must not overlap it");
+        // EP4: The box is out of the bounding box of the polygon
+        assertFalse(triangle.overlapsBox(new double[]{5, 0, -1}, new double[]{6, 1, 1}),
+                "Box beside the polygon must not overlap it");
+        // EP5: The box is in the bounding box of the polygon, but beyond an edge
+        assertFalse(triangle.overlapsBox(new double[]{3, 3, -1}, new double[]{4, 4, 1}),
+                "Box beyond the edge of the polygon must not overlap it");
+
+        // =============== Boundary Values Tests ==================
+        // BVA1: The corner of the box is on an edge of the polygon
+        assertTrue(triangle.overlapsBox(new double[]{2, 2, -1}, new double[]{3, 3, 1}),
+                "Box touching the edge must overlap the polygon");
+        // BVA2: The corner of the box is on a vertex of the polygon
+        assertTrue(triangle.overlapsBox(new double[]{4, 0, 0}, new double[]{5, 1, 1}),
+                "Box touching the vertex must overlap the polygon");
+        // BVA3: A face of the box is on the plane of the polygon
+        assertTrue(triangle.overlapsBox(new double[]{1, 1, 0}, new double[]{2, 2, 1}),
+                "Box on the polygon must overlap it");
+    }
 }
@@ -116,4 +116,61 @@ public class SphereTests {
         assertNull(sphere1.findIntersections( new Ray(new Point(3,-2,1),new Vector(0,-2,1))),
                 "Ray is orthogonal to the center line of the sphere");
     }
-}
\ No newline at end of file
+
+    /**
+     * Test method for {@link geometries.Sphere#findClosestIntersection(Ray, double)}.
+     */
+    @Test
+    public void testFindClosestIntersection() {
+        Sphere sphere = new Sphere(1d, new Point(1, 0, 0));
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: Ray starts before the sphere - the first of the two points
+        Ray ray = new Ray(new Point(-1, 0, 0), new Vector(1, 0, 0));
+        assertEquals(new Point(0, 0, 0), sphere.findClosestIntersection(ray).point,
+                "Wrong closest point - Ray starts before the sphere");
+        // EP2: Ray starts inside the sphere - the only point
+        ray = new Ray(new Point(0.5, 0, 0), new Vector(1, 0, 0));
+        assertEquals(new Point(2, 0, 0), sphere.findClosestIntersection(ray).point,
+                "Wrong closest point - Ray starts inside the sphere");
+        // EP3: The sphere is beyond the distance
+        ray = new Ray(new Point(-1, 0, 0), new Vector(1, 0, 0));
+        assertNull(sphere.findClosestIntersection(ray, 0.5),
+                "Point beyond the distance must not be found");
+
+        // =============== Boundary Values Tests ==================
+        // BVA1: Ray misses the sphere
+        assertNull(sphere.findClosestIntersection(new Ray(new Point(-1, 0, 0), new Vector(0, 1, 0))),
+                "Ray misses the sphere");
+        // BVA2: Ray starts at the center
+        assertEquals(new Point(1, 1, 0),
+                sphere.findClosestIntersection(new Ray(new Point(1, 0, 0), new Vector(0, 1, 0))).point,
+                "Wrong closest point - Ray starts at the center");
+    }
+
+    /**
+     * Test method for {@link geometries.Sphere#overlapsBox(double[], double[])}
+     */
+    @Test
+    public void testOverlapsBox() {
+        Sphere sphere = new Sphere(1d, new Point(0, 0, 0));
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: The box is inside the sphere
+        assertTrue(sphere.overlapsBox(new double[]{-0.5, -0.5, -0.5}, new double[]{0.5, 0.5, 0.5}),
+                "Box inside the sphere must overlap it");
+        // EP2: The box contains the sphere
+        assertTrue(sphere.overlapsBox(new double[]{-2, -2, -2}, new double[]{2, 2, 2}),
+                "Box around the sphere must overlap it");
+        // EP3: The box crosses the surface of the sphere
+        assertTrue(sphere.overlapsBox(new double[]{0.5, 0.5, 0.5}, new double[]{2, 2, 2}),
+                "Box crossing the sphere must overlap it");
+        // EP4: The box is in the bounding box of the sphere, but out of the sphere
+        assertFalse(sphere.overlapsBox(new double[]{0.7, 0.7, 0.7}, new double[]{2, 2, 2}),
+                "Box in the corner of the bounding box must not overlap the sphere");
+
+        // =============== Boundary Values Tests ==================
+        // BVA1: A face of the box is tangent to the sphere
+        assertTrue(sphere.overlapsBox(new double[]{1, -1, -1}, new double[]{2, 1, 1}),
+                "Box tangent to the sphere must overlap it");
+    }
+}
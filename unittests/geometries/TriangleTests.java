@@ -67,4 +67,43 @@ public class TriangleTests {
         assertNull(triangle.findIntersections(ray),
                 "Ray failed to NOT intersect triangle, on triangle's edge's vector");
     }
-}
\ No newline at end of file
+
+    /**
+     * Test method for {@link geometries.Triangle#intersect(Ray, double, double[])}
+     */
+    @Test
+    public void testIntersect() {
+        Triangle triangle = new Triangle(new Point(0, 0, 0), new Point(2, 0, 0), new Point(0, 2, 0));
+        double[] uv = new double[2];
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: Ray intersects the triangle - distance and weights of the second and third vertices
+        double t = triangle.intersect(new Ray(new Point(0.5, 1, 2), new Vector(0, 0, -1)), Double.POSITIVE_INFINITY, uv);
+        assertEquals(2, t, 1e-12, "Wrong distance of the intersection");
+        assertEquals(0.25, uv[0], 1e-12, "Wrong weight of the second vertex");
+        assertEquals(0.5, uv[1], 1e-12, "Wrong weight of the third vertex");
+        // EP2: Ray from the other side of the triangle
+        t = triangle.intersect(new Ray(new Point(1, 0.5, -3), new Vector(0, 0, 1)), Double.POSITIVE_INFINITY, uv);
+        assertEquals(3, t, 1e-12, "Wrong distance of the intersection from the back");
+        assertEquals(0.5, uv[0], 1e-12, "Wrong weight of the second vertex from the back");
+        assertEquals(0.25, uv[1], 1e-12, "Wrong weight of the third vertex from the back");
+        // EP3: Intersection beyond the maximal distance
+        assertEquals(Double.POSITIVE_INFINITY,
+                triangle.intersect(new Ray(new Point(0.5, 1, 2), new Vector(0, 0, -1)), 1.5, uv),
+                "Intersection beyond the distance must not be found");
+
+        // =============== Boundary Values Tests ==================
+        // BVA1: Ray parallel to the triangle
+        assertEquals(Double.POSITIVE_INFINITY,
+                triangle.intersect(new Ray(new Point(-1, 0.5, 0), new Vector(1, 0, 0)), Double.POSITIVE_INFINITY, uv),
+                "Ray parallel to the triangle must not intersect it");
+        // BVA2: Ray through the hypotenuse
+        assertEquals(Double.POSITIVE_INFINITY,
+                triangle.intersect(new Ray(new Point(1, 1, 1), new Vector(0, 0, -1)), Double.POSITIVE_INFINITY, null),
+                "Ray through an edge must not intersect the triangle");
+        // BVA3: Ray starts on the triangle
+        assertEquals(Double.POSITIVE_INFINITY,
+                triangle.intersect(new Ray(new Point(0.5, 0.5, 0), new Vector(0, 0, -1)), Double.POSITIVE_INFINITY, null),
+                "Ray starting on the triangle must not intersect it");
+    }
+}
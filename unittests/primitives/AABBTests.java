@@ -0,0 +1,91 @@
+package primitives;
+
+import geometries.Cylinder;
+import geometries.Plane;
+import geometries.Sphere;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for primitives.AABB class
+ * @author Sarah Daatyah Furmanski and Efrat Kartman
+ */
+public class AABBTests {
+
+    /**
+     * Test method for {@link primitives.AABB#AABB(Point...)}.
+     */
+    @Test
+    public void testConstructor() {
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: Bounding box of points
+        assertEquals(new AABB(-1, 0, 0.5, 2, 3, 1.5),
+                new AABB(new Point(-1, 3, 1.5), new Point(2, 0, 0.5), new Point(0, 1, 1)),
+                "Wrong bounding box of points");
+
+        // =============== Boundary Values Tests ==================
+        // BVA1: Single point gives an empty box
+        assertEquals(0, new AABB(new Point(1, 2, 3)).getSize(1), "Box of a single point must be empty");
+        // BVA2: No points
+        assertThrows(IllegalArgumentException.class, () -> new AABB(new Point[0]),
+                "Box without points must throw");
+        // BVA3: Minimal coordinate bigger than the maximal one
+        assertThrows(IllegalArgumentException.class, () -> new AABB(1, 0, 0, 0, 1, 1),
+                "Inverted box must throw");
+    }
+
+    /**
+     * Test method for {@link primitives.AABB#union(AABB)}.
+     */
+    @Test
+    public void testUnion() {
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: Disjoint boxes
+        assertEquals(new AABB(0, 0, 0, 3.5, 3, 2),
+                new AABB(0, 0, 0, 1, 1, 1).union(new AABB(2, 2, 1.5, 3.5, 3, 2)),
+                "Wrong union of disjoint boxes");
+
+        // =============== Boundary Values Tests ==================
+        // BVA1: Box inside the other box
+        AABB outer = new AABB(0, 0, 0, 4, 4, 4);
+        assertEquals(outer, outer.union(new AABB(1, 1, 1, 2, 2, 2)), "Union with an inner box must not change");
+    }
+
+    /**
+     * Test method for {@link primitives.AABB#contains(Point)}.
+     */
+    @Test
+    public void testContains() {
+        AABB box = new AABB(0, 0, 0, 2, 2, 2);
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: Point inside the box
+        assertTrue(box.contains(new Point(1, 1, 1)), "Point inside the box");
+        // EP2: Point outside the box
+        assertFalse(box.contains(new Point(1, 3, 1)), "Point outside the box");
+
+        // =============== Boundary Values Tests ==================
+        // BVA1: Point on a face of the box
+        assertTrue(box.contains(new Point(2, 1, 1)), "Point on a face of the box");
+    }
+
+    /**
+     * Test method for the bounding boxes of the geometries.
+     */
+    @Test
+    public void testGeometriesBoundary() {
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: Sphere is bounded exactly, without rounding to integers
+        assertEquals(new AABB(0.5, -0.5, -0.5, 1.5, 0.5, 0.5), new Sphere(0.5, new Point(1, 0, 0)).getBoundary(),
+                "Wrong sphere boundary");
+        // EP2: Tilted cylinder - its bases are discs, so the box is tighter than the axis ends +- the radius
+        double s = Math.sqrt(0.5);
+        Cylinder cylinder = new Cylinder(1, new Ray(new Point(0, 0, 0), new Vector(1, 1, 0)), 2 / s);
+        assertEquals(new AABB(-s, -s, -1, 2 + s, 2 + s, 1), cylinder.getBoundary(), "Wrong tilted cylinder boundary");
+
+        // =============== Boundary Values Tests ==================
+        // BVA1: Infinite geometry has no boundary
+        assertNull(new Plane(new Point(0, 0, 1), new Vector(0, 0, 1)).getBoundary(), "Plane must not be bounded");
+    }
+}
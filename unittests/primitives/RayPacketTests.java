@@ -0,0 +1,61 @@
+package primitives;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for primitives.RayPacket class
+ * @author Sarah Daatyah Furmanski and Efrat Kartman
+ */
+public class RayPacketTests {
+
+    /**
+     * Test method for {@link primitives.RayPacket#RayPacket(List)}.
+     */
+    @Test
+    public void testConstructor() {
+        Ray ray = new Ray(new Point(1, 2, 3), new Vector(0, 3, 4));
+        RayPacket packet = new RayPacket(List.of(new Ray(Point.ZERO, new Vector(1, 0, 0)), ray));
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: The coordinates of the rays are stored by their lanes
+        assertEquals(2, packet.size(), "Wrong packet size");
+        assertSame(ray, packet.getRay(1), "Wrong ray of a lane");
+        assertEquals(2, packet.oy[1], "Wrong head coordinate");
+        assertEquals(0.8, packet.dz[1], 1e-12, "Wrong direction coordinate");
+        assertEquals(1.25, packet.invDz[1], 1e-12, "Wrong inverse direction coordinate");
+        assertArrayEquals(new int[]{0, 1}, packet.getLanes(), "Wrong lanes");
+    }
+
+    /**
+     * Test method for {@link primitives.RayPacket#missesBox(double[], double[])}.
+     */
+    @Test
+    public void testMissesBox() {
+        // a beam of rays from the origin towards the square [9,11]x[9,11] on the plane z = 10
+        RayPacket beam = new RayPacket(List.of(new Ray(Point.ZERO, new Vector(9, 9, 10)),
+                new Ray(Point.ZERO, new Vector(11, 9, 10)),
+                new Ray(Point.ZERO, new Vector(9, 11, 10)),
+                new Ray(Point.ZERO, new Vector(11, 11, 10))));
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: Box far aside of the beam
+        assertTrue(beam.missesBox(new double[]{-5, -5, 9}, new double[]{-3, -3, 11}), "Beam must miss a box aside");
+        // EP2: Box inside the beam
+        assertFalse(beam.missesBox(new double[]{9.5, 9.5, 9}, new double[]{10.5, 10.5, 11}),
+                "Beam must not miss a box inside it");
+        // EP3: Box behind the heads of the rays
+        assertTrue(beam.missesBox(new double[]{-11, -11, -11}, new double[]{-9, -9, -9}),
+                "Beam must miss a box behind it");
+
+        // =============== Boundary Values Tests ==================
+        // BVA1: Directions with different signs on an axis - no interval test
+        RayPacket spread = new RayPacket(List.of(new Ray(Point.ZERO, new Vector(1, 1, 1)),
+                new Ray(Point.ZERO, new Vector(-1, 1, 1))));
+        assertFalse(spread.missesBox(new double[]{-5, -5, -15}, new double[]{-3, -3, -13}),
+                "Incoherent packet must not reject a box");
+    }
+}
@@ -0,0 +1,54 @@
+package primitives;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for primitives.VectorMath class
+ * @author Sarah Daatyah Furmanski and Efrat Kartman
+ */
+public class VectorMathTests {
+
+    /**
+     * Test method for {@link primitives.VectorMath#subtractDotProduct(Point, Point, Vector)}.
+     */
+    @Test
+    public void testSubtractDotProduct() {
+        Point a = new Point(1, 2, 3);
+        Point b = new Point(-2, 0, 4);
+        Vector v = new Vector(2, -1, 5);
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: Same as the dot product of the vector between the points
+        assertEquals(a.subtract(b).dotProduct(v), VectorMath.subtractDotProduct(a, b, v), 1e-12,
+                "Wrong dot product of the points subtraction");
+
+        // =============== Boundary Values Tests ==================
+        // BVA1: Equal points
+        assertEquals(0, VectorMath.subtractDotProduct(a, a, v), 1e-12, "Equal points must give 0");
+    }
+
+    /**
+     * Test method for {@link primitives.VectorMath#reflectionDotProduct(Vector, Vector, Vector, double)}.
+     */
+    @Test
+    public void testReflectionDotProduct() {
+        Vector v = new Vector(1, -2, -3).normalize();
+        Vector l = new Vector(-1, -1, -2).normalize();
+        Vector n = new Vector(0, 0, 1);
+        double nl = n.dotProduct(l);
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: Same as the dot product with the reflected vector
+        Vector r = l.subtract(n.scale(2 * nl));
+        assertEquals(v.scale(-1).dotProduct(r), VectorMath.reflectionDotProduct(v, l, n, nl), 1e-12,
+                "Wrong dot product with the reflected vector");
+
+        // =============== Boundary Values Tests ==================
+        // BVA1: Vector perpendicular to the surface is reflected back opposite to itself
+        Vector d = new Vector(0, 0, -1);
+        assertEquals(1, VectorMath.reflectionDotProduct(d, d, n, n.dotProduct(d)), 1e-12,
+                "Wrong dot product with a perpendicular reflection");
+    }
+}
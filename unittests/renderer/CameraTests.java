@@ -1,9 +1,25 @@
 package renderer;
 
 import org.junit.jupiter.api.Test;
+import primitives.Color;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
+import scene.Scene;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 /**
@@ -56,4 +72,299 @@ public class CameraTests {
 
     }
 
+    /**
+     * ray tracer for testing the rendering - counts the traced rays, may be slowed down or fail
+     */
+    private static class CountingRayTracer extends RayTracerBase {
+        final AtomicInteger rays = new AtomicInteger();
+        private final long delay;
+        private final int failAt;
+
+        /**
+         * Constructor
+         *
+         * @param delay  milliseconds to wait for every ray
+         * @param failAt the number of the ray which fails, 0 for no failure
+         */
+        CountingRayTracer(long delay, int failAt) {
+            super(new Scene("Test scene"));
+            this.delay = delay;
+            this.failAt = failAt;
+        }
+
+        @Override
+        public Color traceRay(Ray ray) {
+            if (rays.incrementAndGet() == failAt) throw new IllegalArgumentException("ray failure");
+            if (delay > 0)
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            return Color.BLACK;
+        }
+
+        @Override
+        public Color traceRays(List<Ray> rays) {
+            return traceRay(rays.get(0));
+        }
+    }
+
+    /**
+     * creates a camera rendering by the given ray tracer
+     *
+     * @param rayTracer the ray tracer
+     * @return the camera
+     */
+    private Camera camera(RayTracerBase rayTracer) {
+        return new Camera(ZERO_POINT, new Vector(0, 0, -1), new Vector(0, -1, 0))
+                .setViewPlaneSize(10, 10).setViewPlaneDistance(10)
+                .setImageWriter(new ImageWriter("executor test", 20, 20)).setRayTracer(rayTracer);
+    }
+
+    /**
+     * Test method for rendering by an executor service
+     * {@link renderer.Camera#setExecutor(ExecutorService)}
+     */
+    @Test
+    public void testRenderImageExecutor() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            // ============ Equivalence Partitions Tests ==============
+            // EP1: All the pixels are rendered
+            CountingRayTracer tracer = new CountingRayTracer(0, 0);
+            camera(tracer).setMultithreading(1, 6).setExecutor(executor).renderImage();
+            assertEquals(400, tracer.rays.get(), "Wrong amount of rendered pixels");
+
+            // EP2: Failure of a tile is reported
+            IllegalStateException failure = assertThrows(IllegalStateException.class,
+                    () -> camera(new CountingRayTracer(0, 100)).setExecutor(executor).renderImage(),
+                    "Failure of a tile must be reported");
+            assertInstanceOf(IllegalArgumentException.class, failure.getCause(), "Wrong failure cause");
+
+            // EP3: Rendering longer than the timeout
+            tracer = new CountingRayTracer(5, 0);
+            assertThrows(IllegalStateException.class,
+                    camera(tracer).setExecutor(executor).setRenderTimeout(Duration.ofMillis(50))::renderImage,
+                    "Rendering longer than the timeout must fail");
+            int rays = tracer.rays.get();
+            Thread.sleep(100);
+            // each of the 3 threads may finish the row of its tile (16 pixels)
+            assertTrue(tracer.rays.get() - rays <= 3 * 16, "Rendering must stop after the timeout");
+
+            // EP4: Cancelled rendering
+            Camera camera = camera(new CountingRayTracer(5, 0)).setExecutor(executor);
+            Thread canceller = new Thread(() -> {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException ignore) {
+                }
+                camera.cancelRendering();
+            });
+            canceller.start();
+            assertThrows(CancellationException.class, camera::renderImage, "Cancelled rendering must throw");
+            canceller.join();
+
+            // =============== Boundary Values Tests ==================
+            // BVA1: Cancelling when there is no rendering
+            assertDoesNotThrow(() -> camera(new CountingRayTracer(0, 0)).cancelRendering(),
+                    "Cancelling without rendering must do nothing");
+            // BVA2: Cancelling while the tiles are submitted - the later tiles are not submitted
+            CountingRayTracer cancelledTracer = new CountingRayTracer(0, 0);
+            Camera submitting = camera(cancelledTracer);
+            AtomicInteger submitted = new AtomicInteger();
+            ExecutorService cancelling = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>()) {
+                @Override
+                public void execute(Runnable task) {
+                    if (submitted.incrementAndGet() == 2) submitting.cancelRendering();
+                    super.execute(task);
+                }
+            };
+            try {
+                assertThrows(CancellationException.class, submitting.setExecutor(cancelling)::renderImage,
+                        "Rendering cancelled while submitting must throw");
+                assertEquals(2, submitted.get(), "Tiles must not be submitted after the cancellation");
+                assertDoesNotThrow(submitting::renderImage, "The cancellation must not affect a later rendering");
+            } finally {
+                cancelling.shutdownNow();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Test method for progressive rendering
+     * {@link renderer.Camera#setProgressive(int, Duration, SnapshotListener)}
+     */
+    @Test
+    public void testRenderImageProgressive() {
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: The passes trace all the samples of the anti-aliasing grid, and a snapshot is taken after each pass
+        CountingRayTracer tracer = new CountingRayTracer(0, 0);
+        List<Integer> snapshots = new ArrayList<>();
+        camera(tracer).setAntiAliasingFactor(4).setProgressive(3, null, (pass, passes, imageWriter) -> {
+            assertEquals(3, passes, "Wrong amount of passes");
+            snapshots.add(tracer.rays.get());
+            return true;
+        }).renderImage();
+        // 1 sample, then 4 samples, then 16 samples of each pixel
+        assertEquals(List.of(400, 1600, 6400), snapshots, "Wrong samples of the passes");
+
+        // EP2: The listener stops the rendering
+        CountingRayTracer stopped = new CountingRayTracer(0, 0);
+        camera(stopped).setAntiAliasingFactor(4).setProgressive(3, null, (pass, passes, imageWriter) -> pass < 2)
+                .renderImage();
+        assertEquals(1600, stopped.rays.get(), "Rendering must stop after the pass of the listener");
+
+        // EP3: Snapshots are taken by their interval, and after the last pass
+        snapshots.clear();
+        camera(new CountingRayTracer(0, 0)).setAntiAliasingFactor(4)
+                .setProgressive(5, Duration.ofHours(1), (pass, passes, imageWriter) -> snapshots.add(pass))
+                .renderImage();
+        assertEquals(List.of(5), snapshots, "Only the last pass must be snapshot");
+
+        // EP4: The samples of the grid are ordered from coarse to fine
+        int[] order = Camera.sampleOrder(9);
+        assertEquals(40, order[0], "The first sample must be the center of the pixel");
+        assertEquals(81, Arrays.stream(order).distinct().count(), "Each sample must be ordered once");
+
+        // =============== Boundary Values Tests ==================
+        // BVA1: More passes than the samples of a pixel
+        snapshots.clear();
+        CountingRayTracer limited = new CountingRayTracer(0, 0);
+        camera(limited).setAntiAliasingFactor(2)
+                .setProgressive(10, null, (pass, passes, imageWriter) -> snapshots.add(passes)).renderImage();
+        assertEquals(List.of(4, 4, 4, 4), snapshots, "The passes must be limited by the samples");
+        assertEquals(1600, limited.rays.get(), "Wrong amount of samples");
+        // BVA2: Negative amount of passes
+        assertThrows(IllegalArgumentException.class,
+                () -> camera(tracer).setProgressive(-1, null, null), "Negative passes must throw");
+    }
+
+    /**
+     * ray tracer for testing the time-budgeted rendering - white on one side of a vertical edge, black on the other
+     */
+    private static class EdgeRayTracer extends CountingRayTracer {
+        final Set<Ray> traced = ConcurrentHashMap.newKeySet();
+
+        /**
+         * Constructor
+         *
+         * @param delay milliseconds to wait for every ray
+         */
+        EdgeRayTracer(long delay) {
+            super(delay, 0);
+        }
+
+        @Override
+        public Color traceRay(Ray ray) {
+            super.traceRay(ray);
+            traced.add(ray);
+            return ray.getDir().getX() > 0.01 ? new Color(255, 255, 255) : Color.BLACK;
+        }
+    }
+
+    /**
+     * Test method for time-budgeted rendering
+     * {@link renderer.Camera#setTimeBudget(Duration)}
+     */
+    @Test
+    public void testRenderImageTimeBudget() {
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: Image without variance is rendered by one sample in each pixel
+        CountingRayTracer flat = new CountingRayTracer(0, 0);
+        camera(flat).setAntiAliasingFactor(4).setTimeBudget(Duration.ofMinutes(1)).renderImage();
+        assertEquals(400, flat.rays.get(), "Pixels without variance must not be refined");
+
+        // EP2: The pixels of the edge get more samples, until their variance is known
+        EdgeRayTracer edge = new EdgeRayTracer(0);
+        List<Integer> passes = new ArrayList<>();
+        Camera camera = camera(edge).setAntiAliasingFactor(4).setTimeBudget(Duration.ofMinutes(1))
+                .setProgressive(0, null, (pass, count, imageWriter) -> passes.add(count));
+        camera.renderImage();
+        assertTrue(edge.rays.get() > 400, "The pixels of the edge must be refined");
+        // the columns of the edge and of its neighbours
+        assertTrue(edge.rays.get() <= 400 + 3 * 20 * 15, "Only the pixels near the edge may be refined");
+        assertFalse(passes.isEmpty(), "The listener must get snapshots");
+        assertTrue(passes.stream().allMatch(count -> count == 0), "Budgeted rendering has no amount of passes");
+        for (int row = 0; row < 20; ++row) {
+            int blue = camera.getImageWriter().getImage().getRGB(9, row) & 0xFF;
+            assertTrue(blue > 0 && blue < 255, "Pixel of the edge must be the average of its samples");
+            assertEquals(0, camera.getImageWriter().getImage().getRGB(15, row) & 0xFF, "Wrong pixel");
+        }
+
+        // =============== Boundary Values Tests ==================
+        // BVA1: The first pass is completed even if it takes longer than the budget
+        EdgeRayTracer slow = new EdgeRayTracer(1);
+        camera(slow).setAntiAliasingFactor(4).setTimeBudget(Duration.ofMillis(50)).renderImage();
+        assertEquals(400, slow.rays.get(), "The first pass must be completed, and no pass after the budget");
+        // BVA2: Zero budget
+        assertThrows(IllegalArgumentException.class, () -> camera(flat).setTimeBudget(Duration.ZERO),
+                "Zero budget must throw");
+    }
+
+    /**
+     * Test method for adaptive super-sampling
+     * {@link renderer.Camera#setUseAdaptive(boolean)}
+     */
+    @Test
+    public void testRenderImageAdaptive() {
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: Image without variance - the corners of the pixels are traced once, shared by the neighbouring pixels
+        CountingRayTracer flat = new CountingRayTracer(0, 0);
+        Camera camera = camera(flat).setUseAdaptive(true).setMaxAdaptiveLevel(3);
+        camera.renderImage();
+        assertEquals(21 * 21, flat.rays.get(), "Each corner of the pixels must be traced once");
+        assertTrue(Arrays.stream(camera.getSampleCounts()).allMatch(samples -> samples == 4),
+                "Pixel without variance is sampled by its corners");
+
+        // EP2: The squares of the edge are divided, and each point of the lattice is traced once
+        EdgeRayTracer edge = new EdgeRayTracer(0);
+        camera = camera(edge).setUseAdaptive(true).setMaxAdaptiveLevel(3);
+        camera.renderImage();
+        assertTrue(edge.rays.get() > 21 * 21, "The pixels of the edge must be divided");
+        assertEquals(edge.rays.get(), edge.traced.size(), "Each sample must be traced once");
+        int[] samples = camera.getSampleCounts();
+        for (int row = 0; row < 20; ++row) {
+            assertTrue(samples[row * 20 + 9] > 4, "Pixel of the edge must be divided");
+            assertEquals(4, samples[row * 20 + 15], "Pixel without variance must not be divided");
+            int blue = camera.getImageWriter().getImage().getRGB(9, row) & 0xFF;
+            assertTrue(blue > 0 && blue < 255, "Pixel of the edge must be the average of its samples");
+        }
+
+        // EP3: Threads share the samples of the borders of their pixels
+        Camera threads = camera(new EdgeRayTracer(0)).setUseAdaptive(true).setMaxAdaptiveLevel(3)
+                .setMultithreading(3);
+        threads.renderImage();
+        for (int row = 0; row < 20; ++row)
+            for (int col = 0; col < 20; ++col)
+                assertEquals(camera.getImageWriter().getImage().getRGB(col, row),
+                        threads.getImageWriter().getImage().getRGB(col, row), "Wrong pixel of a thread");
+
+        // EP4: The last progressive pass is the adaptive sampling of the maximal level
+        Camera progressive = camera(new EdgeRayTracer(0)).setUseAdaptive(true).setMaxAdaptiveLevel(3)
+                .setProgressive(4, null, (pass, passes, imageWriter) -> true);
+        progressive.renderImage();
+        for (int row = 0; row < 20; ++row)
+            for (int col = 0; col < 20; ++col)
+                assertEquals(camera.getImageWriter().getImage().getRGB(col, row),
+                        progressive.getImageWriter().getImage().getRGB(col, row), "Wrong progressive pixel");
+
+        // =============== Boundary Values Tests ==================
+        // BVA1: Threshold above the variance of the edge
+        EdgeRayTracer smooth = new EdgeRayTracer(0);
+        camera(smooth).setUseAdaptive(true).setMaxAdaptiveLevel(3).setAdaptiveThreshold(200).renderImage();
+        assertEquals(21 * 21, smooth.rays.get(), "Squares within the threshold must not be divided");
+        // BVA2: Level 0 samples the corners of the pixels only
+        EdgeRayTracer corners = new EdgeRayTracer(0);
+        camera(corners).setUseAdaptive(true).setMaxAdaptiveLevel(0).renderImage();
+        assertEquals(21 * 21, corners.rays.get(), "Level 0 must not divide the pixels");
+        // BVA3: Illegal level and threshold
+        assertThrows(IllegalArgumentException.class, () -> camera(flat).setMaxAdaptiveLevel(-1),
+                "Negative level must throw");
+        assertThrows(IllegalArgumentException.class, () -> camera(flat).setAdaptiveThreshold(-1),
+                "Negative threshold must throw");
+    }
 }
@@ -97,9 +97,12 @@ public class FinalImageTest {
     //endregion
     //endregion
 
-    @Test
-    public void wisCup()
-    {
+    /**
+     * builds the whiskey cup scene (also used by the frame time benchmarks)
+     *
+     * @return the scene
+     */
+    public Scene wisCupScene() {
         Scene scene = new Scene("whiskey cup");
         scene.geometries.add(
 //region geometries
@@ -309,6 +312,13 @@ public class FinalImageTest {
         scene.lights.add(new DirectionalLight(new Color(64,156,255), new Vector(0,-1,0)));
         //endregion
 //        scene.lights.add(new DirectionalLight(new Color(ORANGE), new Vector(0,-40,-40)));
+        return scene;
+    }
+
+    @Test
+    public void wisCup()
+    {
+        Scene scene = wisCupScene();
         Camera camera = new Camera(new Point(-3.6, -14.39,0), new Vector(0, 0, -1), new Vector(0, 1, 0));
 //-24.43,3273.3,308.49 - more of a top view
         basicRender(scene, camera);
@@ -0,0 +1,74 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+import renderer.PixelManager.Pixel;
+import renderer.PixelManager.Tile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for renderer.PixelManager class
+ *
+ * @author Sarah Daatyah Furmanski and Efrat Kartman
+ */
+public class PixelManagerTests {
+
+    /**
+     * counts how many times each pixel of the image is covered by the tiles
+     *
+     * @param tiles  the tiles
+     * @param nX     the amount of pixel columns
+     * @param nY     the amount of pixel rows
+     */
+    private void assertCovered(Tile[] tiles, int nX, int nY) {
+        int[][] covered = new int[nY][nX];
+        for (Tile tile : tiles)
+            for (int i = tile.row(); i < tile.row() + tile.height(); ++i)
+                for (int j = tile.col(); j < tile.col() + tile.width(); ++j)
+                    ++covered[i][j];
+        for (int i = 0; i < nY; ++i)
+            for (int j = 0; j < nX; ++j)
+                assertEquals(1, covered[i][j], "Pixel (" + j + "," + i + ") must be covered by exactly one tile");
+    }
+
+    /**
+     * Test method for {@link renderer.PixelManager#tiles(int, TileOrder)}
+     */
+    @Test
+    public void testTiles() {
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: Image size is not a multiple of the tile size - all orders cover the image
+        for (TileOrder order : TileOrder.values())
+            assertCovered(new PixelManager(37, 50, 0).tiles(8, order), 50, 37);
+        // EP2: Hilbert order - every tile is adjacent to the one before it
+        Tile[] tiles = new PixelManager(64, 64, 0).tiles(8, TileOrder.HILBERT);
+        for (int k = 1; k < tiles.length; ++k)
+            assertEquals(8, Math.abs(tiles[k].col() - tiles[k - 1].col()) + Math.abs(tiles[k].row() - tiles[k - 1].row()),
+                    "Hilbert ordered tiles must be adjacent");
+
+        // =============== Boundary Values Tests ==================
+        // BVA1: Tile bigger than the image
+        tiles = new PixelManager(10, 20, 0).tiles(32, TileOrder.MORTON);
+        assertEquals(1, tiles.length, "Wrong amount of tiles");
+        assertEquals(new Tile(0, 0, 20, 10), tiles[0], "Wrong tile");
+        // BVA2: Tile of a single pixel
+        assertCovered(new PixelManager(5, 3, 0).tiles(1, TileOrder.HILBERT), 3, 5);
+    }
+
+    /**
+     * Test method for {@link renderer.PixelManager#nextPixel()}
+     */
+    @Test
+    public void testNextPixel() {
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: Pixels of a non-square image are allocated row by row
+        PixelManager pixelManager = new PixelManager(2, 3, 0);
+        for (int i = 0; i < 2; ++i)
+            for (int j = 0; j < 3; ++j)
+                assertEquals(new Pixel(j, i), pixelManager.nextPixel(), "Wrong pixel allocated");
+
+        // =============== Boundary Values Tests ==================
+        // BVA1: No more pixels
+        assertNull(pixelManager.nextPixel(), "No pixel must be allocated after the last one");
+    }
+}
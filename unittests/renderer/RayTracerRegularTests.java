@@ -0,0 +1,242 @@
+package renderer;
+
+import geometries.Intersectable;
+import geometries.Plane;
+import geometries.Sphere;
+import geometries.Triangle;
+import lighting.PointLight;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import renderer.RenderMetrics.RayType;
+import scene.Scene;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for renderer.RayTracerRegular class
+ *
+ * @author Sarah Daatyah Furmanski and Efrat Kartman
+ */
+public class RayTracerRegularTests {
+    /**
+     * @return a scene of a sphere behind a big transparent triangle, which is in many voxels of the grid
+     */
+    private static Scene scene() {
+        Scene scene = new Scene("regular");
+        scene.geometries.add(
+                new Triangle(new Point(-100, -100, -50), new Point(100, -100, -50), new Point(0, 100, -50))
+                        .setEmission(new Color(0, 30, 0)).setMaterial(new Material().setKd(0.5).setKt(0.5)),
+                new Sphere(30, new Point(0, 0, -150)).setEmission(new Color(50, 0, 0))
+                        .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(30)));
+        scene.lights.add(new PointLight(new Color(500, 500, 500), new Point(0, 0, 100)));
+        return scene.setResolution(8);
+    }
+
+    /**
+     * Test method for {@link renderer.RayTracerRegular#traversalAlgorithm(Ray)}
+     */
+    @Test
+    public void testTraversalAlgorithm() {
+        RenderMetrics metrics = new RenderMetrics();
+        RayTracerRegular rayTracer = new RayTracerRegular(scene());
+        rayTracer.setMetrics(metrics);
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: The ray passes through several voxels of the triangle before it hits it - the triangle is tested once
+        Ray ray = new Ray(new Point(-150, 0, -55), new Vector(1, 0, 0.04));
+        Intersectable.GeoPoint gp = rayTracer.traversalAlgorithm(ray);
+        assertNotNull(gp, "The ray must hit the triangle");
+        assertTrue(gp.geometry instanceof Triangle, "The triangle is the closest geometry");
+        assertEquals(1, metrics.getTests(Triangle.class), "The triangle must be tested once by the ray");
+        assertTrue(metrics.getVoxels() > 1, "The ray must visit the voxels of the triangle before the hit");
+
+        // EP2: The next ray tests the geometries again
+        metrics.reset();
+        ray = new Ray(new Point(0, 0, -60), new Vector(0, 0.2, -1));
+        gp = rayTracer.traversalAlgorithm(ray);
+        assertNotNull(gp, "The ray must hit the sphere");
+        assertTrue(gp.geometry instanceof Sphere, "The sphere is the closest geometry");
+        assertEquals(1, metrics.getTests(Sphere.class), "The sphere must be tested once by the ray");
+
+        // =============== Boundary Values Tests ==================
+        // BVA1: The ray is parallel to the triangle in its voxels - the triangle is tested once, with no hit
+        metrics.reset();
+        assertNull(rayTracer.traversalAlgorithm(new Ray(new Point(-150, 0, -55), new Vector(1, 0, 0))),
+                "The ray misses the geometries");
+        assertEquals(1, metrics.getTests(Triangle.class), "The triangle must be tested once by the ray");
+        // BVA2: The ray misses the grid
+        assertNull(rayTracer.traversalAlgorithm(new Ray(new Point(0, 0, 100), new Vector(0, 1, 0))),
+                "The ray misses the grid");
+    }
+
+    /**
+     * Test method for {@link renderer.RayTracerRegular#traversalAlgorithm(Ray)} - the entry of the ray into the grid
+     * and the steps of the 3D-DDA
+     */
+    @Test
+    public void testTraversalAlgorithmEntry() {
+        //the grid 8x8x8 over the box (-100,-100,-180)-(100,100,-50), the voxels are 25x25x16.25
+        Scene scene = scene();
+        RenderMetrics metrics = new RenderMetrics();
+        RayTracerRegular rayTracer = new RayTracerRegular(scene);
+        rayTracer.setMetrics(metrics);
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: The ray starts inside the grid
+        Ray ray = new Ray(new Point(0, 0, -100), new Vector(0, 0, -1));
+        assertEquals(new Point(0, 0, -120), rayTracer.traversalAlgorithm(ray).point,
+                "Wrong intersection of a ray from inside the grid");
+        ray = new Ray(new Point(0, 0, -100), new Vector(0, 0, 1));
+        assertEquals(new Point(0, 0, -50), rayTracer.traversalAlgorithm(ray).point,
+                "Wrong intersection of a ray from inside the grid on the boundary of the grid");
+        // EP2: The ray is parallel to an axis - it steps on the X axis only
+        metrics.reset();
+        ray = new Ray(new Point(-150, 0, -150), new Vector(1, 0, 0));
+        assertEquals(new Point(-30, 0, -150), rayTracer.traversalAlgorithm(ray).point,
+                "Wrong intersection of a ray parallel to an axis");
+        assertEquals(3, metrics.getVoxels(), "The ray must step through the voxels of its row up to the hit");
+
+        // =============== Boundary Values Tests ==================
+        // BVA1: The ray enters the grid through an edge of the grid
+        ray = new Ray(new Point(-150, 0, 0), new Vector(1, 0, -1));
+        assertEquals(scene.geometries.findClosestIntersection(ray).point,
+                rayTracer.traversalAlgorithm(ray).point, "Wrong intersection of a ray through an edge of the grid");
+        // BVA2: The ray enters the grid through a corner of the grid
+        ray = new Ray(new Point(-150, -150, 0), new Vector(1, 1, -1));
+        assertEquals(scene.geometries.findClosestIntersection(ray).point,
+                rayTracer.traversalAlgorithm(ray).point, "Wrong intersection of a ray through a corner of the grid");
+        // BVA3: The entry point is on the maximal face of the grid - it is clamped into the last voxel
+        metrics.reset();
+        ray = new Ray(new Point(150, 0, -150), new Vector(-1, 0, 0));
+        assertEquals(new Point(30, 0, -150), rayTracer.traversalAlgorithm(ray).point,
+                "Wrong intersection of a ray entering through the maximal face");
+        assertEquals(3, metrics.getVoxels(), "The ray must start in the last voxel of its row");
+        // BVA4: The ray lies on the maximal face of the grid - it passes through the last voxels of the axis
+        metrics.reset();
+        assertNull(rayTracer.traversalAlgorithm(new Ray(new Point(-150, 100, -100), new Vector(1, 0, 0))),
+                "The ray on the face of the grid misses the geometries");
+        assertEquals(8, metrics.getVoxels(), "The ray must pass through all the voxels of its row");
+    }
+
+    /**
+     * Test method for {@link renderer.RayTracerRegular#traceRay(Ray)}
+     */
+    @Test
+    public void testTraceRay() {
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: The transparency of a geometry in several voxels of a shadow ray is accounted once, like without
+        // the grid
+        Camera camera = new Camera(new Point(0, 0, 100), new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setViewPlaneSize(200, 200).setViewPlaneDistance(100);
+        ImageWriter basic = new ImageWriter("regular test basic", 20, 20);
+        ImageWriter regular = new ImageWriter("regular test", 20, 20);
+        camera.setImageWriter(basic).setRayTracer(new RayTracerBasic(scene())).renderImage();
+        RenderMetrics metrics = new RenderMetrics();
+        RayTracerRegular rayTracer = new RayTracerRegular(scene());
+        camera.setImageWriter(regular).setRayTracer(rayTracer).setMetrics(metrics, null).renderImage();
+        for (int j = 0; j < 20; ++j)
+            for (int i = 0; i < 20; ++i)
+                assertEquals(basic.getImage().getRGB(i, j), regular.getImage().getRGB(i, j),
+                        "Wrong color of pixel " + i + "," + j);
+        assertTrue(metrics.getRays(RayType.SHADOW) > 0, "The shadow rays must be traced");
+
+        // EP2: The traversal states are shared by the threads of several renderings
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            for (int rendering = 0; rendering < 2; ++rendering) {
+                ImageWriter threads = new ImageWriter("regular test threads", 20, 20);
+                camera.setImageWriter(threads).setMultithreading(3).setExecutor(rendering == 0 ? null : executor)
+                        .renderImage();
+                for (int j = 0; j < 20; ++j)
+                    for (int i = 0; i < 20; ++i)
+                        assertEquals(basic.getImage().getRGB(i, j), threads.getImage().getRGB(i, j),
+                                "Wrong color of pixel " + i + "," + j + " rendered by threads");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Test method for {@link renderer.RayTracerRegular#traversalAlgorithm(Ray)} with nested grids
+     */
+    @Test
+    public void testTraversalAlgorithmSubgrid() {
+        //a dense cluster of small spheres in a single voxel, lighted through a transparent triangle
+        Scene[] scenes = new Scene[2];
+        for (int s = 0; s < 2; ++s) {
+            scenes[s] = scene().setResolution(2).setSubgridThreshold(s == 0 ? 0 : 8);
+            for (int i = 0; i < 64; ++i)
+                scenes[s].geometries.add(new Sphere(1.5, new Point(-90 + i % 4 * 5, -90 + i / 4 % 4 * 5,
+                        -160 + i / 16 * 5)).setEmission(new Color(0, 0, 50)).setMaterial(new Material().setKd(0.5)));
+        }
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: The ray through the nested grid tests only the spheres of its nested voxels
+        RenderMetrics flat = new RenderMetrics(), nested = new RenderMetrics();
+        RayTracerRegular flatTracer = new RayTracerRegular(scenes[0]), nestedTracer = new RayTracerRegular(scenes[1]);
+        flatTracer.setMetrics(flat);
+        nestedTracer.setMetrics(nested);
+        Ray ray = new Ray(new Point(-85, -85, -60), new Vector(0, 0, -1));
+        Intersectable.GeoPoint expected = flatTracer.traversalAlgorithm(ray);
+        Intersectable.GeoPoint gp = nestedTracer.traversalAlgorithm(ray);
+        assertNotNull(gp, "The ray must hit a sphere of the cluster");
+        assertEquals(expected.point, gp.point, "Wrong intersection through the nested grid");
+        assertTrue(nested.getTests(Sphere.class) < flat.getTests(Sphere.class),
+                "The nested grid must test less spheres");
+
+        // EP2: The images with and without the nested grids are the same
+        Camera camera = new Camera(new Point(0, 0, 100), new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setViewPlaneSize(200, 200).setViewPlaneDistance(100);
+        ImageWriter flatImage = new ImageWriter("regular test flat", 20, 20);
+        ImageWriter nestedImage = new ImageWriter("regular test nested", 20, 20);
+        camera.setImageWriter(flatImage).setRayTracer(flatTracer).renderImage();
+        camera.setImageWriter(nestedImage).setRayTracer(nestedTracer).renderImage();
+        for (int j = 0; j < 20; ++j)
+            for (int i = 0; i < 20; ++i)
+                assertEquals(flatImage.getImage().getRGB(i, j), nestedImage.getImage().getRGB(i, j),
+                        "Wrong color of pixel " + i + "," + j);
+    }
+
+    /**
+     * Test method for {@link renderer.RayTracerRegular#traceRay(Ray)} with infinite geometries
+     */
+    @Test
+    public void testTraceRayUnbounded() {
+        Camera camera = new Camera(new Point(0, 0, 100), new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setViewPlaneSize(200, 200).setViewPlaneDistance(100);
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: A floor plane under the grid, in front of the grid and in shadow of it - as without the grid
+        Scene[] scenes = new Scene[2];
+        for (int s = 0; s < 2; ++s) {
+            scenes[s] = scene();
+            scenes[s].geometries.add(new Plane(new Point(0, -60, 0), new Vector(0, 1, 0.2))
+                    .setEmission(new Color(20, 20, 20)).setMaterial(new Material().setKd(0.5).setKs(0.3)));
+        }
+        ImageWriter basic = new ImageWriter("regular test basic", 20, 20);
+        ImageWriter regular = new ImageWriter("regular test", 20, 20);
+        camera.setImageWriter(basic).setRayTracer(new RayTracerBasic(scenes[0])).renderImage();
+        RenderMetrics metrics = new RenderMetrics();
+        camera.setImageWriter(regular).setRayTracer(new RayTracerRegular(scenes[1])).setMetrics(metrics, null)
+                .renderImage();
+        for (int j = 0; j < 20; ++j)
+            for (int i = 0; i < 20; ++i)
+                assertEquals(basic.getImage().getRGB(i, j), regular.getImage().getRGB(i, j),
+                        "Wrong color of pixel " + i + "," + j);
+        assertEquals(2, scenes[1].voxels.getItemsCount(), "The plane must be out of the grid");
+        assertTrue(metrics.getTests(Plane.class) >= 400, "Each ray must test the plane");
+
+        // =============== Boundary Values Tests ==================
+        // BVA1: A scene of a plane only has no grid
+        Scene scene = new Scene("floor");
+        scene.geometries.add(new Plane(new Point(0, -60, 0), new Vector(0, 1, 0)));
+        Intersectable.GeoPoint gp = new RayTracerRegular(scene)
+                .traversalAlgorithm(new Ray(new Point(0, 0, 0), new Vector(0, -1, 0)));
+        assertNotNull(gp, "The ray must hit the plane");
+        assertEquals(new Point(0, -60, 0), gp.point, "Wrong intersection with the plane");
+    }
+}
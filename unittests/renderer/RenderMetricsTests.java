@@ -0,0 +1,107 @@
+package renderer;
+
+import geometries.Sphere;
+import geometries.Triangle;
+import lighting.PointLight;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import primitives.Color;
+import primitives.Material;
+import primitives.Point;
+import primitives.Vector;
+import renderer.RenderMetrics.Phase;
+import renderer.RenderMetrics.RayType;
+import scene.Scene;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for renderer.RenderMetrics class
+ *
+ * @author Sarah Daatyah Furmanski and Efrat Kartman
+ */
+public class RenderMetricsTests {
+    @TempDir
+    Path directory;
+
+    /**
+     * @return a scene of a reflecting sphere over a triangle, lighted by a point light
+     */
+    private static Scene scene() {
+        Scene scene = new Scene("metrics");
+        scene.geometries.add(
+                new Sphere(30, new Point(0, 0, -100)).setEmission(new Color(50, 0, 0))
+                        .setMaterial(new Material().setKd(0.5).setKs(0.5).setKr(0.5)),
+                new Triangle(new Point(-100, -100, -150), new Point(100, -100, -150), new Point(0, 100, -150))
+                        .setEmission(new Color(0, 50, 0)).setMaterial(new Material().setKd(0.5)));
+        scene.lights.add(new PointLight(new Color(500, 500, 500), new Point(50, 50, 0)));
+        return scene;
+    }
+
+    /**
+     * @param rayTracer the ray tracer of the camera
+     * @return a camera of 10x10 pixels
+     */
+    private static Camera camera(RayTracerBase rayTracer) {
+        return new Camera(new Point(0, 0, 100), new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setViewPlaneSize(100, 100).setViewPlaneDistance(100)
+                .setImageWriter(new ImageWriter("metrics test", 10, 10)).setRayTracer(rayTracer);
+    }
+
+    /**
+     * Test method for {@link renderer.Camera#setMetrics(RenderMetrics, Path)}
+     */
+    @Test
+    public void testRenderMetrics() throws Exception {
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: The rays and the intersection tests of a rendering are counted, and exported
+        RenderMetrics metrics = new RenderMetrics();
+        Path file = directory.resolve("metrics.json");
+        camera(new RayTracerBasic(scene())).setMetrics(metrics, file).renderImage();
+        assertEquals(100, metrics.getRays(RayType.PRIMARY), "Wrong amount of primary rays");
+        assertTrue(metrics.getRays(RayType.SHADOW) > 0, "Shadow rays must be counted");
+        assertTrue(metrics.getRays(RayType.REFLECTION) > 0, "Reflected rays must be counted");
+        assertEquals(0, metrics.getRays(RayType.REFRACTION), "Scene without transparency has no refracted rays");
+        assertTrue(metrics.getTests(Sphere.class) >= 100, "Each primary ray tests the sphere");
+        assertTrue(metrics.getTests(Triangle.class) >= 100, "Each primary ray tests the triangle");
+        assertEquals(0, metrics.getVoxels(), "Rendering without a grid visits no voxels");
+        assertTrue(metrics.getTime(Phase.TRACE) > 0, "Tracing time must be measured");
+        String json = Files.readString(file);
+        assertEquals(metrics.toJson(), json, "Wrong exported statistics");
+        assertTrue(json.contains("\"primary\": 100"), "Wrong JSON of the rays");
+        assertTrue(json.contains("\"Sphere\": "), "Wrong JSON of the intersection tests");
+        assertTrue(json.matches("(?s).*\"phases\": \\{\"sceneBuild\": [0-9.]+, \"voxelization\": [0-9.]+, "
+                + "\"trace\": [0-9.]+, \"write\": [0-9.]+}.*"), "Wrong JSON of the phases");
+
+        // EP2: The voxels of a grid traversal are counted, and the statistics are accumulated over the renderings
+        Scene scene = scene().setResolution(4);
+        camera(new RayTracerRegular(scene)).setMetrics(metrics, null).renderImage();
+        assertEquals(200, metrics.getRays(RayType.PRIMARY), "Statistics must be accumulated");
+        assertTrue(metrics.getVoxels() > 0, "Visited voxels must be counted");
+        assertEquals(scene.getVoxelsTime(), metrics.getTime(Phase.VOXELIZATION), "Wrong voxelization time");
+
+        // EP3: Concurrent renderings count their own tests
+        RenderMetrics first = new RenderMetrics(), second = new RenderMetrics();
+        Thread other = new Thread(() -> camera(new RayTracerBasic(scene())).setMetrics(second, null).renderImage());
+        other.start();
+        camera(new RayTracerBasic(scene())).setMetrics(first, null).renderImage();
+        other.join();
+        RenderMetrics solo = new RenderMetrics();
+        camera(new RayTracerBasic(scene())).setMetrics(solo, null).renderImage();
+        assertEquals(solo.getTests(Sphere.class), first.getTests(Sphere.class), "Wrong tests of a concurrent rendering");
+        assertEquals(solo.getTests(Sphere.class), second.getTests(Sphere.class), "Wrong tests of a concurrent rendering");
+
+        // =============== Boundary Values Tests ==================
+        // BVA1: Reset statistics
+        metrics.reset();
+        assertEquals(0, metrics.getRays(RayType.PRIMARY), "Statistics must be reset");
+        assertEquals(0, metrics.getTests(Sphere.class), "Statistics must be reset");
+        // BVA2: Rendering without statistics
+        RayTracerBasic rayTracer = new RayTracerBasic(scene());
+        camera(rayTracer).renderImage();
+        assertNull(rayTracer.getMetrics(), "Rendering without statistics must not collect them");
+    }
+}
@@ -0,0 +1,174 @@
+package scene;
+
+import geometries.Mesh;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import primitives.AABB;
+import primitives.Color;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for scene.MeshLoader class
+ *
+ * @author Sarah Daatyah Furmanski and Efrat Kartman
+ */
+public class MeshLoaderTests {
+    @TempDir
+    Path directory;
+
+    /**
+     * the header of a PLY file of a square [0,2]x[0,2] on the plane z = 0 - 4 vertices and a single quad face,
+     * with a property and an element that are not used
+     *
+     * @param format the format of the file
+     * @return the header
+     */
+    private static String plyHeader(String format) {
+        return "ply\nformat " + format + " 1.0\ncomment a square\n"
+                + "element vertex 4\nproperty float x\nproperty float y\nproperty float z\nproperty uchar red\n"
+                + "element face 1\nproperty list uchar int vertex_indices\n"
+                + "element edge 1\nproperty int vertex1\nproperty int vertex2\nend_header\n";
+    }
+
+    /**
+     * @param file a model file
+     * @param text the content of the file
+     * @return the file
+     * @throws IOException if the file can't be written
+     */
+    private static Path write(Path file, String text) throws IOException {
+        return Files.writeString(file, text, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Test method for {@link scene.MeshLoader#loadObj(Path)}
+     */
+    @Test
+    public void testLoadObj() throws IOException {
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: Quad and triangle faces with texture coordinates, normals, comments and relative indices
+        Path file = write(directory.resolve("model.obj"), """
+                # a square and a triangle above it
+                mtllib model.mtl
+                v 0 0 0
+                v 2 0 0
+                v 2 2 0 # a comment
+                v 0 2 0
+                vt 0 0
+                vn 0 0 1
+                g square
+                f 1/1/1 2/1/1 3/1/1 4/1/1
+
+                v 0.5 0.5 1.25e0
+                v 1.5 0.5 1.25
+                v 1 1.5 1.25
+                f -3 -2 -1
+                """);
+        Mesh mesh = MeshLoader.load(file);
+        assertEquals(7, mesh.getVerticesCount(), "Wrong amount of vertices");
+        assertEquals(3, mesh.getFacesCount(), "The quad must be split into 2 triangles");
+        assertEquals(new AABB(0, 0, 0, 2, 2, 1.25), mesh.getBoundary(), "Wrong vertices");
+        assertTrue(mesh.isSmooth(), "The normals of the file must be loaded");
+        List<Point> result = mesh.findIntersections(new Ray(new Point(1, 0.8, 2), new Vector(0, 0, -1)));
+        assertEquals(2, result.size(), "Wrong number of points");
+        assertTrue(result.containsAll(List.of(new Point(1, 0.8, 1.25), new Point(1, 0.8, 0))), "Wrong faces");
+        // EP2: Face refers to a missing vertex
+        Path missing = write(directory.resolve("missing.obj"), "v 0 0 0\nv 1 0 0\nv 0 1 0\nf 1 2 4\n");
+        assertThrows(IOException.class, () -> MeshLoader.load(missing), "Missing vertex must throw");
+        // EP3: Malformed number
+        Path malformed = write(directory.resolve("malformed.obj"), "v 0 0 0\nv 1 0 0\nv 0 1x 0\nf 1 2 3\n");
+        assertThrows(IOException.class, () -> MeshLoader.load(malformed), "Malformed number must throw");
+
+        // =============== Boundary Values Tests ==================
+        // BVA1: Numbers beyond the fast parsing precision are parsed exactly
+        Path precise = write(directory.resolve("precise.obj"),
+                "v -0.1 1234567890123456789012 3.000000000000000000001\nv 1e-30 0 0\nv 0 1 0.3e1\nf 1 2 3\n");
+        assertEquals(new AABB(-0.1, 0, 0, 1e-30, 1234567890123456789012d, 3.000000000000000000001),
+                MeshLoader.load(precise).getBoundary(), "Wrong precise numbers");
+        // BVA2: No faces
+        Path empty = write(directory.resolve("empty.obj"), "v 0 0 0\n");
+        assertThrows(IOException.class, () -> MeshLoader.load(empty), "File without faces must throw");
+    }
+
+    /**
+     * Test method for {@link scene.MeshLoader#loadPly(Path)}
+     */
+    @Test
+    public void testLoadPly() throws IOException {
+        float[][] vertices = {{0, 0, 0}, {2, 0, 0}, {2, 2, 0}, {0, 2, 0}};
+        Ray ray = new Ray(new Point(0.5, 1.5, 1), new Vector(0, 0, -1));
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: Binary file in both byte orders
+        for (ByteOrder order : List.of(ByteOrder.LITTLE_ENDIAN, ByteOrder.BIG_ENDIAN)) {
+            byte[] header = plyHeader(order == ByteOrder.LITTLE_ENDIAN ? "binary_little_endian" : "binary_big_endian")
+                    .getBytes(StandardCharsets.US_ASCII);
+            ByteBuffer data = ByteBuffer.allocate(header.length + 4 * 13 + 17 + 8).order(order);
+            data.put(header);
+            for (float[] vertex : vertices)
+                data.putFloat(vertex[0]).putFloat(vertex[1]).putFloat(vertex[2]).put((byte) 200);
+            data.put((byte) 4).putInt(0).putInt(1).putInt(2).putInt(3);
+            data.putInt(0).putInt(1);
+            Path file = Files.write(directory.resolve("square" + order + ".ply"), data.array());
+            Mesh mesh = MeshLoader.load(file);
+            assertEquals(2, mesh.getFacesCount(), "The quad must be split into 2 triangles");
+            assertEquals(new AABB(0, 0, 0, 2, 2, 0), mesh.getBoundary(), "Wrong vertices in " + order);
+            assertEquals(List.of(new Point(0.5, 1.5, 0)), mesh.findIntersections(ray), "Wrong faces in " + order);
+        }
+        // EP2: Ascii file
+        Path ascii = write(directory.resolve("square.ply"),
+                plyHeader("ascii") + "0 0 0 200\n2 0 0 200\n2 2 0 200\n0 2 0 200\n4 0 1 2 3\n0 1\n");
+        assertEquals(List.of(new Point(0.5, 1.5, 0)), MeshLoader.load(ascii).findIntersections(ray),
+                "Wrong ascii faces");
+
+        // =============== Boundary Values Tests ==================
+        // BVA1: File ends before its data
+        Path truncated = write(directory.resolve("truncated.ply"), plyHeader("binary_little_endian") + "abc");
+        assertThrows(IOException.class, () -> MeshLoader.load(truncated), "Truncated file must throw");
+        // BVA2: Unknown file format
+        Path unknown = write(directory.resolve("square.stl"), "solid square\n");
+        assertThrows(IOException.class, () -> MeshLoader.load(unknown), "Unknown format must throw");
+    }
+
+    /**
+     * Test method for the mesh element of {@link scene.SceneBuilder#sceneParser(Scene, String)}
+     */
+    @Test
+    public void testSceneBuilderMesh() throws Exception {
+        write(directory.resolve("triangle.obj"), "v 0 0 -10\nv 10 0 -10\nv 0 10 -10\nf 1 2 3\n");
+        Path xml = write(directory.resolve("scene.xml"), """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <scene background-color="0 0 0">
+                    <ambient-light color="255 255 255" ka="0.1"/>
+                    <geometries>
+                        <mesh file="triangle.obj" smooth="true" emission="10 20 30" kd="0.5"/>
+                    </geometries>
+                    <light-source>
+                        <directional intensity="100 100 100" vector="0 0 -1"/>
+                    </light-source>
+                </scene>
+                """);
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: Mesh of a model file relative to the XML file
+        Scene scene = new Scene("mesh scene");
+        SceneBuilder.sceneParser(scene, xml.toString());
+        assertEquals(1, scene.geometries.getGeometries().size(), "Wrong amount of geometries");
+        Mesh mesh = (Mesh) scene.geometries.getGeometries().get(0);
+        assertEquals(1, mesh.getFacesCount(), "Wrong mesh");
+        assertTrue(mesh.isSmooth(), "Smooth mesh must have normals on its vertices");
+        assertEquals(new Color(10, 20, 30).getColor(), mesh.getEmission().getColor(), "Wrong mesh emission");
+    }
+}
@@ -0,0 +1,141 @@
+package scene;
+
+import geometries.Intersectable;
+import geometries.Sphere;
+import geometries.Triangle;
+import lighting.PointLight;
+import lighting.SpotLight;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import primitives.Double3;
+import primitives.Point;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for scene.SceneBuilder class
+ *
+ * @author Sarah Daatyah Furmanski and Efrat Kartman
+ */
+public class SceneBuilderTests {
+    @TempDir
+    Path directory;
+
+    /**
+     * @param xml the content of the XML file
+     * @return the XML file
+     * @throws IOException if the file can't be written
+     */
+    private Path write(String xml) throws IOException {
+        return Files.writeString(directory.resolve("scene.xml"), xml, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param xml the content of a malformed XML file
+     * @return the message of the error of parsing the file
+     * @throws IOException if the file can't be written
+     */
+    private String error(String xml) throws IOException {
+        Path file = write(xml);
+        return assertThrows(IOException.class, () -> SceneBuilder.sceneParser(new Scene("bad"), file.toString()),
+                "Malformed scene must throw").getMessage();
+    }
+
+    /**
+     * Test method for {@link scene.SceneBuilder#sceneParser(Scene, String)}
+     */
+    @Test
+    public void testSceneParser() throws IOException {
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: Elements in any order, with comments and compact whitespace
+        Path file = write("""
+                <?xml version="1.0" encoding="UTF-8"?>
+                <scene background-color="10 20 30"><!-- the lights first -->
+                    <light-source>
+                        <point intensity="800 500 250" p0="30 70 -100" kq="0.25"/>
+                        <spot intensity="400  400 400" p0="0 100 0" vector="0 -1 -1" kl="0.002"/>
+                    </light-source>
+                    <geometries><sphere center="0 0 -100" radius="30" kd="0.2 0.3 0.4"/><!-- a sphere -->
+                        <triangle p0="0 0 -10" p1="10 0 -10" p2="0 10 -10" emission="1 2 3"/>
+                    </geometries>
+                    <ambient-light color="255 255 255" ka="0.1"/>
+                </scene>
+                """);
+        Scene scene = new Scene("parsed");
+        SceneBuilder.sceneParser(scene, file.toString());
+        assertEquals(new Double3(10, 20, 30), scene.background.getRgb(), "Wrong background");
+        assertEquals(new Double3(25.5), scene.ambientLight.getIntensity().getRgb(), "Wrong ambient light");
+        List<Intersectable> geometries = scene.geometries.getGeometries();
+        assertEquals(2, geometries.size(), "Wrong amount of geometries");
+        assertEquals(new Double3(0.2, 0.3, 0.4), ((Sphere) geometries.get(0)).getMaterial().kD, "Wrong material");
+        assertEquals(new Double3(1, 2, 3), ((Triangle) geometries.get(1)).getEmission().getRgb(), "Wrong emission");
+        assertEquals(2, scene.lights.size(), "Wrong amount of light sources");
+        assertEquals(0.25, ((PointLight) scene.lights.get(0)).getKq(), "Wrong attenuation factor");
+        assertEquals(0, ((PointLight) scene.lights.get(0)).getKl(), "Missing attenuation factor must be default");
+        assertEquals(0.002, ((SpotLight) scene.lights.get(1)).getKl(), "Wrong attenuation factor");
+        // EP2: Errors are reported with the position of their element
+        assertTrue(error("<scene background-color=\"0 0 0\">\n<geometries>\n<sphere center=\"0 0 0\" radius=\"1x\"/>\n"
+                        + "</geometries>\n</scene>\n").matches(".*scene\\.xml:3:\\d+: <sphere> malformed number '1x'.*"),
+                "Malformed number must be reported with its position");
+        assertTrue(error("<scene background-color=\"0 0 0\">\n<geometries>\n\n<cube/>\n</geometries>\n</scene>\n")
+                .matches(".*scene\\.xml:4:\\d+: <cube> unknown geometry"), "Unknown geometry must be reported");
+        assertTrue(error("<scene background-color=\"0 0 0\">\n<light-source>\n<point intensity=\"1 1 1\"/>\n"
+                        + "</light-source>\n</scene>\n").matches(".*scene\\.xml:3:\\d+: <point> missing attribute 'p0'"),
+                "Missing attribute must be reported");
+        assertTrue(error("<scene background-color=\"0 0 0\">\n<geometries>\n<plane point=\"0 0 0\" vector=\"0 0 0\"/>\n"
+                        + "</geometries>\n</scene>\n").matches(".*scene\\.xml:3:\\d+: <plane> .+"),
+                "Illegal value must be reported with its position");
+        // EP3: Not well-formed file
+        assertTrue(error("<scene background-color=\"0 0 0\">\n<geometries>\n</scene>\n")
+                .matches(".*scene\\.xml:3:\\d+: .+"), "Not well-formed file must be reported with its position");
+
+        // =============== Boundary Values Tests ==================
+        // BVA1: Scene without light sources and ambient light
+        file = write("<scene background-color=\"1 1 1\"><geometries/></scene>");
+        scene = new Scene("empty");
+        SceneBuilder.sceneParser(scene, file.toString());
+        assertTrue(scene.lights.isEmpty(), "Scene without light sources");
+        assertTrue(scene.geometries.getGeometries().isEmpty(), "Scene without geometries");
+        // BVA2: Geometry with child elements
+        assertTrue(error("<scene background-color=\"0 0 0\"><geometries>\n<sphere center=\"0 0 0\" radius=\"1\">"
+                        + "<sphere center=\"0 0 0\" radius=\"1\"/></sphere></geometries></scene>")
+                .contains("must not have child elements"), "Geometry with child elements must be reported");
+    }
+
+    /**
+     * Test method for {@link scene.SceneBuilder#sceneParser(Scene, String, boolean)}
+     */
+    @Test
+    public void testSceneParserParallel() throws IOException {
+        // a scene of more spheres than a batch of the parallel parsing
+        StringBuilder xml = new StringBuilder("<scene background-color=\"0 0 0\"><geometries>\n");
+        for (int i = 0; i < 600; ++i)
+            xml.append("<sphere center=\"").append(i).append(" 0 0\" radius=\"").append(i % 7 + 1).append("\"/>\n");
+        Path file = write(xml.append("</geometries></scene>").toString());
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: The geometries are created in the order of their elements
+        Scene scene = new Scene("parallel");
+        SceneBuilder.sceneParser(scene, file.toString(), true);
+        List<Intersectable> geometries = scene.geometries.getGeometries();
+        assertEquals(600, geometries.size(), "Wrong amount of geometries");
+        for (int i = 0; i < 600; ++i) {
+            Sphere sphere = (Sphere) geometries.get(i);
+            assertEquals(new Point(i, 0, 0), sphere.getCenter(), "Wrong order of the geometries");
+            assertEquals(i % 7 + 1, sphere.getRadius(), "Wrong geometry");
+        }
+        // EP2: Error in a batch is reported with its position
+        Path bad = write(xml.toString().replace("center=\"300 0 0\"", "center=\"300 0\""));
+        String message = assertThrows(IOException.class,
+                () -> SceneBuilder.sceneParser(new Scene("bad"), bad.toString(), true),
+                "Malformed geometry must throw").getMessage();
+        assertTrue(message.matches(".*scene\\.xml:302:\\d+: <sphere> malformed numbers.*"),
+                "Wrong position of the error");
+    }
+}
@@ -0,0 +1,198 @@
+package scene;
+
+import geometries.Intersectable;
+import geometries.Mesh;
+import geometries.Plane;
+import lighting.PointLight;
+import lighting.SpotLight;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+import renderer.RayTracerRegular;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for scene.SceneCache class
+ *
+ * @author Sarah Daatyah Furmanski and Efrat Kartman
+ */
+public class SceneCacheTests {
+    @TempDir
+    Path directory;
+
+    /**
+     * a scene of all the kinds of geometries and light sources that the XML files have
+     */
+    private static final String SCENE = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <scene background-color="10 20 30">
+                <ambient-light color="255 255 255" ka="0.1"/>
+                <geometries>
+                    <triangle p0="-70 90 -150" p1="70 90 -150" p2="100 120 0" kd="0.5" ks="0.5" shininess="20"/>
+                    <sphere center="0 0 -100" radius="30" emission="100 50 25" kd="0.2 0.3 0.4" kt="0.6"/>
+                    <cylinder radius="60" p0="0 -85 -40" vector="0 1 0" height="90" kr="0.3" kt="0.4"/>
+                    <mesh file="triangle.obj" smooth="true" kd="0.5"/>
+                </geometries>
+                <light-source>
+                    <point intensity="800 500 250" p0="30 70 -100" kq="0.25" kl="0.01"/>
+                    <spot intensity="400 400 400" p0="0 100 0" vector="0 -1 -1" kq="0.001" kl="0.002"/>
+                    <directional intensity="100 100 100" vector="0 0 -1"/>
+                </light-source>
+            </scene>
+            """;
+
+    /**
+     * writes the scene files - the XML file and its model file
+     *
+     * @param xml the content of the XML file
+     * @return the XML file
+     * @throws Exception if the files can't be written
+     */
+    private Path writeScene(String xml) throws Exception {
+        Files.writeString(directory.resolve("triangle.obj"), "v 0 0 -10\nv 10 0 -10\nv 0 10 -10\nf 1 2 3\n",
+                StandardCharsets.US_ASCII);
+        return Files.writeString(directory.resolve("scene.xml"), xml, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * @param cache    the cache
+     * @param xml      the XML file
+     * @param compiled whether the scene must be loaded from its compiled file
+     * @return a scene loaded by the cache
+     * @throws Exception if the scene can't be loaded
+     */
+    private static Scene load(SceneCache cache, Path xml, boolean compiled) throws Exception {
+        Scene scene = new Scene("cached");
+        assertEquals(compiled, cache.load(scene, xml.toString()),
+                compiled ? "Scene must be loaded from its compiled file" : "Scene must be parsed");
+        return scene;
+    }
+
+    /**
+     * @param cacheDirectory the directory of the cache
+     * @return amount of the compiled files in the directory
+     * @throws Exception if the directory can't be listed
+     */
+    private long compiledFiles(Path cacheDirectory) throws Exception {
+        try (Stream<Path> files = Files.list(cacheDirectory)) {
+            return files.filter(file -> file.toString().endsWith(".scene")).count();
+        }
+    }
+
+    /**
+     * Test method for {@link scene.SceneCache#load(Scene, String)}
+     */
+    @Test
+    public void testLoad() throws Exception {
+        Path xml = writeScene(SCENE);
+        Path cacheDirectory = directory.resolve("cache");
+        SceneCache cache = new SceneCache(cacheDirectory);
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: The first load parses the scene and compiles it, the second load maps the compiled file
+        Scene parsed = load(cache, xml, false);
+        assertEquals(1, compiledFiles(cacheDirectory), "The scene must be compiled");
+        Scene loaded = load(cache, xml, true);
+        assertEquals(parsed.background.getRgb(), loaded.background.getRgb(), "Wrong background");
+        assertEquals(parsed.ambientLight.getIntensity().getRgb(), loaded.ambientLight.getIntensity().getRgb(),
+                "Wrong ambient light");
+        List<Intersectable> expected = parsed.geometries.getGeometries();
+        List<Intersectable> actual = loaded.geometries.getGeometries();
+        assertEquals(expected.size(), actual.size(), "Wrong amount of geometries");
+        for (int i = 0; i < expected.size(); ++i)
+            assertSame(expected.get(i).getClass(), actual.get(i).getClass(), "Wrong kind of geometry");
+        assertTrue(((Mesh) actual.get(3)).isSmooth(), "The normals of the mesh must be kept");
+        Random random = new Random(5);
+        for (int i = 0; i < 200; ++i) {
+            Ray ray = new Ray(new Point(random.nextDouble() * 40 - 20, random.nextDouble() * 40 - 20, 50),
+                    new Vector(random.nextDouble() * 2 - 1, random.nextDouble() * 2 - 1, -1));
+            Intersectable.GeoPoint gp1 = parsed.geometries.findClosestIntersection(ray);
+            Intersectable.GeoPoint gp2 = loaded.geometries.findClosestIntersection(ray);
+            assertEquals(gp1 == null, gp2 == null, "Wrong intersection");
+            if (gp1 != null) {
+                assertEquals(gp1.point, gp2.point, "Wrong intersection point");
+                assertEquals(gp1.geometry.getMaterial().kT, gp2.geometry.getMaterial().kT, "Wrong material");
+                assertEquals(gp1.geometry.getEmission().getRgb(), gp2.geometry.getEmission().getRgb(),
+                        "Wrong emission");
+            }
+        }
+        assertEquals(3, loaded.lights.size(), "Wrong amount of light sources");
+        Point p = new Point(5, 5, -50);
+        for (int i = 0; i < 3; ++i)
+            assertEquals(parsed.lights.get(i).getIntensity(p).getRgb(), loaded.lights.get(i).getIntensity(p).getRgb(),
+                    "Wrong light source");
+        assertEquals(0.002, ((SpotLight) loaded.lights.get(1)).getKl(), "Wrong attenuation factor");
+        assertEquals(0.25, ((PointLight) loaded.lights.get(0)).getKq(), "Wrong attenuation factor");
+        // EP2: The grid is compiled with the scene, and it is kept by calcVoxels
+        assertArrayEquals(parsed.resolutions, loaded.resolutions, "Wrong resolution of the grid");
+        assertEquals(parsed.getGridBoundary(), loaded.getGridBoundary(), "Wrong boundary of the grid");
+        assertEquals(parsed.voxels.getOccupiedCells(), loaded.voxels.getOccupiedCells(), "Wrong voxels");
+        assertEquals(parsed.getXEdgeVoxel(), loaded.getXEdgeVoxel(), "Wrong voxel size");
+        int cells = parsed.voxels.getNx() * parsed.voxels.getNy() * parsed.voxels.getNz();
+        for (int c = 0; c < cells; ++c) {
+            assertEquals(parsed.voxels.end(c) - parsed.voxels.start(c), loaded.voxels.end(c) - loaded.voxels.start(c),
+                    "Wrong amount of geometries in voxel " + c);
+            for (int i = 0; i < parsed.voxels.end(c) - parsed.voxels.start(c); ++i)
+                assertEquals(parsed.voxels.itemIndex(parsed.voxels.start(c) + i),
+                        loaded.voxels.itemIndex(loaded.voxels.start(c) + i), "Wrong geometry in voxel " + c);
+        }
+        RayTracerRegular parsedTracer = new RayTracerRegular(parsed), loadedTracer = new RayTracerRegular(loaded);
+        for (int i = 0; i < 200; ++i) {
+            Ray ray = new Ray(new Point(random.nextDouble() * 40 - 20, random.nextDouble() * 40 - 20, 50),
+                    new Vector(random.nextDouble() * 2 - 1, random.nextDouble() * 2 - 1, -1));
+            assertEquals(parsedTracer.traceRay(ray).getRgb(), loadedTracer.traceRay(ray).getRgb(),
+                    "The restored grid must trace as the compiled one");
+        }
+        VoxelGrid voxels = loaded.voxels;
+        loaded.calcVoxels();
+        assertSame(voxels, loaded.voxels, "The compiled grid must be kept");
+        loaded.setResolution(3);
+        loaded.calcVoxels();
+        assertNotSame(voxels, loaded.voxels, "The grid must be built again with another resolution");
+        // EP3: Changed XML file is compiled again
+        xml = writeScene(SCENE.replace("10 20 30", "30 20 10"));
+        assertEquals(30, load(cache, xml, false).background.getRgb().getD1(), "Wrong background of the changed scene");
+        assertEquals(2, compiledFiles(cacheDirectory), "The changed scene must be compiled");
+        load(cache, xml, true);
+        // EP4: Changed model file is compiled again
+        Path model = directory.resolve("triangle.obj");
+        Files.setLastModifiedTime(model, FileTime.fromMillis(Files.getLastModifiedTime(model).toMillis() - 10000));
+        load(cache, xml, false);
+        load(cache, xml, true);
+
+        // =============== Boundary Values Tests ==================
+        // BVA1: Corrupt compiled file is compiled again
+        try (Stream<Path> files = Files.list(cacheDirectory)) {
+            for (Path file : files.toList())
+                Files.write(file, new byte[]{0x52, 0x54, 0x53, 0x43, 0, 0, 0, 1, 0});
+        }
+        load(cache, xml, false);
+        load(cache, xml, true);
+        // BVA2: Scene with an infinite geometry is compiled with a grid of the other geometries
+        xml = writeScene(SCENE.replace("<geometries>", "<geometries><plane point=\"0 0 -200\" vector=\"0 0 1\"/>"));
+        Scene bounded = load(cache, xml, false);
+        assertNotNull(bounded.voxels, "The geometries with a boundary must have a grid");
+        assertEquals(1, bounded.getUnbounded().length, "The infinite geometry must be out of the grid");
+        Scene infinite = load(cache, xml, true);
+        assertEquals(bounded.voxels.getItemsCount(), infinite.voxels.getItemsCount(), "Wrong compiled grid");
+        assertInstanceOf(Plane.class, infinite.geometries.getGeometries().get(0), "Wrong infinite geometry");
+        assertSame(infinite.geometries.getGeometries().get(0), infinite.getUnbounded()[0],
+                "The infinite geometry must be out of the compiled grid");
+        // BVA3: Scene of an infinite geometry only is compiled without a grid
+        xml = writeScene(SCENE.replaceAll("(?s)<geometries>.*</geometries>",
+                "<geometries><plane point=\"0 0 -200\" vector=\"0 0 1\"/></geometries>"));
+        assertNull(load(cache, xml, false).voxels, "Scene of an infinite geometry only has no grid");
+        assertNull(load(cache, xml, true).voxels, "Scene of an infinite geometry only has no grid");
+    }
+}
@@ -0,0 +1,108 @@
+package scene;
+
+import geometries.Intersectable;
+import geometries.Plane;
+import geometries.Sphere;
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Vector;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for scene.Scene class
+ *
+ * @author Sarah Daatyah Furmanski and Efrat Kartman
+ */
+public class SceneTests {
+
+    /**
+     * builds a scene of small spheres in a flat box
+     *
+     * @return the scene
+     */
+    private Scene flatScene() {
+        Scene scene = new Scene("flat scene");
+        for (int i = 0; i < 10; ++i)
+            for (int j = 0; j < 10; ++j)
+                scene.geometries.add(new Sphere(1, new Point(i * 10 + 5, j * 10 + 5, (i + j) % 2 * 8 + 1)));
+        return scene;
+    }
+
+    /**
+     * Test method for {@link scene.Scene#calcVoxels()}
+     */
+    @Test
+    public void testCalcVoxels() {
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: Automatic resolution - cube root rule on the longest axes, voxels close to cubes on the flat axis
+        Scene scene = flatScene();
+        scene.calcVoxels();
+        // the boundary is 92x92x10: 3 * cbrt(100) = 13.9 voxels on the edges of 92, 10 / 92 of it on the edge of 10
+        assertArrayEquals(new int[]{14, 14, 2}, scene.resolutions, "Wrong automatic resolution");
+        assertEquals(14, scene.voxels.getNx(), "Grid must be built with the automatic resolution");
+        assertEquals(100, scene.voxels.getItemsCount(), "All the geometries must be in the grid");
+        // EP2: Resolution of each axis given
+        scene = flatScene().setResolution(5, 4, 2);
+        scene.calcVoxels();
+        assertArrayEquals(new int[]{5, 4, 2}, scene.resolutions, "Wrong given resolution");
+        // EP3: Same resolution on all the axes given
+        scene = flatScene().setResolution(10);
+        scene.calcVoxels();
+        assertArrayEquals(new int[]{10, 10, 10}, scene.resolutions, "Wrong given resolution");
+
+        // =============== Boundary Values Tests ==================
+        // BVA1: Single geometry - at least one voxel on each axis
+        scene = new Scene("single");
+        scene.geometries.add(new Sphere(1, new Point(0, 0, 0)));
+        scene.calcVoxels();
+        assertArrayEquals(new int[]{3, 3, 3}, scene.resolutions, "Wrong resolution of a single geometry");
+        assertEquals(27, scene.voxels.getOccupiedCells(), "The geometry must be in all the voxels");
+        // BVA2: Negative resolution
+        assertThrows(IllegalArgumentException.class, () -> new Scene("bad").setResolution(-1),
+                "Negative resolution must be rejected");
+        // BVA3: Infinite geometry is kept out of the grid
+        scene = flatScene();
+        Plane floor = new Plane(new Point(0, 0, -10), new Vector(0, 0, 1));
+        scene.geometries.add(floor);
+        scene.calcVoxels();
+        assertArrayEquals(new int[]{14, 14, 2}, scene.resolutions, "The infinite geometry must not change the grid");
+        assertEquals(100, scene.voxels.getItemsCount(), "The infinite geometry must not be in the grid");
+        assertArrayEquals(new Intersectable[]{floor}, scene.getUnbounded(), "Wrong infinite geometries");
+        // BVA4: Infinite geometries only - no grid
+        scene = new Scene("floor");
+        scene.geometries.add(floor);
+        scene.calcVoxels();
+        assertNull(scene.voxels, "A scene of infinite geometries must have no grid");
+        assertEquals(1, scene.getUnbounded().length, "Wrong infinite geometries");
+    }
+
+    /**
+     * Test method for {@link scene.Scene#setSubgridThreshold(int)}
+     */
+    @Test
+    public void testSetSubgridThreshold() {
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: The voxels of more geometries than the threshold get nested grids (4 x 4 spheres in a voxel)
+        Scene scene = flatScene().setResolution(3, 3, 1).setSubgridThreshold(10);
+        scene.calcVoxels();
+        int nested = 0;
+        for (int x = 0; x < 3; ++x)
+            for (int y = 0; y < 3; ++y)
+                if (scene.voxels.getSubgrid(scene.voxels.getCell(x, y, 0)) != null) ++nested;
+        assertTrue(nested > 0, "Dense voxels must have nested grids");
+        // EP2: Threshold above the geometries of the voxels
+        scene = flatScene().setResolution(3, 3, 1).setSubgridThreshold(100);
+        scene.calcVoxels();
+        assertNull(scene.voxels.getSubgrid(scene.voxels.getCell(1, 1, 0)), "Sparse voxels must not be nested");
+
+        // =============== Boundary Values Tests ==================
+        // BVA1: No nested grids
+        scene = flatScene().setResolution(1).setSubgridThreshold(0);
+        scene.calcVoxels();
+        assertNull(scene.voxels.getSubgrid(0), "Nested grids must be disabled");
+        // BVA2: Negative threshold
+        assertThrows(IllegalArgumentException.class, () -> new Scene("bad").setSubgridThreshold(-1),
+                "Negative threshold must be rejected");
+    }
+}
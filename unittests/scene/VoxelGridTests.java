@@ -0,0 +1,123 @@
+package scene;
+
+import geometries.Intersectable;
+import geometries.Sphere;
+import geometries.Triangle;
+import org.junit.jupiter.api.Test;
+import primitives.AABB;
+import primitives.Point;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for scene.VoxelGrid class
+ *
+ * @author Sarah Daatyah Furmanski and Efrat Kartman
+ */
+public class VoxelGridTests {
+
+    /**
+     * Test method for {@link scene.VoxelGrid#VoxelGrid(int, int, int, Intersectable[], int[][])}
+     */
+    @Test
+    public void testVoxelGrid() {
+        Sphere a = new Sphere(1, new Point(0, 0, 0));
+        Sphere b = new Sphere(1, new Point(5, 0, 0));
+        VoxelGrid grid = new VoxelGrid(3, 2, 1, new Intersectable[]{a, b},
+                new int[][]{{0, 1, 0, 0, 0, 0}, {1, 5, -2, 1, 0, 0}});
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: Voxel of one geometry
+        int cell = grid.getCell(0, 0, 0);
+        assertEquals(1, grid.end(cell) - grid.start(cell), "Wrong amount of geometries in the voxel");
+        assertSame(a, grid.item(grid.start(cell)), "Wrong geometry in the voxel");
+        // EP2: Voxel of two geometries, in the order of the geometries
+        cell = grid.getCell(1, 0, 0);
+        assertEquals(2, grid.end(cell) - grid.start(cell), "Wrong amount of geometries in the voxel");
+        assertSame(a, grid.item(grid.start(cell)), "Wrong first geometry in the voxel");
+        assertEquals(1, grid.itemIndex(grid.start(cell) + 1), "Wrong index of the second geometry in the voxel");
+        // EP3: Empty voxel
+        cell = grid.getCell(0, 1, 0);
+        assertEquals(grid.start(cell), grid.end(cell), "Voxel must be empty");
+
+        // =============== Boundary Values Tests ==================
+        // BVA1: Range outside the grid is clamped to the grid
+        cell = grid.getCell(2, 1, 0);
+        assertSame(b, grid.item(grid.start(cell)), "Range must be clamped to the grid");
+        // BVA2: Coordinates outside the grid
+        assertEquals(-1, grid.getCell(3, 0, 0), "Coordinates outside the grid must have no voxel");
+        assertEquals(-1, grid.getCell(0, -1, 0), "Coordinates outside the grid must have no voxel");
+        // BVA3: Grid without voxels
+        assertThrows(IllegalArgumentException.class,
+                () -> new VoxelGrid(0, 1, 1, new Intersectable[0], new int[0][]), "Grid must have voxels");
+    }
+
+    /**
+     * Test method for {@link scene.VoxelGrid#subdivide(AABB, int)}
+     */
+    @Test
+    public void testSubdivide() {
+        //8 small spheres in the voxel (0,0,0) of the box (0,0,0)-(8,8,8), and a big sphere in the voxels (0..1,0,0)
+        Intersectable[] items = new Intersectable[9];
+        for (int i = 0; i < 8; ++i)
+            items[i] = new Sphere(0.2, new Point(0.5 + i % 2 * 2, 0.5 + i / 2 % 2 * 2, 0.5 + i / 4 * 2));
+        items[8] = new Sphere(2.5, new Point(4, 2, 2));
+        int[][] ranges = new int[9][];
+        for (int i = 0; i < 8; ++i)
+            ranges[i] = new int[]{0, 0, 0, 0, 0, 0};
+        ranges[8] = new int[]{0, 1, 0, 0, 0, 0};
+        VoxelGrid grid = new VoxelGrid(2, 2, 2, items, ranges);
+        AABB boundary = new AABB(0, 0, 0, 8, 8, 8);
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: The voxel with more geometries than the threshold gets a nested grid over its box
+        assertEquals(1, grid.subdivide(boundary, 4), "One voxel must be subdivided");
+        VoxelGrid subgrid = grid.getSubgrid(grid.getCell(0, 0, 0));
+        assertNotNull(subgrid, "The dense voxel must have a nested grid");
+        assertTrue(subgrid.getNx() > 1 && subgrid.getNy() > 1 && subgrid.getNz() > 1,
+                "The nested grid must divide the voxel");
+        assertEquals(9, subgrid.getItemsCount(), "The nested grid shares the geometries of its grid");
+        assertNull(grid.getSubgrid(grid.getCell(1, 0, 0)), "A sparse voxel must not have a nested grid");
+        // EP2: The nested voxels hold the geometries by their index in the grid
+        int cell = subgrid.getCell(0, 0, 0);
+        assertEquals(1, subgrid.end(cell) - subgrid.start(cell), "Wrong amount of geometries in the nested voxel");
+        assertSame(items[0], subgrid.item(subgrid.start(cell)), "Wrong geometry in the nested voxel");
+        int last = subgrid.getCell(subgrid.getNx() - 1, subgrid.getNy() - 1, subgrid.getNz() - 1);
+        assertEquals(8, subgrid.itemIndex(subgrid.end(last) - 1), "Wrong index of the geometry in the nested voxel");
+
+        // =============== Boundary Values Tests ==================
+        // BVA1: A voxel with exactly the threshold of geometries is not subdivided
+        assertEquals(0, grid.subdivide(boundary, 9), "No voxel must be subdivided");
+        assertNull(grid.getSubgrid(grid.getCell(0, 0, 0)), "The former nested grids must be replaced");
+    }
+
+    /**
+     * Test method for {@link scene.VoxelGrid#VoxelGrid(int, int, int, Intersectable[], int[][], AABB)}
+     */
+    @Test
+    public void testVoxelGridOverlap() {
+        //a triangle across the diagonal of the grid 4x4x1 over the box (0,0,0)-(4,4,1)
+        Intersectable triangle = new Triangle(new Point(0, 0, 0.5), new Point(4, 0, 0.5), new Point(0, 4, 0.5));
+        VoxelGrid grid = new VoxelGrid(4, 4, 1, new Intersectable[]{triangle}, new int[][]{{0, 3, 0, 3, 0, 0}},
+                new AABB(0, 0, 0, 4, 4, 1));
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP1: The voxels the geometry overlaps hold it
+        int cell = grid.getCell(1, 1, 0);
+        assertEquals(1, grid.end(cell) - grid.start(cell), "Voxel under the triangle must hold it");
+        assertSame(triangle, grid.item(grid.start(cell)), "Wrong geometry in the voxel");
+        // EP2: The voxels of the range the geometry doesn't overlap are empty
+        cell = grid.getCell(3, 3, 0);
+        assertEquals(grid.start(cell), grid.end(cell), "Voxel beyond the triangle must be empty");
+        assertEquals(13, grid.getOccupiedCells(), "Wrong amount of occupied voxels");
+
+        // =============== Boundary Values Tests ==================
+        // BVA1: The geometry touches the corner of the voxel
+        cell = grid.getCell(2, 2, 0);
+        assertEquals(1, grid.end(cell) - grid.start(cell), "Voxel touching the triangle must hold it");
+        // BVA2: A range of one voxel - the voxel holds the geometry
+        grid = new VoxelGrid(4, 4, 1, new Intersectable[]{triangle}, new int[][]{{3, 3, 3, 3, 0, 0}},
+                new AABB(0, 0, 0, 4, 4, 1));
+        assertEquals(1, grid.getOccupiedCells(), "The voxel of the range must hold the geometry");
+    }
+}